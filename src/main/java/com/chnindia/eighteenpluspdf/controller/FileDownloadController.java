@@ -1,89 +1,309 @@
 package com.chnindia.eighteenpluspdf.controller;
 
+import com.chnindia.eighteenpluspdf.util.ByteRanges;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
+import com.chnindia.eighteenpluspdf.util.ResultArchive;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
+/**
+ * Serves output files with byte ranges, strong ETags and conditional requests.
+ *
+ * Bodies are sent with Tomcat's sendfile when the connector offers it, and otherwise with
+ * {@link FileChannel#transferTo}, so file bytes are not copied through the heap.
+ */
 @RestController
 @RequestMapping("/pdf")
 @Tag(name = "File Download", description = "Download processed PDF files")
 public class FileDownloadController {
-    
+
+    private static final Logger logger = LoggerFactory.getLogger(FileDownloadController.class);
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     @Autowired
     private FileUtil fileUtil;
-    
+
     @GetMapping("/download/{filename}")
-    @Operation(summary = "Download file", description = "Download a processed PDF file")
+    @Operation(summary = "Download file", description = "Download a processed PDF file; supports Range, If-Range, If-None-Match and If-Modified-Since")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "File downloaded successfully"),
+        @ApiResponse(responseCode = "206", description = "Requested byte ranges"),
+        @ApiResponse(responseCode = "304", description = "File not modified"),
         @ApiResponse(responseCode = "404", description = "File not found"),
-        @ApiResponse(responseCode = "400", description = "Invalid filename")
+        @ApiResponse(responseCode = "400", description = "Invalid filename"),
+        @ApiResponse(responseCode = "416", description = "Range not satisfiable")
     })
-    public ResponseEntity<Resource> downloadFile(
+    public void downloadFile(
             @Parameter(description = "Filename to download", required = true)
-            @PathVariable String filename) {
-        
-        try {
-            // Sanitize filename to prevent path traversal
-            if (!fileUtil.isSafePath(filename)) {
-                return ResponseEntity.badRequest().build();
-            }
-            
-            Path file = Paths.get("./data/output").resolve(filename).normalize();
-            
-            if (!Files.exists(file)) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            Resource resource = new UrlResource(file.toUri());
-            
-            String contentType = Files.probeContentType(file);
-            if (contentType == null) {
-                contentType = "application/octet-stream";
-            }
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-                    .body(resource);
-            
-        } catch (MalformedURLException e) {
-            return ResponseEntity.badRequest().build();
-        } catch (IOException e) {
-            return ResponseEntity.internalServerError().build();
+            @PathVariable String filename,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        // Sanitize filename to prevent path traversal
+        Path file = fileUtil.resolveOutputFile(filename);
+        if (file == null) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (!Files.isRegularFile(file)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+        String etag = fileUtil.contentETag(file);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        String contentType = Files.probeContentType(file);
+        if (contentType == null) {
+            contentType = "application/octet-stream";
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+
+        List<ByteRanges.Range> ranges = rangeApplies(request, etag, lastModified)
+            ? ByteRanges.parse(request.getHeader(HttpHeaders.RANGE), length)
+            : null;
+
+        if (ranges != null && ranges.isEmpty()) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            response.setContentLengthLong(length);
+            sendFile(request, response, file, 0, length);
+        } else if (ranges.size() == 1) {
+            ByteRanges.Range range = ranges.get(0);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range, length));
+            response.setContentLengthLong(range.length());
+            sendFile(request, response, file, range.start(), range.length());
+        } else {
+            sendMultipart(response, file, ranges, length, contentType);
         }
     }
+
+    @GetMapping("/download/archive")
+    @Operation(summary = "Download files as ZIP", description = "Stream several output files as one ZIP archive; the archive is built while it is sent and never stored")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Archive streamed"),
+        @ApiResponse(responseCode = "404", description = "A file was not found"),
+        @ApiResponse(responseCode = "400", description = "Invalid filename")
+    })
+    public void downloadArchive(
+            @Parameter(description = "Output files to include, comma separated", required = true)
+            @RequestParam List<String> files,
+            @Parameter(description = "Archive file name")
+            @RequestParam(required = false) String name,
+            HttpServletResponse response) throws IOException {
+        
+        streamArchive(files, name, response);
+    }
     
+    @PostMapping("/download/archive")
+    @Operation(summary = "Download files as ZIP", description = "Same as the GET form, for file lists too long for a URL")
+    public void downloadArchiveOfList(
+            @RequestBody List<String> files,
+            @Parameter(description = "Archive file name")
+            @RequestParam(required = false) String name,
+            HttpServletResponse response) throws IOException {
+        
+        streamArchive(files, name, response);
+    }
+
     @GetMapping("/download/{jobId}/{filename}")
     @Operation(summary = "Download job file", description = "Download a file from a specific job")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "File downloaded successfully"),
         @ApiResponse(responseCode = "404", description = "File not found")
     })
-    public ResponseEntity<Resource> downloadJobFile(
+    public void downloadJobFile(
             @Parameter(description = "Job ID", required = true)
             @PathVariable String jobId,
             @Parameter(description = "Filename", required = true)
-            @PathVariable String filename) {
-        
+            @PathVariable String filename,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
         // For now, just use the filename
         // In production, you might want to verify the job belongs to the user
-        return downloadFile(filename);
+        downloadFile(filename, request, response);
+    }
+
+    private void streamArchive(List<String> files, String name, HttpServletResponse response) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        for (String filename : files) {
+            Path file = fileUtil.resolveOutputFile(filename);
+            if (file == null) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return;
+            }
+            if (!Files.isRegularFile(file)) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            paths.add(file);
+        }
+        String archiveName = name != null && name.matches("[A-Za-z0-9._-]+") ? name : "results.zip";
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + archiveName + "\"");
+        try (ResultArchive archive = new ResultArchive(response.getOutputStream())) {
+            for (Path file : paths) {
+                archive.add(file.getFileName().toString(), file);
+            }
+        }
+        logger.debug("Streamed {} files as {}", paths.size(), archiveName);
+    }
+
+    /**
+     * If-None-Match takes precedence; If-Modified-Since is only consulted without it
+     */
+    private boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matches(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * A Range header is honoured unless If-Range names another version of the file
+     */
+    private boolean rangeApplies(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        long date = dateHeader(request, HttpHeaders.IF_RANGE);
+        return date >= 0 && date == lastModified;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static String contentRange(ByteRanges.Range range, long length) {
+        return "bytes " + range.start() + "-" + range.end() + "/" + length;
+    }
+
+    /**
+     * Hand the region to the connector's sendfile, or transfer it from the file channel
+     */
+    private void sendFile(HttpServletRequest request, HttpServletResponse response, Path file,
+                          long start, long count) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        OutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, count, Channels.newChannel(out));
+        }
+        out.flush();
+    }
+
+    private void sendMultipart(HttpServletResponse response, Path file,
+                               List<ByteRanges.Range> ranges, long length, String contentType) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        byte[][] partHeaders = new byte[ranges.size()][];
+        long total = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            ByteRanges.Range range = ranges.get(i);
+            partHeaders[i] = ("\r\n--" + boundary + "\r\n"
+                + "Content-Type: " + contentType + "\r\n"
+                + "Content-Range: " + contentRange(range, length) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+            total += partHeaders[i].length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        total += closing.length;
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(total);
+
+        OutputStream out = response.getOutputStream();
+        WritableByteChannel target = Channels.newChannel(out);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (int i = 0; i < ranges.size(); i++) {
+                out.write(partHeaders[i]);
+                transfer(channel, ranges.get(i).start(), ranges.get(i).length(), target);
+            }
+        }
+        out.write(closing);
+        out.flush();
+        logger.debug("Sent {} ranges of {}", ranges.size(), file.getFileName());
+    }
+
+    private static void transfer(FileChannel channel, long start, long count, WritableByteChannel target) throws IOException {
+        long sent = 0;
+        while (sent < count) {
+            long n = channel.transferTo(start + sent, count - sent, target);
+            if (n <= 0) {
+                throw new IOException("File ended before the requested range");
+            }
+            sent += n;
+        }
     }
-}
\ No newline at end of file
+}
@@ -12,10 +12,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -1087,7 +1090,8 @@ public class PDFProcessingController {
             @RequestParam(defaultValue = "85") Integer imageQuality,
             @Parameter(description = "Subset fonts")
             @RequestParam(defaultValue = "true") Boolean subsetFonts,
-            @Parameter(description = "Linearize")
+            @Parameter(description = "Linearize for fast web view. The linearized file has a classic cross-reference "
+                + "table and no object streams, so it is usually larger than the default output")
             @RequestParam(defaultValue = "false") Boolean linearize,
             @Parameter(description = "Output filename")
             @RequestParam(required = false) String outputFileName) {
@@ -1440,6 +1444,32 @@ public class PDFProcessingController {
         return ResponseEntity.ok(response);
     }
     
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream job progress", description = "Server-Sent Events stream of progress, stage changes and the final result of a job")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream opened"),
+        @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    public SseEmitter streamJobEvents(
+            @Parameter(description = "Job ID", required = true)
+            @PathVariable String jobId) {
+        
+        return jobQueueService.streamJobEvents(List.of(jobId));
+    }
+    
+    @GetMapping(value = "/jobs/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream progress of several jobs", description = "Server-Sent Events stream for a set of jobs; completes when all of them finish")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream opened"),
+        @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    public SseEmitter streamJobsEvents(
+            @Parameter(description = "Job IDs", required = true)
+            @RequestParam List<String> jobIds) {
+        
+        return jobQueueService.streamJobEvents(jobIds);
+    }
+    
     @DeleteMapping("/jobs/{jobId}")
     @Operation(summary = "Cancel job", description = "Cancel a running job")
     @ApiResponses(value = {
@@ -1456,20 +1486,25 @@ public class PDFProcessingController {
     }
     
     @GetMapping("/jobs")
-    @Operation(summary = "List jobs", description = "List all jobs or filter by status")
+    @Operation(summary = "List jobs", description = "List jobs newest first, optionally filtered by status. " +
+               "Pass the returned nextCursor as cursor to fetch the next page.")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Jobs retrieved")
     })
     public ResponseEntity<?> listJobs(
             @Parameter(description = "Status filter")
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @Parameter(description = "Cursor from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "50") int limit) {
         
         com.chnindia.eighteenpluspdf.model.JobStatus.Status statusEnum = null;
         if (status != null) {
             statusEnum = com.chnindia.eighteenpluspdf.model.JobStatus.Status.valueOf(status.toUpperCase());
         }
         
-        var jobs = jobQueueService.getJobs(statusEnum);
+        var jobs = jobQueueService.listJobs(statusEnum, cursor, limit);
         return ResponseEntity.ok(jobs);
     }
     
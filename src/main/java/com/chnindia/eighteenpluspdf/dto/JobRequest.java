@@ -16,6 +16,8 @@ public class JobRequest {
     private Map<String, Object> parameters;
     
     private String apiKey;
+    
+    private Integer priority;
 
     // Getters and Setters
     public String getToolName() { return toolName; }
@@ -29,4 +31,7 @@ public class JobRequest {
 
     public String getApiKey() { return apiKey; }
     public void setApiKey(String apiKey) { this.apiKey = apiKey; }
+
+    public Integer getPriority() { return priority; }
+    public void setPriority(Integer priority) { this.priority = priority; }
 }
\ No newline at end of file
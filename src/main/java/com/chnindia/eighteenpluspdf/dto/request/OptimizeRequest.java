@@ -22,6 +22,7 @@ public class OptimizeRequest {
     
     private Boolean subsetFonts = true;
     
+    // Linearized output has a classic cross-reference table and no object streams, so it is usually larger
     private Boolean linearize = false;
 
     // Getters and Setters
@@ -0,0 +1,88 @@
+package com.chnindia.eighteenpluspdf.dto.response;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One processing attempt of a job, as recorded in the job's attempt history
+ */
+public class JobAttempt {
+
+    private static final TypeReference<List<JobAttempt>> HISTORY_TYPE = new TypeReference<>() {};
+    private static final ObjectMapper HISTORY_MAPPER = new ObjectMapper()
+        .findAndRegisterModules()
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private int attempt;
+    private String node;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long durationMs;
+    private String outcome;
+    private String errorCode;
+    private String errorMessage;
+    private Boolean retryable;
+    private LocalDateTime nextAttemptAt;
+
+    public JobAttempt() {}
+
+    public JobAttempt(int attempt, String node, LocalDateTime startedAt) {
+        this.attempt = attempt;
+        this.node = node;
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Parse the attempt history stored on a job row
+     */
+    public static List<JobAttempt> readHistory(String json) {
+        if (json == null || json.isBlank()) {
+            return List.of();
+        }
+        try {
+            return HISTORY_MAPPER.readValue(json, HISTORY_TYPE);
+        } catch (JsonProcessingException e) {
+            return List.of();
+        }
+    }
+
+    public static String writeHistory(List<JobAttempt> history) throws JsonProcessingException {
+        return HISTORY_MAPPER.writeValueAsString(history);
+    }
+
+    // Getters and Setters
+    public int getAttempt() { return attempt; }
+    public void setAttempt(int attempt) { this.attempt = attempt; }
+
+    public String getNode() { return node; }
+    public void setNode(String node) { this.node = node; }
+
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(LocalDateTime finishedAt) { this.finishedAt = finishedAt; }
+
+    public Long getDurationMs() { return durationMs; }
+    public void setDurationMs(Long durationMs) { this.durationMs = durationMs; }
+
+    public String getOutcome() { return outcome; }
+    public void setOutcome(String outcome) { this.outcome = outcome; }
+
+    public String getErrorCode() { return errorCode; }
+    public void setErrorCode(String errorCode) { this.errorCode = errorCode; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public Boolean getRetryable() { return retryable; }
+    public void setRetryable(Boolean retryable) { this.retryable = retryable; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+}
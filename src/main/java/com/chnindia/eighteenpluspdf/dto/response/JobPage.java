@@ -0,0 +1,32 @@
+package com.chnindia.eighteenpluspdf.dto.response;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated job listing.
+ * Pass nextCursor back as the cursor parameter to fetch the following page; it is null on the last page.
+ */
+public class JobPage {
+
+    private List<JobSummary> jobs;
+    private String nextCursor;
+    private int limit;
+
+    public JobPage() {}
+
+    public JobPage(List<JobSummary> jobs, String nextCursor, int limit) {
+        this.jobs = jobs;
+        this.nextCursor = nextCursor;
+        this.limit = limit;
+    }
+
+    // Getters and Setters
+    public List<JobSummary> getJobs() { return jobs; }
+    public void setJobs(List<JobSummary> jobs) { this.jobs = jobs; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public int getLimit() { return limit; }
+    public void setLimit(int limit) { this.limit = limit; }
+}
@@ -0,0 +1,95 @@
+package com.chnindia.eighteenpluspdf.dto.response;
+
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Progress, stage change or final result event for a single job
+ */
+public class JobProgressEvent {
+
+    public enum Type {
+        SNAPSHOT,
+        PROGRESS,
+        COMPLETED,
+        FAILED,
+        CANCELLED
+    }
+
+    private String jobId;
+    private Type type;
+    private JobStatus.Status status;
+    private Integer progress;
+    private String currentOperation;
+    private String resultUrl;
+    private String errorMessage;
+    private Map<String, Object> result;
+    private LocalDateTime timestamp;
+
+    public JobProgressEvent() {}
+
+    public JobProgressEvent(String jobId, Type type, JobStatus.Status status, Integer progress, String currentOperation) {
+        this.jobId = jobId;
+        this.type = type;
+        this.status = status;
+        this.progress = progress;
+        this.currentOperation = currentOperation;
+        this.timestamp = LocalDateTime.now();
+    }
+
+    public static JobProgressEvent snapshot(JobStatusResponse status) {
+        Type type = terminalType(status.getStatus());
+        JobProgressEvent event = new JobProgressEvent(status.getJobId(), type != null ? type : Type.SNAPSHOT,
+            status.getStatus(), status.getProgress(), status.getCurrentOperation());
+        event.setResultUrl(status.getResultUrl());
+        event.setErrorMessage(status.getErrorMessage());
+        return event;
+    }
+
+    /**
+     * Event type for a terminal status, or null if the status is not terminal
+     */
+    public static Type terminalType(JobStatus.Status status) {
+        if (status == null) return null;
+        return switch (status) {
+            case COMPLETED -> Type.COMPLETED;
+            case FAILED -> Type.FAILED;
+            case CANCELLED -> Type.CANCELLED;
+            default -> null;
+        };
+    }
+
+    public boolean isTerminal() {
+        return type == Type.COMPLETED || type == Type.FAILED || type == Type.CANCELLED;
+    }
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public JobStatus.Status getStatus() { return status; }
+    public void setStatus(JobStatus.Status status) { this.status = status; }
+
+    public Integer getProgress() { return progress; }
+    public void setProgress(Integer progress) { this.progress = progress; }
+
+    public String getCurrentOperation() { return currentOperation; }
+    public void setCurrentOperation(String currentOperation) { this.currentOperation = currentOperation; }
+
+    public String getResultUrl() { return resultUrl; }
+    public void setResultUrl(String resultUrl) { this.resultUrl = resultUrl; }
+
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+
+    public Map<String, Object> getResult() { return result; }
+    public void setResult(Map<String, Object> result) { this.result = result; }
+
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+}
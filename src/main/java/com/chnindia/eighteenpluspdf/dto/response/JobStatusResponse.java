@@ -3,6 +3,7 @@ package com.chnindia.eighteenpluspdf.dto.response;
 import com.chnindia.eighteenpluspdf.model.JobStatus;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Response DTO for job status information
@@ -21,6 +22,9 @@ public class JobStatusResponse {
     private Long processingTimeMs;
     private Integer progress;
     private String currentOperation;
+    private Integer attemptCount;
+    private LocalDateTime nextAttemptAt;
+    private List<JobAttempt> attempts;
     
     public JobStatusResponse() {}
     
@@ -37,6 +41,9 @@ public class JobStatusResponse {
         this.processingTimeMs = jobStatus.getProcessingTimeMs();
         this.progress = jobStatus.getProgress();
         this.currentOperation = jobStatus.getCurrentOperation();
+        this.attemptCount = jobStatus.getAttemptCount();
+        this.nextAttemptAt = jobStatus.getNextAttemptAt();
+        this.attempts = JobAttempt.readHistory(jobStatus.getAttemptHistory());
     }
 
     // Getters and Setters
@@ -75,4 +82,13 @@ public class JobStatusResponse {
 
     public String getCurrentOperation() { return currentOperation; }
     public void setCurrentOperation(String currentOperation) { this.currentOperation = currentOperation; }
+
+    public Integer getAttemptCount() { return attemptCount; }
+    public void setAttemptCount(Integer attemptCount) { this.attemptCount = attemptCount; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public List<JobAttempt> getAttempts() { return attempts; }
+    public void setAttempts(List<JobAttempt> attempts) { this.attempts = attempts; }
 }
\ No newline at end of file
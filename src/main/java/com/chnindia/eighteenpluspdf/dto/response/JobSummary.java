@@ -0,0 +1,65 @@
+package com.chnindia.eighteenpluspdf.dto.response;
+
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight job row for listings; selected directly by JPQL constructor expression
+ * so payloads and attempt histories are never loaded.
+ */
+public class JobSummary {
+
+    private String jobId;
+    private JobStatus.Status status;
+    private String toolName;
+    private String fileName;
+    private Integer progress;
+    private String resultUrl;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+    private Long processingTimeMs;
+
+    public JobSummary() {}
+
+    public JobSummary(String jobId, JobStatus.Status status, String toolName, String fileName, Integer progress,
+                      String resultUrl, LocalDateTime createdAt, LocalDateTime completedAt, Long processingTimeMs) {
+        this.jobId = jobId;
+        this.status = status;
+        this.toolName = toolName;
+        this.fileName = fileName;
+        this.progress = progress;
+        this.resultUrl = resultUrl;
+        this.createdAt = createdAt;
+        this.completedAt = completedAt;
+        this.processingTimeMs = processingTimeMs;
+    }
+
+    // Getters and Setters
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public JobStatus.Status getStatus() { return status; }
+    public void setStatus(JobStatus.Status status) { this.status = status; }
+
+    public String getToolName() { return toolName; }
+    public void setToolName(String toolName) { this.toolName = toolName; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public Integer getProgress() { return progress; }
+    public void setProgress(Integer progress) { this.progress = progress; }
+
+    public String getResultUrl() { return resultUrl; }
+    public void setResultUrl(String resultUrl) { this.resultUrl = resultUrl; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+
+    public Long getProcessingTimeMs() { return processingTimeMs; }
+    public void setProcessingTimeMs(Long processingTimeMs) { this.processingTimeMs = processingTimeMs; }
+}
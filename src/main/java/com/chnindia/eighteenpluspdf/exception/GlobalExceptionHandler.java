@@ -26,6 +26,9 @@ public class GlobalExceptionHandler {
             ex.getMessage(),
             ex.getDetails()
         );
+        if ("QUEUE_FULL".equals(ex.getErrorCode())) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
 
@@ -0,0 +1,31 @@
+package com.chnindia.eighteenpluspdf.exception;
+
+/**
+ * Thrown at a cancellation checkpoint once a job has been cancelled, has exceeded its deadline,
+ * or has been reclaimed by another node after this node lost its lease
+ */
+public class JobCancelledException extends PDFProcessingException {
+
+    private final boolean timedOut;
+    private final boolean leaseLost;
+
+    public JobCancelledException(String jobId, boolean timedOut) {
+        this(jobId, timedOut, false);
+    }
+
+    public JobCancelledException(String jobId, boolean timedOut, boolean leaseLost) {
+        super(leaseLost ? "JOB_LEASE_LOST" : timedOut ? "JOB_TIMEOUT" : "JOB_CANCELLED",
+            leaseLost ? "Job " + jobId + " was reclaimed by another node"
+                : timedOut ? "Job " + jobId + " exceeded its time limit" : "Job " + jobId + " was cancelled");
+        this.timedOut = timedOut;
+        this.leaseLost = leaseLost;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public boolean isLeaseLost() {
+        return leaseLost;
+    }
+}
@@ -4,7 +4,13 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "jobs")
+@Table(name = "jobs", indexes = {
+    @Index(name = "idx_jobs_created_at", columnList = "created_at, id"),
+    @Index(name = "idx_jobs_status", columnList = "status, created_at, id"),
+    @Index(name = "idx_jobs_tool_name", columnList = "tool_name, created_at"),
+    @Index(name = "idx_jobs_completed_at", columnList = "completed_at"),
+    @Index(name = "idx_jobs_result_hash", columnList = "result_hash")
+})
 public class JobStatus {
     @Id
     private String id;
@@ -24,6 +30,32 @@ public class JobStatus {
     private String currentOperation;
     private String resultHash;
     private Long fileSize;
+    private Integer priority;
+    
+    // Result cache key: input hash, tool and canonicalized parameters
+    @Column(length = 64)
+    private String cacheKey;
+    
+    // Shared-storage location of the spooled input and the serialized job parameters
+    @Column(updatable = false, length = 1024)
+    private String inputPath;
+    
+    @Column(updatable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    // Retry state: attempts made so far, when the next one may start, and a JSON history of attempts
+    private Integer attemptCount;
+    private LocalDateTime nextAttemptAt;
+    
+    @Column(columnDefinition = "TEXT")
+    private String attemptHistory;
+    
+    // Lease columns are only written by the claim/heartbeat queries in JobRepository
+    @Column(insertable = false, updatable = false)
+    private String leaseOwner;
+    
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime leaseExpiresAt;
 
     public enum Status {
         PENDING,
@@ -99,6 +131,30 @@ public class JobStatus {
     public Long getFileSize() { return fileSize; }
     public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
 
+    public Integer getPriority() { return priority; }
+    public void setPriority(Integer priority) { this.priority = priority; }
+
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+
+    public String getInputPath() { return inputPath; }
+    public void setInputPath(String inputPath) { this.inputPath = inputPath; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public Integer getAttemptCount() { return attemptCount; }
+    public void setAttemptCount(Integer attemptCount) { this.attemptCount = attemptCount; }
+
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public String getAttemptHistory() { return attemptHistory; }
+    public void setAttemptHistory(String attemptHistory) { this.attemptHistory = attemptHistory; }
+
+    public String getLeaseOwner() { return leaseOwner; }
+    public LocalDateTime getLeaseExpiresAt() { return leaseExpiresAt; }
+
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
@@ -0,0 +1,76 @@
+package com.chnindia.eighteenpluspdf.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "result_cache", indexes = {
+    @Index(name = "idx_result_cache_last_accessed_at", columnList = "last_accessed_at")
+})
+public class ResultCacheEntry {
+    // SHA-256 of input hash, tool name and canonicalized parameters
+    @Id
+    @Column(length = 64)
+    private String cacheKey;
+    
+    private String inputHash;
+    private String toolName;
+    private String sourceJobId;
+    
+    @Column(length = 1024)
+    private String resultUrl;
+    
+    // Worker result map as JSON
+    @Column(columnDefinition = "TEXT")
+    private String resultData;
+    
+    // Output file names, one per line
+    @Column(columnDefinition = "TEXT")
+    private String outputFiles;
+    
+    private Long sizeBytes;
+    private Long hitCount;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastAccessedAt;
+
+    public ResultCacheEntry() {
+        this.createdAt = LocalDateTime.now();
+        this.lastAccessedAt = this.createdAt;
+        this.hitCount = 0L;
+        this.sizeBytes = 0L;
+    }
+
+    // Getters and Setters
+    public String getCacheKey() { return cacheKey; }
+    public void setCacheKey(String cacheKey) { this.cacheKey = cacheKey; }
+
+    public String getInputHash() { return inputHash; }
+    public void setInputHash(String inputHash) { this.inputHash = inputHash; }
+
+    public String getToolName() { return toolName; }
+    public void setToolName(String toolName) { this.toolName = toolName; }
+
+    public String getSourceJobId() { return sourceJobId; }
+    public void setSourceJobId(String sourceJobId) { this.sourceJobId = sourceJobId; }
+
+    public String getResultUrl() { return resultUrl; }
+    public void setResultUrl(String resultUrl) { this.resultUrl = resultUrl; }
+
+    public String getResultData() { return resultData; }
+    public void setResultData(String resultData) { this.resultData = resultData; }
+
+    public String getOutputFiles() { return outputFiles; }
+    public void setOutputFiles(String outputFiles) { this.outputFiles = outputFiles; }
+
+    public Long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(Long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public Long getHitCount() { return hitCount; }
+    public void setHitCount(Long hitCount) { this.hitCount = hitCount; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getLastAccessedAt() { return lastAccessedAt; }
+    public void setLastAccessedAt(LocalDateTime lastAccessedAt) { this.lastAccessedAt = lastAccessedAt; }
+}
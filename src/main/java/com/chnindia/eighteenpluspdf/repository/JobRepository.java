@@ -1,13 +1,17 @@
 package com.chnindia.eighteenpluspdf.repository;
 
+import com.chnindia.eighteenpluspdf.dto.response.JobSummary;
 import com.chnindia.eighteenpluspdf.model.JobStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,10 +60,104 @@ public interface JobRepository extends JpaRepository<JobStatus, String> {
     @Query("UPDATE JobStatus j SET j.progress = :progress, j.currentOperation = :operation, j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :jobId")
     void updateProgress(@Param("jobId") String jobId, @Param("progress") Integer progress, @Param("operation") String operation);
     
-    // Find by result hash (for deduplication)
-    Optional<JobStatus> findByResultHash(String resultHash);
+    // Find the latest job for an input hash
+    Optional<JobStatus> findFirstByResultHashOrderByCreatedAtDesc(String resultHash);
     
     // Find active jobs (not completed or failed)
     @Query("SELECT j FROM JobStatus j WHERE j.status IN ('PENDING', 'PROCESSING')")
     List<JobStatus> findActiveJobs();
-}
\ No newline at end of file
+    
+    // Count jobs in any of the given statuses
+    long countByStatusIn(Collection<JobStatus.Status> statuses);
+    
+    // Find the first page of job summaries, newest first
+    @Query("SELECT new com.chnindia.eighteenpluspdf.dto.response.JobSummary(j.id, j.status, j.toolName, j.fileName, " +
+           "j.progress, j.resultUrl, j.createdAt, j.completedAt, j.processingTimeMs) FROM JobStatus j " +
+           "ORDER BY j.createdAt DESC, j.id DESC")
+    List<JobSummary> findSummaries(Pageable pageable);
+    
+    // Find job summaries created before a (createdAt, id) keyset position
+    @Query("SELECT new com.chnindia.eighteenpluspdf.dto.response.JobSummary(j.id, j.status, j.toolName, j.fileName, " +
+           "j.progress, j.resultUrl, j.createdAt, j.completedAt, j.processingTimeMs) FROM JobStatus j " +
+           "WHERE j.createdAt < :createdAt OR (j.createdAt = :createdAt AND j.id < :id) " +
+           "ORDER BY j.createdAt DESC, j.id DESC")
+    List<JobSummary> findSummariesBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") String id,
+                                         Pageable pageable);
+    
+    // Find the first page of job summaries in a status, newest first
+    @Query("SELECT new com.chnindia.eighteenpluspdf.dto.response.JobSummary(j.id, j.status, j.toolName, j.fileName, " +
+           "j.progress, j.resultUrl, j.createdAt, j.completedAt, j.processingTimeMs) FROM JobStatus j " +
+           "WHERE j.status = :status ORDER BY j.createdAt DESC, j.id DESC")
+    List<JobSummary> findSummariesByStatus(@Param("status") JobStatus.Status status, Pageable pageable);
+    
+    // Find job summaries in a status created before a (createdAt, id) keyset position
+    @Query("SELECT new com.chnindia.eighteenpluspdf.dto.response.JobSummary(j.id, j.status, j.toolName, j.fileName, " +
+           "j.progress, j.resultUrl, j.createdAt, j.completedAt, j.processingTimeMs) FROM JobStatus j " +
+           "WHERE j.status = :status AND (j.createdAt < :createdAt OR (j.createdAt = :createdAt AND j.id < :id)) " +
+           "ORDER BY j.createdAt DESC, j.id DESC")
+    List<JobSummary> findSummariesByStatusBefore(@Param("status") JobStatus.Status status,
+                                                 @Param("createdAt") LocalDateTime createdAt, @Param("id") String id,
+                                                 Pageable pageable);
+    
+    // Find which of the given jobs are in a status
+    @Query("SELECT j.id FROM JobStatus j WHERE j.id IN :jobIds AND j.status = :status")
+    List<String> findIdsByStatus(@Param("jobIds") Collection<String> jobIds, @Param("status") JobStatus.Status status);
+    
+    // Lock claimable job ids, skipping rows another node is claiming (PostgreSQL)
+    @Query(value = "SELECT id FROM jobs WHERE (status = 'PENDING' AND (lease_expires_at IS NULL OR lease_expires_at < :now) " +
+                   "AND (next_attempt_at IS NULL OR next_attempt_at <= :now)) " +
+                   "OR (status = 'PROCESSING' AND lease_expires_at < :now) " +
+                   "ORDER BY priority DESC, created_at ASC LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<String> lockClaimableJobIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    // Find claimable job ids: pending and due, or processing with an expired lease
+    @Query("SELECT j.id FROM JobStatus j WHERE (j.status = 'PENDING' AND (j.leaseExpiresAt IS NULL OR j.leaseExpiresAt < :now) " +
+           "AND (j.nextAttemptAt IS NULL OR j.nextAttemptAt <= :now)) " +
+           "OR (j.status = 'PROCESSING' AND j.leaseExpiresAt < :now) ORDER BY j.priority DESC, j.createdAt ASC")
+    List<String> findClaimableJobIds(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    // Claim a job lease if it is free or expired and the job is due
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobStatus j SET j.leaseOwner = :owner, j.leaseExpiresAt = :expiresAt WHERE j.id = :jobId " +
+           "AND j.status IN ('PENDING', 'PROCESSING') AND (j.leaseExpiresAt IS NULL OR j.leaseExpiresAt < :now) " +
+           "AND (j.nextAttemptAt IS NULL OR j.nextAttemptAt <= :now)")
+    int claimLease(@Param("jobId") String jobId, @Param("owner") String owner,
+                   @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+    
+    // Assign leases on rows already locked by the caller
+    @Modifying
+    @Query("UPDATE JobStatus j SET j.leaseOwner = :owner, j.leaseExpiresAt = :expiresAt WHERE j.id IN :jobIds")
+    int assignLeases(@Param("jobIds") List<String> jobIds, @Param("owner") String owner,
+                     @Param("expiresAt") LocalDateTime expiresAt);
+    
+    // Extend leases held by a node
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobStatus j SET j.leaseExpiresAt = :expiresAt WHERE j.id IN :jobIds AND j.leaseOwner = :owner")
+    int renewLeases(@Param("jobIds") Collection<String> jobIds, @Param("owner") String owner,
+                    @Param("expiresAt") LocalDateTime expiresAt);
+    
+    // Find which of the given jobs a node still holds the lease on
+    @Query("SELECT j.id FROM JobStatus j WHERE j.id IN :jobIds AND j.leaseOwner = :owner")
+    List<String> findIdsLeasedBy(@Param("jobIds") Collection<String> jobIds, @Param("owner") String owner);
+    
+    // Persist a worker's state change only while the node still holds the job's lease
+    // and the job has not been cancelled or finished in the meantime
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobStatus j SET j.status = :#{#job.status}, j.progress = :#{#job.progress}, " +
+           "j.currentOperation = :#{#job.currentOperation}, j.resultUrl = :#{#job.resultUrl}, " +
+           "j.errorMessage = :#{#job.errorMessage}, j.processingTimeMs = :#{#job.processingTimeMs}, " +
+           "j.completedAt = :#{#job.completedAt}, j.attemptCount = :#{#job.attemptCount}, " +
+           "j.nextAttemptAt = :#{#job.nextAttemptAt}, j.attemptHistory = :#{#job.attemptHistory}, " +
+           "j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :#{#job.id} AND j.leaseOwner = :owner " +
+           "AND j.status IN ('PENDING', 'PROCESSING')")
+    int updateIfLeaseOwner(@Param("job") JobStatus job, @Param("owner") String owner);
+    
+    // Release a lease held by a node
+    @Modifying
+    @Transactional
+    @Query("UPDATE JobStatus j SET j.leaseOwner = NULL, j.leaseExpiresAt = NULL WHERE j.id = :jobId AND j.leaseOwner = :owner")
+    int releaseLease(@Param("jobId") String jobId, @Param("owner") String owner);
+}
@@ -0,0 +1,33 @@
+package com.chnindia.eighteenpluspdf.repository;
+
+import com.chnindia.eighteenpluspdf.model.ResultCacheEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ResultCacheRepository extends JpaRepository<ResultCacheEntry, String> {
+    
+    // Find entries not used since the cutoff (TTL eviction)
+    List<ResultCacheEntry> findByLastAccessedAtBefore(LocalDateTime cutoff);
+    
+    // Find least recently used entries first (size eviction)
+    List<ResultCacheEntry> findAllByOrderByLastAccessedAtAsc(Pageable pageable);
+    
+    // Total bytes held by cached results
+    @Query("SELECT COALESCE(SUM(e.sizeBytes), 0) FROM ResultCacheEntry e")
+    long getTotalSize();
+    
+    // Record a cache hit
+    @Modifying
+    @Transactional
+    @Query("UPDATE ResultCacheEntry e SET e.lastAccessedAt = :accessedAt, e.hitCount = e.hitCount + 1 WHERE e.cacheKey = :cacheKey")
+    void recordHit(@Param("cacheKey") String cacheKey, @Param("accessedAt") LocalDateTime accessedAt);
+}
@@ -4,11 +4,11 @@ import com.chnindia.eighteenpluspdf.dto.request.AIAnalysisRequest;
 import com.chnindia.eighteenpluspdf.dto.response.AIAnalysisResponse;
 import com.chnindia.eighteenpluspdf.dto.response.AIAnalysisResponse.*;
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
-import org.apache.pdfbox.Loader;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import com.chnindia.eighteenpluspdf.util.CancellationToken;
+import com.chnindia.eighteenpluspdf.util.PDFUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -31,6 +31,9 @@ public class AIAnalysisService {
     
     private static final Logger logger = LoggerFactory.getLogger(AIAnalysisService.class);
     
+    @Autowired
+    private PDFUtil pdfUtil;
+    
     // Named Entity patterns
     private static final Pattern EMAIL_PATTERN = Pattern.compile("[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}");
     private static final Pattern PHONE_PATTERN = Pattern.compile("\\+?[0-9]{1,3}[-.]?\\(?[0-9]{3}\\)?[-.]?[0-9]{3}[-.]?[0-9]{4}");
@@ -121,18 +124,8 @@ public class AIAnalysisService {
     
     private Map<Integer, String> extractTextByPage(Path inputFile) throws IOException {
         Map<Integer, String> pageTexts = new LinkedHashMap<>();
-        
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            
-            for (int i = 1; i <= document.getNumberOfPages(); i++) {
-                stripper.setStartPage(i);
-                stripper.setEndPage(i);
-                String text = stripper.getText(document);
-                pageTexts.put(i, text);
-            }
-        }
-        
+        // One stripper pass per shard instead of one per page
+        pdfUtil.extractText(inputFile, "all", pageTexts::put, CancellationToken.NONE);
         return pageTexts;
     }
     
@@ -6,7 +6,7 @@ import com.chnindia.eighteenpluspdf.dto.request.AnnotationRequest.BoundingBox;
 import com.chnindia.eighteenpluspdf.dto.request.AnnotationRequest.Point;
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
-import org.apache.pdfbox.Loader;
+import com.chnindia.eighteenpluspdf.util.PDFUtil;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -40,6 +40,9 @@ public class AnnotationService {
     
     private static final Logger logger = LoggerFactory.getLogger(AnnotationService.class);
     
+    @Autowired
+    private PDFUtil pdfUtil;
+    
     @Autowired
     private FileUtil fileUtil;
     
@@ -49,7 +52,7 @@ public class AnnotationService {
     public Map<String, Object> addAnnotations(Path inputFile, AnnotationRequest request) {
         logger.info("Adding {} annotations to PDF: {}", request.getAnnotations().size(), inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             int addedCount = 0;
             List<String> errors = new ArrayList<>();
             
@@ -69,7 +72,7 @@ public class AnnotationService {
             }
             
             Path outputPath = fileUtil.createOutputFile(outputName, "pdf");
-            document.save(outputPath.toFile());
+            pdfUtil.saveEdited(document, inputFile, outputPath);
             
             return Map.of(
                 "resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()),
@@ -370,7 +373,7 @@ public class AnnotationService {
     public Map<String, Object> listAnnotations(Path inputFile) {
         logger.info("Listing annotations in PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             List<Map<String, Object>> annotations = new ArrayList<>();
             int totalCount = 0;
             
@@ -421,7 +424,7 @@ public class AnnotationService {
     public Map<String, Object> removeAnnotations(Path inputFile, List<String> types, List<Integer> pages, String outputFileName) {
         logger.info("Removing annotations from PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             int removedCount = 0;
             Set<String> typeSet = types != null ? new HashSet<>(types) : null;
             Set<Integer> pageSet = pages != null ? new HashSet<>(pages) : null;
@@ -462,7 +465,7 @@ public class AnnotationService {
             }
             
             Path outputPath = fileUtil.createOutputFile(outputFileName, "pdf");
-            document.save(outputPath.toFile());
+            pdfUtil.saveEdited(document, inputFile, outputPath);
             
             return Map.of(
                 "resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()),
@@ -480,7 +483,7 @@ public class AnnotationService {
     public Map<String, Object> flattenAnnotations(Path inputFile, String outputFileName) {
         logger.info("Flattening annotations in PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             int flattenedCount = 0;
             
             for (int pageIndex = 0; pageIndex < document.getNumberOfPages(); pageIndex++) {
@@ -507,7 +510,7 @@ public class AnnotationService {
             }
             
             Path outputPath = fileUtil.createOutputFile(outputFileName, "pdf");
-            document.save(outputPath.toFile());
+            pdfUtil.save(document, outputPath);
             
             return Map.of(
                 "resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()),
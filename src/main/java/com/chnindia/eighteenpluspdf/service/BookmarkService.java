@@ -2,7 +2,7 @@ package com.chnindia.eighteenpluspdf.service;
 
 import com.chnindia.eighteenpluspdf.dto.request.BookmarkRequest;
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
-import org.apache.pdfbox.Loader;
+import com.chnindia.eighteenpluspdf.util.PDFUtil;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageDestination;
@@ -13,6 +13,7 @@ import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlin
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -30,6 +31,9 @@ public class BookmarkService {
     
     private static final Logger logger = LoggerFactory.getLogger(BookmarkService.class);
     
+    @Autowired
+    private PDFUtil pdfUtil;
+    
     // Patterns for detecting headings
     private static final Pattern HEADING_PATTERN = Pattern.compile(
         "^\\s*(Chapter|Section|Part|CHAPTER|SECTION|PART)\\s+\\d+[.:]?\\s*(.*)$", 
@@ -47,7 +51,7 @@ public class BookmarkService {
     public Path addBookmarks(Path inputFile, Path outputFile, BookmarkRequest request) {
         logger.info("Adding bookmarks to PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             PDDocumentOutline outline = document.getDocumentCatalog().getDocumentOutline();
             
             if (outline == null) {
@@ -59,7 +63,7 @@ public class BookmarkService {
                 addBookmark(document, outline, bookmarkDef, request.isPreserveExisting());
             }
             
-            document.save(outputFile.toFile());
+            pdfUtil.saveEdited(document, inputFile, outputFile);
             logger.info("Bookmarks added successfully: {}", outputFile);
             
             return outputFile;
@@ -165,11 +169,11 @@ public class BookmarkService {
     public Path removeBookmarks(Path inputFile, Path outputFile, BookmarkRequest request) {
         logger.info("Removing bookmarks from PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             PDDocumentOutline outline = document.getDocumentCatalog().getDocumentOutline();
             
             if (outline == null) {
-                document.save(outputFile.toFile());
+                pdfUtil.saveEdited(document, inputFile, outputFile);
                 return outputFile;
             }
             
@@ -185,7 +189,7 @@ public class BookmarkService {
                 removeBookmarksByPageRange(document, outline, startPage, endPage);
             }
             
-            document.save(outputFile.toFile());
+            pdfUtil.saveEdited(document, inputFile, outputFile);
             logger.info("Bookmarks removed successfully: {}", outputFile);
             
             return outputFile;
@@ -282,7 +286,7 @@ public class BookmarkService {
     public List<Map<String, Object>> extractBookmarks(Path inputFile) {
         logger.info("Extracting bookmarks from PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             PDDocumentOutline outline = document.getDocumentCatalog().getDocumentOutline();
             
             if (outline == null) {
@@ -327,13 +331,13 @@ public class BookmarkService {
     public Path autoGenerateBookmarks(Path inputFile, Path outputFile, BookmarkRequest request) {
         logger.info("Auto-generating bookmarks for PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             // Extract text and detect headings
             List<DetectedHeading> headings = detectHeadings(document, request);
             
             if (headings.isEmpty()) {
                 logger.warn("No headings detected for auto-generation");
-                document.save(outputFile.toFile());
+                pdfUtil.saveEdited(document, inputFile, outputFile);
                 return outputFile;
             }
             
@@ -345,7 +349,7 @@ public class BookmarkService {
             
             document.getDocumentCatalog().setDocumentOutline(outline);
             
-            document.save(outputFile.toFile());
+            pdfUtil.saveEdited(document, inputFile, outputFile);
             logger.info("Auto-generated {} bookmarks: {}", headings.size(), outputFile);
             
             return outputFile;
@@ -482,11 +486,11 @@ public class BookmarkService {
     public Path flattenBookmarks(Path inputFile, Path outputFile) {
         logger.info("Flattening bookmarks in PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             PDDocumentOutline oldOutline = document.getDocumentCatalog().getDocumentOutline();
             
             if (oldOutline == null) {
-                document.save(outputFile.toFile());
+                pdfUtil.saveEdited(document, inputFile, outputFile);
                 return outputFile;
             }
             
@@ -516,7 +520,7 @@ public class BookmarkService {
             
             document.getDocumentCatalog().setDocumentOutline(newOutline);
             
-            document.save(outputFile.toFile());
+            pdfUtil.saveEdited(document, inputFile, outputFile);
             logger.info("Bookmarks flattened successfully: {}", outputFile);
             
             return outputFile;
@@ -537,7 +541,7 @@ public class BookmarkService {
      * Get bookmark count from PDF.
      */
     public int getBookmarkCount(Path inputFile) {
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             PDDocumentOutline outline = document.getDocumentCatalog().getDocumentOutline();
             
             if (outline == null) {
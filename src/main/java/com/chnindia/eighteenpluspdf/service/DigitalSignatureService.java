@@ -2,7 +2,7 @@ package com.chnindia.eighteenpluspdf.service;
 
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
-import org.apache.pdfbox.Loader;
+import com.chnindia.eighteenpluspdf.util.PDFUtil;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -48,6 +48,9 @@ public class DigitalSignatureService {
     
     private static final Logger logger = LoggerFactory.getLogger(DigitalSignatureService.class);
     
+    @Autowired
+    private PDFUtil pdfUtil;
+    
     static {
         Security.addProvider(new BouncyCastleProvider());
     }
@@ -100,7 +103,7 @@ public class DigitalSignatureService {
                 config.isIncludeTimestamp() ? tsaUrl : null);
             
             // Sign the document
-            try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+            try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
                 // Create signature dictionary
                 PDSignature signature = new PDSignature();
                 signature.setFilter(PDSignature.FILTER_ADOBE_PPKLITE);
@@ -161,7 +164,7 @@ public class DigitalSignatureService {
         Map<String, Object> result = new LinkedHashMap<>();
         List<Map<String, Object>> signatureDetails = new ArrayList<>();
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             List<PDSignature> signatures = document.getSignatureDictionaries();
             
             result.put("hasSignatures", !signatures.isEmpty());
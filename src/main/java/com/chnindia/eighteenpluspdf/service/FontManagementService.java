@@ -1,8 +1,10 @@
 package com.chnindia.eighteenpluspdf.service;
 
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import com.chnindia.eighteenpluspdf.util.CancellationToken;
+import com.chnindia.eighteenpluspdf.util.FontSubsetter;
+import com.chnindia.eighteenpluspdf.util.PDFUtil;
 import org.apache.fontbox.ttf.*;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -11,6 +13,7 @@ import org.apache.pdfbox.pdmodel.font.*;
 import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -39,6 +42,9 @@ public class FontManagementService {
     
     private static final Logger logger = LoggerFactory.getLogger(FontManagementService.class);
     
+    @Autowired
+    private PDFUtil pdfUtil;
+    
     @Value("${app.fonts.system-font-dirs:}")
     private String systemFontDirs;
     
@@ -60,7 +66,7 @@ public class FontManagementService {
         FontAnalysisResult result = new FontAnalysisResult();
         result.setFilePath(pdfFile.toString());
         
-        try (PDDocument document = Loader.loadPDF(pdfFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(pdfFile)) {
             Set<String> allFonts = new HashSet<>();
             List<FontUsage> fontUsages = new ArrayList<>();
             int embeddedCount = 0;
@@ -205,7 +211,7 @@ public class FontManagementService {
         List<String> embeddedFonts = new ArrayList<>();
         List<String> failedFonts = new ArrayList<>();
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             initializeFontCache();
             
             for (PDPage page : document.getPages()) {
@@ -239,7 +245,7 @@ public class FontManagementService {
             }
             
             // Save with font settings
-            document.save(outputFile.toFile());
+            pdfUtil.save(document, outputFile);
             
             result.put("success", true);
             result.put("embeddedFonts", embeddedFonts);
@@ -267,16 +273,17 @@ public class FontManagementService {
         try {
             long inputSize = Files.size(inputFile);
             
-            // PDFBox automatically subsets fonts when saving
-            // For more aggressive subsetting, use specialized libraries
-            try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
-                // Save with compression
-                document.save(outputFile.toFile());
+            FontSubsetter.Result subset;
+            try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
+                subset = pdfUtil.subsetFonts(inputFile, document, CancellationToken.NONE);
+                pdfUtil.save(document, outputFile);
             }
             
             long outputSize = Files.size(outputFile);
             
             result.put("success", true);
+            result.put("fontsSubset", subset.fontsSubset());
+            result.put("fontBytesSaved", subset.bytesSaved());
             result.put("inputSize", inputSize);
             result.put("outputSize", outputSize);
             result.put("savedBytes", inputSize - outputSize);
@@ -303,7 +310,7 @@ public class FontManagementService {
         List<Map<String, Object>> extractedFonts = new ArrayList<>();
         Set<String> processedFonts = new HashSet<>();
         
-        try (PDDocument document = Loader.loadPDF(pdfFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(pdfFile)) {
             Files.createDirectories(outputDir);
             
             for (PDPage page : document.getPages()) {
@@ -419,7 +426,7 @@ public class FontManagementService {
         
         Map<String, Object> result = new LinkedHashMap<>();
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             // Load replacement font
             File fontFile = new File(targetFontPath);
             PDType0Font replacementFont = PDType0Font.load(document, fontFile);
@@ -440,7 +447,7 @@ public class FontManagementService {
                 }
             }
             
-            document.save(outputFile.toFile());
+            pdfUtil.save(document, outputFile);
             
             result.put("success", true);
             result.put("sourceFontName", sourceFontName);
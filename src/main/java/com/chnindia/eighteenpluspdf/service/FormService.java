@@ -6,8 +6,8 @@ import com.chnindia.eighteenpluspdf.dto.request.FormFillRequest;
 import com.chnindia.eighteenpluspdf.dto.response.FormDataResponse;
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
+import com.chnindia.eighteenpluspdf.util.PDFUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -42,6 +42,9 @@ public class FormService {
     
     private static final Logger logger = LoggerFactory.getLogger(FormService.class);
     
+    @Autowired
+    private PDFUtil pdfUtil;
+    
     @Autowired
     private FileUtil fileUtil;
     
@@ -53,7 +56,7 @@ public class FormService {
     public Map<String, Object> fillForm(Path inputFile, FormFillRequest request) {
         logger.info("Filling form in PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
             
             if (acroForm == null) {
@@ -100,7 +103,7 @@ public class FormService {
             }
             
             Path outputPath = fileUtil.createOutputFile(outputName, "pdf");
-            document.save(outputPath.toFile());
+            pdfUtil.saveEdited(document, inputFile, outputPath);
             
             return Map.of(
                 "resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()),
@@ -169,7 +172,7 @@ public class FormService {
     public FormDataResponse extractFormData(Path inputFile, FormExportRequest request) {
         logger.info("Extracting form data from PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
             
             FormDataResponse response = new FormDataResponse();
@@ -420,7 +423,7 @@ public class FormService {
             }
             
             Path outputPath = fileUtil.createOutputFile(outputName, "pdf");
-            document.save(outputPath.toFile());
+            pdfUtil.save(document, outputPath);
             
             return Map.of(
                 "resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()),
@@ -542,7 +545,7 @@ public class FormService {
     public Map<String, Object> detectFormFields(Path inputFile) {
         logger.info("Detecting form fields in PDF: {}", inputFile);
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm();
             
             List<Map<String, Object>> detectedFields = new ArrayList<>();
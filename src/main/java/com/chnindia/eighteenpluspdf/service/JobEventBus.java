@@ -0,0 +1,138 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.dto.response.JobProgressEvent;
+import com.chnindia.eighteenpluspdf.dto.response.JobStatusResponse;
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import com.chnindia.eighteenpluspdf.repository.JobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * In-process job event bus.
+ * Progress ticks from the progress registry and final results from the job loop are
+ * delivered to subscribers (SSE streams) and complete per-job futures.
+ *
+ * Jobs running on another node have no local events; for those, subscribed job ids
+ * are refreshed from the database in one query per interval and changes re-published.
+ */
+@Service
+public class JobEventBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobEventBus.class);
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    private final Map<String, Set<Consumer<JobProgressEvent>>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<JobProgressEvent>> completions = new ConcurrentHashMap<>();
+    private final Set<String> localJobs = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> lastRemoteState = new ConcurrentHashMap<>();
+
+    /**
+     * Subscribe to events for a job; returns a handle that removes the subscription
+     */
+    public Runnable subscribe(String jobId, Consumer<JobProgressEvent> listener) {
+        listeners.computeIfAbsent(jobId, id -> new CopyOnWriteArraySet<>()).add(listener);
+        return () -> listeners.computeIfPresent(jobId, (id, set) -> {
+            set.remove(listener);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Future completed with the terminal event of a job
+     */
+    public CompletableFuture<JobProgressEvent> completionOf(String jobId) {
+        return completions.computeIfAbsent(jobId, id -> new CompletableFuture<>());
+    }
+
+    /**
+     * Publish an event raised on this node
+     */
+    public void publish(JobProgressEvent event) {
+        String jobId = event.getJobId();
+        if (event.isTerminal()) {
+            localJobs.remove(jobId);
+            lastRemoteState.remove(jobId);
+        } else {
+            localJobs.add(jobId);
+        }
+        deliver(event);
+    }
+
+    /**
+     * Forget a job that stopped running here without reaching a terminal state
+     */
+    public void detach(String jobId) {
+        localJobs.remove(jobId);
+    }
+
+    /**
+     * Refresh subscribed jobs that are not running on this node
+     */
+    @Scheduled(fixedDelayString = "${app.job-queue.event-refresh-interval-ms:2000}")
+    public void refreshRemoteJobs() {
+        Set<String> watched = new HashSet<>(listeners.keySet());
+        watched.addAll(completions.keySet());
+        lastRemoteState.keySet().retainAll(watched);
+        watched.removeAll(localJobs);
+        if (watched.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, JobStatus> found = new HashMap<>();
+            for (JobStatus job : jobRepository.findAllById(watched)) {
+                found.put(job.getId(), job);
+            }
+            for (String jobId : watched) {
+                JobStatus job = found.get(jobId);
+                if (job == null) {
+                    // Job was deleted; release anyone waiting on it
+                    CompletableFuture<JobProgressEvent> future = completions.remove(jobId);
+                    if (future != null) future.complete(null);
+                    continue;
+                }
+                String state = job.getStatus() + "|" + job.getProgress() + "|" + job.getCurrentOperation();
+                if (!state.equals(lastRemoteState.put(jobId, state))) {
+                    JobProgressEvent event = JobProgressEvent.snapshot(new JobStatusResponse(job));
+                    if (!event.isTerminal()) {
+                        event.setType(JobProgressEvent.Type.PROGRESS);
+                    }
+                    deliver(event);
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to refresh remote job events: {}", e.getMessage());
+        }
+    }
+
+    private void deliver(JobProgressEvent event) {
+        String jobId = event.getJobId();
+        Set<Consumer<JobProgressEvent>> subscribers = listeners.get(jobId);
+        if (subscribers != null) {
+            for (Consumer<JobProgressEvent> subscriber : subscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (Exception e) {
+                    logger.debug("Job event subscriber failed for {}: {}", jobId, e.getMessage());
+                }
+            }
+        }
+        if (event.isTerminal()) {
+            CompletableFuture<JobProgressEvent> future = completions.remove(jobId);
+            if (future != null) {
+                future.complete(event);
+            }
+        }
+    }
+}
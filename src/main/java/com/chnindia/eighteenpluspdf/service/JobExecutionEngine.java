@@ -0,0 +1,305 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dedicated execution engine for PDF jobs.
+ * Jobs are queued on a bounded priority queue and executed by a fixed worker
+ * pool per resource class, so request threads return as soon as a job is queued.
+ *
+ * Features:
+ * - Separate pools for rendering, external conversion and standard jobs
+ * - Priority ordering (higher first, FIFO within the same priority)
+ * - Bounded queues (pool size x batch-size) with fast rejection when full
+ * - Per-tool queue depth, wait time and run time metrics
+ */
+@Service
+public class JobExecutionEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobExecutionEngine.class);
+
+    public static final int DEFAULT_PRIORITY = 5;
+
+    /**
+     * Resource class a tool is scheduled under
+     */
+    public enum ResourceClass {
+        RENDER, CONVERSION, STANDARD
+    }
+
+    private static final Set<String> RENDER_TOOLS = Set.of(
+        "ocr-pdf", "pdf-to-image", "compare-pdfs", "compress", "optimize", "auto-rotate",
+        "auto-crop", "pdfa-convert", "flatten-pdf"
+    );
+
+    private static final Set<String> CONVERSION_TOOLS = Set.of(
+        "word-to-pdf", "excel-to-pdf", "ppt-to-pdf", "pdf-to-word", "pdf-to-excel",
+        "pdf-to-ppt", "html-to-pdf", "markdown-to-pdf"
+    );
+
+    @Value("${app.job-queue.max-concurrent-jobs:50}")
+    private int maxConcurrentJobs;
+
+    @Value("${app.job-queue.batch-size:10}")
+    private int batchSize;
+
+    @Value("${app.job-queue.worker-pools.render:4}")
+    private int renderWorkers;
+
+    @Value("${app.job-queue.worker-pools.conversion:2}")
+    private int conversionWorkers;
+
+    private final Map<ResourceClass, WorkerPool> pools = new EnumMap<>(ResourceClass.class);
+    private final Map<String, ToolMetrics> toolMetrics = new ConcurrentHashMap<>();
+    private final Map<String, QueuedJob> queuedJobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @PostConstruct
+    public void initialize() {
+        int render = Math.max(1, renderWorkers);
+        int conversion = Math.max(1, conversionWorkers);
+        int standard = Math.max(1, maxConcurrentJobs - render - conversion);
+
+        pools.put(ResourceClass.RENDER, new WorkerPool(ResourceClass.RENDER, render, render * Math.max(1, batchSize)));
+        pools.put(ResourceClass.CONVERSION, new WorkerPool(ResourceClass.CONVERSION, conversion, conversion * Math.max(1, batchSize)));
+        pools.put(ResourceClass.STANDARD, new WorkerPool(ResourceClass.STANDARD, standard, standard * Math.max(1, batchSize)));
+
+        logger.info("✅ Job Execution Engine initialized (render={}, conversion={}, standard={}, batch-size={})",
+            render, conversion, standard, batchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Shutting down Job Execution Engine");
+        for (WorkerPool pool : pools.values()) {
+            pool.executor.shutdown();
+        }
+        for (WorkerPool pool : pools.values()) {
+            try {
+                if (!pool.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    pool.executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                pool.executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Resolve the resource class for a tool
+     */
+    public ResourceClass resourceClassFor(String toolName) {
+        if (toolName == null) return ResourceClass.STANDARD;
+        if (RENDER_TOOLS.contains(toolName)) return ResourceClass.RENDER;
+        if (CONVERSION_TOOLS.contains(toolName)) return ResourceClass.CONVERSION;
+        return ResourceClass.STANDARD;
+    }
+
+    /**
+     * Whether the pool for this tool can accept another job
+     */
+    public boolean hasCapacity(String toolName) {
+        WorkerPool pool = pools.get(resourceClassFor(toolName));
+        return pool.queue.size() < pool.capacity;
+    }
+
+    /**
+     * Free queue slots across all pools
+     */
+    public int getAvailableSlots() {
+        return pools.values().stream().mapToInt(pool -> Math.max(0, pool.capacity - pool.queue.size())).sum();
+    }
+
+    /**
+     * Queue a job for execution
+     */
+    public void submit(String jobId, String toolName, int priority, Runnable work) {
+        WorkerPool pool = pools.get(resourceClassFor(toolName));
+        QueuedJob job = new QueuedJob(jobId, toolName, priority, sequence.incrementAndGet(), work);
+
+        synchronized (pool) {
+            ensureCapacity(pool);
+            metricsFor(toolName).queued.incrementAndGet();
+            queuedJobs.put(jobId, job);
+            pool.executor.execute(job);
+        }
+
+        logger.debug("Job {} queued on {} pool (priority {}, depth {})",
+            jobId, pool.resourceClass, priority, pool.queue.size());
+    }
+
+    /**
+     * Remove a job that has not started yet
+     */
+    public boolean cancelQueued(String jobId) {
+        QueuedJob job = queuedJobs.remove(jobId);
+        if (job == null) return false;
+
+        WorkerPool pool = pools.get(resourceClassFor(job.toolName));
+        if (pool.executor.remove(job)) {
+            metricsFor(job.toolName).queued.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether a job is waiting in a queue
+     */
+    public boolean isQueued(String jobId) {
+        return queuedJobs.containsKey(jobId);
+    }
+
+    /**
+     * Number of jobs waiting across all pools
+     */
+    public int getQueuedCount() {
+        return pools.values().stream().mapToInt(pool -> pool.queue.size()).sum();
+    }
+
+    /**
+     * Pool and per-tool metrics
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> poolStats = new LinkedHashMap<>();
+        for (WorkerPool pool : pools.values()) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("workers", pool.executor.getMaximumPoolSize());
+            stats.put("active", pool.executor.getActiveCount());
+            stats.put("queued", pool.queue.size());
+            stats.put("capacity", pool.capacity);
+            poolStats.put(pool.resourceClass.name().toLowerCase(), stats);
+        }
+
+        Map<String, Object> tools = new TreeMap<>();
+        toolMetrics.forEach((tool, metrics) -> tools.put(tool, metrics.snapshot()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pools", poolStats);
+        result.put("tools", tools);
+        return result;
+    }
+
+    private void ensureCapacity(WorkerPool pool) {
+        if (pool.queue.size() >= pool.capacity) {
+            throw new PDFProcessingException("QUEUE_FULL",
+                "Job queue is full for " + pool.resourceClass.name().toLowerCase() + " jobs, please retry later",
+                "capacity=" + pool.capacity);
+        }
+    }
+
+    private ToolMetrics metricsFor(String toolName) {
+        return toolMetrics.computeIfAbsent(toolName != null ? toolName : "unknown", k -> new ToolMetrics());
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    private static class WorkerPool {
+        private final ResourceClass resourceClass;
+        private final int capacity;
+        private final PriorityBlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+        private final ThreadPoolExecutor executor;
+
+        WorkerPool(ResourceClass resourceClass, int workers, int capacity) {
+            this.resourceClass = resourceClass;
+            this.capacity = capacity;
+            AtomicInteger threadCount = new AtomicInteger();
+            String prefix = "pdf-job-" + resourceClass.name().toLowerCase() + "-";
+            this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS, queue, r -> {
+                Thread thread = new Thread(r, prefix + threadCount.incrementAndGet());
+                thread.setDaemon(false);
+                return thread;
+            });
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    private class QueuedJob implements Runnable, Comparable<QueuedJob> {
+        private final String jobId;
+        private final String toolName;
+        private final int priority;
+        private final long sequence;
+        private final long enqueuedAt = System.currentTimeMillis();
+        private final Runnable work;
+
+        QueuedJob(String jobId, String toolName, int priority, long sequence, Runnable work) {
+            this.jobId = jobId;
+            this.toolName = toolName;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            queuedJobs.remove(jobId);
+            ToolMetrics metrics = metricsFor(toolName);
+            metrics.queued.decrementAndGet();
+            metrics.running.incrementAndGet();
+
+            long startedAt = System.currentTimeMillis();
+            metrics.recordWait(startedAt - enqueuedAt);
+            try {
+                work.run();
+            } catch (Exception e) {
+                logger.error("Job {} raised an unhandled error: {}", jobId, e.getMessage(), e);
+            } finally {
+                metrics.running.decrementAndGet();
+                metrics.recordRun(System.currentTimeMillis() - startedAt);
+            }
+        }
+
+        @Override
+        public int compareTo(QueuedJob other) {
+            int byPriority = Integer.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static class ToolMetrics {
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final LongAdder executed = new LongAdder();
+        private final LongAdder totalWaitMs = new LongAdder();
+        private final LongAdder totalRunMs = new LongAdder();
+        private final AtomicLong maxWaitMs = new AtomicLong();
+        private final AtomicLong maxRunMs = new AtomicLong();
+
+        void recordWait(long waitMs) {
+            totalWaitMs.add(waitMs);
+            maxWaitMs.accumulateAndGet(waitMs, Math::max);
+        }
+
+        void recordRun(long runMs) {
+            executed.increment();
+            totalRunMs.add(runMs);
+            maxRunMs.accumulateAndGet(runMs, Math::max);
+        }
+
+        Map<String, Object> snapshot() {
+            long count = executed.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("queued", queued.get());
+            stats.put("running", running.get());
+            stats.put("executed", count);
+            stats.put("avgWaitMs", count > 0 ? totalWaitMs.sum() / count : 0);
+            stats.put("maxWaitMs", maxWaitMs.get());
+            stats.put("avgRunMs", count > 0 ? totalRunMs.sum() / count : 0);
+            stats.put("maxRunMs", maxRunMs.get());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import com.chnindia.eighteenpluspdf.repository.JobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lease-based job claiming on the shared jobs table.
+ * Lets several instances pull work from the same database: a node claims a job by
+ * writing its lease, keeps it alive with heartbeats, and jobs whose lease expired
+ * (e.g. after a node crash) become claimable again.
+ *
+ * PostgreSQL claims batches with SELECT ... FOR UPDATE SKIP LOCKED; other databases
+ * fall back to a conditional UPDATE per job.
+ */
+@Service
+public class JobLeaseManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobLeaseManager.class);
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JobWatchdog watchdog;
+
+    @Value("${app.job-queue.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${app.job-queue.lease-seconds:60}")
+    private int leaseSeconds;
+
+    private final Set<String> ownedLeases = ConcurrentHashMap.newKeySet();
+    private String nodeId;
+    private boolean skipLockedSupported;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void initialize() {
+        nodeId = configuredNodeId != null && !configuredNodeId.isBlank() ? configuredNodeId : defaultNodeId();
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        try (Connection connection = dataSource.getConnection()) {
+            String product = connection.getMetaData().getDatabaseProductName();
+            skipLockedSupported = product != null && product.toLowerCase().contains("postgres");
+        } catch (Exception e) {
+            logger.warn("Could not detect database product, using conditional lease claims: {}", e.getMessage());
+        }
+
+        logger.info("✅ Job Lease Manager initialized (node={}, lease={}s, skipLocked={})",
+            nodeId, leaseSeconds, skipLockedSupported);
+    }
+
+    /**
+     * Claim a specific job for this node
+     */
+    public boolean claim(String jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean claimed = jobRepository.claimLease(jobId, nodeId, now.plusSeconds(leaseSeconds), now) == 1;
+        if (claimed) {
+            ownedLeases.add(jobId);
+        }
+        return claimed;
+    }
+
+    /**
+     * Claim up to {@code limit} pending or abandoned jobs for this node
+     */
+    public List<JobStatus> claimBatch(int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<String> claimed;
+        if (skipLockedSupported) {
+            claimed = transactionTemplate.execute(status -> {
+                List<String> ids = jobRepository.lockClaimableJobIds(now, limit);
+                if (!ids.isEmpty()) {
+                    jobRepository.assignLeases(ids, nodeId, now.plusSeconds(leaseSeconds));
+                }
+                return ids;
+            });
+        } else {
+            claimed = new ArrayList<>();
+            for (String jobId : jobRepository.findClaimableJobIds(now, PageRequest.of(0, limit))) {
+                if (jobRepository.claimLease(jobId, nodeId, now.plusSeconds(leaseSeconds), now) == 1) {
+                    claimed.add(jobId);
+                }
+            }
+        }
+
+        if (claimed == null || claimed.isEmpty()) {
+            return List.of();
+        }
+        ownedLeases.addAll(claimed);
+        logger.debug("Node {} claimed {} job(s)", nodeId, claimed.size());
+        return jobRepository.findAllById(claimed);
+    }
+
+    /**
+     * Give up this node's lease on a job
+     */
+    public void release(String jobId) {
+        ownedLeases.remove(jobId);
+        try {
+            jobRepository.releaseLease(jobId, nodeId);
+        } catch (Exception e) {
+            logger.warn("Failed to release lease for job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Persist a worker's state change for a job this node runs; returns false, writing
+     * nothing, if the job was cancelled or another node has reclaimed it in the meantime
+     */
+    public boolean updateIfOwner(JobStatus jobStatus) {
+        if (jobRepository.updateIfLeaseOwner(jobStatus, nodeId) == 1) {
+            return true;
+        }
+        logger.warn("Job {} was cancelled or is no longer leased by node {}, discarding its {} state",
+            jobStatus.getId(), nodeId, jobStatus.getStatus());
+        ownedLeases.remove(jobStatus.getId());
+        return false;
+    }
+
+    /**
+     * Heartbeat: extend the leases this node holds, and stop local runs of jobs
+     * whose lease was reclaimed by another node
+     */
+    @Scheduled(fixedDelayString = "${app.job-queue.heartbeat-interval-ms:15000}")
+    public void renewLeases() {
+        if (ownedLeases.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> jobIds = new ArrayList<>(ownedLeases);
+            int renewed = jobRepository.renewLeases(jobIds, nodeId, LocalDateTime.now().plusSeconds(leaseSeconds));
+            if (renewed < jobIds.size()) {
+                Set<String> held = new HashSet<>(jobRepository.findIdsLeasedBy(jobIds, nodeId));
+                for (String jobId : jobIds) {
+                    // Skip jobs released while the heartbeat ran
+                    if (!held.contains(jobId) && ownedLeases.remove(jobId)) {
+                        watchdog.leaseLost(jobId);
+                    }
+                }
+                logger.warn("Node {} renewed {} of {} leases; the other jobs were reclaimed elsewhere",
+                    nodeId, renewed, jobIds.size());
+            }
+        } catch (Exception e) {
+            logger.error("Lease heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getOwnedLeaseCount() {
+        return ownedLeases.size();
+    }
+
+    private String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,115 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import com.chnindia.eighteenpluspdf.util.SpooledMultipartFile;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Serializes job parameters to the JSON payload stored on the job row.
+ * Spooled uploads are written as references to shared storage so a job
+ * can be picked up by any worker node.
+ */
+@Component
+public class JobPayloadCodec {
+
+    private static final String FILE_MARKER = "@spooledFile";
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Encode parameters; upload values must already be spooled
+     */
+    public String encode(Map<String, Object> parameters) {
+        Map<String, Object> encoded = new LinkedHashMap<>();
+        parameters.forEach((key, value) -> encoded.put(key, encodeValue(value)));
+        try {
+            return objectMapper.writeValueAsString(encoded);
+        } catch (Exception e) {
+            throw new PDFProcessingException("PAYLOAD_ERROR", "Failed to serialize job parameters", e.getMessage());
+        }
+    }
+
+    /**
+     * Decode a stored payload back into worker parameters
+     */
+    public Map<String, Object> decode(String payload) {
+        if (payload == null || payload.isBlank()) {
+            return new HashMap<>();
+        }
+        Map<String, Object> raw;
+        try {
+            raw = objectMapper.readValue(payload, MAP_TYPE);
+        } catch (Exception e) {
+            throw new PDFProcessingException("PAYLOAD_ERROR", "Failed to read job parameters", e.getMessage());
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        raw.forEach((key, value) -> parameters.put(key, decodeValue(value)));
+        return parameters;
+    }
+
+    /**
+     * Spooled files referenced by decoded parameters
+     */
+    public List<SpooledMultipartFile> files(Map<String, Object> parameters) {
+        List<SpooledMultipartFile> files = new ArrayList<>();
+        for (Object value : parameters.values()) {
+            if (value instanceof SpooledMultipartFile file) {
+                files.add(file);
+            } else if (value instanceof Collection<?> collection) {
+                for (Object item : collection) {
+                    if (item instanceof SpooledMultipartFile file) {
+                        files.add(file);
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
+    private Object encodeValue(Object value) {
+        if (value instanceof SpooledMultipartFile file) {
+            Map<String, Object> ref = new LinkedHashMap<>();
+            ref.put("path", file.getPath().toString());
+            ref.put("name", file.getName());
+            ref.put("originalFilename", file.getOriginalFilename());
+            ref.put("contentType", file.getContentType());
+            ref.put("size", file.getSize());
+            ref.put("sha256", file.getSha256());
+            return Map.of(FILE_MARKER, ref);
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : collection) {
+                list.add(encodeValue(item));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object decodeValue(Object value) {
+        if (value instanceof Map<?, ?> map && map.size() == 1 && map.get(FILE_MARKER) instanceof Map<?, ?> ref) {
+            Map<String, Object> fields = (Map<String, Object>) ref;
+            Path path = Paths.get((String) fields.get("path"));
+            Number size = (Number) fields.get("size");
+            return new SpooledMultipartFile(path, (String) fields.get("name"), (String) fields.get("originalFilename"),
+                (String) fields.get("contentType"), size != null ? size.longValue() : 0L, (String) fields.get("sha256"));
+        }
+        if (value instanceof List<?> list) {
+            List<Object> decoded = new ArrayList<>();
+            for (Object item : list) {
+                decoded.add(decodeValue(item));
+            }
+            return decoded;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,192 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.dto.response.JobProgressEvent;
+import com.chnindia.eighteenpluspdf.dto.response.JobStatusResponse;
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind progress store for in-flight jobs.
+ * Progress ticks and the PROCESSING transition only update memory; dirty entries are
+ * coalesced and flushed to the jobs table in one JDBC batch on a short interval.
+ * Terminal states are persisted directly by the caller, so a job costs an insert,
+ * a terminal update and at most one update per flush interval while it runs.
+ * Every tick is also published on the {@link JobEventBus} for streaming clients.
+ */
+@Service
+public class JobProgressRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobProgressRegistry.class);
+
+    // Never overwrite a terminal state, or a pending retry scheduled after the tick was taken
+    private static final String FLUSH_SQL =
+        "UPDATE jobs SET status = COALESCE(?, status), progress = ?, current_operation = ?, updated_at = ? " +
+        "WHERE id = ? AND (status = 'PROCESSING' OR (status = 'PENDING' AND (next_attempt_at IS NULL OR next_attempt_at <= ?)))";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private JobEventBus eventBus;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushBatches = new LongAdder();
+    private final LongAdder coalescedUpdates = new LongAdder();
+
+    /**
+     * Start tracking a job that is being processed on this node
+     */
+    public void track(JobStatus jobStatus) {
+        Entry entry = new Entry(jobStatus);
+        entry.state = new State(jobStatus.getStatus(), jobStatus.getProgress(),
+            jobStatus.getCurrentOperation(), LocalDateTime.now());
+        entry.dirty = true;
+        entries.put(jobStatus.getId(), entry);
+        eventBus.publish(new JobProgressEvent(jobStatus.getId(), JobProgressEvent.Type.PROGRESS,
+            jobStatus.getStatus(), jobStatus.getProgress(), jobStatus.getCurrentOperation()));
+    }
+
+    /**
+     * Record a progress tick
+     */
+    public void update(String jobId, int progress, String operation) {
+        Entry updated = entries.compute(jobId, (id, entry) -> {
+            if (entry == null) {
+                entry = new Entry(null);
+                entry.state = new State(null, progress, operation, LocalDateTime.now());
+            } else {
+                if (entry.dirty) coalescedUpdates.increment();
+                entry.state = new State(entry.state.status, progress, operation, LocalDateTime.now());
+            }
+            entry.dirty = true;
+            return entry;
+        });
+        eventBus.publish(new JobProgressEvent(jobId, JobProgressEvent.Type.PROGRESS,
+            updated.state.status, progress, operation));
+    }
+
+    /**
+     * Current in-memory view of a job, or null if it is not running on this node
+     */
+    public JobStatusResponse getSnapshot(String jobId) {
+        Entry entry = entries.get(jobId);
+        if (entry == null || entry.job == null) {
+            return null;
+        }
+        State state = entry.state;
+        JobStatusResponse response = new JobStatusResponse(entry.job);
+        response.setStatus(state.status);
+        response.setProgress(state.progress);
+        response.setCurrentOperation(state.operation);
+        response.setUpdatedAt(state.updatedAt);
+        return response;
+    }
+
+    /**
+     * Stop tracking a job once its final state has been persisted
+     */
+    public void complete(String jobId) {
+        entries.remove(jobId);
+    }
+
+    /**
+     * Stop tracking a job that did not reach a terminal state, flushing its last progress first
+     */
+    public void detach(String jobId) {
+        Entry entry = entries.remove(jobId);
+        if (entry != null && entry.dirty) {
+            writeBatch(List.of(Map.entry(jobId, entry.state)));
+        }
+        eventBus.detach(jobId);
+    }
+
+    /**
+     * Flush coalesced progress to the database
+     */
+    @Scheduled(fixedDelayString = "${app.job-queue.progress-flush-interval-ms:2000}")
+    public void flush() {
+        List<Map.Entry<String, State>> batch = new ArrayList<>();
+        entries.forEach((jobId, entry) -> {
+            if (entry.dirty) {
+                entry.dirty = false;
+                batch.add(Map.entry(jobId, entry.state));
+            }
+            if (entry.job == null) {
+                entries.remove(jobId, entry);
+            }
+        });
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("trackedJobs", entries.size());
+        metrics.put("flushBatches", flushBatches.sum());
+        metrics.put("flushedRows", flushedRows.sum());
+        metrics.put("coalescedUpdates", coalescedUpdates.sum());
+        return metrics;
+    }
+
+    private void writeBatch(List<Map.Entry<String, State>> batch) {
+        try {
+            List<Object[]> args = new ArrayList<>(batch.size());
+            for (Map.Entry<String, State> item : batch) {
+                State state = item.getValue();
+                args.add(new Object[] {
+                    new SqlParameterValue(Types.VARCHAR, state.status != null ? state.status.name() : null),
+                    state.progress,
+                    state.operation,
+                    Timestamp.valueOf(state.updatedAt),
+                    item.getKey(),
+                    Timestamp.valueOf(state.updatedAt)
+                });
+            }
+            jdbcTemplate.batchUpdate(FLUSH_SQL, args);
+            flushBatches.increment();
+            flushedRows.add(batch.size());
+        } catch (Exception e) {
+            logger.warn("Failed to flush progress for {} job(s): {}", batch.size(), e.getMessage());
+            // Mark entries dirty again so the next flush retries them
+            for (Map.Entry<String, State> item : batch) {
+                Entry entry = entries.get(item.getKey());
+                if (entry != null) entry.dirty = true;
+            }
+        }
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    private static class Entry {
+        private final JobStatus job;
+        private volatile State state;
+        private volatile boolean dirty;
+
+        Entry(JobStatus job) {
+            this.job = job;
+        }
+    }
+
+    private record State(JobStatus.Status status, Integer progress, String operation, LocalDateTime updatedAt) {}
+}
@@ -2,29 +2,57 @@ package com.chnindia.eighteenpluspdf.service;
 
 import com.chnindia.eighteenpluspdf.dto.JobRequest;
 import com.chnindia.eighteenpluspdf.dto.JobResponse;
+import com.chnindia.eighteenpluspdf.dto.response.JobAttempt;
+import com.chnindia.eighteenpluspdf.dto.response.JobPage;
+import com.chnindia.eighteenpluspdf.dto.response.JobProgressEvent;
 import com.chnindia.eighteenpluspdf.dto.response.JobStatusResponse;
+import com.chnindia.eighteenpluspdf.dto.response.JobSummary;
+import com.chnindia.eighteenpluspdf.exception.JobCancelledException;
 import com.chnindia.eighteenpluspdf.exception.JobNotFoundException;
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
 import com.chnindia.eighteenpluspdf.model.JobStatus;
 import com.chnindia.eighteenpluspdf.repository.JobRepository;
+import com.chnindia.eighteenpluspdf.util.CancellationToken;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
 import com.chnindia.eighteenpluspdf.util.SecurityUtil;
+import com.chnindia.eighteenpluspdf.util.SpooledMultipartFile;
 import com.chnindia.eighteenpluspdf.worker.PDFWorker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 @Service
 public class JobQueueService {
@@ -42,17 +70,50 @@ public class JobQueueService {
     @Autowired
     private SecurityUtil securityUtil;
     
+    @Autowired
+    private JobExecutionEngine executionEngine;
+    
+    @Autowired
+    private JobLeaseManager leaseManager;
+    
+    @Autowired
+    private JobPayloadCodec payloadCodec;
+    
+    @Autowired
+    private JobProgressRegistry progressRegistry;
+    
+    @Autowired
+    private JobEventBus eventBus;
+    
+    @Autowired
+    private ResultCacheService resultCache;
+    
+    @Autowired
+    private JobWatchdog watchdog;
+    
+    @Autowired
+    private JobRetryScheduler retryScheduler;
+    
+    @Autowired
+    private ToolStatsService toolStats;
+    
     @Value("${app.job-queue.max-retries:3}")
     private int maxRetries;
     
     @Value("${app.job-queue.timeout-minutes:30}")
     private int timeoutMinutes;
     
-    @Value("${app.job-queue.retry-delay-ms:5000}")
-    private long retryDelayMs;
+    @Value("${app.job-queue.batch-size:10}")
+    private int batchSize;
+    
+    @Value("${app.job-queue.list-max-limit:500}")
+    private int listMaxLimit;
     
     /**
-     * Submit a new job to the queue
+     * Submit a new job to the queue.
+     * Uploads are spooled to shared job-input storage and the job row carries the
+     * serialized parameters, so any node can claim it. The submitting node tries to
+     * claim it straight away; otherwise the queue poller on some node picks it up.
      */
     public JobResponse submitJob(JobRequest request) {
         String jobId = UUID.randomUUID().toString();
@@ -64,125 +125,428 @@ public class JobQueueService {
             request.getToolName(),
             sanitizedFileName
         );
+        jobStatus.setPriority(resolvePriority(request));
         
-        // Calculate file hash for deduplication
+        // Spool uploads so they outlive the request
+        Map<MultipartFile, SpooledMultipartFile> spooled = new IdentityHashMap<>();
+        Optional<ResultCacheService.CachedResult> cached = Optional.empty();
         try {
-            Path tempFile = fileUtil.saveTempFile(request.getFile());
-            String fileHash = fileUtil.calculateFileHash(tempFile);
-            jobStatus.setResultHash(fileHash);
-            jobStatus.setFileSize(Files.size(tempFile));
+            SpooledMultipartFile input = spool(request.getFile(), spooled);
+            Map<String, Object> parameters = spoolParameters(request.getParameters(), spooled);
+            jobStatus.setInputPath(input.getPath().toString());
+            jobStatus.setPayload(payloadCodec.encode(parameters));
             
-            // Check for duplicate jobs
-            jobRepository.findByResultHash(fileHash).ifPresent(existing -> {
-                if (existing.getStatus() == JobStatus.Status.COMPLETED) {
-                    logger.info("Duplicate job detected, returning existing result: {}", existing.getId());
-                    throw new IllegalArgumentException("Duplicate job detected with ID: " + existing.getId());
-                }
-            });
+            // Hash and size were recorded while spooling; look for an identical earlier request
+            String fileHash = input.getSha256();
+            jobStatus.setResultHash(fileHash);
+            jobStatus.setFileSize(input.getSize());
             
-            // Clean up temp file immediately (will be recreated in worker)
-            fileUtil.cleanupTempFile(tempFile);
+            if (resultCache.isCacheable(request.getToolName())) {
+                jobStatus.setCacheKey(resultCache.computeKey(fileHash, request.getToolName(), parameters));
+                cached = resultCache.lookup(jobStatus.getCacheKey());
+            }
         } catch (IOException e) {
-            logger.warn("Could not calculate file hash for deduplication: {}", e.getMessage());
+            cleanupSpooled(spooled.values());
+            throw new PDFProcessingException("FILE_SAVE_ERROR", "Failed to spool uploaded file", e.getMessage());
+        } catch (RuntimeException e) {
+            cleanupSpooled(spooled.values());
+            throw e;
+        }
+        
+        // Cache hit: complete immediately with the earlier result
+        if (cached.isPresent()) {
+            cleanupSpooled(spooled.values());
+            ResultCacheService.CachedResult hit = cached.get();
+            jobStatus.setInputPath(null);
+            jobStatus.setStatus(JobStatus.Status.COMPLETED);
+            jobStatus.setProgress(100);
+            jobStatus.setCurrentOperation("Completed (cached result)");
+            jobStatus.setResultUrl(hit.resultUrl());
+            jobStatus.setProcessingTimeMs(0L);
+            jobStatus.setCompletedAt(LocalDateTime.now());
+            jobStatus = jobRepository.save(jobStatus);
+            logger.info("Job {} served from result cache (source job {})", jobId, hit.sourceJobId());
+            return new JobResponse(jobStatus);
         }
         
         jobStatus = jobRepository.save(jobStatus);
         
-        // Process asynchronously
-        processJobAsync(jobId, request);
+        // Only try to claim once the job row is visible to worker threads
+        String toolName = request.getToolName();
+        int priority = jobStatus.getPriority();
+        List<SpooledMultipartFile> jobFiles = List.copyOf(spooled.values());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        claimLocally(jobId, toolName, priority);
+                    } else {
+                        cleanupSpooled(jobFiles);
+                    }
+                }
+            });
+        } else {
+            claimLocally(jobId, toolName, priority);
+        }
         
         return new JobResponse(jobStatus);
     }
     
     /**
-     * Process job asynchronously with retry logic
+     * Poll the shared queue for pending jobs and jobs whose lease expired on another node
      */
-    @Async("taskExecutor")
-    public void processJobAsync(String jobId, JobRequest request) {
-        JobStatus jobStatus = jobRepository.findById(jobId)
-            .orElseThrow(() -> new JobNotFoundException(jobId));
+    @Scheduled(fixedDelayString = "${app.job-queue.poll-interval-ms:1000}")
+    public void pollQueue() {
+        int slots = Math.min(batchSize, executionEngine.getAvailableSlots());
+        if (slots <= 0) {
+            return;
+        }
+        try {
+            for (JobStatus job : leaseManager.claimBatch(slots)) {
+                dispatch(job.getId(), job.getToolName(), job.getPriority() != null ? job.getPriority() : JobExecutionEngine.DEFAULT_PRIORITY);
+            }
+        } catch (Exception e) {
+            logger.error("Job queue poll failed: {}", e.getMessage());
+        }
+    }
+    
+    private void claimLocally(String jobId, String toolName, int priority) {
+        if (executionEngine.hasCapacity(toolName) && leaseManager.claim(jobId)) {
+            dispatch(jobId, toolName, priority);
+        }
+    }
+    
+    private void dispatch(String jobId, String toolName, int priority) {
+        try {
+            executionEngine.submit(jobId, toolName, priority, () -> processJob(jobId));
+        } catch (PDFProcessingException e) {
+            // Leave the job pending for this or another node to pick up later
+            logger.debug("Job {} not queued locally: {}", jobId, e.getMessage());
+            leaseManager.release(jobId);
+        }
+    }
+    
+    /**
+     * Run one attempt of a claimed job on an execution engine worker.
+     * Retryable failures are rescheduled with backoff instead of retried in place.
+     */
+    void processJob(String jobId) {
+        JobStatus jobStatus = jobRepository.findById(jobId).orElse(null);
+        if (jobStatus == null) {
+            logger.warn("Job {} no longer exists, skipping", jobId);
+            leaseManager.release(jobId);
+            return;
+        }
+        if (jobStatus.getStatus() != JobStatus.Status.PENDING && jobStatus.getStatus() != JobStatus.Status.PROCESSING) {
+            logger.info("Job {} is already {}, skipping", jobId, jobStatus.getStatus());
+            if (jobStatus.getStatus() == JobStatus.Status.CANCELLED && jobStatus.getInputPath() != null) {
+                // Cancelled while this node held the claim, so the inputs were left to us
+                cleanupJobFiles(Paths.get(jobStatus.getInputPath()), payloadCodec.decode(jobStatus.getPayload()));
+            }
+            leaseManager.release(jobId);
+            return;
+        }
+        
+        String toolName = jobStatus.getToolName();
+        Path inputFile = Paths.get(jobStatus.getInputPath());
+        Map<String, Object> parameters = payloadCodec.decode(jobStatus.getPayload());
         
-        Path tempFile = null;
+        int attempt = (jobStatus.getAttemptCount() != null ? jobStatus.getAttemptCount() : 0) + 1;
+        JobAttempt attemptRecord = new JobAttempt(attempt, leaseManager.getNodeId(), LocalDateTime.now());
+        // Queued since submission, or since the retry became due
+        LocalDateTime queuedSince = jobStatus.getNextAttemptAt() != null
+            ? jobStatus.getNextAttemptAt() : jobStatus.getCreatedAt();
+        long waitMs = queuedSince != null
+            ? java.time.Duration.between(queuedSince, attemptRecord.getStartedAt()).toMillis() : 0;
         long startTime = System.currentTimeMillis();
-        int attempt = 0;
+        CancellationToken token = watchdog.register(jobId, toolName);
+        boolean leaseLost = false;
         
-        while (attempt < maxRetries) {
-            try {
-                attempt++;
-                
-                // Update status to processing
-                jobStatus.setStatus(JobStatus.Status.PROCESSING);
-                jobStatus.setCurrentOperation("Starting processing");
-                jobStatus.setProgress(5);
-                jobRepository.save(jobStatus);
-                
-                // Save uploaded file to temp location
-                tempFile = fileUtil.saveTempFile(request.getFile());
-                
-                // Update progress
-                jobStatus.setProgress(10);
-                jobStatus.setCurrentOperation("File uploaded");
-                jobRepository.save(jobStatus);
-                
-                // Process based on tool name
-                Map<String, Object> result = pdfWorker.process(
-                    request.getToolName(),
-                    tempFile,
-                    request.getParameters(),
-                    jobStatus
-                );
-                
-                // Update job status
-                jobStatus.setStatus(JobStatus.Status.COMPLETED);
-                jobStatus.setProgress(100);
-                jobStatus.setCurrentOperation("Completed");
-                jobStatus.setResultUrl((String) result.get("resultUrl"));
+        try {
+            token.throwIfCancelled();
+            
+            // Update status to processing (flushed write-behind)
+            jobStatus.setAttemptCount(attempt);
+            jobStatus.setNextAttemptAt(null);
+            jobStatus.setStatus(JobStatus.Status.PROCESSING);
+            jobStatus.setCurrentOperation(attempt > 1
+                ? "Starting attempt " + attempt + " of " + maxRetries : "Starting processing");
+            jobStatus.setProgress(10);
+            progressRegistry.track(jobStatus);
+            
+            // Process based on tool name
+            Map<String, Object> result = pdfWorker.process(
+                toolName,
+                inputFile,
+                parameters,
+                jobStatus,
+                token
+            );
+            
+            // A cancellation that raced with the last page still wins
+            watchdog.unregister(jobId);
+            token.throwIfCancelled();
+            
+            // Update job status
+            jobStatus.setStatus(JobStatus.Status.COMPLETED);
+            jobStatus.setProgress(100);
+            jobStatus.setCurrentOperation("Completed");
+            jobStatus.setResultUrl((String) result.get("resultUrl"));
+            jobStatus.setErrorMessage(null);
+            jobStatus.setProcessingTimeMs(System.currentTimeMillis() - startTime);
+            jobStatus.setCompletedAt(LocalDateTime.now());
+            finishAttempt(jobStatus, attemptRecord, "COMPLETED", null);
+            progressRegistry.complete(jobId);
+            if (!leaseManager.updateIfOwner(jobStatus)) {
+                throw new JobCancelledException(jobId, false, !cancelledMeanwhile(jobStatus));
+            }
+            toolStats.recordCompleted(toolName, waitMs, jobStatus.getProcessingTimeMs(), jobStatus.getFileSize(), result);
+            // Hash the outputs here rather than on the first download request
+            fileUtil.tagOutputFiles(result);
+            
+            // Index the result only once it is kept; a dropped attempt deletes its outputs
+            resultCache.store(jobStatus.getCacheKey(), jobStatus.getResultHash(), toolName, jobId, result);
+            publishTerminal(jobStatus, result);
+            
+            logger.info("Job {} completed successfully for tool {} in {}ms (attempt {}/{})", 
+                jobId, toolName, 
+                System.currentTimeMillis() - startTime, attempt, maxRetries);
+            
+        } catch (JobCancelledException e) {
+            // The worker has unwound, so its partial outputs can go
+            token.releaseTempPaths();
+            if (e.isLeaseLost()) {
+                leaseLost = true;
+                logger.warn("Job {} was reclaimed by another node, dropping attempt {}", jobId, attempt);
+            } else {
+                leaseLost = !handleCancelled(jobStatus, attemptRecord, e, startTime) && !cancelledMeanwhile(jobStatus);
+                toolStats.record(toolName, e.isTimedOut() ? ToolStatsService.Outcome.FAILED : ToolStatsService.Outcome.CANCELLED,
+                    waitMs, jobStatus.getProcessingTimeMs());
+            }
+        } catch (Exception e) {
+            logger.error("Job {} failed on attempt {}: {}", jobId, attempt, e.getMessage(), e);
+            
+            boolean retryable = retryScheduler.isRetryable(e);
+            if (retryable && attempt < maxRetries) {
+                toolStats.record(toolName, ToolStatsService.Outcome.RETRIED, waitMs, System.currentTimeMillis() - startTime);
+                leaseLost = !scheduleRetry(jobStatus, attemptRecord, e) && !cancelledMeanwhile(jobStatus);
+            } else {
+                // Final failure
+                if (!retryable) {
+                    retryScheduler.recordNonRetryable();
+                }
+                jobStatus.setStatus(JobStatus.Status.FAILED);
+                jobStatus.setErrorMessage(e.getMessage());
+                jobStatus.setProgress(0);
+                jobStatus.setCurrentOperation("Failed");
                 jobStatus.setProcessingTimeMs(System.currentTimeMillis() - startTime);
                 jobStatus.setCompletedAt(LocalDateTime.now());
-                
-                jobRepository.save(jobStatus);
-                
-                logger.info("Job {} completed successfully for tool {} in {}ms (attempt {}/{})", 
-                    jobId, request.getToolName(), 
-                    System.currentTimeMillis() - startTime, attempt, maxRetries);
-                
-                break; // Success, exit retry loop
-                
-            } catch (Exception e) {
-                logger.error("Job {} failed on attempt {}: {}", jobId, attempt, e.getMessage(), e);
-                
-                if (attempt >= maxRetries) {
-                    // Final failure
-                    jobStatus.setStatus(JobStatus.Status.FAILED);
-                    jobStatus.setErrorMessage(e.getMessage());
-                    jobStatus.setProgress(0);
-                    jobStatus.setCurrentOperation("Failed");
-                    jobStatus.setProcessingTimeMs(System.currentTimeMillis() - startTime);
-                    jobStatus.setCompletedAt(LocalDateTime.now());
-                    jobRepository.save(jobStatus);
-                    break;
+                attemptRecord.setRetryable(retryable);
+                finishAttempt(jobStatus, attemptRecord, "FAILED", e);
+                toolStats.record(toolName, ToolStatsService.Outcome.FAILED, waitMs, jobStatus.getProcessingTimeMs());
+                progressRegistry.complete(jobId);
+                if (leaseManager.updateIfOwner(jobStatus)) {
+                    publishTerminal(jobStatus, null);
                 } else {
-                    // Retry with delay
-                    try {
-                        Thread.sleep(retryDelayMs);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+                    leaseLost = !cancelledMeanwhile(jobStatus);
+                }
+            }
+        } finally {
+            watchdog.unregister(jobId);
+            if (leaseLost) {
+                // The node that reclaimed the job owns its row, inputs and event stream now
+                progressRegistry.complete(jobId);
+                eventBus.detach(jobId);
+            } else if (jobStatus.getStatus() == JobStatus.Status.PROCESSING) {
+                // An interrupted job keeps its lease so it is reclaimed once the lease expires
+                progressRegistry.detach(jobId);
+            } else if (jobStatus.getStatus() == JobStatus.Status.PENDING) {
+                // Waiting for a retry: keep the inputs, let any node claim it when due
+                leaseManager.release(jobId);
+            } else {
+                progressRegistry.complete(jobId);
+                cleanupJobFiles(inputFile, parameters);
+                leaseManager.release(jobId);
+            }
+        }
+    }
+    
+    /**
+     * Put a failed job back to pending with a backoff and queue its re-dispatch.
+     * Returns false if another node has reclaimed the job.
+     */
+    private boolean scheduleRetry(JobStatus jobStatus, JobAttempt attemptRecord, Exception failure) {
+        String jobId = jobStatus.getId();
+        long delayMs = retryScheduler.backoffMillis(jobStatus.getAttemptCount());
+        LocalDateTime nextAttemptAt = LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(delayMs));
+        
+        attemptRecord.setRetryable(true);
+        attemptRecord.setNextAttemptAt(nextAttemptAt);
+        finishAttempt(jobStatus, attemptRecord, "RETRY_SCHEDULED", failure);
+        
+        jobStatus.setStatus(JobStatus.Status.PENDING);
+        jobStatus.setProgress(0);
+        jobStatus.setErrorMessage(failure.getMessage());
+        jobStatus.setCurrentOperation("Retrying in " + Math.max(1, delayMs / 1000) + "s (attempt "
+            + jobStatus.getAttemptCount() + " of " + maxRetries + " failed)");
+        jobStatus.setNextAttemptAt(nextAttemptAt);
+        
+        progressRegistry.complete(jobId);
+        if (!leaseManager.updateIfOwner(jobStatus)) {
+            return false;
+        }
+        
+        // Hand the job back to database refreshes for streaming clients until it runs again
+        eventBus.publish(new JobProgressEvent(jobId, JobProgressEvent.Type.PROGRESS, JobStatus.Status.PENDING,
+            0, jobStatus.getCurrentOperation()));
+        eventBus.detach(jobId);
+        
+        int priority = jobStatus.getPriority() != null ? jobStatus.getPriority() : JobExecutionEngine.DEFAULT_PRIORITY;
+        retryScheduler.schedule(jobId, delayMs, () -> claimLocally(jobId, jobStatus.getToolName(), priority));
+        logger.info("Job {} will be retried in {}ms", jobId, delayMs);
+        return true;
+    }
+    
+    /**
+     * Called when the lease guard rejected a worker's state change. Returns true if the job was
+     * cancelled while this node still held its lease; the local copy then takes the cancelled
+     * state so this node cleans up. Returns false if another node reclaimed the job.
+     */
+    private boolean cancelledMeanwhile(JobStatus jobStatus) {
+        boolean cancelled = jobRepository.findById(jobStatus.getId())
+            .filter(job -> job.getStatus() == JobStatus.Status.CANCELLED)
+            .filter(job -> leaseManager.getNodeId().equals(job.getLeaseOwner()))
+            .isPresent();
+        if (cancelled) {
+            jobStatus.setStatus(JobStatus.Status.CANCELLED);
+            jobStatus.setCurrentOperation("Cancelled");
+        }
+        return cancelled;
+    }
+    
+    private void finishAttempt(JobStatus jobStatus, JobAttempt attemptRecord, String outcome, Exception failure) {
+        LocalDateTime finishedAt = LocalDateTime.now();
+        attemptRecord.setFinishedAt(finishedAt);
+        attemptRecord.setDurationMs(java.time.Duration.between(attemptRecord.getStartedAt(), finishedAt).toMillis());
+        attemptRecord.setOutcome(outcome);
+        if (failure != null) {
+            String errorCode = retryScheduler.errorCodeOf(failure);
+            attemptRecord.setErrorCode(errorCode != null ? errorCode : failure.getClass().getSimpleName());
+            attemptRecord.setErrorMessage(failure.getMessage());
+        }
+        retryScheduler.recordAttempt(jobStatus, attemptRecord);
+    }
+    
+    /**
+     * Finish a job that was cancelled or timed out while running.
+     * Its temp and partial output files were already deleted by the worker.
+     * Returns false if another node has reclaimed the job.
+     */
+    private boolean handleCancelled(JobStatus jobStatus, JobAttempt attemptRecord, JobCancelledException e, long startTime) {
+        String jobId = jobStatus.getId();
+        jobStatus.setProcessingTimeMs(System.currentTimeMillis() - startTime);
+        jobStatus.setCompletedAt(LocalDateTime.now());
+        progressRegistry.complete(jobId);
+        if (e.isTimedOut()) {
+            int limit = watchdog.getTimeoutMinutes(jobStatus.getToolName());
+            jobStatus.setStatus(JobStatus.Status.FAILED);
+            jobStatus.setErrorMessage("Job exceeded its time limit of " + limit + " minutes");
+            jobStatus.setCurrentOperation("Timed out");
+            attemptRecord.setRetryable(false);
+            finishAttempt(jobStatus, attemptRecord, "TIMED_OUT", e);
+            if (!leaseManager.updateIfOwner(jobStatus)) {
+                return false;
+            }
+            logger.warn("Job {} timed out after {} minutes", jobId, limit);
+        } else {
+            // The cancelled state was already persisted by cancelJob
+            jobStatus.setStatus(JobStatus.Status.CANCELLED);
+            jobStatus.setCurrentOperation("Cancelled");
+            logger.info("Job {} stopped after cancellation", jobId);
+        }
+        publishTerminal(jobStatus, null);
+        return true;
+    }
+    
+    private SpooledMultipartFile spool(MultipartFile file, Map<MultipartFile, SpooledMultipartFile> spooled)
+            throws IOException {
+        SpooledMultipartFile existing = spooled.get(file);
+        if (existing != null) {
+            return existing;
+        }
+        SpooledMultipartFile spooledFile = fileUtil.spoolUpload(file);
+        spooled.put(file, spooledFile);
+        return spooledFile;
+    }
+    
+    private Map<String, Object> spoolParameters(Map<String, Object> parameters,
+                                                Map<MultipartFile, SpooledMultipartFile> spooled) throws IOException {
+        Map<String, Object> result = new HashMap<>();
+        if (parameters == null) {
+            return result;
+        }
+        for (Map.Entry<String, Object> entry : parameters.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof MultipartFile file) {
+                value = spool(file, spooled);
+            } else if (value instanceof MultipartFile[] files) {
+                List<MultipartFile> list = new ArrayList<>();
+                for (MultipartFile file : files) {
+                    list.add(spool(file, spooled));
                 }
-            } finally {
-                // Clean up temp file
-                if (tempFile != null) {
-                    fileUtil.cleanupTempFile(tempFile);
+                value = list;
+            } else if (value instanceof Collection<?> collection
+                    && collection.stream().anyMatch(MultipartFile.class::isInstance)) {
+                List<Object> list = new ArrayList<>();
+                for (Object item : collection) {
+                    list.add(item instanceof MultipartFile file ? spool(file, spooled) : item);
                 }
+                value = list;
             }
+            result.put(entry.getKey(), value);
         }
+        return result;
+    }
+    
+    private void cleanupJobFiles(Path inputFile, Map<String, Object> parameters) {
+        fileUtil.cleanupTempFile(inputFile);
+        cleanupSpooled(payloadCodec.files(parameters));
+    }
+    
+    private void cleanupSpooled(Collection<SpooledMultipartFile> files) {
+        for (SpooledMultipartFile file : files) {
+            fileUtil.cleanupTempFile(file.getPath());
+        }
+    }
+    
+    private int resolvePriority(JobRequest request) {
+        Object value = request.getPriority();
+        if (value == null && request.getParameters() != null) {
+            value = request.getParameters().get("priority");
+        }
+        int priority = JobExecutionEngine.DEFAULT_PRIORITY;
+        if (value instanceof Number number) {
+            priority = number.intValue();
+        } else if (value instanceof String text) {
+            try {
+                priority = Integer.parseInt(text.trim());
+            } catch (NumberFormatException e) {
+                logger.debug("Ignoring invalid priority: {}", text);
+            }
+        }
+        return Math.max(1, Math.min(10, priority));
     }
     
     /**
      * Get job status by ID
      */
     public JobStatusResponse getJobStatus(String jobId) {
+        JobStatusResponse live = progressRegistry.getSnapshot(jobId);
+        if (live != null) {
+            return live;
+        }
+        
         JobStatus jobStatus = jobRepository.findById(jobId)
             .orElseThrow(() -> new JobNotFoundException(jobId));
         
@@ -198,9 +562,22 @@ public class JobQueueService {
         
         if (jobStatus.getStatus() == JobStatus.Status.PENDING || 
             jobStatus.getStatus() == JobStatus.Status.PROCESSING) {
+            // Queued here, or not claimed by any node: no worker will touch the inputs
+            boolean unclaimed = executionEngine.cancelQueued(jobId) || jobStatus.getLeaseOwner() == null;
+            if (unclaimed) {
+                leaseManager.release(jobId);
+            }
+            retryScheduler.cancel(jobId);
+            // Stop the worker if the job is running here; other nodes pick it up on their next sweep
+            watchdog.cancel(jobId);
             jobStatus.setStatus(JobStatus.Status.CANCELLED);
             jobStatus.setCompletedAt(LocalDateTime.now());
             jobRepository.save(jobStatus);
+            publishTerminal(jobStatus, null);
+            // A running worker deletes its own partial outputs and inputs once it stops
+            if (unclaimed && jobStatus.getInputPath() != null) {
+                cleanupJobFiles(Paths.get(jobStatus.getInputPath()), payloadCodec.decode(jobStatus.getPayload()));
+            }
             logger.info("Job {} cancelled", jobId);
             return true;
         }
@@ -209,13 +586,31 @@ public class JobQueueService {
     }
     
     /**
-     * Get all jobs with optional status filter
+     * List job summaries newest first with an optional status filter.
+     * Pages are keyed on (createdAt, id), so each page is an index range scan regardless of depth.
      */
-    public List<JobStatus> getJobs(JobStatus.Status status) {
-        if (status != null) {
-            return jobRepository.findByStatus(status);
+    public JobPage listJobs(JobStatus.Status status, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, listMaxLimit));
+        // Fetch one extra row to know whether another page follows
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        
+        List<JobSummary> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = status != null ? jobRepository.findSummariesByStatus(status, page) : jobRepository.findSummaries(page);
+        } else {
+            Cursor position = decodeCursor(cursor);
+            rows = status != null
+                ? jobRepository.findSummariesByStatusBefore(status, position.createdAt(), position.jobId(), page)
+                : jobRepository.findSummariesBefore(position.createdAt(), position.jobId(), page);
+        }
+        
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+            JobSummary last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getJobId());
         }
-        return jobRepository.findAll();
+        return new JobPage(rows, nextCursor, pageSize);
     }
     
     /**
@@ -230,14 +625,13 @@ public class JobQueueService {
      * Get job statistics
      */
     public Map<String, Object> getStatistics() {
-        List<Object[]> stats = jobRepository.getJobStatistics();
-        Map<String, Object> result = new java.util.HashMap<>();
-        
-        for (Object[] stat : stats) {
-            Long count = (Long) stat[0];
-            JobStatus.Status status = (JobStatus.Status) stat[1];
-            result.put(status.name(), count);
-        }
+        Map<String, Object> result = new java.util.HashMap<>(toolStats.getStatusCounts());
+        result.put("tools", toolStats.getToolStatistics());
+        result.put("queue", executionEngine.getMetrics());
+        result.put("progressStore", progressRegistry.getMetrics());
+        result.put("resultCache", resultCache.getMetrics());
+        result.put("watchdog", watchdog.getMetrics());
+        result.put("retries", retryScheduler.getMetrics());
         
         return result;
     }
@@ -256,48 +650,123 @@ public class JobQueueService {
      * Get job by result hash
      */
     public JobStatus getJobByHash(String hash) {
-        return jobRepository.findByResultHash(hash).orElse(null);
+        return jobRepository.findFirstByResultHashOrderByCreatedAtDesc(hash).orElse(null);
     }
     
     /**
-     * Update job progress
+     * Update job progress (buffered in memory and flushed in batches)
      */
-    @Transactional
     public void updateProgress(String jobId, int progress, String operation) {
-        jobRepository.updateProgress(jobId, progress, operation);
+        progressRegistry.update(jobId, progress, operation);
     }
     
     /**
      * Wait for job completion with timeout
      */
     public boolean waitForCompletion(String jobId, long timeoutSeconds) {
-        long startTime = System.currentTimeMillis();
-        long timeoutMs = timeoutSeconds * 1000;
+        // Register before reading the row so a completion in between is not missed
+        CompletableFuture<JobProgressEvent> completion = eventBus.completionOf(jobId);
         
-        while (System.currentTimeMillis() - startTime < timeoutMs) {
-            JobStatus jobStatus = jobRepository.findById(jobId).orElse(null);
-            if (jobStatus == null) return false;
-            
-            JobStatus.Status status = jobStatus.getStatus();
-            if (status == JobStatus.Status.COMPLETED || status == JobStatus.Status.FAILED) {
-                return status == JobStatus.Status.COMPLETED;
+        JobStatus jobStatus = jobRepository.findById(jobId).orElse(null);
+        if (jobStatus == null) return false;
+        
+        JobProgressEvent.Type terminal = JobProgressEvent.terminalType(jobStatus.getStatus());
+        if (terminal != null) {
+            return terminal == JobProgressEvent.Type.COMPLETED;
+        }
+        
+        try {
+            JobProgressEvent event = completion.get(timeoutSeconds, TimeUnit.SECONDS);
+            return event != null && event.getType() == JobProgressEvent.Type.COMPLETED;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Stream progress, stage changes and final results for one or more jobs as Server-Sent Events.
+     * The stream completes once every job has reached a terminal state.
+     */
+    public SseEmitter streamJobEvents(Collection<String> jobIds) {
+        List<JobStatusResponse> initial = new ArrayList<>();
+        for (String jobId : new LinkedHashSet<>(jobIds)) {
+            initial.add(getJobStatus(jobId));
+        }
+        
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        Set<String> open = ConcurrentHashMap.newKeySet();
+        List<Runnable> subscriptions = new CopyOnWriteArrayList<>();
+        Runnable unsubscribeAll = () -> subscriptions.forEach(Runnable::run);
+        
+        Consumer<JobProgressEvent> sender = event -> {
+            if (!open.contains(event.getJobId())) {
+                return;
             }
-            
             try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return false;
+                emitter.send(SseEmitter.event()
+                    .id(event.getJobId())
+                    .name(event.getType().name().toLowerCase())
+                    .data(event));
+            } catch (IOException | IllegalStateException e) {
+                unsubscribeAll.run();
+                return;
             }
+            if (event.isTerminal() && open.remove(event.getJobId()) && open.isEmpty()) {
+                unsubscribeAll.run();
+                emitter.complete();
+            }
+        };
+        
+        // Subscribe first, then send snapshots, so no event falls in between
+        for (JobStatusResponse status : initial) {
+            open.add(status.getJobId());
+            subscriptions.add(eventBus.subscribe(status.getJobId(), sender));
         }
+        emitter.onCompletion(unsubscribeAll);
+        emitter.onTimeout(unsubscribeAll);
+        emitter.onError(e -> unsubscribeAll.run());
         
-        return false;
+        for (JobStatusResponse status : initial) {
+            sender.accept(JobProgressEvent.snapshot(status));
+        }
+        return emitter;
+    }
+    
+    private void publishTerminal(JobStatus jobStatus, Map<String, Object> result) {
+        JobProgressEvent event = JobProgressEvent.snapshot(new JobStatusResponse(jobStatus));
+        event.setResult(result);
+        eventBus.publish(event);
     }
     
     /**
      * Get active jobs count
      */
     public long getActiveJobsCount() {
-        return jobRepository.findActiveJobs().size();
+        return jobRepository.countByStatusIn(List.of(JobStatus.Status.PENDING, JobStatus.Status.PROCESSING));
+    }
+    
+    private static String encodeCursor(LocalDateTime createdAt, String jobId) {
+        String position = createdAt + "|" + jobId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
-}
\ No newline at end of file
+    
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("missing job id");
+            }
+            return new Cursor(LocalDateTime.parse(position[0]), position[1]);
+        } catch (Exception e) {
+            throw new PDFProcessingException("INVALID_CURSOR", "Invalid job listing cursor", e.getMessage());
+        }
+    }
+    
+    // Keyset position of the last job on a listing page
+    private record Cursor(LocalDateTime createdAt, String jobId) {}
+}
@@ -0,0 +1,185 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.dto.response.JobAttempt;
+import com.chnindia.eighteenpluspdf.exception.ExternalToolException;
+import com.chnindia.eighteenpluspdf.exception.JobCancelledException;
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retry policy and delay queue for failed job attempts.
+ * A failed attempt is classified by its error code; retryable failures are put back to
+ * PENDING with a not-before time (exponential backoff with jitter) and re-dispatched from
+ * a delay queue when due, so no worker thread sleeps between attempts. Other nodes pick
+ * the job up through the queue poller once it is due.
+ *
+ * Features:
+ * - Retryability by PDFProcessingException / ExternalToolException error code
+ * - Exponential backoff (retry-delay-ms doubling up to retry-max-delay-ms) with jitter
+ * - Attempt history (JSON) recorded on the job row
+ */
+@Service
+public class JobRetryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobRetryScheduler.class);
+
+    @Value("${app.job-queue.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    @Value("${app.job-queue.retry-max-delay-ms:300000}")
+    private long retryMaxDelayMs;
+
+    // Failures worth another attempt: I/O, temp storage and external tool hiccups
+    @Value("${app.job-queue.retryable-error-codes:TIMEOUT,EXECUTION_ERROR,EXTERNAL_TOOL_ERROR,OUTPUT_ERROR,OUTPUT_MISSING,OUTPUT_EMPTY,TEMP_ERROR,TEMP_DIR_ERROR,FILE_SAVE_ERROR,FILE_ACCESS_ERROR,OFFICE_CONVERSION_ERROR,QUEUE_FULL}")
+    private Set<String> retryableErrorCodes;
+
+    private final DelayQueue<DelayedRetry> delayQueue = new DelayQueue<>();
+    private final LongAdder retriesScheduled = new LongAdder();
+    private final LongAdder nonRetryableFailures = new LongAdder();
+    private Thread dispatcher;
+
+    @PostConstruct
+    public void initialize() {
+        dispatcher = new Thread(this::dispatchDueRetries, "job-retry-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        logger.info("✅ Job Retry Scheduler initialized (base delay={}ms, max delay={}ms, retryable codes={})",
+            retryDelayMs, retryMaxDelayMs, retryableErrorCodes.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+    }
+
+    /**
+     * Whether a failed attempt is worth retrying
+     */
+    public boolean isRetryable(Throwable failure) {
+        if (failure instanceof JobCancelledException) {
+            return false;
+        }
+        String errorCode = errorCodeOf(failure);
+        if (errorCode == null) {
+            // Unexpected runtime failures (database, network) may well be transient
+            return true;
+        }
+        return retryableErrorCodes.contains(errorCode);
+    }
+
+    public String errorCodeOf(Throwable failure) {
+        if (failure instanceof PDFProcessingException pe) {
+            return pe.getErrorCode();
+        }
+        if (failure instanceof ExternalToolException ee) {
+            return ee.getErrorCode();
+        }
+        return null;
+    }
+
+    /**
+     * Backoff before the attempt following the given one: exponential with equal jitter
+     */
+    public long backoffMillis(int failedAttempt) {
+        int exponent = Math.min(Math.max(failedAttempt - 1, 0), 20);
+        long ceiling = Math.min(retryMaxDelayMs, retryDelayMs << exponent);
+        long half = Math.max(ceiling / 2, 1);
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    /**
+     * Run a job's re-dispatch once its backoff has elapsed
+     */
+    public void schedule(String jobId, long delayMillis, Runnable dispatch) {
+        delayQueue.put(new DelayedRetry(jobId, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis), dispatch));
+        retriesScheduled.increment();
+    }
+
+    /**
+     * Drop a scheduled re-dispatch (e.g. the job was cancelled)
+     */
+    public boolean cancel(String jobId) {
+        return delayQueue.removeIf(retry -> retry.jobId.equals(jobId));
+    }
+
+    public void recordNonRetryable() {
+        nonRetryableFailures.increment();
+    }
+
+    /**
+     * Append an attempt to the job's history
+     */
+    public void recordAttempt(JobStatus jobStatus, JobAttempt attempt) {
+        List<JobAttempt> history = new ArrayList<>(JobAttempt.readHistory(jobStatus.getAttemptHistory()));
+        history.add(attempt);
+        try {
+            jobStatus.setAttemptHistory(JobAttempt.writeHistory(history));
+        } catch (Exception e) {
+            logger.warn("Could not record attempt history for job {}: {}", jobStatus.getId(), e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("delayedJobs", delayQueue.size());
+        metrics.put("retriesScheduled", retriesScheduled.sum());
+        metrics.put("nonRetryableFailures", nonRetryableFailures.sum());
+        return metrics;
+    }
+
+    private void dispatchDueRetries() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                DelayedRetry retry = delayQueue.take();
+                try {
+                    retry.dispatch.run();
+                } catch (Exception e) {
+                    // The queue poller picks the job up once it is due
+                    logger.warn("Failed to re-dispatch job {}: {}", retry.jobId, e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    private static class DelayedRetry implements Delayed {
+        private final String jobId;
+        private final long dueNanos;
+        private final Runnable dispatch;
+
+        DelayedRetry(String jobId, long dueNanos, Runnable dispatch) {
+            this.jobId = jobId;
+            this.dueNanos = dueNanos;
+            this.dispatch = dispatch;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import com.chnindia.eighteenpluspdf.repository.JobRepository;
+import com.chnindia.eighteenpluspdf.util.CancellationToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cancellation tokens and deadlines for jobs running on this node.
+ *
+ * Features:
+ * - One cancellation token per running job, handed to the worker
+ * - Per-tool deadlines (app.job-queue.tool-timeout-minutes), defaulting to timeout-minutes
+ * - Periodic sweep that times out overdue jobs and picks up cancellations made on other nodes
+ */
+@Service
+public class JobWatchdog {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobWatchdog.class);
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Value("${app.job-queue.timeout-minutes:30}")
+    private int timeoutMinutes;
+
+    // Comma-separated tool=minutes overrides, e.g. "ocr-pdf=120,pdf-to-image=60"
+    @Value("${app.job-queue.tool-timeout-minutes:}")
+    private String toolTimeoutMinutes;
+
+    private final Map<String, Integer> toolTimeouts = new HashMap<>();
+    private final Map<String, CancellationToken> tokens = new ConcurrentHashMap<>();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    @PostConstruct
+    public void initialize() {
+        if (toolTimeoutMinutes != null && !toolTimeoutMinutes.isBlank()) {
+            for (String entry : toolTimeoutMinutes.split(",")) {
+                String[] parts = entry.split("=");
+                if (parts.length == 2) {
+                    try {
+                        toolTimeouts.put(parts[0].trim().toLowerCase(), Integer.parseInt(parts[1].trim()));
+                    } catch (NumberFormatException e) {
+                        logger.warn("Ignoring invalid tool timeout '{}'", entry);
+                    }
+                }
+            }
+        }
+        logger.info("✅ Job Watchdog initialized (default timeout={}m, tool overrides={})",
+            timeoutMinutes, toolTimeouts);
+    }
+
+    /**
+     * Create the cancellation token for a job starting on this node
+     */
+    public CancellationToken register(String jobId, String toolName) {
+        int minutes = getTimeoutMinutes(toolName);
+        long deadline = minutes > 0 ? System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(minutes) : 0;
+        CancellationToken token = new CancellationToken(jobId, deadline);
+        tokens.put(jobId, token);
+        return token;
+    }
+
+    public void unregister(String jobId) {
+        tokens.remove(jobId);
+    }
+
+    /**
+     * Cancel a job running on this node; returns false if it is not running here
+     */
+    public boolean cancel(String jobId) {
+        CancellationToken token = tokens.get(jobId);
+        if (token != null && token.cancel(CancellationToken.Reason.CANCELLED)) {
+            cancelled.increment();
+            logger.info("Cancellation signalled to running job {}", jobId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stop a job whose lease was reclaimed by another node; returns false if it is not running here
+     */
+    public boolean leaseLost(String jobId) {
+        CancellationToken token = tokens.get(jobId);
+        if (token != null && token.cancel(CancellationToken.Reason.LEASE_LOST)) {
+            logger.warn("Job {} lost its lease to another node, stopping the local run", jobId);
+            return true;
+        }
+        return false;
+    }
+    
+    public int getTimeoutMinutes(String toolName) {
+        return toolName != null ? toolTimeouts.getOrDefault(toolName.toLowerCase(), timeoutMinutes) : timeoutMinutes;
+    }
+
+    /**
+     * Time out overdue jobs and apply cancellations recorded by other nodes
+     */
+    @Scheduled(fixedDelayString = "${app.job-queue.watchdog-interval-ms:5000}")
+    public void sweep() {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (CancellationToken token : tokens.values()) {
+            if (token.isOverdue(now) && token.cancel(CancellationToken.Reason.TIMED_OUT)) {
+                timedOut.increment();
+                logger.warn("Job {} exceeded its time limit, cancelling", token.getJobId());
+            }
+        }
+
+        try {
+            for (String jobId : jobRepository.findIdsByStatus(new ArrayList<>(tokens.keySet()), JobStatus.Status.CANCELLED)) {
+                cancel(jobId);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to check for remote cancellations: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("runningJobs", tokens.size());
+        metrics.put("cancelled", cancelled.sum());
+        metrics.put("timedOut", timedOut.sum());
+        return metrics;
+    }
+}
@@ -1,11 +1,11 @@
 package com.chnindia.eighteenpluspdf.service;
 
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import com.chnindia.eighteenpluspdf.util.CancellationToken;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
-import org.apache.pdfbox.Loader;
+import com.chnindia.eighteenpluspdf.util.PDFUtil;
 import org.apache.pdfbox.cos.*;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,9 +13,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * PDF Linearization Service - Fast Web View Optimization.
@@ -36,6 +40,12 @@ public class LinearizationService {
     
     private static final Logger logger = LoggerFactory.getLogger(LinearizationService.class);
     
+    // Numeric entries of a linearization dictionary
+    private static final Pattern LIN_ENTRY = Pattern.compile("/([LNEOT])\\s+(\\d+)");
+    
+    @Autowired
+    private PDFUtil pdfUtil;
+    
     @Autowired
     private FileUtil fileUtil;
     
@@ -49,36 +59,39 @@ public class LinearizationService {
         status.setFilePath(pdfFile.toString());
         
         try {
-            // First, check for linearization dictionary at the start of file
-            boolean hasLinDict = checkLinearizationDictionary(pdfFile);
+            // The linearization dictionary must sit in the first 1024 bytes of the file
+            Map<String, Long> linDict = readLinearizationDictionary(pdfFile);
+            boolean hasLinDict = linDict != null;
             status.setHasLinearizationDict(hasLinDict);
             
-            try (PDDocument document = Loader.loadPDF(pdfFile.toFile())) {
-                COSDocument cosDoc = document.getDocument();
-                
-                // Check for linearization dictionary in trailer
-                COSDictionary trailer = cosDoc.getTrailer();
-                
+            try (PDDocument document = pdfUtil.loadDocument(pdfFile)) {
                 // Get file size info
                 long fileSize = Files.size(pdfFile);
                 status.setFileSize(fileSize);
                 status.setPageCount(document.getNumberOfPages());
                 
+                // A changed length means an update was appended, which viewers treat as not linearized
+                boolean linearized = hasLinDict
+                    && linDict.getOrDefault("L", -1L) == fileSize
+                    && linDict.getOrDefault("N", -1L) == document.getNumberOfPages()
+                    && linDict.getOrDefault("E", Long.MAX_VALUE) <= fileSize;
+                if (hasLinDict && !linearized) {
+                    status.addIssue("Linearization dictionary does not match the file - it was changed after linearizing");
+                }
+                
                 // Calculate first page load percentage
                 if (document.getNumberOfPages() > 0) {
-                    PDPage firstPage = document.getPage(0);
-                    // Estimate first page data size
-                    long estimatedFirstPageSize = estimatePageSize(firstPage, document);
-                    status.setEstimatedFirstPageSize(estimatedFirstPageSize);
-                    status.setFirstPageLoadPercent((estimatedFirstPageSize * 100.0) / fileSize);
+                    // A linearized file states where the first page ends
+                    long firstPageSize = linearized ? linDict.get("E") : estimatePageSize(document.getPage(0), document);
+                    status.setEstimatedFirstPageSize(firstPageSize);
+                    status.setFirstPageLoadPercent((firstPageSize * 100.0) / fileSize);
                 }
                 
-                // Check structure for linearization indicators
-                status.setLinearized(hasLinDict);
-                status.setFastWebViewEnabled(hasLinDict);
+                status.setLinearized(linearized);
+                status.setFastWebViewEnabled(linearized);
                 
                 // Recommendations
-                if (!hasLinDict) {
+                if (!linearized) {
                     status.addRecommendation("PDF is not linearized - enable Fast Web View for better web performance");
                     status.addRecommendation("Linearization allows first page display while rest of PDF loads");
                 }
@@ -103,22 +116,26 @@ public class LinearizationService {
         return status;
     }
     
-    private boolean checkLinearizationDictionary(Path pdfFile) {
-        try (RandomAccessFile raf = new RandomAccessFile(pdfFile.toFile(), "r")) {
-            byte[] buffer = new byte[1024];
-            raf.read(buffer);
-            
-            String header = new String(buffer);
-            
-            // Look for linearization dictionary markers
-            // Linearization dict typically appears as /Linearized 1 or similar
-            return header.contains("/Linearized") || 
-                   header.contains("/L ") ||
-                   header.contains("/O ") && header.contains("/E ");
-                   
+    /**
+     * Numeric entries of the linearization dictionary, or null if the file does not start with one
+     */
+    private Map<String, Long> readLinearizationDictionary(Path pdfFile) {
+        try (InputStream in = Files.newInputStream(pdfFile)) {
+            String header = new String(in.readNBytes(1024), StandardCharsets.ISO_8859_1);
+            int start = header.indexOf("/Linearized");
+            int end = start >= 0 ? header.indexOf(">>", start) : -1;
+            if (end < 0) {
+                return null;
+            }
+            Map<String, Long> entries = new HashMap<>();
+            Matcher matcher = LIN_ENTRY.matcher(header.substring(start, end));
+            while (matcher.find()) {
+                entries.put(matcher.group(1), Long.parseLong(matcher.group(2)));
+            }
+            return entries;
         } catch (Exception e) {
             logger.debug("Could not check linearization header: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
     
@@ -165,8 +182,7 @@ public class LinearizationService {
     
     /**
      * Linearize a PDF for Fast Web View.
-     * Note: Full linearization requires specialized processing.
-     * This implementation provides a structural optimization approach.
+     * Encrypted files are passed through unchanged.
      */
     public Map<String, Object> linearize(Path inputFile, Path outputFile) {
         logger.info("Linearizing PDF: {} -> {}", inputFile, outputFile);
@@ -191,14 +207,9 @@ public class LinearizationService {
             
             long inputSize = Files.size(inputFile);
             
-            try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
-                // Optimize the document structure
-                optimizeForLinearization(document);
-                
-                // Save with linearization hints
-                // Note: PDFBox doesn't fully support linearization writing
-                // For production, consider using a specialized library
-                document.save(outputFile.toFile());
+            boolean written = pdfUtil.linearize(inputFile, outputFile, CancellationToken.NONE);
+            if (!written) {
+                Files.copy(inputFile, outputFile, StandardCopyOption.REPLACE_EXISTING);
             }
             
             long outputSize = Files.size(outputFile);
@@ -212,14 +223,14 @@ public class LinearizationService {
             result.put("inputSize", inputSize);
             result.put("outputSize", outputSize);
             result.put("processingTimeMs", processingTime);
-            result.put("optimizationApplied", true);
+            result.put("optimizationApplied", written);
             result.put("fastWebViewEnabled", newStatus.isLinearized());
             
-            if (!newStatus.isLinearized()) {
-                result.put("note", "Structural optimization applied. Full linearization requires specialized processing.");
+            if (!written) {
+                result.put("note", "Encrypted or damaged PDFs cannot be linearized and were copied unchanged.");
             }
             
-            logger.info("PDF optimization complete in {}ms", processingTime);
+            logger.info("PDF linearization complete in {}ms", processingTime);
             
         } catch (Exception e) {
             logger.error("Linearization failed", e);
@@ -231,27 +242,6 @@ public class LinearizationService {
         return result;
     }
     
-    /**
-     * Optimize document structure for better web performance.
-     */
-    private void optimizeForLinearization(PDDocument document) throws IOException {
-        PDDocumentCatalog catalog = document.getDocumentCatalog();
-        
-        // 1. Optimize page tree structure
-        // PDFBox handles this internally
-        
-        // 2. Compress object streams where possible
-        // Handled during save
-        
-        // 3. Remove unused objects
-        // This would require traversing all objects
-        
-        // 4. Optimize cross-reference table
-        // Handled by PDFBox during save
-        
-        logger.debug("Applied document structure optimizations");
-    }
-    
     /**
      * De-linearize a PDF (remove linearization for editing).
      */
@@ -261,9 +251,9 @@ public class LinearizationService {
         Map<String, Object> result = new LinkedHashMap<>();
         
         try {
-            try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+            try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
                 // Simply saving the document removes linearization
-                document.save(outputFile.toFile());
+                pdfUtil.save(document, outputFile);
             }
             
             LinearizationStatus newStatus = checkLinearization(outputFile);
@@ -298,7 +288,7 @@ public class LinearizationService {
             LinearizationStatus linStatus = checkLinearization(pdfFile);
             analysis.setLinearized(linStatus.isLinearized());
             
-            try (PDDocument document = Loader.loadPDF(pdfFile.toFile())) {
+            try (PDDocument document = pdfUtil.loadDocument(pdfFile)) {
                 analysis.setPageCount(document.getNumberOfPages());
                 
                 // Analyze images
@@ -2,7 +2,7 @@ package com.chnindia.eighteenpluspdf.service;
 
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
-import org.apache.pdfbox.Loader;
+import com.chnindia.eighteenpluspdf.util.PDFUtil;
 import org.apache.pdfbox.cos.*;
 import org.apache.pdfbox.pdmodel.*;
 import org.apache.pdfbox.pdmodel.common.PDMetadata;
@@ -42,6 +42,9 @@ public class MetadataSanitizationService {
     
     private static final Logger logger = LoggerFactory.getLogger(MetadataSanitizationService.class);
     
+    @Autowired
+    private PDFUtil pdfUtil;
+    
     @Autowired
     private FileUtil fileUtil;
     
@@ -61,7 +64,7 @@ public class MetadataSanitizationService {
         result.setInputFile(inputFile.toString());
         long startTime = System.currentTimeMillis();
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             
             // 1. Remove document metadata
             if (options.isRemoveMetadata()) {
@@ -143,7 +146,7 @@ public class MetadataSanitizationService {
             
             // Save sanitized document
             document.setAllSecurityToBeRemoved(true); // Remove any encryption for clean save
-            document.save(outputFile.toFile());
+            pdfUtil.save(document, outputFile);
             
             result.setOutputFile(outputFile.toString());
             result.setSuccess(true);
@@ -172,7 +175,7 @@ public class MetadataSanitizationService {
         SanitizationAnalysis analysis = new SanitizationAnalysis();
         analysis.setFilePath(inputFile.toString());
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             
             // Check document metadata
             PDDocumentInformation info = document.getDocumentInformation();
@@ -2,7 +2,7 @@ package com.chnindia.eighteenpluspdf.service;
 
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
-import org.apache.pdfbox.Loader;
+import com.chnindia.eighteenpluspdf.util.PDFUtil;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
 import org.apache.pdfbox.pdmodel.PDDocumentInformation;
@@ -54,6 +54,9 @@ public class PDFAComplianceService {
     
     private static final Logger logger = LoggerFactory.getLogger(PDFAComplianceService.class);
     
+    @Autowired
+    private PDFUtil pdfUtil;
+    
     @Autowired
     private FileUtil fileUtil;
     
@@ -101,7 +104,7 @@ public class PDFAComplianceService {
         PDFAValidationResult result = new PDFAValidationResult();
         result.setFilePath(inputFile.toString());
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             // Check current PDF/A status
             PDFAIdentificationSchema pdfaId = getPDFAIdentification(document);
             
@@ -524,7 +527,7 @@ public class PDFAComplianceService {
         long startTime = System.currentTimeMillis();
         Map<String, Object> result = new LinkedHashMap<>();
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             // Parse conformance level
             int part = parseConformancePart(conformance);
             String level = parseConformanceLevel(conformance);
@@ -557,7 +560,7 @@ public class PDFAComplianceService {
             }
             
             // Save the document
-            document.save(outputFile.toFile());
+            pdfUtil.save(document, outputFile);
             
             long processingTime = System.currentTimeMillis() - startTime;
             
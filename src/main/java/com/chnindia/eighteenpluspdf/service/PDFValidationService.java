@@ -3,7 +3,7 @@ package com.chnindia.eighteenpluspdf.service;
 import com.chnindia.eighteenpluspdf.dto.response.ValidationResponse;
 import com.chnindia.eighteenpluspdf.dto.response.ValidationResponse.*;
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
-import org.apache.pdfbox.Loader;
+import com.chnindia.eighteenpluspdf.util.PDFUtil;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentCatalog;
 import org.apache.pdfbox.pdmodel.PDDocumentInformation;
@@ -18,6 +18,7 @@ import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
 import org.apache.pdfbox.text.PDFTextStripper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -35,6 +36,9 @@ public class PDFValidationService {
     
     private static final Logger logger = LoggerFactory.getLogger(PDFValidationService.class);
     
+    @Autowired
+    private PDFUtil pdfUtil;
+    
     /**
      * Perform comprehensive PDF validation.
      */
@@ -53,7 +57,7 @@ public class PDFValidationService {
         int warningChecks = 0;
         int failedChecks = 0;
         
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             // Basic file checks
             totalChecks++;
             if (Files.size(inputFile) > 0) {
@@ -341,7 +345,7 @@ public class PDFValidationService {
     }
     
     private void validatePDFA(Path inputFile, List<ValidationIssue> issues, PDFMetrics metrics) {
-        try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+        try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
             // Check XMP metadata for PDF/A conformance
             PDMetadata metadata = document.getDocumentCatalog().getMetadata();
             
@@ -421,7 +425,7 @@ public class PDFValidationService {
             }
             
             // Verify it's a valid PDF
-            try (PDDocument doc = Loader.loadPDF(outputFile.toFile())) {
+            try (PDDocument doc = pdfUtil.loadDocument(outputFile)) {
                 if (doc.getNumberOfPages() == 0) {
                     // Only error for operations that should produce pages
                     if (!operation.equals("extract-text") && !operation.equals("export-form-data")) {
@@ -452,8 +456,8 @@ public class PDFValidationService {
     }
     
     private void validateMergeOutput(Path inputFile, Path outputFile) throws IOException {
-        try (PDDocument input = Loader.loadPDF(inputFile.toFile());
-             PDDocument output = Loader.loadPDF(outputFile.toFile())) {
+        try (PDDocument input = pdfUtil.loadDocument(inputFile);
+             PDDocument output = pdfUtil.loadDocument(outputFile)) {
             
             // Output should have at least as many pages as input
             if (output.getNumberOfPages() < input.getNumberOfPages()) {
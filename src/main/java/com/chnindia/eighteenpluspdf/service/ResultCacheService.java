@@ -0,0 +1,246 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.model.ResultCacheEntry;
+import com.chnindia.eighteenpluspdf.repository.ResultCacheRepository;
+import com.chnindia.eighteenpluspdf.util.FileUtil;
+import com.chnindia.eighteenpluspdf.util.SpooledMultipartFile;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Content-addressed cache of job results.
+ * Results are keyed by the input hash, the tool and its canonicalized parameters;
+ * the output files stay in the output directory and the result_cache table indexes them.
+ *
+ * Entries unused for longer than the file retention period are evicted, and the least
+ * recently used entries are evicted whenever the cache grows past its size limit.
+ * Evicting an entry deletes its output files.
+ */
+@Service
+public class ResultCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultCacheService.class);
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    // Parameters that do not affect the produced output
+    private static final Set<String> IGNORED_PARAMETERS = Set.of("priority");
+
+    @Autowired
+    private ResultCacheRepository cacheRepository;
+
+    @Autowired
+    private FileUtil fileUtil;
+
+    @Value("${app.result-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.result-cache.max-size-mb:10240}")
+    private long maxSizeMb;
+
+    @Value("${app.result-cache.excluded-tools:sign-pdf,verify-signature}")
+    private Set<String> excludedTools;
+
+    @Value("${app.file-storage.retention-days:7}")
+    private int retentionDays;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Cached result of an earlier job
+     */
+    public record CachedResult(String sourceJobId, String resultUrl, Map<String, Object> result) {}
+
+    public boolean isCacheable(String toolName) {
+        return enabled && toolName != null && !excludedTools.contains(toolName);
+    }
+
+    /**
+     * Compute the cache key for an input, tool and parameter set.
+     * Uploaded files among the parameters contribute their content hash.
+     */
+    public String computeKey(String inputHash, String toolName, Map<String, Object> parameters) {
+        if (inputHash == null) {
+            return null;
+        }
+        try {
+            Map<String, Object> canonical = new TreeMap<>();
+            parameters.forEach((key, value) -> {
+                if (!IGNORED_PARAMETERS.contains(key)) {
+                    canonical.put(key, canonicalize(value));
+                }
+            });
+            String material = inputHash + "|" + toolName + "|" + objectMapper.writeValueAsString(canonical);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(material.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            logger.debug("Could not compute cache key: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Look up a cached result whose output files are still present
+     */
+    public Optional<CachedResult> lookup(String cacheKey) {
+        if (!enabled || cacheKey == null) {
+            return Optional.empty();
+        }
+        ResultCacheEntry entry = cacheRepository.findById(cacheKey).orElse(null);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+
+        for (String fileName : splitFiles(entry.getOutputFiles())) {
+            Path file = fileUtil.resolveOutputFile(fileName);
+            if (file == null || !Files.exists(file)) {
+                logger.info("Cached result {} is missing {}, evicting", cacheKey, fileName);
+                evict(entry);
+                misses.increment();
+                return Optional.empty();
+            }
+        }
+
+        Map<String, Object> result;
+        try {
+            result = entry.getResultData() != null ? objectMapper.readValue(entry.getResultData(), MAP_TYPE) : Map.of();
+        } catch (Exception e) {
+            evict(entry);
+            misses.increment();
+            return Optional.empty();
+        }
+
+        cacheRepository.recordHit(cacheKey, LocalDateTime.now());
+        hits.increment();
+        return Optional.of(new CachedResult(entry.getSourceJobId(), entry.getResultUrl(), result));
+    }
+
+    /**
+     * Index the result of a completed job
+     */
+    public void store(String cacheKey, String inputHash, String toolName, String jobId, Map<String, Object> result) {
+        if (!enabled || cacheKey == null || result == null) {
+            return;
+        }
+        try {
+            Set<String> outputFiles = fileUtil.findOutputFiles(result);
+            long size = 0;
+            for (String fileName : outputFiles) {
+                size += Files.size(fileUtil.resolveOutputFile(fileName));
+            }
+
+            ResultCacheEntry entry = new ResultCacheEntry();
+            entry.setCacheKey(cacheKey);
+            entry.setInputHash(inputHash);
+            entry.setToolName(toolName);
+            entry.setSourceJobId(jobId);
+            entry.setResultUrl(result.get("resultUrl") instanceof String url ? url : null);
+            entry.setResultData(objectMapper.writeValueAsString(result));
+            entry.setOutputFiles(String.join("\n", outputFiles));
+            entry.setSizeBytes(size);
+            cacheRepository.save(entry);
+        } catch (Exception e) {
+            logger.warn("Could not cache result of job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Evict expired entries, then least recently used entries until under the size limit
+     */
+    @Scheduled(fixedDelayString = "${app.result-cache.eviction-interval-ms:3600000}")
+    public void evictExpired() {
+        try {
+            for (ResultCacheEntry entry : cacheRepository.findByLastAccessedAtBefore(LocalDateTime.now().minusDays(retentionDays))) {
+                evict(entry);
+            }
+
+            long maxBytes = maxSizeMb * 1024 * 1024;
+            long total = cacheRepository.getTotalSize();
+            while (total > maxBytes) {
+                List<ResultCacheEntry> oldest = cacheRepository.findAllByOrderByLastAccessedAtAsc(PageRequest.of(0, 50));
+                if (oldest.isEmpty()) break;
+                for (ResultCacheEntry entry : oldest) {
+                    evict(entry);
+                    total -= entry.getSizeBytes() != null ? entry.getSizeBytes() : 0;
+                    if (total <= maxBytes) break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Result cache eviction failed: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("entries", cacheRepository.count());
+        metrics.put("sizeBytes", cacheRepository.getTotalSize());
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("hitRate", lookups > 0 ? (double) hitCount / lookups : 0.0);
+        metrics.put("evictions", evictions.sum());
+        return metrics;
+    }
+
+    private void evict(ResultCacheEntry entry) {
+        cacheRepository.delete(entry);
+        for (String fileName : splitFiles(entry.getOutputFiles())) {
+            Path file = fileUtil.resolveOutputFile(fileName);
+            if (file != null) {
+                fileUtil.cleanupTempFile(file);
+            }
+        }
+        evictions.increment();
+    }
+
+    private Object canonicalize(Object value) {
+        if (value instanceof SpooledMultipartFile file) {
+            String hash = file.getSha256() != null ? file.getSha256() : fileUtil.calculateFileHash(file.getPath());
+            return "sha256:" + hash;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            map.forEach((k, v) -> sorted.put(String.valueOf(k), canonicalize(v)));
+            return sorted;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> list = new ArrayList<>();
+            for (Object item : collection) {
+                list.add(canonicalize(item));
+            }
+            return list;
+        }
+        return value;
+    }
+
+    private List<String> splitFiles(String outputFiles) {
+        if (outputFiles == null || outputFiles.isBlank()) {
+            return List.of();
+        }
+        return Arrays.asList(outputFiles.split("\n"));
+    }
+}
@@ -0,0 +1,285 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import com.chnindia.eighteenpluspdf.repository.JobRepository;
+import com.chnindia.eighteenpluspdf.util.FileUtil;
+import com.chnindia.eighteenpluspdf.util.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling-window latency and throughput statistics per tool.
+ *
+ * Features:
+ * - Run time and queue wait histograms with p50/p95/p99 per tool and overall
+ * - Success rate, pages per second and bytes in/out over the window
+ * - Fixed memory per tool: the window is a ring of time slots, each with its own histograms
+ * - Job counts by status cached for a short interval instead of grouped on every call
+ *
+ * Statistics are kept in memory and cover jobs that finished on this node.
+ */
+@Service
+public class ToolStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolStatsService.class);
+
+    // Result keys under which tools report how many pages they processed
+    private static final List<String> PAGE_COUNT_KEYS = List.of("pageCount", "pagesProcessed", "totalPages");
+
+    public enum Outcome {
+        COMPLETED,
+        FAILED,
+        RETRIED,
+        CANCELLED
+    }
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private FileUtil fileUtil;
+
+    @Value("${app.stats.window-minutes:60}")
+    private int windowMinutes;
+
+    @Value("${app.stats.window-slots:12}")
+    private int windowSlots;
+
+    @Value("${app.stats.status-counts-ttl-ms:30000}")
+    private long statusCountsTtlMs;
+
+    private final Map<String, RollingWindow> windows = new ConcurrentHashMap<>();
+    private volatile Map<String, Long> statusCounts = Map.of();
+    private volatile long statusCountsLoadedAt;
+    private long slotMillis;
+
+    @PostConstruct
+    public void initialize() {
+        windowSlots = Math.max(1, windowSlots);
+        slotMillis = Math.max(1000L, windowMinutes * 60_000L / windowSlots);
+        logger.info("✅ Tool statistics initialized ({} min window, {} slots)", windowMinutes, windowSlots);
+    }
+
+    /**
+     * Record a completed attempt; pages and output bytes are derived from the result.
+     * Pages are unknown for tools that do not report them; the input is never parsed again.
+     */
+    public void recordCompleted(String toolName, long waitMs, long runMs, Long inputBytes,
+                                Map<String, Object> result) {
+        long bytesOut = 0;
+        for (String fileName : fileUtil.findOutputFiles(result)) {
+            try {
+                bytesOut += Files.size(fileUtil.resolveOutputFile(fileName));
+            } catch (Exception e) {
+                // Output removed in the meantime; count what is left
+            }
+        }
+        record(toolName, Outcome.COMPLETED, waitMs, runMs, pagesOf(result),
+            inputBytes != null ? inputBytes : 0, bytesOut);
+    }
+
+    /**
+     * Record an attempt that did not complete
+     */
+    public void record(String toolName, Outcome outcome, long waitMs, long runMs) {
+        record(toolName, outcome, waitMs, runMs, -1, 0, 0);
+    }
+
+    private void record(String toolName, Outcome outcome, long waitMs, long runMs, int pages,
+                        long bytesIn, long bytesOut) {
+        if (toolName == null) {
+            return;
+        }
+        long slot = System.currentTimeMillis() / slotMillis;
+        windows.computeIfAbsent(toolName, tool -> new RollingWindow(windowSlots))
+            .record(slot, outcome, Math.max(0, waitMs), Math.max(0, runMs), pages, bytesIn, bytesOut);
+    }
+
+    /**
+     * Window statistics for every tool that recorded a job, plus an overall entry
+     */
+    public Map<String, Object> getToolStatistics() {
+        long currentSlot = System.currentTimeMillis() / slotMillis;
+        Slot overall = new Slot();
+        Map<String, Object> tools = new TreeMap<>();
+        windows.forEach((tool, window) -> {
+            Slot merged = window.merge(currentSlot);
+            if (merged.attempts() > 0) {
+                tools.put(tool, describe(merged));
+                overall.add(merged);
+            }
+        });
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("windowMinutes", windowMinutes);
+        stats.put("overall", describe(overall));
+        stats.put("tools", tools);
+        return stats;
+    }
+
+    /**
+     * Job counts by status, refreshed from the database at most once per TTL
+     */
+    public Map<String, Long> getStatusCounts() {
+        long now = System.currentTimeMillis();
+        if (now - statusCountsLoadedAt > statusCountsTtlMs) {
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (Object[] row : jobRepository.getJobStatistics()) {
+                counts.put(((JobStatus.Status) row[1]).name(), (Long) row[0]);
+            }
+            statusCounts = counts;
+            statusCountsLoadedAt = now;
+        }
+        return statusCounts;
+    }
+
+    private int pagesOf(Map<String, Object> result) {
+        if (result != null) {
+            for (String key : PAGE_COUNT_KEYS) {
+                if (result.get(key) instanceof Number pages) {
+                    return pages.intValue();
+                }
+            }
+        }
+        return -1;
+    }
+
+    private Map<String, Object> describe(Slot slot) {
+        long finished = slot.completed + slot.failed;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("completed", slot.completed);
+        stats.put("failed", slot.failed);
+        stats.put("retried", slot.retried);
+        stats.put("cancelled", slot.cancelled);
+        stats.put("successRate", finished > 0 ? (double) slot.completed / finished : null);
+        stats.put("runTimeMs", percentiles(slot.runTime));
+        stats.put("waitTimeMs", percentiles(slot.waitTime));
+        // Fraction of a job's time in the system spent queued rather than running, over all attempts
+        long totalMs = slot.attemptRunMs + slot.waitTime.getSum();
+        stats.put("waitShare", totalMs > 0 ? (double) slot.waitTime.getSum() / totalMs : null);
+        stats.put("pages", slot.pages);
+        stats.put("pagesPerSecond", slot.pagedRunMs > 0 ? slot.pages * 1000.0 / slot.pagedRunMs : null);
+        stats.put("bytesIn", slot.bytesIn);
+        stats.put("bytesOut", slot.bytesOut);
+        return stats;
+    }
+
+    private Map<String, Object> percentiles(LatencyHistogram histogram) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("count", histogram.getCount());
+        values.put("mean", Math.round(histogram.getMean()));
+        values.put("p50", histogram.percentile(50));
+        values.put("p95", histogram.percentile(95));
+        values.put("p99", histogram.percentile(99));
+        values.put("max", histogram.getMax());
+        return values;
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    /**
+     * Ring of time slots; a slot is cleared when it is reused for a newer interval
+     */
+    private static class RollingWindow {
+        private final Slot[] slots;
+
+        RollingWindow(int size) {
+            slots = new Slot[size];
+            for (int i = 0; i < size; i++) {
+                slots[i] = new Slot();
+            }
+        }
+
+        void record(long slotIndex, Outcome outcome, long waitMs, long runMs, int pages, long bytesIn, long bytesOut) {
+            Slot slot = slots[(int) (slotIndex % slots.length)];
+            synchronized (slot) {
+                if (slot.index != slotIndex) {
+                    slot.reset(slotIndex);
+                }
+                slot.record(outcome, waitMs, runMs, pages, bytesIn, bytesOut);
+            }
+        }
+
+        Slot merge(long currentSlot) {
+            Slot merged = new Slot();
+            for (Slot slot : slots) {
+                synchronized (slot) {
+                    if (slot.index > currentSlot - slots.length) {
+                        merged.add(slot);
+                    }
+                }
+            }
+            return merged;
+        }
+    }
+
+    private static class Slot {
+        private long index = -1;
+        private final LatencyHistogram runTime = new LatencyHistogram();
+        private final LatencyHistogram waitTime = new LatencyHistogram();
+        private long completed;
+        private long failed;
+        private long retried;
+        private long cancelled;
+        private long pages;
+        private long pagedRunMs;
+        private long attemptRunMs;
+        private long bytesIn;
+        private long bytesOut;
+
+        void record(Outcome outcome, long waitMs, long runMs, int pageCount, long inBytes, long outBytes) {
+            switch (outcome) {
+                case COMPLETED -> completed++;
+                case FAILED -> failed++;
+                case RETRIED -> retried++;
+                case CANCELLED -> cancelled++;
+            }
+            waitTime.record(waitMs);
+            attemptRunMs += runMs;
+            // Latency percentiles describe successful runs only
+            if (outcome == Outcome.COMPLETED) {
+                runTime.record(runMs);
+                if (pageCount >= 0) {
+                    pages += pageCount;
+                    pagedRunMs += runMs;
+                }
+            }
+            bytesIn += inBytes;
+            bytesOut += outBytes;
+        }
+
+        void add(Slot other) {
+            runTime.add(other.runTime);
+            waitTime.add(other.waitTime);
+            completed += other.completed;
+            failed += other.failed;
+            retried += other.retried;
+            cancelled += other.cancelled;
+            pages += other.pages;
+            pagedRunMs += other.pagedRunMs;
+            attemptRunMs += other.attemptRunMs;
+            bytesIn += other.bytesIn;
+            bytesOut += other.bytesOut;
+        }
+
+        void reset(long newIndex) {
+            index = newIndex;
+            runTime.reset();
+            waitTime.reset();
+            completed = failed = retried = cancelled = 0;
+            pages = pagedRunMs = attemptRunMs = bytesIn = bytesOut = 0;
+        }
+
+        long attempts() {
+            return completed + failed + retried + cancelled;
+        }
+    }
+}
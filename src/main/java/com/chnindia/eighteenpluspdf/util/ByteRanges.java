@@ -0,0 +1,98 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Parser for HTTP {@code Range: bytes=...} headers (RFC 9110, section 14).
+ *
+ * Ranges are resolved against the resource length, clipped to it, sorted and merged where they
+ * overlap or touch, so a client asking for many small ranges cannot multiply the response size.
+ */
+public final class ByteRanges {
+
+    // More ranges than this in one request is treated as abuse and answered with the whole file
+    private static final int MAX_RANGES = 64;
+
+    /**
+     * Inclusive byte range {@code start..end}
+     */
+    public record Range(long start, long end) {
+        public long length() {
+            return end - start + 1;
+        }
+    }
+
+    private ByteRanges() {
+    }
+
+    /**
+     * Satisfiable ranges of a header, or {@code null} when the header is absent, malformed or
+     * not in bytes and the whole resource should be sent. An empty list means none of the ranges
+     * can be satisfied.
+     */
+    public static List<Range> parse(String header, long length) {
+        if (header == null || !header.regionMatches(true, 0, "bytes=", 0, 6)) {
+            return null;
+        }
+        String[] specs = header.substring(6).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<Range> ranges = new ArrayList<>();
+        for (String spec : specs) {
+            String value = spec.trim();
+            int dash = value.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                String first = value.substring(0, dash).trim();
+                String last = value.substring(dash + 1).trim();
+                if (first.isEmpty()) {
+                    // Suffix range: the final N bytes
+                    long suffix = Long.parseLong(last);
+                    if (suffix < 0) {
+                        return null;
+                    }
+                    if (suffix > 0 && length > 0) {
+                        ranges.add(new Range(Math.max(0, length - suffix), length - 1));
+                    }
+                } else {
+                    long start = Long.parseLong(first);
+                    long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                    if (start < 0 || end < start) {
+                        return null;
+                    }
+                    if (start < length) {
+                        ranges.add(new Range(start, Math.min(end, length - 1)));
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return merge(ranges);
+    }
+
+    private static List<Range> merge(List<Range> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        ranges.sort(Comparator.comparingLong(Range::start));
+        List<Range> merged = new ArrayList<>();
+        Range current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            Range next = ranges.get(i);
+            if (next.start() <= current.end() + 1) {
+                current = new Range(current.start(), Math.max(current.end(), next.end()));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+}
@@ -0,0 +1,127 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import com.chnindia.eighteenpluspdf.exception.JobCancelledException;
+import org.apache.commons.io.FileUtils;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cooperative cancellation signal for a running job.
+ * Workers call {@link #throwIfCancelled()} between pages; cancelling kills any external
+ * process started for the job. The temp and partial output files it registered are deleted
+ * by the worker once it has stopped, through {@link #releaseTempPaths()}.
+ */
+public class CancellationToken {
+
+    /**
+     * Token for work that is not tied to a job; never cancelled
+     */
+    public static final CancellationToken NONE = new CancellationToken(null, 0);
+
+    public enum Reason {
+        CANCELLED, TIMED_OUT, LEASE_LOST
+    }
+
+    private final String jobId;
+    private final long deadlineMillis;
+    private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+    private final Set<Path> tempPaths = ConcurrentHashMap.newKeySet();
+    private volatile Reason reason;
+
+    /**
+     * @param deadlineMillis epoch millis after which the job times out, or 0 for no deadline
+     */
+    public CancellationToken(String jobId, long deadlineMillis) {
+        this.jobId = jobId;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public boolean isCancelled() {
+        return reason != null;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public boolean isOverdue(long nowMillis) {
+        return deadlineMillis > 0 && nowMillis > deadlineMillis;
+    }
+
+    /**
+     * Cancellation checkpoint
+     */
+    public void throwIfCancelled() {
+        Reason current = reason;
+        if (current != null) {
+            throw new JobCancelledException(jobId, current == Reason.TIMED_OUT, current == Reason.LEASE_LOST);
+        }
+    }
+
+    /**
+     * Cancel the job; returns false if it was already cancelled or cannot be cancelled
+     */
+    public boolean cancel(Reason cancelReason) {
+        if (this == NONE) {
+            return false;
+        }
+        synchronized (this) {
+            if (reason != null) {
+                return false;
+            }
+            reason = cancelReason;
+        }
+        for (Process process : processes) {
+            destroy(process);
+        }
+        return true;
+    }
+
+    /**
+     * Track an external process so cancelling the job kills it
+     */
+    public void register(Process process) {
+        if (this == NONE) {
+            return;
+        }
+        processes.add(process);
+        if (isCancelled()) {
+            destroy(process);
+        }
+    }
+
+    public void unregister(Process process) {
+        processes.remove(process);
+    }
+
+    /**
+     * Track a temp or partial output path to delete if the job is cancelled
+     */
+    public void registerTempPath(Path path) {
+        if (this != NONE && path != null) {
+            tempPaths.add(path);
+        }
+    }
+
+    /**
+     * Delete registered temp and partial output paths; called on the worker thread
+     * so nothing is deleted while it may still be writing
+     */
+    public void releaseTempPaths() {
+        for (Path path : tempPaths) {
+            FileUtils.deleteQuietly(path.toFile());
+            tempPaths.remove(path);
+        }
+    }
+
+    private static void destroy(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+}
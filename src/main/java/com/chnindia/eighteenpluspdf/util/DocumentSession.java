@@ -0,0 +1,191 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Parsed documents shared by the steps of one job.
+ * Each file is parsed once on first use; its page count, text and rendered pages are
+ * cached alongside it, and everything is closed together when the session closes.
+ *
+ * Session documents are read-only: callers must not close or modify them, and should
+ * load their own copy through {@link PDFUtil#loadPDF(Path)} when they edit a document.
+ * An entry is dropped and re-parsed if its file changes on disk.
+ */
+public class DocumentSession implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentSession.class);
+
+    private final PDFUtil pdfUtil;
+    private final long rasterBudgetBytes;
+    private final Map<Path, Entry> entries = new HashMap<>();
+    private final LinkedHashMap<RasterKey, BufferedImage> rasters = new LinkedHashMap<>(16, 0.75f, true);
+    private long rasterBytes;
+    private boolean closed;
+
+    public DocumentSession(PDFUtil pdfUtil, long rasterBudgetBytes) {
+        this.pdfUtil = pdfUtil;
+        this.rasterBudgetBytes = rasterBudgetBytes;
+    }
+
+    /**
+     * Parsed document for a file; owned by the session
+     */
+    public synchronized PDDocument document(Path file) throws IOException {
+        return entry(file).document;
+    }
+
+    public synchronized int pageCount(Path file) throws IOException {
+        return entry(file).document.getNumberOfPages();
+    }
+
+    /**
+     * Text of the whole document
+     */
+    public synchronized String text(Path file) throws IOException {
+        Entry entry = entry(file);
+        if (entry.text == null) {
+            StringBuilder text = new StringBuilder();
+            pdfUtil.extractPages(entry.path, entry.document, 1, entry.document.getNumberOfPages(),
+                (page, pageText) -> text.append(pageText), CancellationToken.NONE);
+            entry.text = text.toString();
+        }
+        return entry.text;
+    }
+
+    /**
+     * Text of one page (1-based)
+     */
+    public synchronized String pageText(Path file, int pageNumber) throws IOException {
+        Entry entry = entry(file);
+        String text = entry.pageTexts.get(pageNumber);
+        if (text == null) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            stripper.setStartPage(pageNumber);
+            stripper.setEndPage(pageNumber);
+            text = stripper.getText(entry.document);
+            entry.pageTexts.put(pageNumber, text);
+        }
+        return text;
+    }
+
+    /**
+     * Page (0-based) rendered at the given DPI; recently used rasters are kept up to the session budget
+     */
+    public synchronized BufferedImage render(Path file, int pageIndex, float dpi) throws IOException {
+        Entry entry = entry(file);
+        RasterKey key = new RasterKey(entry.path, pageIndex, dpi);
+        BufferedImage image = rasters.get(key);
+        if (image == null) {
+            if (entry.renderer == null) {
+                entry.renderer = new PDFRenderer(entry.document);
+            }
+            image = entry.renderer.renderImageWithDPI(pageIndex, dpi);
+            cacheRaster(key, image);
+        }
+        return image;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        rasters.clear();
+        rasterBytes = 0;
+        for (Entry entry : entries.values()) {
+            closeQuietly(entry);
+        }
+        entries.clear();
+    }
+
+    private Entry entry(Path file) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Document session is closed");
+        }
+        Path path = file.toAbsolutePath().normalize();
+        long size = Files.size(path);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        Entry entry = entries.get(path);
+        if (entry != null && (entry.size != size || entry.modified != modified)) {
+            logger.debug("{} changed on disk, parsing it again", path);
+            evict(entry);
+            entry = null;
+        }
+        if (entry == null) {
+            entry = new Entry(path, pdfUtil.loadDocument(path), size, modified);
+            entries.put(path, entry);
+        }
+        return entry;
+    }
+
+    private void cacheRaster(RasterKey key, BufferedImage image) {
+        long bytes = rasterSize(image);
+        if (bytes > rasterBudgetBytes) {
+            return;
+        }
+        rasters.put(key, image);
+        rasterBytes += bytes;
+        Iterator<BufferedImage> eldest = rasters.values().iterator();
+        while (rasterBytes > rasterBudgetBytes && eldest.hasNext()) {
+            rasterBytes -= rasterSize(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    private void evict(Entry entry) {
+        entries.remove(entry.path);
+        Iterator<Map.Entry<RasterKey, BufferedImage>> it = rasters.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<RasterKey, BufferedImage> raster = it.next();
+            if (raster.getKey().path().equals(entry.path)) {
+                rasterBytes -= rasterSize(raster.getValue());
+                it.remove();
+            }
+        }
+        closeQuietly(entry);
+    }
+
+    private static void closeQuietly(Entry entry) {
+        try {
+            entry.document.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close {}: {}", entry.path, e.getMessage());
+        }
+    }
+
+    private static long rasterSize(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    private static class Entry {
+        private final Path path;
+        private final PDDocument document;
+        private final long size;
+        private final long modified;
+        private final Map<Integer, String> pageTexts = new HashMap<>();
+        private PDFRenderer renderer;
+        private String text;
+
+        Entry(Path path, PDDocument document, long size, long modified) {
+            this.path = path;
+            this.document = document;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+
+    private record RasterKey(Path path, int pageIndex, float dpi) {}
+}
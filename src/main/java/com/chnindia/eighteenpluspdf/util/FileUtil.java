@@ -11,14 +11,27 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.DigestInputStream;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 @Component
@@ -32,14 +45,32 @@ public class FileUtil {
     @Value("${app.file-storage.output-dir:./data/output}")
     private String outputDir;
     
+    @Value("${app.file-storage.job-input-dir:./data/jobs}")
+    private String jobInputDir;
+    
     @Value("${app.file-storage.allowed-extensions:.pdf,.doc,.docx,.xls,.xlsx,.ppt,.pptx,.jpg,.jpeg,.png,.bmp,.tiff,.txt}")
     private String allowedExtensions;
     
+    // Output file content tags kept in memory; the rest are read back from their sidecar files
+    @Value("${app.file-storage.etag-cache-entries:10000}")
+    private int etagCacheEntries;
+    
     private static final List<String> PDF_EXTENSIONS = Arrays.asList("pdf");
     private static final List<String> IMAGE_EXTENSIONS = Arrays.asList("jpg", "jpeg", "png", "bmp", "tiff", "tif");
     private static final List<String> OFFICE_EXTENSIONS = Arrays.asList("doc", "docx", "xls", "xlsx", "ppt", "pptx", "odt", "ods", "odp");
     private static final List<String> TEXT_EXTENSIONS = Arrays.asList("txt", "rtf", "md", "html");
     
+    // Hidden directory in the output directory holding the content tag sidecar of each tagged output
+    private static final String CONTENT_TAG_DIR = ".etags";
+    
+    // Recently used content tags, least recently used dropped first
+    private final Map<Path, ContentTag> contentTags = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, ContentTag> eldest) {
+            return size() > etagCacheEntries;
+        }
+    });
+    
     /**
      * Save uploaded file to temporary location
      */
@@ -76,6 +107,55 @@ public class FileUtil {
             .toList();
     }
     
+    /**
+     * Spool an upload to shared job-input storage so any worker node can process it.
+     * The upload is read once; its SHA-256 and size are recorded in the same pass.
+     */
+    public SpooledMultipartFile spoolUpload(MultipartFile file) throws IOException {
+        if (file instanceof SpooledMultipartFile spooled) {
+            return spooled;
+        }
+        Path dir = Paths.get(jobInputDir);
+        if (!Files.exists(dir)) {
+            Files.createDirectories(dir);
+        }
+        
+        String originalName = file.getOriginalFilename();
+        String sanitizedName = sanitizeFilename(FilenameUtils.getBaseName(originalName)) + "." + FilenameUtils.getExtension(originalName);
+        Path spoolPath = dir.resolve(UUID.randomUUID().toString() + "_" + sanitizedName);
+        
+        MessageDigest digest = newSha256();
+        long size;
+        try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+            size = Files.copy(in, spoolPath);
+        } catch (IOException e) {
+            Files.deleteIfExists(spoolPath);
+            logger.error("Failed to spool upload: {}", e.getMessage());
+            throw new PDFProcessingException("FILE_SAVE_ERROR", "Failed to save uploaded file", e.getMessage());
+        }
+        return new SpooledMultipartFile(spoolPath, file.getName(), originalName,
+            file.getContentType(), size, HexFormat.of().formatHex(digest.digest()));
+    }
+    
+    /**
+     * Local path of an upload: spooled uploads are used in place, anything else is saved to temp storage
+     */
+    public Path toLocalPath(MultipartFile file) throws IOException {
+        if (file instanceof SpooledMultipartFile spooled) {
+            return spooled.getPath();
+        }
+        return saveTempFile(file);
+    }
+    
+    /**
+     * Delete a path obtained from {@link #toLocalPath} unless it is a spooled upload owned by a job
+     */
+    public void releaseLocalPath(MultipartFile file, Path localPath) {
+        if (!(file instanceof SpooledMultipartFile)) {
+            cleanupTempFile(localPath);
+        }
+    }
+    
     private Path saveTempFileSafely(MultipartFile file) {
         try {
             return saveTempFile(file);
@@ -111,24 +191,114 @@ public class FileUtil {
      * Calculate file hash for deduplication
      */
     public String calculateFileHash(Path filePath) {
-        try {
-            byte[] fileBytes = Files.readAllBytes(filePath);
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(fileBytes);
-            
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
+        MessageDigest digest = newSha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(filePath), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(digest.digest());
         } catch (Exception e) {
             logger.warn("Failed to calculate file hash: {}", e.getMessage());
             return null;
         }
     }
     
+    /**
+     * Strong ETag for a file: its SHA-256 if it was tagged when written, otherwise one built from its
+     * size and modification time, so serving a file never has to read all of it.
+     * Tags are persisted in sidecar files, so every node and restart serves the same ETag.
+     */
+    public String contentETag(Path filePath) throws IOException {
+        Path key = filePath.toAbsolutePath().normalize();
+        long size = Files.size(key);
+        long modified = Files.getLastModifiedTime(key).toMillis();
+        ContentTag tag = contentTags.get(key);
+        if (tag == null && (tag = readContentTag(key)) != null) {
+            contentTags.put(key, tag);
+        }
+        if (tag != null && tag.size() == size && tag.modified() == modified) {
+            return tag.etag();
+        }
+        return "\"" + Long.toHexString(size) + "-" + Long.toHexString(modified) + "\"";
+    }
+    
+    /**
+     * Hash a finished output file so downloads can use its SHA-256 ETag
+     */
+    public String tagOutputFile(Path filePath) throws IOException {
+        Path key = filePath.toAbsolutePath().normalize();
+        long size = Files.size(key);
+        long modified = Files.getLastModifiedTime(key).toMillis();
+        String hash = calculateFileHash(key);
+        if (hash == null) {
+            throw new IOException("Failed to hash " + key.getFileName());
+        }
+        ContentTag tag = new ContentTag(size, modified, "\"" + hash + "\"");
+        Path tagFile = contentTagFile(key);
+        if (tagFile != null) {
+            Files.createDirectories(tagFile.getParent());
+            Files.writeString(tagFile, hash + " " + size + " " + modified);
+        }
+        contentTags.put(key, tag);
+        return tag.etag();
+    }
+    
+    /**
+     * Tag every output file a job result refers to; files that cannot be hashed keep the fallback ETag
+     */
+    public void tagOutputFiles(Object result) {
+        for (String fileName : findOutputFiles(result)) {
+            try {
+                tagOutputFile(resolveOutputFile(fileName));
+            } catch (IOException e) {
+                logger.debug("Could not tag output file {}: {}", fileName, e.getMessage());
+            }
+        }
+    }
+    
+    // Sidecar of a file directly in the output directory; other files are never tagged persistently
+    private Path contentTagFile(Path file) {
+        Path outputRoot = Paths.get(outputDir).toAbsolutePath().normalize();
+        if (!outputRoot.equals(file.getParent())) {
+            return null;
+        }
+        return outputRoot.resolve(CONTENT_TAG_DIR).resolve(file.getFileName() + ".sha256");
+    }
+    
+    private ContentTag readContentTag(Path file) {
+        Path tagFile = contentTagFile(file);
+        if (tagFile == null || !Files.isRegularFile(tagFile)) {
+            return null;
+        }
+        try {
+            String[] fields = Files.readString(tagFile).trim().split(" ");
+            return new ContentTag(Long.parseLong(fields[1]), Long.parseLong(fields[2]), "\"" + fields[0] + "\"");
+        } catch (Exception e) {
+            logger.debug("Ignoring unreadable content tag {}: {}", tagFile, e.getMessage());
+            return null;
+        }
+    }
+    
+    // Drop the tag of a deleted file from memory and from disk
+    private void forgetContentTag(Path file) {
+        Path key = file.toAbsolutePath().normalize();
+        contentTags.remove(key);
+        Path tagFile = contentTagFile(key);
+        if (tagFile != null) {
+            try {
+                Files.deleteIfExists(tagFile);
+            } catch (IOException e) {
+                logger.debug("Failed to delete content tag {}: {}", tagFile, e.getMessage());
+            }
+        }
+    }
+    
+    private MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
     /**
      * Validate file extension
      */
@@ -182,6 +352,7 @@ public class FileUtil {
         if (filePath != null && Files.exists(filePath)) {
             try {
                 Files.deleteIfExists(filePath);
+                forgetContentTag(filePath);
                 logger.debug("Cleaned up temp file: {}", filePath);
             } catch (IOException e) {
                 logger.warn("Failed to cleanup temp file: {}", filePath);
@@ -283,6 +454,51 @@ public class FileUtil {
         return "/api/pdf/download/" + filename;
     }
     
+    /**
+     * URL that streams the given output files as one ZIP without storing the archive
+     */
+    public String getArchiveUrl(Collection<String> filenames, String archiveName) {
+        return "/api/pdf/download/archive?name=" + URLEncoder.encode(archiveName, StandardCharsets.UTF_8)
+            + "&files=" + URLEncoder.encode(String.join(",", filenames), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Resolve a file name inside the output directory, or null if it would escape it
+     */
+    public Path resolveOutputFile(String filename) {
+        if (!isSafePath(filename)) {
+            return null;
+        }
+        return Paths.get(outputDir, filename).normalize();
+    }
+    
+    /**
+     * Output files referenced by a job result, either as download URLs or bare output file names
+     */
+    public Set<String> findOutputFiles(Object result) {
+        Set<String> files = new LinkedHashSet<>();
+        collectOutputFiles(result, getDownloadUrl(""), files);
+        return files;
+    }
+    
+    private void collectOutputFiles(Object value, String downloadPrefix, Set<String> files) {
+        if (value instanceof String text) {
+            String name = text.startsWith(downloadPrefix) ? text.substring(downloadPrefix.length()) : text;
+            Path file = resolveOutputFile(name);
+            if (file != null && Files.isRegularFile(file)) {
+                files.add(name);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            for (Object item : map.values()) {
+                collectOutputFiles(item, downloadPrefix, files);
+            }
+        } else if (value instanceof Collection<?> collection) {
+            for (Object item : collection) {
+                collectOutputFiles(item, downloadPrefix, files);
+            }
+        }
+    }
+    
     /**
      * Get base filename without extension
      */
@@ -327,4 +543,6 @@ public class FileUtil {
         String fileName = filePath.toString().toLowerCase();
         return fileName.endsWith(".pdf");
     }
-}
\ No newline at end of file
+    
+    private record ContentTag(long size, long modified, String etag) {}
+}
@@ -0,0 +1,705 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import org.apache.fontbox.cmap.CMap;
+import org.apache.fontbox.cmap.CMapParser;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TTFSubsetter;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetGraphicsStateParameters;
+import org.apache.pdfbox.contentstream.operator.state.SetMatrix;
+import org.apache.pdfbox.contentstream.operator.text.*;
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDTransparencyGroup;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDAbstractPattern;
+import org.apache.pdfbox.pdmodel.graphics.pattern.PDTilingPattern;
+import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+import org.apache.pdfbox.pdmodel.graphics.state.PDSoftMask;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceDictionary;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceEntry;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAppearanceStream;
+import org.apache.pdfbox.pdmodel.interactive.form.PDAcroForm;
+import org.apache.pdfbox.util.Matrix;
+import org.apache.pdfbox.util.Vector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Replaces embedded TrueType CID fonts with subsets holding only the glyphs a document shows.
+ *
+ * Pages are walked in parallel, by the calling thread over the document itself and by free threads
+ * of the shared {@link ParallelWorkPool} over their own copy of the source file, to collect
+ * the character codes drawn with every font: page content, form XObjects, tiling patterns, soft
+ * masks, Type 3 glyphs and all appearance states of annotations. The font programs are then cut
+ * down on the calling thread, and CIDToGIDMap, W, CIDSet and ToUnicode are rewritten to match.
+ * A font file shared by several fonts is subset once with the glyphs of all of them. A font file
+ * is left whole when its CIDFont, descriptor or program is also used by a font that is not subset.
+ *
+ * Only Type 0 fonts with an Identity encoding over an embedded FontFile2 are handled; these are
+ * how office tools embed large CJK and Unicode fonts. Simple TrueType fonts address glyphs through
+ * the font's own cmap, and CFF programs have no subsetter in FontBox, so both are left as they are.
+ */
+public class FontSubsetter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FontSubsetter.class);
+
+    // Tables a CIDFontType2 program needs; cmap, name and post are not used through a CIDToGIDMap
+    private static final List<String> TABLES = List.of(
+        "head", "hhea", "loca", "maxp", "cvt ", "prep", "glyf", "hmtx", "fpgm", "gasp");
+
+    // Entries per beginbfchar block allowed by the CMap format
+    private static final int BFCHAR_BLOCK = 100;
+
+    /**
+     * Number of font files replaced, and their encoded size before and after
+     */
+    public record Result(int fontsSubset, long bytesBefore, long bytesAfter) {
+        public long bytesSaved() {
+            return bytesBefore - bytesAfter;
+        }
+    }
+
+    private final Path file;
+    private final StreamCacheCreateFunction streamCache;
+    private final ParallelWorkPool pool;
+    private final int threads;
+    private final CancellationToken token;
+
+    FontSubsetter(Path file, StreamCacheCreateFunction streamCache, ParallelWorkPool pool, int threads,
+                  CancellationToken token) {
+        this.file = file;
+        this.streamCache = streamCache;
+        this.pool = pool;
+        this.threads = Math.max(1, threads);
+        this.token = token != null ? token : CancellationToken.NONE;
+    }
+
+    /**
+     * Subset the fonts of {@code document}, which must have been loaded from the source file
+     */
+    Result subset(PDDocument document) throws IOException {
+        if (document.isEncrypted() || document.getNumberOfPages() == 0) {
+            return new Result(0, 0, 0);
+        }
+        Usage usage;
+        try {
+            usage = collect(document);
+        } catch (IOException e) {
+            // A glyph missed on a page that could not be read would disappear from it
+            logger.debug("Cannot collect the glyphs used by the document, fonts are kept: {}", e.getMessage());
+            return new Result(0, 0, 0);
+        }
+        excludeFormFonts(document, usage.excluded);
+
+        Map<COSStream, FontFile> files = new IdentityHashMap<>();
+        for (Map.Entry<COSObjectKey, BitSet> entry : usage.codes.entrySet()) {
+            COSObject object = document.getDocument().getObjectFromPool(entry.getKey());
+            if (object != null && object.getObject() instanceof COSDictionary font) {
+                Candidate candidate = Candidate.of(font);
+                if (candidate != null && !candidate.sharesAny(usage.excluded)) {
+                    files.computeIfAbsent(candidate.fontFile, FontFile::new).add(candidate, entry.getValue());
+                }
+            }
+        }
+
+        int replaced = 0;
+        long before = 0;
+        long after = 0;
+        for (FontFile fontFile : files.values()) {
+            token.throwIfCancelled();
+            try {
+                long length = fontFile.stream.getLength();
+                long subsetLength = replace(document, fontFile);
+                if (subsetLength >= 0) {
+                    replaced++;
+                    before += length;
+                    after += subsetLength;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Could not subset font file {}: {}", fontFile.stream.getKey(), e.getMessage());
+            }
+        }
+        logger.debug("Subset {} of {} font files, {} -> {} bytes", replaced, files.size(), before, after);
+        return new Result(replaced, before, after);
+    }
+
+    // ==================== GLYPH COLLECTION ====================
+
+    private Usage collect(PDDocument document) throws IOException {
+        int pageCount = document.getNumberOfPages();
+        AtomicInteger next = new AtomicInteger();
+        try {
+            Usage usage = new Usage();
+            for (Usage share : pool.invoke(Math.min(threads, pageCount) - 1,
+                    caller -> collectShare(caller ? document : null, pageCount, next))) {
+                usage.addAll(share);
+            }
+            return usage;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PDFProcessingException("COMPRESS_INTERRUPTED", "Interrupted while collecting font glyphs");
+        } finally {
+            next.set(pageCount);
+        }
+    }
+
+    /**
+     * Walk claimed pages of {@code document}, or of a copy of the source opened once a page is claimed
+     * when it is null; PDFBox documents are not thread-safe, so only the calling thread walks the document
+     */
+    private Usage collectShare(PDDocument document, int pageCount, AtomicInteger next) throws IOException {
+        PDDocument source = null;
+        try {
+            GlyphCollector collector = new GlyphCollector();
+            int index;
+            while ((index = next.getAndIncrement()) < pageCount) {
+                token.throwIfCancelled();
+                if (document == null && source == null) {
+                    source = Loader.loadPDF(file.toFile(), streamCache);
+                }
+                collector.walk((document != null ? document : source).getPage(index));
+            }
+            return collector.usage;
+        } catch (IOException | RuntimeException e) {
+            // Other workers stop at their next page
+            next.set(pageCount);
+            throw e;
+        } finally {
+            if (source != null) {
+                source.close();
+            }
+        }
+    }
+
+    /**
+     * Fonts of the AcroForm default resources may be used to build field appearances later
+     */
+    private static void excludeFormFonts(PDDocument document, Set<COSObjectKey> excluded) throws IOException {
+        PDAcroForm acroForm = document.getDocumentCatalog().getAcroForm(null);
+        PDResources resources = acroForm != null ? acroForm.getDefaultResources() : null;
+        if (resources == null) {
+            return;
+        }
+        for (COSName name : resources.getFontNames()) {
+            if (resources.getCOSObject().getCOSDictionary(COSName.FONT).getDictionaryObject(name) instanceof COSDictionary font) {
+                excludeFontObjects(font, excluded);
+            }
+        }
+    }
+
+    /**
+     * Exclude the objects through which a font can share its glyphs with other fonts: its CIDFonts,
+     * font descriptors and font programs
+     */
+    private static void excludeFontObjects(COSDictionary font, Set<COSObjectKey> excluded) {
+        List<COSDictionary> fonts = new ArrayList<>();
+        fonts.add(font);
+        COSArray descendants = font.getCOSArray(COSName.DESCENDANT_FONTS);
+        if (descendants != null) {
+            for (int i = 0; i < descendants.size(); i++) {
+                if (descendants.getObject(i) instanceof COSDictionary cidFont) {
+                    fonts.add(cidFont);
+                    exclude(cidFont, excluded);
+                }
+            }
+        }
+        for (COSDictionary dictionary : fonts) {
+            COSDictionary descriptor = dictionary.getCOSDictionary(COSName.FONT_DESC);
+            if (descriptor == null) {
+                continue;
+            }
+            exclude(descriptor, excluded);
+            for (COSName key : List.of(COSName.FONT_FILE, COSName.FONT_FILE2, COSName.FONT_FILE3)) {
+                if (descriptor.getDictionaryObject(key) instanceof COSStream program) {
+                    exclude(program, excluded);
+                }
+            }
+        }
+    }
+
+    private static void exclude(COSBase object, Set<COSObjectKey> excluded) {
+        if (object.getKey() != null) {
+            excluded.add(object.getKey());
+        }
+    }
+
+    /**
+     * Records the codes shown with every candidate font, following forms, patterns, soft masks
+     * and annotation appearances
+     */
+    private static class GlyphCollector extends PDFStreamEngine {
+
+        final Usage usage = new Usage();
+        private final Set<COSBase> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        GlyphCollector() {
+            addOperator(new Concatenate(this));
+            addOperator(new Save(this));
+            addOperator(new Restore(this));
+            addOperator(new SetGraphicsStateParameters(this));
+            addOperator(new DrawObject(this));
+            addOperator(new BeginText(this));
+            addOperator(new EndText(this));
+            addOperator(new SetFontAndSize(this));
+            addOperator(new SetMatrix(this));
+            addOperator(new MoveText(this));
+            addOperator(new MoveTextSetLeading(this));
+            addOperator(new NextLine(this));
+            addOperator(new SetTextLeading(this));
+            addOperator(new ShowText(this));
+            addOperator(new ShowTextAdjusted(this));
+            addOperator(new ShowTextLine(this));
+            addOperator(new ShowTextLineAndSpace(this));
+        }
+
+        void walk(PDPage page) throws IOException {
+            processPage(page);
+            walkResources(page.getResources(), page);
+            for (PDAnnotation annotation : page.getAnnotations()) {
+                PDAppearanceDictionary appearance = annotation.getAppearance();
+                if (appearance == null) {
+                    continue;
+                }
+                walkAppearance(appearance.getNormalAppearance(), page);
+                walkAppearance(appearance.getRolloverAppearance(), page);
+                walkAppearance(appearance.getDownAppearance(), page);
+            }
+        }
+
+        private void walkAppearance(PDAppearanceEntry entry, PDPage page) throws IOException {
+            if (entry == null) {
+                return;
+            }
+            Collection<PDAppearanceStream> streams = entry.isSubDictionary()
+                ? entry.getSubDictionary().values()
+                : entry.isStream() ? List.of(entry.getAppearanceStream()) : List.of();
+            for (PDAppearanceStream stream : streams) {
+                walkChild(stream, page);
+            }
+        }
+
+        private void walkChild(PDFormXObject form, PDPage page) throws IOException {
+            if (visited.add(form.getCOSObject())) {
+                processChildStream(form, page);
+                walkResources(form.getResources(), page);
+            }
+        }
+
+        /**
+         * Tiling patterns and soft masks are not drawn by a plain stream engine, so they are walked
+         * wherever they are defined; forms are searched for such definitions too
+         */
+        private void walkResources(PDResources resources, PDPage page) throws IOException {
+            if (resources == null || !visited.add(resources.getCOSObject())) {
+                return;
+            }
+            // A font shares its objects whether or not this stream draws with it
+            COSDictionary fonts = resources.getCOSObject().getCOSDictionary(COSName.FONT);
+            if (fonts != null) {
+                for (COSName name : fonts.keySet()) {
+                    if (fonts.getDictionaryObject(name) instanceof COSDictionary font) {
+                        candidate(font);
+                    }
+                }
+            }
+            for (COSName name : resources.getPatternNames()) {
+                PDAbstractPattern pattern = resources.getPattern(name);
+                if (pattern instanceof PDTilingPattern tiling && visited.add(tiling.getCOSObject())) {
+                    processChildStream(tiling, page);
+                    walkResources(tiling.getResources(), page);
+                }
+            }
+            for (COSName name : resources.getExtGStateNames()) {
+                PDExtendedGraphicsState state = resources.getExtGState(name);
+                PDSoftMask softMask = state != null ? state.getSoftMask() : null;
+                PDTransparencyGroup group = softMask != null ? softMask.getGroup() : null;
+                if (group != null) {
+                    walkChild(group, page);
+                }
+            }
+            for (COSName name : resources.getXObjectNames()) {
+                if (!resources.isImageXObject(name)) {
+                    PDXObject xObject = resources.getXObject(name);
+                    if (xObject instanceof PDFormXObject form) {
+                        walkResources(form.getResources(), page);
+                    }
+                }
+            }
+        }
+
+        /**
+         * The candidate a font dictionary is, or null; the first time a font that is not subset is met,
+         * whatever it shares with candidates is excluded so it keeps the glyphs it draws
+         */
+        private Candidate candidate(COSDictionary font) {
+            if (!usage.candidates.containsKey(font)) {
+                Candidate candidate = Candidate.of(font);
+                // A direct font dictionary cannot be found again in the document being changed
+                if (candidate == null || font.getKey() == null) {
+                    excludeFontObjects(font, usage.excluded);
+                    candidate = null;
+                }
+                usage.candidates.put(font, candidate);
+            }
+            return usage.candidates.get(font);
+        }
+
+        @Override
+        protected void showFontGlyph(Matrix textRenderingMatrix, PDFont font, int code, Vector displacement) {
+            COSDictionary dictionary = font.getCOSObject();
+            if (candidate(dictionary) == null) {
+                return;
+            }
+            usage.codes.computeIfAbsent(dictionary.getKey(), key -> new BitSet()).set(code);
+        }
+    }
+
+    // ==================== SUBSETTING ====================
+
+    /**
+     * Subset one font file and point its fonts at the subset; the encoded length of the subset,
+     * or -1 if it would not be smaller
+     */
+    private long replace(PDDocument document, FontFile fontFile) throws IOException {
+        // Glyphs each CID of each font is drawn with in the original program
+        BitSet glyphs = new BitSet();
+        glyphs.set(0);
+        Map<COSDictionary, int[]> oldGids = new IdentityHashMap<>();
+        for (Descendant descendant : fontFile.descendants.values()) {
+            int[] gids = oldCidToGid(descendant.dictionary, descendant.cids.length());
+            oldGids.put(descendant.dictionary, gids);
+            for (int cid = descendant.cids.nextSetBit(0); cid >= 0; cid = descendant.cids.nextSetBit(cid + 1)) {
+                glyphs.set(gids[cid]);
+            }
+        }
+
+        byte[] subset;
+        Map<Integer, Integer> newToOld;
+        try (InputStream in = fontFile.stream.createInputStream();
+             TrueTypeFont font = new TTFParser(true).parse(new RandomAccessReadBuffer(in))) {
+            if (glyphs.length() > font.getNumberOfGlyphs()) {
+                return -1;
+            }
+            TTFSubsetter subsetter = new TTFSubsetter(font, TABLES);
+            Set<Integer> ids = new HashSet<>();
+            glyphs.stream().forEach(ids::add);
+            subsetter.addGlyphIds(ids);
+            newToOld = subsetter.getGIDMap();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            subsetter.writeToStream(out);
+            subset = out.toByteArray();
+        }
+        Map<Integer, Integer> oldToNew = new HashMap<>();
+        newToOld.forEach((newGid, oldGid) -> oldToNew.put(oldGid, newGid));
+
+        COSStream stream = document.getDocument().createCOSStream();
+        try (OutputStream out = stream.createOutputStream(COSName.FLATE_DECODE)) {
+            out.write(subset);
+        }
+        stream.setInt(COSName.LENGTH1, subset.length);
+        if (stream.getLength() >= fontFile.stream.getLength()) {
+            return -1;
+        }
+
+        String tag = tag(glyphs);
+        for (Descendant descendant : fontFile.descendants.values()) {
+            COSDictionary cidFont = descendant.dictionary;
+            COSDictionary descriptor = cidFont.getCOSDictionary(COSName.FONT_DESC);
+            descriptor.setItem(COSName.FONT_FILE2, stream);
+            retag(descriptor, COSName.FONT_NAME, tag);
+            retag(cidFont, COSName.BASE_FONT, tag);
+            cidFont.setItem(COSName.CID_TO_GID_MAP, cidToGidMap(document, descendant.cids, oldGids.get(cidFont), oldToNew));
+            trimWidths(cidFont, descendant.cids);
+            if (descriptor.getDictionaryObject(COSName.CID_SET) instanceof COSStream) {
+                descriptor.setItem(COSName.CID_SET, cidSet(document, descendant.cids));
+            }
+            for (Map.Entry<COSDictionary, BitSet> type0 : descendant.parents.entrySet()) {
+                retag(type0.getKey(), COSName.BASE_FONT, tag);
+                trimToUnicode(document, type0.getKey(), type0.getValue());
+            }
+        }
+        return stream.getLength();
+    }
+
+    /**
+     * Original glyph of every CID up to {@code cidCount}, from the CIDToGIDMap stream or Identity
+     */
+    private static int[] oldCidToGid(COSDictionary cidFont, int cidCount) throws IOException {
+        int[] gids = new int[cidCount];
+        byte[] map = null;
+        if (cidFont.getDictionaryObject(COSName.CID_TO_GID_MAP) instanceof COSStream stream) {
+            try (InputStream in = stream.createInputStream()) {
+                map = in.readAllBytes();
+            }
+        }
+        for (int cid = 0; cid < cidCount; cid++) {
+            if (map == null) {
+                gids[cid] = cid;
+            } else if (cid * 2 + 1 < map.length) {
+                gids[cid] = (map[cid * 2] & 0xFF) << 8 | map[cid * 2 + 1] & 0xFF;
+            }
+        }
+        return gids;
+    }
+
+    private static COSStream cidToGidMap(PDDocument document, BitSet cids, int[] oldGids,
+                                         Map<Integer, Integer> oldToNew) throws IOException {
+        byte[] map = new byte[cids.length() * 2];
+        for (int cid = cids.nextSetBit(0); cid >= 0; cid = cids.nextSetBit(cid + 1)) {
+            int gid = oldToNew.getOrDefault(oldGids[cid], 0);
+            map[cid * 2] = (byte) (gid >> 8);
+            map[cid * 2 + 1] = (byte) gid;
+        }
+        COSStream stream = document.getDocument().createCOSStream();
+        try (OutputStream out = stream.createOutputStream(COSName.FLATE_DECODE)) {
+            out.write(map);
+        }
+        return stream;
+    }
+
+    private static COSStream cidSet(PDDocument document, BitSet cids) throws IOException {
+        BitSet withNotdef = (BitSet) cids.clone();
+        withNotdef.set(0);
+        byte[] bits = new byte[(withNotdef.length() + 7) / 8];
+        for (int cid = withNotdef.nextSetBit(0); cid >= 0; cid = withNotdef.nextSetBit(cid + 1)) {
+            bits[cid / 8] |= (byte) (0x80 >> (cid % 8));
+        }
+        COSStream stream = document.getDocument().createCOSStream();
+        try (OutputStream out = stream.createOutputStream(COSName.FLATE_DECODE)) {
+            out.write(bits);
+        }
+        return stream;
+    }
+
+    /**
+     * Keep only the widths of CIDs still in use, written as runs of consecutive CIDs
+     */
+    private static void trimWidths(COSDictionary cidFont, BitSet cids) {
+        if (!(cidFont.getDictionaryObject(COSName.W) instanceof COSArray widths)) {
+            return;
+        }
+        Map<Integer, COSBase> byCid = new HashMap<>();
+        for (int i = 0; i + 1 < widths.size(); ) {
+            if (!(widths.getObject(i) instanceof COSNumber first)) {
+                return;
+            }
+            COSBase next = widths.getObject(i + 1);
+            if (next instanceof COSArray run) {
+                for (int j = 0; j < run.size(); j++) {
+                    if (cids.get(first.intValue() + j)) {
+                        byCid.put(first.intValue() + j, run.getObject(j));
+                    }
+                }
+                i += 2;
+            } else if (next instanceof COSNumber last && i + 2 < widths.size()) {
+                for (int cid = cids.nextSetBit(first.intValue()); cid >= 0 && cid <= last.intValue();
+                     cid = cids.nextSetBit(cid + 1)) {
+                    byCid.put(cid, widths.getObject(i + 2));
+                }
+                i += 3;
+            } else {
+                return;
+            }
+        }
+
+        COSArray trimmed = new COSArray();
+        COSArray run = null;
+        int previous = -2;
+        for (int cid = cids.nextSetBit(0); cid >= 0; cid = cids.nextSetBit(cid + 1)) {
+            COSBase width = byCid.get(cid);
+            if (width == null) {
+                continue;
+            }
+            if (cid != previous + 1 || run == null) {
+                run = new COSArray();
+                trimmed.add(COSInteger.get(cid));
+                trimmed.add(run);
+            }
+            run.add(width);
+            previous = cid;
+        }
+        cidFont.setItem(COSName.W, trimmed);
+    }
+
+    /**
+     * Keep only the mappings of codes still in use; Identity encodings have two-byte codes
+     */
+    private static void trimToUnicode(PDDocument document, COSDictionary type0, BitSet codes) throws IOException {
+        if (!(type0.getDictionaryObject(COSName.TO_UNICODE) instanceof COSStream stream)) {
+            return;
+        }
+        CMap cmap;
+        try (InputStream in = stream.createInputStream()) {
+            cmap = new CMapParser(true).parse(new RandomAccessReadBuffer(in));
+        } catch (IOException e) {
+            // An unreadable ToUnicode is kept as it is; it still maps the codes in use
+            return;
+        }
+        List<String> mappings = new ArrayList<>();
+        for (int code = codes.nextSetBit(0); code >= 0; code = codes.nextSetBit(code + 1)) {
+            String unicode = cmap.toUnicode(code, 2);
+            if (unicode != null) {
+                mappings.add(String.format("<%04X> <%s>", code, hex(unicode)));
+            }
+        }
+
+        StringBuilder text = new StringBuilder()
+            .append("/CIDInit /ProcSet findresource begin\n12 dict begin\nbegincmap\n")
+            .append("/CIDSystemInfo << /Registry (Adobe) /Ordering (UCS) /Supplement 0 >> def\n")
+            .append("/CMapName /Adobe-Identity-UCS def\n/CMapType 2 def\n")
+            .append("1 begincodespacerange\n<0000> <FFFF>\nendcodespacerange\n");
+        for (int i = 0; i < mappings.size(); i += BFCHAR_BLOCK) {
+            List<String> block = mappings.subList(i, Math.min(mappings.size(), i + BFCHAR_BLOCK));
+            text.append(block.size()).append(" beginbfchar\n");
+            block.forEach(mapping -> text.append(mapping).append('\n'));
+            text.append("endbfchar\n");
+        }
+        text.append("endcmap\nCMapName currentdict /CMap defineresource pop\nend\nend\n");
+
+        COSStream trimmed = document.getDocument().createCOSStream();
+        try (OutputStream out = trimmed.createOutputStream(COSName.FLATE_DECODE)) {
+            out.write(text.toString().getBytes(StandardCharsets.US_ASCII));
+        }
+        type0.setItem(COSName.TO_UNICODE, trimmed);
+    }
+
+    private static String hex(String unicode) {
+        StringBuilder hex = new StringBuilder();
+        for (char c : unicode.toCharArray()) {
+            hex.append(String.format("%04X", (int) c));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Six letter subset tag derived from the glyphs kept, replacing any tag the name already has
+     */
+    private static String tag(BitSet glyphs) {
+        long hash = Integer.toUnsignedLong(glyphs.hashCode());
+        char[] letters = new char[6];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('A' + hash % 26);
+            hash /= 26;
+        }
+        return new String(letters);
+    }
+
+    private static void retag(COSDictionary dictionary, COSName key, String tag) {
+        String name = dictionary.getNameAsString(key);
+        if (name == null) {
+            return;
+        }
+        if (name.length() > 7 && name.charAt(6) == '+' && name.substring(0, 6).chars().allMatch(Character::isUpperCase)) {
+            name = name.substring(7);
+        }
+        dictionary.setName(key, tag + "+" + name);
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    /**
+     * A Type 0 font this class can subset: Identity encoding over a CIDFontType2 with a FontFile2
+     */
+    private record Candidate(COSDictionary type0, COSDictionary cidFont, COSStream fontFile) {
+
+        static Candidate of(COSDictionary font) {
+            if (!COSName.TYPE0.equals(font.getCOSName(COSName.SUBTYPE))) {
+                return null;
+            }
+            COSName encoding = font.getCOSName(COSName.ENCODING);
+            if (!COSName.IDENTITY_H.equals(encoding) && !COSName.IDENTITY_V.equals(encoding)) {
+                return null;
+            }
+            COSArray descendants = font.getCOSArray(COSName.DESCENDANT_FONTS);
+            if (descendants == null || descendants.size() != 1
+                    || !(descendants.getObject(0) instanceof COSDictionary cidFont)
+                    || !COSName.CID_FONT_TYPE2.equals(cidFont.getCOSName(COSName.SUBTYPE))) {
+                return null;
+            }
+            COSDictionary descriptor = cidFont.getCOSDictionary(COSName.FONT_DESC);
+            if (descriptor == null || !(descriptor.getDictionaryObject(COSName.FONT_FILE2) instanceof COSStream fontFile)
+                    || fontFile.getKey() == null) {
+                return null;
+            }
+            return new Candidate(font, cidFont, fontFile);
+        }
+
+        /**
+         * Whether the CIDFont, descriptor or font program is among {@code keys}
+         */
+        boolean sharesAny(Set<COSObjectKey> keys) {
+            COSDictionary descriptor = cidFont.getCOSDictionary(COSName.FONT_DESC);
+            return keys.contains(fontFile.getKey())
+                || cidFont.getKey() != null && keys.contains(cidFont.getKey())
+                || descriptor.getKey() != null && keys.contains(descriptor.getKey());
+        }
+    }
+
+    /**
+     * Codes shown per font dictionary, and CIDFonts, descriptors and font files that must be left whole
+     */
+    private static class Usage {
+        final Map<COSObjectKey, BitSet> codes = new HashMap<>();
+        final Set<COSObjectKey> excluded = new HashSet<>();
+        // Candidate test of each font dictionary met by a collector; null values are cached too
+        final Map<COSDictionary, Candidate> candidates = new IdentityHashMap<>();
+
+        void addAll(Usage other) {
+            other.codes.forEach((key, set) -> codes.computeIfAbsent(key, k -> new BitSet()).or(set));
+            excluded.addAll(other.excluded);
+        }
+    }
+
+    /**
+     * A CIDFont over the font file, the CIDs drawn with it and the Type 0 fonts using it
+     */
+    private static class Descendant {
+        final COSDictionary dictionary;
+        final BitSet cids = new BitSet();
+        final Map<COSDictionary, BitSet> parents = new IdentityHashMap<>();
+
+        Descendant(COSDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+    }
+
+    private static class FontFile {
+        final COSStream stream;
+        final Map<COSDictionary, Descendant> descendants = new IdentityHashMap<>();
+
+        FontFile(COSStream stream) {
+            this.stream = stream;
+        }
+
+        void add(Candidate candidate, BitSet codes) {
+            // With an Identity encoding the code is the CID
+            Descendant descendant = descendants.computeIfAbsent(candidate.cidFont(), Descendant::new);
+            descendant.cids.or(codes);
+            descendant.parents.computeIfAbsent(candidate.type0(), type0 -> new BitSet()).or(codes);
+        }
+    }
+}
@@ -0,0 +1,416 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import com.github.jaiimageio.jpeg2000.J2KImageWriteParam;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetGraphicsStateParameters;
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDStream;
+import org.apache.pdfbox.pdmodel.graphics.color.*;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.util.Matrix;
+import org.imgscalr.Scalr;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downsamples and re-encodes the images of a document for the compress tool.
+ *
+ * Content streams are scanned first to find where every image is drawn, and the effective
+ * resolution of an image is taken from its largest placement. Distinct images are then decoded,
+ * resized and encoded in parallel: the calling thread reads from the document itself, and free
+ * threads of the shared {@link ParallelWorkPool} from their own copy of the source file, while
+ * the document is only changed on the calling thread. An image shared by several
+ * pages is re-encoded once, and a new encoding is only used if it is smaller than the original.
+ */
+public class ImageRecompressor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageRecompressor.class);
+
+    // Images are left at their resolution unless it exceeds the target by this factor
+    private static final double DOWNSAMPLE_THRESHOLD = 1.25;
+
+    // Entries of the original image dictionary that still apply to the re-encoded image
+    private static final List<COSName> PRESERVED_ENTRIES = List.of(
+        COSName.SMASK, COSName.INTERPOLATE, COSName.INTENT, COSName.OC, COSName.STRUCT_PARENT, COSName.METADATA);
+
+    /**
+     * Target encoding ({@code jpeg}, {@code flate} or {@code jpeg2000}), lossy quality 0-1 and the
+     * resolution images are downsampled to; a {@code maxDpi} of 0 keeps every image's resolution
+     */
+    public record Options(String format, float quality, int maxDpi, boolean grayscale, boolean convertCmyk) {}
+
+    /**
+     * Number of images replaced, and their encoded size before and after
+     */
+    public record Result(int imagesReplaced, long bytesBefore, long bytesAfter) {
+        public long bytesSaved() {
+            return bytesBefore - bytesAfter;
+        }
+    }
+
+    private final Path file;
+    private final StreamCacheCreateFunction streamCache;
+    private final ParallelWorkPool pool;
+    private final int threads;
+    private final Options options;
+    private final CancellationToken token;
+
+    ImageRecompressor(Path file, StreamCacheCreateFunction streamCache, ParallelWorkPool pool, int threads,
+                      Options options, CancellationToken token) {
+        this.file = file;
+        this.streamCache = streamCache;
+        this.pool = pool;
+        this.threads = Math.max(1, threads);
+        this.options = options;
+        this.token = token != null ? token : CancellationToken.NONE;
+    }
+
+    /**
+     * Recompress the images of {@code document}, which must have been loaded from the source file
+     */
+    Result recompress(PDDocument document) throws IOException {
+        List<Candidate> candidates = new ArrayList<>();
+        for (Candidate candidate : scan(document)) {
+            if (worthRecompressing(candidate)) {
+                candidates.add(candidate);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return new Result(0, 0, 0);
+        }
+        encodeAll(candidates);
+
+        int replaced = 0;
+        long before = 0;
+        long after = 0;
+        for (Candidate candidate : candidates) {
+            if (candidate.encoded != null && candidate.encoded.data().length < candidate.stream.getLength()) {
+                before += candidate.stream.getLength();
+                after += candidate.encoded.data().length;
+                replace(document, candidate);
+                replaced++;
+            }
+        }
+        logger.debug("Recompressed {} of {} images, {} -> {} bytes", replaced, candidates.size(), before, after);
+        return new Result(replaced, before, after);
+    }
+
+    // ==================== PLACEMENT SCAN ====================
+
+    private Collection<Candidate> scan(PDDocument document) throws IOException {
+        Map<COSStream, Candidate> images = new IdentityHashMap<>();
+        Set<COSStream> unmeasured = Collections.newSetFromMap(new IdentityHashMap<>());
+        PlacementScanner scanner = new PlacementScanner(images);
+        for (PDPage page : document.getPages()) {
+            token.throwIfCancelled();
+            try {
+                scanner.processPage(page);
+            } catch (IOException e) {
+                // Placements on this page are unknown, so its images must keep their resolution
+                logger.debug("Cannot scan page content for image placements: {}", e.getMessage());
+                PDResources resources = page.getResources();
+                if (resources != null) {
+                    for (COSName name : resources.getXObjectNames()) {
+                        if (resources.getXObject(name) instanceof PDImageXObject image) {
+                            unmeasured.add(image.getCOSObject());
+                        }
+                    }
+                }
+            }
+        }
+        images.keySet().removeAll(unmeasured);
+        return images.values();
+    }
+
+    /**
+     * Records the transformation every image is drawn with, following forms into their content
+     */
+    private static class PlacementScanner extends PDFStreamEngine {
+
+        private final Map<COSStream, Candidate> images;
+
+        PlacementScanner(Map<COSStream, Candidate> images) {
+            this.images = images;
+            addOperator(new Concatenate(this));
+            addOperator(new Save(this));
+            addOperator(new Restore(this));
+            addOperator(new SetGraphicsStateParameters(this));
+            addOperator(new DrawObject(this));
+        }
+
+        @Override
+        protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+            if ("Do".equals(operator.getName()) && !operands.isEmpty() && operands.get(0) instanceof COSName name) {
+                PDResources resources = getResources();
+                if (resources != null && resources.isImageXObject(name)
+                        && resources.getXObject(name) instanceof PDImageXObject image) {
+                    images.computeIfAbsent(image.getCOSObject(), stream -> new Candidate(image))
+                        .place(resources, name, getGraphicsState().getCurrentTransformationMatrix());
+                    return;
+                }
+            }
+            super.processOperator(operator, operands);
+        }
+    }
+
+    // ==================== SELECTION ====================
+
+    private boolean worthRecompressing(Candidate candidate) throws IOException {
+        PDImageXObject image = candidate.image;
+        COSStream stream = candidate.stream;
+        if (candidate.key == null || image.isStencil() || image.getBitsPerComponent() == 1 || image.getDecode() != null
+                || stream.containsKey(COSName.MASK) || image.getWidth() <= 0 || image.getHeight() <= 0) {
+            // Masks, bilevel scans and remapped samples do not survive a round trip through RGB
+            return false;
+        }
+        PDImageXObject softMask = image.getSoftMask();
+        if (softMask != null && softMask.getCOSObject().containsKey(COSName.MATTE)) {
+            return false;
+        }
+        PDColorSpace colorSpace = image.getColorSpace();
+        if (colorSpace instanceof PDSeparation || colorSpace instanceof PDDeviceN || colorSpace instanceof PDLab) {
+            return false;
+        }
+        if (colorSpace.getNumberOfComponents() == 4 && !options.convertCmyk()) {
+            return false;
+        }
+
+        candidate.targetWidth = targetSize(image.getWidth(), candidate.minDpiX);
+        candidate.targetHeight = targetSize(image.getHeight(), candidate.minDpiY);
+        boolean resized = candidate.targetWidth < image.getWidth() || candidate.targetHeight < image.getHeight();
+        // Re-encoding in the format the image already has only loses quality
+        return resized || options.grayscale() || !format().equals(currentFormat(stream));
+    }
+
+    private int targetSize(int pixels, double effectiveDpi) {
+        if (options.maxDpi() <= 0 || effectiveDpi == Double.MAX_VALUE
+                || effectiveDpi <= options.maxDpi() * DOWNSAMPLE_THRESHOLD) {
+            return pixels;
+        }
+        return Math.max(1, (int) Math.round(pixels * options.maxDpi() / effectiveDpi));
+    }
+
+    private String format() {
+        String format = options.format() != null ? options.format().toLowerCase() : "jpeg";
+        return switch (format) {
+            case "flate", "jpeg2000" -> format;
+            default -> "jpeg";
+        };
+    }
+
+    private static String currentFormat(COSStream stream) {
+        COSBase filter = stream.getDictionaryObject(COSName.FILTER);
+        COSBase last = filter instanceof COSArray array && array.size() > 0 ? array.getObject(array.size() - 1) : filter;
+        if (COSName.DCT_DECODE.equals(last) || COSName.DCT_DECODE_ABBREVIATION.equals(last)) return "jpeg";
+        if (COSName.JPX_DECODE.equals(last)) return "jpeg2000";
+        if (COSName.FLATE_DECODE.equals(last) || COSName.FLATE_DECODE_ABBREVIATION.equals(last)) return "flate";
+        return "other";
+    }
+
+    // ==================== ENCODING ====================
+
+    private void encodeAll(List<Candidate> candidates) throws IOException {
+        AtomicInteger next = new AtomicInteger();
+        try {
+            pool.invoke(Math.min(threads, candidates.size()) - 1, caller -> encodeShare(candidates, next, caller));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PDFProcessingException("COMPRESS_INTERRUPTED", "Interrupted while recompressing images");
+        } finally {
+            next.set(candidates.size());
+        }
+    }
+
+    private Void encodeShare(List<Candidate> candidates, AtomicInteger next, boolean caller) throws IOException {
+        // PDFBox documents are not thread-safe: only the calling thread decodes from the document
+        // being compressed, other workers open their own copy once they have claimed an image
+        PDDocument source = null;
+        try {
+            int index;
+            while ((index = next.getAndIncrement()) < candidates.size()) {
+                token.throwIfCancelled();
+                Candidate candidate = candidates.get(index);
+                if (caller) {
+                    candidate.encoded = encode(candidate.image, candidate);
+                    continue;
+                }
+                if (source == null) {
+                    source = Loader.loadPDF(file.toFile(), streamCache);
+                }
+                COSBase object = source.getDocument().getObjectFromPool(candidate.key).getObject();
+                if (object instanceof COSStream stream) {
+                    candidate.encoded = encode(new PDImageXObject(new PDStream(stream), null), candidate);
+                }
+            }
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // Other workers stop at their next image
+            next.set(candidates.size());
+            throw e;
+        } finally {
+            if (source != null) {
+                source.close();
+            }
+        }
+    }
+
+    /**
+     * Decode, resize and encode one image; null if it cannot be decoded
+     */
+    private Encoded encode(PDImageXObject image, Candidate candidate) throws IOException {
+        BufferedImage pixels;
+        try {
+            // Let the decoder skip whole rows and columns when shrinking by half or more
+            int subsampling = Math.max(1, Math.min(image.getWidth() / candidate.targetWidth,
+                image.getHeight() / candidate.targetHeight));
+            pixels = image.getOpaqueImage(new Rectangle(0, 0, image.getWidth(), image.getHeight()), subsampling);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not decode image {}: {}", candidate.key, e.getMessage());
+            return null;
+        }
+        if (pixels.getWidth() != candidate.targetWidth || pixels.getHeight() != candidate.targetHeight) {
+            pixels = Scalr.resize(pixels, Scalr.Method.QUALITY, Scalr.Mode.FIT_EXACT,
+                candidate.targetWidth, candidate.targetHeight);
+        }
+        if (options.grayscale() && pixels.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            BufferedImage gray = new BufferedImage(pixels.getWidth(), pixels.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+            Graphics2D g = gray.createGraphics();
+            g.drawImage(pixels, 0, 0, null);
+            g.dispose();
+            pixels = gray;
+        }
+
+        // The factories need a document to hold the stream; only its bytes and direct entries are kept
+        try (PDDocument scratch = new PDDocument(streamCache)) {
+            PDImageXObject encoded = switch (format()) {
+                case "flate" -> LosslessFactory.createFromImage(scratch, pixels);
+                case "jpeg2000" -> jpeg2000(scratch, pixels);
+                default -> JPEGFactory.createFromImage(scratch, pixels, options.quality());
+            };
+            try (InputStream in = encoded.getCOSObject().createRawInputStream()) {
+                return new Encoded(encoded.getCOSObject(), in.readAllBytes());
+            }
+        }
+    }
+
+    private PDImageXObject jpeg2000(PDDocument scratch, BufferedImage pixels) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg2000");
+        if (!writers.hasNext()) {
+            return JPEGFactory.createFromImage(scratch, pixels, options.quality());
+        }
+        ImageWriter writer = writers.next();
+        boolean gray = pixels.getType() == BufferedImage.TYPE_BYTE_GRAY;
+        if (!gray && pixels.getType() != BufferedImage.TYPE_INT_RGB) {
+            BufferedImage rgb = new BufferedImage(pixels.getWidth(), pixels.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = rgb.createGraphics();
+            g.drawImage(pixels, 0, 0, null);
+            g.dispose();
+            pixels = rgb;
+        }
+        J2KImageWriteParam param = new J2KImageWriteParam();
+        param.setLossless(false);
+        // Bits per pixel, scaled so a given quality lands near the size of the equivalent JPEG
+        param.setEncodingRate(0.8 * options.quality() * (gray ? 1 : 3));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(pixels, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return new PDImageXObject(scratch, new ByteArrayInputStream(out.toByteArray()), COSName.JPX_DECODE,
+            pixels.getWidth(), pixels.getHeight(), 8, gray ? PDDeviceGray.INSTANCE : PDDeviceRGB.INSTANCE);
+    }
+
+    // ==================== REPLACEMENT ====================
+
+    private static void replace(PDDocument document, Candidate candidate) throws IOException {
+        COSStream stream = document.getDocument().createCOSStream();
+        for (Map.Entry<COSName, COSBase> entry : candidate.encoded.dictionary().entrySet()) {
+            if (!COSName.LENGTH.equals(entry.getKey()) && !COSName.SMASK.equals(entry.getKey())) {
+                stream.setItem(entry.getKey(), entry.getValue());
+            }
+        }
+        for (COSName name : PRESERVED_ENTRIES) {
+            COSBase value = candidate.stream.getItem(name);
+            if (value != null) {
+                stream.setItem(name, value);
+            }
+        }
+        try (OutputStream out = stream.createRawOutputStream()) {
+            out.write(candidate.encoded.data());
+        }
+        PDImageXObject replacement = new PDImageXObject(new PDStream(stream), null);
+        for (Use use : candidate.uses) {
+            use.resources().put(use.name(), replacement);
+        }
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    private record Use(PDResources resources, COSName name) {}
+
+    private record Encoded(COSDictionary dictionary, byte[] data) {}
+
+    private static class Candidate {
+        final PDImageXObject image;
+        final COSStream stream;
+        final COSObjectKey key;
+        final List<Use> uses = new ArrayList<>();
+        double minDpiX = Double.MAX_VALUE;
+        double minDpiY = Double.MAX_VALUE;
+        int targetWidth;
+        int targetHeight;
+        volatile Encoded encoded;
+
+        Candidate(PDImageXObject image) {
+            this.image = image;
+            this.stream = image.getCOSObject();
+            this.key = stream.getKey();
+        }
+
+        // The image fills the unit square, so the CTM's axis lengths are its size in points
+        void place(PDResources resources, COSName name, Matrix ctm) {
+            // Forms drawn repeatedly hand out a new wrapper around the same resource dictionary
+            if (uses.stream().noneMatch(use -> use.resources().getCOSObject() == resources.getCOSObject()
+                    && use.name().equals(name))) {
+                uses.add(new Use(resources, name));
+            }
+            double widthPoints = Math.hypot(ctm.getScaleX(), ctm.getShearY());
+            double heightPoints = Math.hypot(ctm.getShearX(), ctm.getScaleY());
+            if (widthPoints > 0 && heightPoints > 0) {
+                minDpiX = Math.min(minDpiX, image.getWidth() * 72 / widthPoints);
+                minDpiY = Math.min(minDpiY, image.getHeight() * 72 / heightPoints);
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+
+/**
+ * Extracts the image XObjects of a document one at a time, as they are found.
+ *
+ * In passthrough mode an image whose last filter is an image codec is written as its encoded
+ * bytes: DCT as JPEG, JPX as JPEG 2000, CCITT fax wrapped in a single-strip TIFF and JBIG2 with a
+ * file header and its global segments. Only images stored with general-purpose filters are
+ * decoded and written as PNG. Each image object is extracted once however many pages use it.
+ */
+public class ImageStreamExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStreamExtractor.class);
+
+    private static final byte[] JBIG2_FILE_HEADER = {(byte) 0x97, 'J', 'B', '2', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * An extracted image: the page it was first found on (1-based), file extension and file bytes
+     */
+    public record ExtractedImage(int pageNumber, String extension, byte[] data, boolean passthrough) {}
+
+    @FunctionalInterface
+    public interface ImageSink {
+        void accept(ExtractedImage image) throws IOException;
+    }
+
+    private final PDDocument document;
+    private final boolean passthrough;
+    private final CancellationToken token;
+    private final Set<COSBase> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    ImageStreamExtractor(PDDocument document, boolean passthrough, CancellationToken token) {
+        this.document = document;
+        this.passthrough = passthrough;
+        this.token = token != null ? token : CancellationToken.NONE;
+    }
+
+    /**
+     * Hand every distinct image to the sink in page order; returns how many were extracted
+     */
+    int extract(ImageSink sink) throws IOException {
+        int count = 0;
+        int pageNumber = 0;
+        for (PDPage page : document.getPages()) {
+            pageNumber++;
+            token.throwIfCancelled();
+            count += extract(page.getResources(), pageNumber, sink);
+        }
+        return count;
+    }
+
+    private int extract(PDResources resources, int pageNumber, ImageSink sink) throws IOException {
+        if (resources == null) {
+            return 0;
+        }
+        int count = 0;
+        for (COSName name : resources.getXObjectNames()) {
+            PDXObject xObject = resources.getXObject(name);
+            if (xObject == null || !seen.add(xObject.getCOSObject())) {
+                continue;
+            }
+            if (xObject instanceof PDImageXObject image) {
+                sink.accept(toFile(image, pageNumber));
+                count++;
+            } else if (xObject instanceof PDFormXObject form) {
+                // Images drawn through forms, such as stamps and scanned page wrappers
+                count += extract(form.getResources(), pageNumber, sink);
+            }
+        }
+        return count;
+    }
+
+    private ExtractedImage toFile(PDImageXObject image, int pageNumber) throws IOException {
+        if (passthrough) {
+            try {
+                ExtractedImage raw = encoded(image, pageNumber);
+                if (raw != null) {
+                    return raw;
+                }
+            } catch (IOException e) {
+                logger.debug("Image on page {} cannot be passed through, decoding it: {}", pageNumber, e.getMessage());
+            }
+        }
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image.getImage(), "PNG", png);
+        return new ExtractedImage(pageNumber, "png", png.toByteArray(), false);
+    }
+
+    /**
+     * Encoded bytes of an image stored with an image codec, or null if it has to be decoded
+     */
+    private ExtractedImage encoded(PDImageXObject image, int pageNumber) throws IOException {
+        List<COSName> filters = image.getStream().getFilters();
+        if (filters.isEmpty()) {
+            return null;
+        }
+        int last = filters.size() - 1;
+        COSName codec = canonical(filters.get(last));
+        COSDictionary parms = decodeParms(image.getCOSObject(), last);
+
+        String extension;
+        if (COSName.DCT_DECODE.equals(codec)) {
+            extension = "jpg";
+        } else if (COSName.JPX_DECODE.equals(codec)) {
+            extension = "jp2";
+        } else if (COSName.CCITTFAX_DECODE.equals(codec)) {
+            if (parms != null && parms.getBoolean(COSName.ENCODED_BYTE_ALIGN, false)) {
+                return null;
+            }
+            extension = "tif";
+        } else if (COSName.JBIG2_DECODE.equals(codec)) {
+            extension = "jb2";
+        } else {
+            return null;
+        }
+
+        // Undo general-purpose filters applied on top of the codec, if any
+        byte[] data;
+        try (InputStream in = image.getStream().createInputStream(List.of(filters.get(last).getName()))) {
+            data = in.readAllBytes();
+        }
+        if (extension.equals("tif")) {
+            data = ccittTiff(data, image, parms);
+        } else if (extension.equals("jb2")) {
+            data = jbig2File(data, parms);
+        }
+        return new ExtractedImage(pageNumber, extension, data, true);
+    }
+
+    private static COSName canonical(COSName filter) {
+        if (COSName.DCT_DECODE_ABBREVIATION.equals(filter)) return COSName.DCT_DECODE;
+        if (COSName.CCITTFAX_DECODE_ABBREVIATION.equals(filter)) return COSName.CCITTFAX_DECODE;
+        return filter;
+    }
+
+    private static COSDictionary decodeParms(COSDictionary image, int index) {
+        COSBase parms = image.getDictionaryObject(COSName.DECODE_PARMS, COSName.DP);
+        if (parms instanceof COSDictionary dictionary) {
+            return index == 0 ? dictionary : null;
+        }
+        if (parms instanceof COSArray array && index < array.size()) {
+            return array.getObject(index) instanceof COSDictionary dictionary ? dictionary : null;
+        }
+        return null;
+    }
+
+    /**
+     * Single-strip little-endian TIFF around CCITT group 3 or group 4 data
+     */
+    private static byte[] ccittTiff(byte[] data, PDImageXObject image, COSDictionary parms) {
+        int k = parms != null ? parms.getInt(COSName.K, 0) : 0;
+        int columns = parms != null ? parms.getInt(COSName.COLUMNS, 1728) : 1728;
+        int rows = parms != null ? parms.getInt(COSName.ROWS, 0) : 0;
+        if (rows <= 0) {
+            rows = image.getHeight();
+        }
+        boolean blackIs1 = parms != null && parms.getBoolean(COSName.BLACK_IS_1, false);
+
+        // ImageWidth, ImageLength, BitsPerSample, Compression, Photometric, StripOffsets,
+        // SamplesPerPixel, RowsPerStrip, StripByteCounts, T4Options or T6Options
+        int entries = 10;
+        int dataOffset = 8 + 2 + entries * 12 + 4;
+        ByteBuffer tiff = ByteBuffer.allocate(dataOffset + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        tiff.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(8);
+        tiff.putShort((short) entries);
+        tiffEntry(tiff, 256, 4, columns);
+        tiffEntry(tiff, 257, 4, rows);
+        tiffEntry(tiff, 258, 3, 1);
+        tiffEntry(tiff, 259, 3, k < 0 ? 4 : 3);
+        // BlackIs1 means set bits are black, which TIFF calls WhiteIsZero
+        tiffEntry(tiff, 262, 3, blackIs1 ? 0 : 1);
+        tiffEntry(tiff, 273, 4, dataOffset);
+        tiffEntry(tiff, 277, 3, 1);
+        tiffEntry(tiff, 278, 4, rows);
+        tiffEntry(tiff, 279, 4, data.length);
+        if (k < 0) {
+            tiffEntry(tiff, 293, 4, 0);
+        } else {
+            tiffEntry(tiff, 292, 4, k > 0 ? 1 : 0);
+        }
+        tiff.putInt(0);
+        tiff.put(data);
+        return tiff.array();
+    }
+
+    private static void tiffEntry(ByteBuffer tiff, int tag, int type, int value) {
+        tiff.putShort((short) tag).putShort((short) type).putInt(1);
+        if (type == 3) {
+            tiff.putShort((short) value).putShort((short) 0);
+        } else {
+            tiff.putInt(value);
+        }
+    }
+
+    /**
+     * Standalone sequential JBIG2 file: header, the stream's global segments, then its page segments
+     */
+    private static byte[] jbig2File(byte[] data, COSDictionary parms) throws IOException {
+        ByteArrayOutputStream file = new ByteArrayOutputStream(data.length + 64);
+        file.write(JBIG2_FILE_HEADER);
+        // Sequential organisation with a known page count of one
+        file.write(0x01);
+        file.write(new byte[]{0, 0, 0, 1});
+        if (parms != null && parms.getDictionaryObject(COSName.JBIG2_GLOBALS) instanceof COSStream globals) {
+            try (InputStream in = globals.createInputStream()) {
+                in.transferTo(file);
+            }
+        }
+        file.write(data);
+        return file.toByteArray();
+    }
+}
@@ -0,0 +1,106 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.io.RandomAccessRead;
+import org.apache.pdfbox.io.RandomAccessReadView;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves an edited document as its original file plus an incremental update.
+ *
+ * The original bytes are copied with {@link FileChannel#transferTo}, which the kernel can do
+ * without passing them through the JVM, and PDFBox then appends only the objects changed since
+ * the document was loaded, with a new cross-reference section pointing back at the old one.
+ * Writing time follows the size of the edit rather than the size of the document.
+ *
+ * The document must have been loaded from {@code source} and the file must not have changed since.
+ */
+class IncrementalUpdateWriter {
+
+    private IncrementalUpdateWriter() {
+    }
+
+    static void write(PDDocument document, Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                 StandardOpenOption.TRUNCATE_EXISTING)) {
+            long length = in.size();
+            long copied = 0;
+            while (copied < length) {
+                copied += in.transferTo(copied, length - copied, out);
+            }
+            out.position(length);
+
+            try (OutputStream increment = new BufferedOutputStream(Channels.newOutputStream(out))) {
+                new COSWriter(increment, new CopiedOriginal(length)).write(document);
+            }
+        }
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    /**
+     * Stands in for the original bytes, which are already in the target. COSWriter needs their
+     * length to place the update and copies whatever it can read, which here is nothing.
+     */
+    private static class CopiedOriginal implements RandomAccessRead {
+        private final long length;
+        private boolean closed;
+
+        CopiedOriginal(long length) {
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            return -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return -1;
+        }
+
+        @Override
+        public long getPosition() {
+            return length;
+        }
+
+        @Override
+        public void seek(long position) {
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return closed;
+        }
+
+        @Override
+        public boolean isEOF() {
+            return true;
+        }
+
+        @Override
+        public RandomAccessReadView createView(long startPosition, long streamLength) {
+            throw new UnsupportedOperationException("Original bytes are not readable");
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
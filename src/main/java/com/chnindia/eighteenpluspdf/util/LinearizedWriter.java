@@ -0,0 +1,710 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdfwriter.COSWriter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a document as a linearized ("fast web view") PDF, ISO 32000-1 Annex F.
+ *
+ * The file starts with the linearization dictionary, the cross-reference section for the first
+ * page, the catalog and the primary hint stream, followed by every object the first page needs.
+ * Each further page then follows with the objects only it uses, then the objects shared by
+ * several pages and finally everything else. The hint stream carries the page offset and shared
+ * object hint tables, so a viewer reading with byte ranges can show page 1 after the first
+ * section and fetch any other page directly.
+ *
+ * Objects are copied with their encoded stream data, so nothing is decoded or re-compressed.
+ * Every object is written on its own under a classic cross-reference table: object streams of
+ * the source are unpacked, which usually makes the file larger than a save with object streams.
+ * The document must have been loaded from a file and is changed only by pushing inherited page
+ * attributes down to the pages. Encrypted documents are not written.
+ */
+public class LinearizedWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LinearizedWriter.class);
+
+    // Attributes a page may inherit from the page tree; copied to pages so page 1 needs no tree node
+    private static final List<COSName> INHERITABLE = List.of(
+        COSName.RESOURCES, COSName.MEDIA_BOX, COSName.CROP_BOX, COSName.ROTATE);
+
+    // Numbers patched in after the layout is known are written this wide, padded with spaces
+    private static final int NUMBER_WIDTH = 10;
+
+    private static final byte[] BINARY_COMMENT = {'%', (byte) 0xE2, (byte) 0xE3, (byte) 0xCF, (byte) 0xD3, '\n'};
+
+    private final PDDocument document;
+    private final CancellationToken token;
+
+    // New object number of every original object written
+    private final Map<COSObjectKey, Integer> numbers = new HashMap<>();
+
+    LinearizedWriter(PDDocument document, CancellationToken token) {
+        this.document = document;
+        this.token = token != null ? token : CancellationToken.NONE;
+    }
+
+    /**
+     * Write the document linearized to {@code target}; false if it cannot be linearized
+     */
+    boolean write(Path target) throws IOException {
+        COSDictionary trailer = document.getDocument().getTrailer();
+        if (document.isEncrypted() || !(trailer.getItem(COSName.ROOT) instanceof COSObject root)
+                || root.getKey() == null || !(root.getObject() instanceof COSDictionary catalog)) {
+            return false;
+        }
+        List<COSObject> pages = new ArrayList<>();
+        Set<COSObjectKey> treeNodes = new HashSet<>();
+        if (!collectPages(catalog.getItem(COSName.PAGES), Map.of(), pages, treeNodes)
+                || pages.isEmpty() || pages.size() != document.getNumberOfPages()) {
+            return false;
+        }
+        COSObject info = trailer.getItem(COSName.INFO) instanceof COSObject ref && ref.getKey() != null ? ref : null;
+
+        Layout layout = plan(root, info, pages, treeNodes);
+        Path body = target.resolveSibling(target.getFileName() + ".body");
+        try {
+            writeFile(target, body, layout, catalog, info, trailer.getCOSArray(COSName.ID));
+        } finally {
+            Files.deleteIfExists(body);
+        }
+        logger.debug("Linearized {} pages: {} first-page objects, {} shared, {} other",
+            pages.size(), layout.firstPage.size(), layout.shared.size(), layout.other.size());
+        return true;
+    }
+
+    // ==================== PLANNING ====================
+
+    /**
+     * Walk the page tree in page order, pushing inherited attributes down to every page
+     */
+    private static boolean collectPages(COSBase node, Map<COSName, COSBase> inherited, List<COSObject> pages,
+                                        Set<COSObjectKey> treeNodes) {
+        if (!(node instanceof COSObject ref) || ref.getKey() == null || !(ref.getObject() instanceof COSDictionary dict)) {
+            return false;
+        }
+        COSArray kids = dict.getCOSArray(COSName.KIDS);
+        if (kids == null) {
+            for (COSName name : INHERITABLE) {
+                if (dict.getItem(name) == null && inherited.containsKey(name)) {
+                    dict.setItem(name, inherited.get(name));
+                }
+            }
+            pages.add(ref);
+            return true;
+        }
+        if (!treeNodes.add(ref.getKey())) {
+            return false;
+        }
+        Map<COSName, COSBase> next = new HashMap<>(inherited);
+        for (COSName name : INHERITABLE) {
+            if (dict.getItem(name) != null) {
+                next.put(name, dict.getItem(name));
+            }
+        }
+        for (int i = 0; i < kids.size(); i++) {
+            if (!collectPages(kids.get(i), next, pages, treeNodes)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Layout plan(COSObject root, COSObject info, List<COSObject> pages, Set<COSObjectKey> treeNodes) {
+        Set<COSObjectKey> stops = new HashSet<>(treeNodes);
+        stops.add(root.getKey());
+        for (COSObject page : pages) {
+            stops.add(page.getKey());
+        }
+
+        Layout layout = new Layout();
+        layout.firstPage.addAll(reach(pages.get(0), stops));
+        Set<COSObjectKey> firstPage = new HashSet<>(layout.firstPage);
+
+        // How many of the other pages use each object not already in the first page section
+        Map<COSObjectKey, Integer> users = new HashMap<>();
+        for (int i = 1; i < pages.size(); i++) {
+            token.throwIfCancelled();
+            List<COSObjectKey> objects = reach(pages.get(i), stops);
+            layout.pageObjects.add(objects);
+            for (COSObjectKey key : objects) {
+                if (!firstPage.contains(key)) {
+                    users.merge(key, 1, Integer::sum);
+                }
+            }
+        }
+        Set<COSObjectKey> shared = new LinkedHashSet<>();
+        for (List<COSObjectKey> objects : layout.pageObjects) {
+            List<COSObjectKey> section = new ArrayList<>();
+            for (COSObjectKey key : objects) {
+                Integer count = users.get(key);
+                if (count == null) {
+                    continue;
+                }
+                if (count == 1) {
+                    section.add(key);
+                } else {
+                    shared.add(key);
+                }
+            }
+            layout.pageSections.add(section);
+        }
+        layout.shared.addAll(shared);
+
+        Set<COSObjectKey> placed = new HashSet<>(firstPage);
+        placed.add(root.getKey());
+        layout.pageSections.forEach(placed::addAll);
+        placed.addAll(shared);
+        for (COSObjectKey key : reachAll(root, info)) {
+            if (!placed.contains(key)) {
+                layout.other.add(key);
+            }
+        }
+
+        // Objects after the first page are numbered from 1 in file order; the first-page
+        // cross-reference section holds the linearization dictionary, catalog, page 1 and hints
+        int number = 1;
+        for (List<COSObjectKey> section : layout.pageSections) {
+            for (COSObjectKey key : section) {
+                numbers.put(key, number++);
+            }
+        }
+        for (COSObjectKey key : layout.shared) {
+            numbers.put(key, number++);
+        }
+        for (COSObjectKey key : layout.other) {
+            numbers.put(key, number++);
+        }
+        layout.firstFirstPageNumber = number;
+        numbers.put(root.getKey(), number + 1);
+        number += 2;
+        for (COSObjectKey key : layout.firstPage) {
+            numbers.put(key, number++);
+        }
+        layout.hintNumber = number;
+        return layout;
+    }
+
+    /**
+     * Objects a page needs, the page first; the walk stops at the page tree, other pages and the catalog
+     */
+    private List<COSObjectKey> reach(COSObject page, Set<COSObjectKey> stops) {
+        LinkedHashSet<COSObjectKey> found = new LinkedHashSet<>();
+        found.add(page.getKey());
+        walk(page.getObject(), found, stops, true);
+        return new ArrayList<>(found);
+    }
+
+    private Set<COSObjectKey> reachAll(COSObject root, COSObject info) {
+        LinkedHashSet<COSObjectKey> found = new LinkedHashSet<>();
+        walk(root, found, Set.of(), false);
+        if (info != null) {
+            walk(info, found, Set.of(), false);
+        }
+        return found;
+    }
+
+    private static void walk(COSBase start, Set<COSObjectKey> found, Set<COSObjectKey> stops, boolean skipParent) {
+        Deque<COSBase> pending = new ArrayDeque<>();
+        pending.push(start);
+        while (!pending.isEmpty()) {
+            COSBase base = pending.pop();
+            if (base instanceof COSObject ref) {
+                COSObjectKey key = ref.getKey();
+                if (key == null || stops.contains(key) || found.contains(key) || ref.getObject() == null) {
+                    continue;
+                }
+                found.add(key);
+                pending.push(ref.getObject());
+            } else if (base instanceof COSDictionary dict) {
+                for (Map.Entry<COSName, COSBase> entry : dict.entrySet()) {
+                    // Stream lengths are written directly
+                    if ((skipParent && COSName.PARENT.equals(entry.getKey()))
+                            || (dict instanceof COSStream && COSName.LENGTH.equals(entry.getKey()))) {
+                        continue;
+                    }
+                    pending.push(entry.getValue());
+                }
+            } else if (base instanceof COSArray array) {
+                for (int i = array.size() - 1; i >= 0; i--) {
+                    pending.push(array.get(i));
+                }
+            }
+        }
+    }
+
+    // ==================== WRITING ====================
+
+    private void writeFile(Path target, Path bodyFile, Layout layout, COSDictionary catalog, COSObject info,
+                           COSArray id) throws IOException {
+        // Everything after the hint stream is written first, at offsets relative to its start
+        Body body = writeBody(bodyFile, layout);
+
+        int firstPageCount = layout.firstPage.size() + 3;
+        byte[] catalogObject = object(layout.firstFirstPageNumber + 1, catalog);
+        Header header = header(layout, firstPageCount, catalogObject, info, id, new long[6], new long[firstPageCount]);
+        long h0 = header.bytes.length;
+        byte[] hint = hintStream(layout, body, h0);
+        long bodyStart = h0 + hint.length;
+
+        int mainCount = layout.firstFirstPageNumber;
+        long mainXref = bodyStart + body.length;
+        byte[] mainXrefHead = ("xref\n0 " + mainCount + "\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] mainTrailer = ("trailer\n<< /Size " + mainCount + " >>\nstartxref\n" + header.xrefOffset
+            + "\n%%EOF\n").getBytes(StandardCharsets.US_ASCII);
+        long fileLength = mainXref + mainXrefHead.length + 20L * mainCount + mainTrailer.length;
+
+        long[] offsets = new long[firstPageCount];
+        offsets[0] = header.linearizedOffset;
+        offsets[1] = header.catalogOffset;
+        for (int i = 0; i < layout.firstPage.size(); i++) {
+            offsets[2 + i] = bodyStart + body.offsets.get(layout.firstPage.get(i));
+        }
+        offsets[firstPageCount - 1] = h0;
+        long[] values = {
+            fileLength, h0, hint.length, bodyStart + body.firstPageEnd, mainXref + mainXrefHead.length - 1, mainXref};
+        header = header(layout, firstPageCount, catalogObject, info, id, values, offsets);
+
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel in = FileChannel.open(bodyFile, StandardOpenOption.READ)) {
+            writeFully(out, header.bytes);
+            writeFully(out, hint);
+            long copied = 0;
+            while (copied < body.length) {
+                copied += in.transferTo(copied, body.length - copied, out);
+            }
+            out.position(mainXref);
+            ByteArrayOutputStream xref = new ByteArrayOutputStream();
+            xref.write(mainXrefHead);
+            xref.write("0000000000 65535 f\r\n".getBytes(StandardCharsets.US_ASCII));
+            long[] main = new long[mainCount];
+            body.offsets.forEach((key, offset) -> {
+                int number = numbers.get(key);
+                if (number < mainCount) {
+                    main[number] = bodyStart + offset;
+                }
+            });
+            for (int number = 1; number < mainCount; number++) {
+                xref.write(xrefEntry(main[number]));
+            }
+            xref.write(mainTrailer);
+            writeFully(out, xref.toByteArray());
+        }
+    }
+
+    /**
+     * Linearization dictionary, first-page cross-reference section and trailer, and the catalog.
+     * Every number that depends on the layout has a fixed width, so the length is known up front.
+     * {@code values} holds L, H offset, H length, E, T and the main xref offset.
+     */
+    private Header header(Layout layout, int firstPageCount, byte[] catalogObject, COSObject info, COSArray id,
+                          long[] values, long[] offsets) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(("%PDF-" + Math.max(1.2f, document.getVersion()) + "\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(BINARY_COMMENT);
+
+        Header header = new Header();
+        header.linearizedOffset = out.size();
+        int pageCount = layout.pageSections.size() + 1;
+        ascii(out, layout.firstFirstPageNumber + " 0 obj\n<< /Linearized 1 /L " + padded(values[0])
+            + " /H [ " + padded(values[1]) + " " + padded(values[2]) + " ] /O " + (layout.firstFirstPageNumber + 2)
+            + " /E " + padded(values[3]) + " /N " + pageCount + " /T " + padded(values[4]) + " >>\nendobj\n");
+
+        header.xrefOffset = out.size();
+        ascii(out, "xref\n" + layout.firstFirstPageNumber + " " + firstPageCount + "\n");
+        for (long offset : offsets) {
+            out.write(xrefEntry(offset));
+        }
+        ascii(out, "trailer\n<< /Size " + (layout.hintNumber + 1) + " /Root " + (layout.firstFirstPageNumber + 1) + " 0 R");
+        if (info != null && numbers.containsKey(info.getKey())) {
+            ascii(out, " /Info " + numbers.get(info.getKey()) + " 0 R");
+        }
+        if (id != null) {
+            ascii(out, " /ID ");
+            writeValue(id, out);
+        }
+        ascii(out, " /Prev " + padded(values[5]) + " >>\nstartxref\n0\n%%EOF\n");
+
+        header.catalogOffset = out.size();
+        out.write(catalogObject);
+        header.bytes = out.toByteArray();
+        return header;
+    }
+
+    private Body writeBody(Path file, Layout layout) throws IOException {
+        Body body = new Body();
+        List<long[]> lengthFields = new ArrayList<>();
+        try (CountingOutputStream out = new CountingOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024))) {
+            for (COSObjectKey key : layout.firstPage) {
+                writeObject(key, out, body, lengthFields);
+            }
+            body.firstPageEnd = out.count;
+            for (List<COSObjectKey> section : layout.pageSections) {
+                token.throwIfCancelled();
+                body.pageStarts.add(out.count);
+                for (COSObjectKey key : section) {
+                    writeObject(key, out, body, lengthFields);
+                }
+            }
+            body.sharedStart = out.count;
+            for (COSObjectKey key : layout.shared) {
+                writeObject(key, out, body, lengthFields);
+            }
+            body.sharedEnd = out.count;
+            for (COSObjectKey key : layout.other) {
+                writeObject(key, out, body, lengthFields);
+            }
+            body.length = out.count;
+        }
+
+        // Stream lengths are only known once the data is copied
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            for (long[] field : lengthFields) {
+                channel.position(field[0]);
+                writeFully(channel, String.valueOf(field[1]).getBytes(StandardCharsets.US_ASCII));
+            }
+        }
+        return body;
+    }
+
+    private void writeObject(COSObjectKey key, CountingOutputStream out, Body body, List<long[]> lengthFields)
+            throws IOException {
+        COSBase object = document.getDocument().getObjectFromPool(key).getObject();
+        body.offsets.put(key, out.count);
+        ascii(out, numbers.get(key) + " 0 obj\n");
+        if (object instanceof COSStream stream) {
+            out.write(COSWriter.DICT_OPEN);
+            for (Map.Entry<COSName, COSBase> entry : stream.entrySet()) {
+                if (!COSName.LENGTH.equals(entry.getKey())) {
+                    entry.getKey().writePDF(out);
+                    out.write(' ');
+                    writeValue(entry.getValue(), out);
+                    out.write('\n');
+                }
+            }
+            ascii(out, "/Length ");
+            long lengthField = out.count;
+            ascii(out, " ".repeat(NUMBER_WIDTH) + ">>\nstream\n");
+            long start = out.count;
+            try (InputStream in = stream.createRawInputStream()) {
+                in.transferTo(out);
+            }
+            lengthFields.add(new long[] {lengthField, out.count - start});
+            ascii(out, "\nendstream\nendobj\n");
+        } else {
+            writeValue(object, out);
+            ascii(out, "\nendobj\n");
+        }
+    }
+
+    private byte[] object(int number, COSBase value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ascii(out, number + " 0 obj\n");
+        writeValue(value, out);
+        ascii(out, "\nendobj\n");
+        return out.toByteArray();
+    }
+
+    private void writeValue(COSBase base, OutputStream out) throws IOException {
+        if (base instanceof COSObject ref) {
+            Integer number = ref.getKey() != null ? numbers.get(ref.getKey()) : null;
+            if (number == null) {
+                ascii(out, "null");
+            } else {
+                ascii(out, number + " 0 R");
+            }
+        } else if (base instanceof COSStream) {
+            // Streams are always indirect in a parsed file; a direct one cannot be written inline
+            ascii(out, "null");
+        } else if (base instanceof COSDictionary dict) {
+            out.write(COSWriter.DICT_OPEN);
+            for (Map.Entry<COSName, COSBase> entry : dict.entrySet()) {
+                entry.getKey().writePDF(out);
+                out.write(' ');
+                writeValue(entry.getValue(), out);
+                out.write('\n');
+            }
+            out.write(COSWriter.DICT_CLOSE);
+        } else if (base instanceof COSArray array) {
+            out.write(COSWriter.ARRAY_OPEN);
+            for (int i = 0; i < array.size(); i++) {
+                if (i > 0) {
+                    out.write(' ');
+                }
+                writeValue(array.get(i), out);
+            }
+            out.write(COSWriter.ARRAY_CLOSE);
+        } else if (base instanceof COSString string) {
+            COSWriter.writeString(string, out);
+        } else if (base instanceof COSName name) {
+            name.writePDF(out);
+        } else if (base instanceof COSInteger integer) {
+            integer.writePDF(out);
+        } else if (base instanceof COSFloat number) {
+            number.writePDF(out);
+        } else if (base instanceof COSBoolean bool) {
+            bool.writePDF(out);
+        } else {
+            ascii(out, "null");
+        }
+    }
+
+    // ==================== HINT TABLES ====================
+
+    /**
+     * Primary hint stream: page offset hint table, then shared object hint table. Offsets in the
+     * tables are given as if the hint stream were absent, as the specification requires.
+     */
+    private byte[] hintStream(Layout layout, Body body, long h0) throws IOException {
+        int firstPageObjects = layout.firstPage.size();
+        Map<COSObjectKey, Integer> sharedIds = new HashMap<>();
+        for (int i = 0; i < firstPageObjects; i++) {
+            sharedIds.put(layout.firstPage.get(i), i);
+        }
+        for (int i = 0; i < layout.shared.size(); i++) {
+            sharedIds.put(layout.shared.get(i), firstPageObjects + i);
+        }
+
+        int pageCount = layout.pageSections.size() + 1;
+        long[] objects = new long[pageCount];
+        long[] lengths = new long[pageCount];
+        List<List<Integer>> references = new ArrayList<>();
+        objects[0] = firstPageObjects;
+        lengths[0] = body.firstPageEnd;
+        references.add(List.of());
+        for (int i = 1; i < pageCount; i++) {
+            objects[i] = layout.pageSections.get(i - 1).size();
+            long end = i < pageCount - 1 ? body.pageStarts.get(i) : body.sharedStart;
+            lengths[i] = end - body.pageStarts.get(i - 1);
+            List<Integer> refs = new ArrayList<>();
+            for (COSObjectKey key : layout.pageObjects.get(i - 1)) {
+                Integer shared = sharedIds.get(key);
+                if (shared != null) {
+                    refs.add(shared);
+                }
+            }
+            references.add(refs);
+        }
+        long minObjects = Arrays.stream(objects).min().orElse(0);
+        long minLength = Arrays.stream(lengths).min().orElse(0);
+        int objectBits = bits(Arrays.stream(objects).max().orElse(0) - minObjects);
+        int lengthBits = bits(Arrays.stream(lengths).max().orElse(0) - minLength);
+        int refCountBits = bits(references.stream().mapToLong(List::size).max().orElse(0));
+        int refIdBits = bits(references.stream().flatMap(List::stream).mapToLong(Integer::longValue).max().orElse(0));
+
+        BitWriter table = new BitWriter();
+        table.write(minObjects, 32);
+        table.write(h0, 32);
+        table.write(objectBits, 16);
+        table.write(minLength, 32);
+        table.write(lengthBits, 16);
+        // Content stream positions are not tracked: offset 0 and the whole page length, as qpdf does
+        table.write(0, 32);
+        table.write(0, 16);
+        table.write(minLength, 32);
+        table.write(lengthBits, 16);
+        table.write(refCountBits, 16);
+        table.write(refIdBits, 16);
+        // Shared references carry no position numerator; the denominator must still be nonzero
+        table.write(0, 16);
+        table.write(4, 16);
+        for (long count : objects) {
+            table.write(count - minObjects, objectBits);
+        }
+        table.flush();
+        for (long length : lengths) {
+            table.write(length - minLength, lengthBits);
+        }
+        table.flush();
+        for (List<Integer> refs : references) {
+            table.write(refs.size(), refCountBits);
+        }
+        table.flush();
+        for (List<Integer> refs : references) {
+            for (int ref : refs) {
+                table.write(ref, refIdBits);
+            }
+        }
+        table.flush();
+        // Numerators of the shared references and content stream offsets take no bits
+        for (long length : lengths) {
+            table.write(length - minLength, lengthBits);
+        }
+        table.flush();
+        int sharedTableOffset = table.size();
+
+        // One group per object: each object of the first page, then each shared object
+        List<Long> groups = new ArrayList<>();
+        for (int i = 0; i < firstPageObjects; i++) {
+            long end = i + 1 < firstPageObjects ? body.offsets.get(layout.firstPage.get(i + 1)) : body.firstPageEnd;
+            groups.add(end - body.offsets.get(layout.firstPage.get(i)));
+        }
+        for (int i = 0; i < layout.shared.size(); i++) {
+            long end = i + 1 < layout.shared.size() ? body.offsets.get(layout.shared.get(i + 1)) : body.sharedEnd;
+            groups.add(end - body.offsets.get(layout.shared.get(i)));
+        }
+        long minGroup = groups.stream().mapToLong(Long::longValue).min().orElse(0);
+        int groupBits = bits(groups.stream().mapToLong(Long::longValue).max().orElse(0) - minGroup);
+        boolean hasShared = !layout.shared.isEmpty();
+        table.write(hasShared ? numbers.get(layout.shared.get(0)) : 0, 32);
+        table.write(hasShared ? h0 + body.sharedStart : 0, 32);
+        table.write(firstPageObjects, 32);
+        table.write(groups.size(), 32);
+        // Every group holds one object, so the object counts take no bits
+        table.write(0, 16);
+        table.write(minGroup, 32);
+        table.write(groupBits, 16);
+        for (long group : groups) {
+            table.write(group - minGroup, groupBits);
+        }
+        table.flush();
+        for (int i = 0; i < groups.size(); i++) {
+            table.write(0, 1);
+        }
+        table.flush();
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+            deflater.write(table.toByteArray());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ascii(out, layout.hintNumber + " 0 obj\n<< /S " + sharedTableOffset + " /Filter /FlateDecode /Length "
+            + compressed.size() + " >>\nstream\n");
+        compressed.writeTo(out);
+        ascii(out, "\nendstream\nendobj\n");
+        return out.toByteArray();
+    }
+
+    private static int bits(long value) {
+        return value <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(value);
+    }
+
+    // ==================== HELPERS ====================
+
+    private static byte[] xrefEntry(long offset) {
+        return String.format("%010d 00000 n\r\n", offset).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static String padded(long value) {
+        return String.format("%-" + NUMBER_WIDTH + "d", value);
+    }
+
+    private static void ascii(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    /**
+     * Objects of each part of the file, in file order
+     */
+    private static class Layout {
+        final List<COSObjectKey> firstPage = new ArrayList<>();
+        // Everything pages 2..n use, and the objects written in each of their sections
+        final List<List<COSObjectKey>> pageObjects = new ArrayList<>();
+        final List<List<COSObjectKey>> pageSections = new ArrayList<>();
+        final List<COSObjectKey> shared = new ArrayList<>();
+        final List<COSObjectKey> other = new ArrayList<>();
+        // Number of the linearization dictionary, the first object of the first-page xref section
+        int firstFirstPageNumber;
+        int hintNumber;
+    }
+
+    /**
+     * Offsets within the part of the file written after the hint stream
+     */
+    private static class Body {
+        final Map<COSObjectKey, Long> offsets = new HashMap<>();
+        final List<Long> pageStarts = new ArrayList<>();
+        long firstPageEnd;
+        long sharedStart;
+        long sharedEnd;
+        long length;
+    }
+
+    private static class Header {
+        byte[] bytes;
+        long linearizedOffset;
+        long xrefOffset;
+        long catalogOffset;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Packs values most significant bit first, as the hint tables are laid out
+     */
+    private static class BitWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int current;
+        private int used;
+
+        void write(long value, int bits) {
+            for (int i = bits - 1; i >= 0; i--) {
+                current = current << 1 | (int) (value >>> i & 1);
+                if (++used == 8) {
+                    bytes.write(current);
+                    current = 0;
+                    used = 0;
+                }
+            }
+        }
+
+        /**
+         * Pad to the next byte boundary
+         */
+        void flush() {
+            if (used > 0) {
+                write(0, 8 - used);
+            }
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        byte[] toByteArray() {
+            flush();
+            return bytes.toByteArray();
+        }
+    }
+}
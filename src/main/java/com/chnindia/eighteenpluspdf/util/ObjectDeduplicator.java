@@ -0,0 +1,440 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Merges identical indirect objects of a document into one canonical copy.
+ *
+ * Every stream and every indirect dictionary or array reachable from the trailer is hashed from
+ * its dictionary and raw (still encoded) data, and references to a duplicate are rewritten to
+ * point at the first equal object. Objects referring to other objects only compare equal once
+ * those are merged, so hashing repeats until a pass finds nothing new: identical images merge in
+ * the first pass, font descriptors pointing at them in the next, and so on. Hash buckets live in a
+ * long-keyed open-addressing table so documents with hundreds of thousands of objects stay cheap.
+ *
+ * Objects whose identity matters (pages, annotations, form fields, layers, structure elements,
+ * signatures and anything with a parent) are never merged.
+ */
+public class ObjectDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ObjectDeduplicator.class);
+
+    // Merging a level of objects can make the objects referring to them equal; real documents settle in a few
+    private static final int MAX_PASSES = 8;
+
+    private static final Set<COSName> IDENTITY_TYPES = Set.of(
+        COSName.PAGE, COSName.PAGES, COSName.CATALOG, COSName.ANNOT, COSName.SIG, COSName.DOC_TIME_STAMP,
+        COSName.STRUCT_TREE_ROOT, COSName.STRUCT_ELEM, COSName.OUTLINES, COSName.OBJR, COSName.MCR,
+        COSName.OCG, COSName.XREF, COSName.OBJ_STM);
+
+    /**
+     * Number of duplicate objects dropped and the encoded stream bytes they held
+     */
+    public record Result(int objectsRemoved, long bytesSaved) {}
+
+    private final PDDocument document;
+    private final CancellationToken token;
+
+    private final Map<COSBase, Node> nodes = new IdentityHashMap<>();
+    private final List<Node> order = new ArrayList<>();
+
+    ObjectDeduplicator(PDDocument document, CancellationToken token) {
+        this.document = document;
+        this.token = token != null ? token : CancellationToken.NONE;
+    }
+
+    Result deduplicate() throws IOException {
+        if (document.isEncrypted()) {
+            // Encrypted streams differ per object number even when their content is the same
+            return new Result(0, 0);
+        }
+        COSDictionary trailer = document.getDocument().getTrailer();
+        collect(trailer);
+
+        int removed = 0;
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            token.throwIfCancelled();
+            int merged = mergePass();
+            removed += merged;
+            if (merged == 0) {
+                break;
+            }
+        }
+        if (removed == 0) {
+            return new Result(0, 0);
+        }
+
+        long bytesSaved = 0;
+        for (Node node : order) {
+            if (node.canonical != node && node.object instanceof COSStream stream) {
+                bytesSaved += stream.getLength();
+            }
+        }
+        rewrite(trailer);
+        for (Node node : order) {
+            if (canonical(node) == node) {
+                rewrite(node.object);
+            }
+        }
+        logger.debug("Merged {} duplicate objects of {}, saving {} stream bytes", removed, order.size(), bytesSaved);
+        return new Result(removed, bytesSaved);
+    }
+
+    // ==================== GRAPH ====================
+
+    /**
+     * Find every indirect object reachable from the root, without recursing on the call stack
+     */
+    private void collect(COSBase root) {
+        Deque<COSBase> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            COSBase container = pending.pop();
+            for (COSBase child : children(container)) {
+                COSBase target = child instanceof COSObject reference ? reference.getObject() : child;
+                if (isNode(child, target)) {
+                    Node node = nodes.get(target);
+                    if (node == null) {
+                        node = new Node(order.size(), target);
+                        nodes.put(target, node);
+                        order.add(node);
+                        pending.push(target);
+                    }
+                    if (child instanceof COSObject reference && node.reference == null) {
+                        node.reference = reference;
+                    }
+                } else if (target instanceof COSDictionary || target instanceof COSArray) {
+                    pending.push(target);
+                }
+            }
+        }
+    }
+
+    // Objects written by reference: streams, anything behind a reference, and dictionaries not marked direct
+    private static boolean isNode(COSBase value, COSBase target) {
+        if (target instanceof COSStream) {
+            return true;
+        }
+        if (!(target instanceof COSDictionary) && !(target instanceof COSArray)) {
+            return false;
+        }
+        return value instanceof COSObject || (target instanceof COSDictionary && !target.isDirect());
+    }
+
+    private static Collection<COSBase> children(COSBase container) {
+        if (container instanceof COSDictionary dictionary) {
+            return dictionary.getValues();
+        }
+        if (container instanceof COSArray array) {
+            List<COSBase> items = new ArrayList<>(array.size());
+            for (int i = 0; i < array.size(); i++) {
+                items.add(array.get(i));
+            }
+            return items;
+        }
+        return List.of();
+    }
+
+    private static boolean hasIdentity(COSBase object) {
+        if (object instanceof COSDictionary dictionary && !(object instanceof COSStream)) {
+            if (dictionary.containsKey(COSName.PARENT) || dictionary.containsKey(COSName.P)
+                    || dictionary.containsKey(COSName.KIDS) || dictionary.containsKey(COSName.FT)
+                    || dictionary.containsKey(COSName.T) || dictionary.containsKey(COSName.RECT)
+                    || dictionary.containsKey(COSName.BYTERANGE)) {
+                return true;
+            }
+        }
+        return object instanceof COSDictionary dictionary
+            && dictionary.getDictionaryObject(COSName.TYPE) instanceof COSName type && IDENTITY_TYPES.contains(type);
+    }
+
+    // ==================== HASHING ====================
+
+    private int mergePass() throws IOException {
+        LongIntTable buckets = new LongIntTable(order.size());
+        int[] next = new int[order.size()];
+        int merged = 0;
+        for (Node node : order) {
+            if (node.canonical != node || hasIdentity(node.object)) {
+                continue;
+            }
+            long hash = hash(node);
+            int candidate = buckets.get(hash);
+            boolean duplicate = false;
+            for (int i = candidate; i >= 0; i = next[i]) {
+                Node other = order.get(i);
+                if (equal(other, node)) {
+                    node.canonical = other;
+                    merged++;
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                next[node.index] = candidate;
+                buckets.put(hash, node.index);
+            }
+        }
+        return merged;
+    }
+
+    private long hash(Node node) throws IOException {
+        long hash;
+        if (node.object instanceof COSStream stream) {
+            if (node.contentHash == 0) {
+                node.contentHash = contentHash(stream);
+            }
+            hash = node.contentHash * 31 + hashDictionary(stream, true);
+        } else {
+            hash = hashValue(node.object, true);
+        }
+        return hash;
+    }
+
+    // Length and CRC-32C of the encoded data; equal hashes are confirmed byte by byte
+    private static long contentHash(COSStream stream) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[64 * 1024];
+        long length = 0;
+        try (InputStream in = stream.createRawInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+                length += read;
+            }
+        }
+        return (length << 32) ^ crc.getValue() | 1;
+    }
+
+    private long hashDictionary(COSDictionary dictionary, boolean top) {
+        // Entry order is not significant in PDF, so entries are combined commutatively
+        long hash = 0;
+        for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet()) {
+            if (dictionary instanceof COSStream && top && COSName.LENGTH.equals(entry.getKey())) {
+                continue;
+            }
+            hash += entry.getKey().hashCode() * 1_000_003L ^ hashValue(entry.getValue(), false);
+        }
+        return hash;
+    }
+
+    private long hashValue(COSBase value, boolean top) {
+        COSBase target = value instanceof COSObject reference ? reference.getObject() : value;
+        if (!top) {
+            Node node = target != null ? nodes.get(target) : null;
+            if (node != null) {
+                return 0x9E3779B97F4A7C15L * (canonical(node).index + 1);
+            }
+        }
+        if (target instanceof COSDictionary dictionary) {
+            return hashDictionary(dictionary, top);
+        }
+        if (target instanceof COSArray array) {
+            long hash = 1;
+            for (int i = 0; i < array.size(); i++) {
+                hash = hash * 31 + hashValue(array.get(i), false);
+            }
+            return hash;
+        }
+        return target != null ? target.hashCode() : 0;
+    }
+
+    // ==================== EQUALITY ====================
+
+    private boolean equal(Node a, Node b) throws IOException {
+        if (a.object instanceof COSStream first && b.object instanceof COSStream second) {
+            return first.getLength() == second.getLength() && equalDictionaries(first, second, true)
+                && equalContent(first, second);
+        }
+        return equalValues(a.object, b.object, true);
+    }
+
+    private boolean equalValues(COSBase a, COSBase b, boolean top) {
+        COSBase first = a instanceof COSObject reference ? reference.getObject() : a;
+        COSBase second = b instanceof COSObject reference ? reference.getObject() : b;
+        if (!top) {
+            Node firstNode = first != null ? nodes.get(first) : null;
+            Node secondNode = second != null ? nodes.get(second) : null;
+            if (firstNode != null || secondNode != null) {
+                return firstNode != null && secondNode != null && canonical(firstNode) == canonical(secondNode);
+            }
+        }
+        if (first instanceof COSStream || second instanceof COSStream) {
+            return false;
+        }
+        if (first instanceof COSDictionary x && second instanceof COSDictionary y) {
+            return equalDictionaries(x, y, top);
+        }
+        if (first instanceof COSArray x && second instanceof COSArray y) {
+            if (x.size() != y.size()) {
+                return false;
+            }
+            for (int i = 0; i < x.size(); i++) {
+                if (!equalValues(x.get(i), y.get(i), false)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return Objects.equals(first, second);
+    }
+
+    private boolean equalDictionaries(COSDictionary a, COSDictionary b, boolean top) {
+        boolean stream = top && a instanceof COSStream;
+        int sizeA = a.size() - (stream && a.containsKey(COSName.LENGTH) ? 1 : 0);
+        int sizeB = b.size() - (stream && b.containsKey(COSName.LENGTH) ? 1 : 0);
+        if (sizeA != sizeB) {
+            return false;
+        }
+        for (Map.Entry<COSName, COSBase> entry : a.entrySet()) {
+            if (stream && COSName.LENGTH.equals(entry.getKey())) {
+                continue;
+            }
+            COSBase other = b.getItem(entry.getKey());
+            if (other == null || !equalValues(entry.getValue(), other, false)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalContent(COSStream a, COSStream b) throws IOException {
+        try (InputStream first = a.createRawInputStream(); InputStream second = b.createRawInputStream()) {
+            byte[] x = new byte[64 * 1024];
+            byte[] y = new byte[64 * 1024];
+            while (true) {
+                int read = first.readNBytes(x, 0, x.length);
+                if (second.readNBytes(y, 0, y.length) != read || !Arrays.equals(x, 0, read, y, 0, read)) {
+                    return false;
+                }
+                if (read < x.length) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    // ==================== REWRITING ====================
+
+    private Node canonical(Node node) {
+        Node root = node;
+        while (root.canonical != root) {
+            root = root.canonical;
+        }
+        // Point the chain straight at the canonical object for later lookups
+        while (node.canonical != root) {
+            Node next = node.canonical;
+            node.canonical = root;
+            node = next;
+        }
+        return root;
+    }
+
+    /**
+     * Point the references held by a node, and by the direct objects inside it, at canonical objects
+     */
+    private void rewrite(COSBase object) {
+        Deque<COSBase> pending = new ArrayDeque<>();
+        pending.push(object);
+        while (!pending.isEmpty()) {
+            COSBase container = pending.pop();
+            if (container instanceof COSDictionary dictionary) {
+                for (Map.Entry<COSName, COSBase> entry : new ArrayList<>(dictionary.entrySet())) {
+                    COSBase replacement = replacement(entry.getValue(), pending);
+                    if (replacement != null) {
+                        dictionary.setItem(entry.getKey(), replacement);
+                    }
+                }
+            } else if (container instanceof COSArray array) {
+                for (int i = 0; i < array.size(); i++) {
+                    COSBase replacement = replacement(array.get(i), pending);
+                    if (replacement != null) {
+                        array.set(i, replacement);
+                    }
+                }
+            }
+        }
+    }
+
+    // The canonical object for a reference to a duplicate, or null; direct containers are queued
+    private COSBase replacement(COSBase value, Deque<COSBase> pending) {
+        COSBase target = value instanceof COSObject reference ? reference.getObject() : value;
+        Node node = target != null ? nodes.get(target) : null;
+        if (node == null) {
+            if (target instanceof COSDictionary || target instanceof COSArray) {
+                pending.push(target);
+            }
+            return null;
+        }
+        Node canonical = canonical(node);
+        if (canonical == node) {
+            return null;
+        }
+        return canonical.reference != null ? canonical.reference : canonical.object;
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    private static class Node {
+        final int index;
+        final COSBase object;
+        COSObject reference;
+        Node canonical = this;
+        long contentHash;
+
+        Node(int index, COSBase object) {
+            this.index = index;
+            this.object = object;
+        }
+    }
+
+    /**
+     * Open-addressing map from a 64-bit hash to the index of the newest node in its bucket
+     */
+    private static final class LongIntTable {
+        private final long[] keys;
+        private final int[] values;
+        private final boolean[] used;
+        private final int mask;
+
+        LongIntTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+            keys = new long[capacity];
+            values = new int[capacity];
+            used = new boolean[capacity];
+            mask = capacity - 1;
+        }
+
+        int get(long key) {
+            for (int slot = slot(key); used[slot]; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            int slot = slot(key);
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            used[slot] = true;
+        }
+
+        private int slot(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+    }
+}
@@ -2,7 +2,13 @@ package com.chnindia.eighteenpluspdf.util;
 
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
 import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.io.RandomAccess;
 import org.apache.pdfbox.io.RandomAccessReadBuffer;
+import org.apache.pdfbox.io.RandomAccessStreamCache;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -12,16 +18,16 @@ import org.apache.pdfbox.pdmodel.font.PDType1Font;
 import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.rendering.PDFRenderer;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.apache.pdfbox.multipdf.PDFMergerUtility;
-import org.apache.pdfbox.multipdf.Splitter;
 import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
 import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
 import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
 import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -30,8 +36,12 @@ import java.awt.image.BufferedImage;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
 
 /**
  * Utility class for PDF operations using Apache PDFBox 3.x
@@ -43,18 +53,113 @@ public class PDFUtil {
     
     private static final Logger logger = LoggerFactory.getLogger(PDFUtil.class);
     
+    // Below this much unreserved heap, documents spill straight to scratch files
+    private static final long MIN_MEMORY_BUDGET = 8L * 1024 * 1024;
+    
+    @Autowired
+    private ParallelWorkPool workPool;
+    
     @Value("${app.pdf.max-pages:2000}")
     private int maxPages;
     
     @Value("${app.pdf.max-file-size-mb:500}")
     private int maxFileSizeMB;
     
+    // Where PDFBox keeps stream data it creates or decodes: AUTO, MEMORY_ONLY, TEMP_FILE_ONLY or MIXED
+    @Value("${app.pdf.memory.policy:AUTO}")
+    private MemoryPolicy memoryPolicy;
+    
+    // Most heap a single document may hold before spilling to scratch files
+    @Value("${app.pdf.memory.job-ceiling-mb:256}")
+    private long jobMemoryCeilingMB;
+    
+    // Fraction of the maximum heap that all open documents may reserve between them
+    @Value("${app.pdf.memory.heap-share:0.25}")
+    private double heapShare;
+    
+    // Heap all open documents may reserve between them; 0 derives it from the heap share
+    @Value("${app.pdf.memory.total-mb:0}")
+    private long totalMemoryMB;
+    
+    @Value("${app.pdf.memory.scratch-dir:${app.file-storage.temp-dir:./temp}/pdf-scratch}")
+    private String scratchDir;
+    
+    // Rendered pages a job keeps around for reuse by later steps
+    @Value("${app.pdf.session.raster-cache-mb:64}")
+    private long rasterCacheMB;
+    
+    // Most threads rendering one document, the job's own included; 0 uses one per core
+    @Value("${app.pdf.render.threads:0}")
+    private int renderThreads;
+    
+    // Rendered pages waiting to be consumed per document; 0 allows two per render thread
+    @Value("${app.pdf.render.max-in-flight:0}")
+    private int renderMaxInFlight;
+    
+    // Most threads extracting text from one document, the job's own included; 0 uses one per core
+    @Value("${app.pdf.text.threads:0}")
+    private int textThreads;
+    
+    // Pages per text extraction shard; shorter ranges are extracted on the calling thread
+    @Value("${app.pdf.text.shard-pages:50}")
+    private int textShardPages;
+    
+    // Most split parts of one document written at the same time; 0 uses one per core
+    @Value("${app.pdf.split.threads:0}")
+    private int splitThreads;
+    
+    // Most images of one document decoded and re-encoded at the same time by the compress tool; 0 uses one per core
+    @Value("${app.pdf.compress.image-threads:0}")
+    private int imageThreads;
+    
+    // Most pages of one document walked at the same time to collect the glyphs used before fonts are subset; 0 uses one per core
+    @Value("${app.pdf.compress.font-threads:0}")
+    private int fontThreads;
+    
+    // Edits are saved as the original file plus an incremental update unless full rewrites are forced
+    @Value("${app.pdf.save.full-rewrite:false}")
+    private boolean fullRewrite;
+    
+    // Saves write classic xref tables and loose objects instead of object streams with an xref stream
+    @Value("${app.pdf.save.classic-xref:false}")
+    private boolean classicXref;
+    
+    // Objects packed into each object stream; 0 uses the PDFBox default
+    @Value("${app.pdf.save.object-stream-size:0}")
+    private int objectStreamSize;
+    
+    // Scratch directory of the job running on this thread; deleted when the job ends
+    private final ThreadLocal<Path> jobScratchDir = new ThreadLocal<>();
+    
+    // Documents parsed by the job running on this thread; closed when the job ends
+    private final ThreadLocal<DocumentSession> jobSession = new ThreadLocal<>();
+    
+    // Save settings requested by the job running on this thread; cleared when the job ends
+    private final ThreadLocal<CompressParameters> jobCompression = new ThreadLocal<>();
+    
+    // Heap held by the stream caches of every open document, across jobs and worker threads
+    private final AtomicLong reservedHeap = new AtomicLong();
+    
+    // Documents that found the shared heap fully reserved and went to scratch files
+    private final AtomicLong spilledDocuments = new AtomicLong();
+    
     /**
-     * Load PDF document with validation (PDFBox 3.x API)
+     * Stream cache policy for PDFBox documents
+     */
+    public enum MemoryPolicy {
+        AUTO,
+        MEMORY_ONLY,
+        TEMP_FILE_ONLY,
+        MIXED
+    }
+    
+    /**
+     * Load PDF document with validation (PDFBox 3.x API).
+     * The page limit is checked on the returned copy, so the file is parsed only once.
      */
     public PDDocument loadPDF(Path filePath) throws IOException {
-        validatePDFFile(filePath);
-        return Loader.loadPDF(filePath.toFile());
+        checkFileSize(filePath);
+        return checkPageCount(loadDocument(filePath));
     }
     
     /**
@@ -68,41 +173,260 @@ public class PDFUtil {
      * Load PDF with password (PDFBox 3.x API)
      */
     public PDDocument loadPDF(Path filePath, String password) throws IOException {
-        validatePDFFile(filePath);
-        return Loader.loadPDF(filePath.toFile(), password);
+        checkFileSize(filePath);
+        return checkPageCount(Loader.loadPDF(filePath.toFile(), password, streamCache(Files.size(filePath))));
+    }
+    
+    /**
+     * Load PDF without size and page-count validation, using the memory policy
+     */
+    public PDDocument loadDocument(Path filePath) throws IOException {
+        return Loader.loadPDF(filePath.toFile(), streamCache(Files.size(filePath)));
+    }
+    
+    /**
+     * Create an empty document whose streams are expected to total roughly the given size
+     */
+    public PDDocument createDocument(long expectedBytes) {
+        return new PDDocument(streamCache(expectedBytes));
+    }
+    
+    /**
+     * Stream cache for a document of the given size, per the configured memory policy.
+     * Under AUTO and MIXED each document reserves its heap from a pool shared by all open documents
+     * when PDFBox creates the cache, and returns it when the document is closed.
+     */
+    public StreamCacheCreateFunction streamCache(long expectedBytes) {
+        MemoryPolicy policy = memoryPolicy != null ? memoryPolicy : MemoryPolicy.AUTO;
+        if (policy == MemoryPolicy.MEMORY_ONLY) {
+            return IOUtils.createMemoryOnlyStreamCache();
+        }
+        // Resolved on this thread so copies opened by worker threads spill into the job's scratch directory
+        File tempDir = scratchDirectory();
+        if (policy == MemoryPolicy.TEMP_FILE_ONLY) {
+            return MemoryUsageSetting.setupTempFileOnly().setTempDir(tempDir).streamCache;
+        }
+        return () -> reservedStreamCache(policy, expectedBytes, tempDir);
+    }
+    
+    /**
+     * Heap currently reserved by open documents
+     */
+    public long getReservedHeapBytes() {
+        return reservedHeap.get();
+    }
+    
+    /**
+     * Documents sent to scratch files because the shared heap was fully reserved
+     */
+    public long getSpilledDocuments() {
+        return spilledDocuments.get();
+    }
+    
+    /**
+     * Reserve heap for one document and build its cache. Documents that fit comfortably in their
+     * reservation stay in memory, larger ones get a mixed cache capped at it, and when nothing can be
+     * reserved the document spills to scratch files.
+     */
+    private RandomAccessStreamCache reservedStreamCache(MemoryPolicy policy, long expectedBytes, File tempDir)
+            throws IOException {
+        long ceiling = (jobMemoryCeilingMB > 0 ? jobMemoryCeilingMB : 256) * 1024 * 1024;
+        // Decoded streams are typically a few times larger than their compressed size
+        long wanted = policy == MemoryPolicy.MIXED ? ceiling : Math.min(ceiling, Math.max(MIN_MEMORY_BUDGET, expectedBytes * 4));
+        long granted = reserveHeap(wanted);
+        if (granted == 0) {
+            spilledDocuments.incrementAndGet();
+            logger.debug("Shared PDF heap fully reserved, using scratch files for {} bytes", expectedBytes);
+            return MemoryUsageSetting.setupTempFileOnly().setTempDir(tempDir).streamCache.create();
+        }
+        try {
+            RandomAccessStreamCache cache = policy == MemoryPolicy.AUTO && expectedBytes * 4 <= granted
+                ? IOUtils.createMemoryOnlyStreamCache().create()
+                : MemoryUsageSetting.setupMixed(granted).setTempDir(tempDir).streamCache.create();
+            return new ReservedStreamCache(cache, granted);
+        } catch (IOException | RuntimeException e) {
+            reservedHeap.addAndGet(-granted);
+            throw e;
+        }
+    }
+    
+    /**
+     * Take up to {@code wanted} bytes from the shared pool; 0 if less than the minimum budget is left
+     */
+    private long reserveHeap(long wanted) {
+        long pool = heapPool();
+        while (true) {
+            long reserved = reservedHeap.get();
+            long granted = Math.min(wanted, pool - reserved);
+            if (granted < MIN_MEMORY_BUDGET) {
+                return 0;
+            }
+            if (reservedHeap.compareAndSet(reserved, reserved + granted)) {
+                return granted;
+            }
+        }
+    }
+    
+    private long heapPool() {
+        if (totalMemoryMB > 0) {
+            return totalMemoryMB * 1024 * 1024;
+        }
+        double share = heapShare > 0 ? heapShare : 0.25;
+        return (long) (Runtime.getRuntime().maxMemory() * share);
+    }
+    
+    /**
+     * Start a job scope: scratch files created on this thread go to a directory owned by the job,
+     * and documents are parsed once into a session shared by the job's steps
+     */
+    public void beginJobScope(String jobId) {
+        if (jobId == null) {
+            return;
+        }
+        jobScratchDir.set(Paths.get(scratchDir != null ? scratchDir : System.getProperty("java.io.tmpdir"), jobId));
+        jobSession.set(new DocumentSession(this, (rasterCacheMB > 0 ? rasterCacheMB : 64) * 1024 * 1024));
+    }
+    
+    /**
+     * End the job scope: close the job's documents and delete any scratch files it left behind
+     */
+    public void endJobScope() {
+        jobCompression.remove();
+        DocumentSession session = jobSession.get();
+        jobSession.remove();
+        if (session != null) {
+            session.close();
+        }
+        Path dir = jobScratchDir.get();
+        jobScratchDir.remove();
+        if (dir != null) {
+            FileUtils.deleteQuietly(dir.toFile());
+        }
+    }
+    
+    /**
+     * Choose how the job running on this thread saves documents. {@code null} keeps the configured
+     * default: object streams unless {@code app.pdf.save.classic-xref} is set.
+     */
+    public void configureSave(Boolean objectStreams, Integer streamSize) {
+        boolean compressed = objectStreams != null ? objectStreams : !classicXref;
+        if (!compressed) {
+            jobCompression.set(CompressParameters.NO_COMPRESSION);
+        } else if (streamSize != null && streamSize > 0) {
+            jobCompression.set(new CompressParameters(streamSize));
+        } else {
+            jobCompression.remove();
+        }
+    }
+    
+    /**
+     * How documents are saved on this thread: non-stream objects packed into object streams
+     * behind a cross-reference stream (PDF 1.5), or classic xref tables
+     */
+    public CompressParameters compressParameters() {
+        CompressParameters parameters = jobCompression.get();
+        if (parameters != null) {
+            return parameters;
+        }
+        if (classicXref) {
+            return CompressParameters.NO_COMPRESSION;
+        }
+        return objectStreamSize > 0 ? new CompressParameters(objectStreamSize) : CompressParameters.DEFAULT_COMPRESSION;
+    }
+    
+    /**
+     * Save a document in full with the save settings of the current job
+     */
+    public void save(PDDocument document, Path outputFile) throws IOException {
+        document.save(outputFile.toFile(), compressParameters());
+    }
+    
+    /**
+     * Document session of the job running on this thread
+     */
+    public DocumentSession session() {
+        DocumentSession session = jobSession.get();
+        if (session == null) {
+            throw new IllegalStateException("No document session is open on this thread");
+        }
+        return session;
+    }
+    
+    private File scratchDirectory() {
+        Path dir = jobScratchDir.get();
+        if (dir == null) {
+            dir = Paths.get(scratchDir != null ? scratchDir : System.getProperty("java.io.tmpdir"));
+        }
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new PDFProcessingException("TEMP_DIR_ERROR", "Cannot create PDF scratch directory: " + e.getMessage());
+        }
+        return dir.toFile();
     }
     
     /**
      * Extract text from PDF
      */
     public String extractText(Path filePath) throws IOException {
-        try (PDDocument document = loadPDF(filePath)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            return stripper.getText(document);
+        DocumentSession session = jobSession.get();
+        if (session != null) {
+            validatePDFFile(filePath);
+            return session.text(filePath);
         }
+        return extractText(filePath, "all");
     }
     
     /**
      * Extract text from specific page range
      */
     public String extractText(Path filePath, String pageRange) throws IOException {
-        try (PDDocument document = loadPDF(filePath)) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            
-            if (!"all".equals(pageRange)) {
-                PageRange range = parsePageRange(pageRange, document.getNumberOfPages());
-                stripper.setStartPage(range.start);
-                stripper.setEndPage(range.end);
+        StringBuilder text = new StringBuilder();
+        extractText(filePath, pageRange, (page, pageText) -> text.append(pageText), CancellationToken.NONE);
+        return text.toString();
+    }
+    
+    /**
+     * Extract text from a page range, delivering each page to the sink in order.
+     * Large ranges are split into shards extracted in parallel; the result maps each page
+     * to the offset at which its text starts, so callers can stream the text instead of holding it.
+     */
+    public ParallelTextExtractor.Result extractText(Path filePath, String pageRange, ParallelTextExtractor.PageSink sink,
+                                                    CancellationToken token) throws IOException {
+        int pageCount = validatePDFFile(filePath);
+        PageRange range = parsePageRange(pageRange, pageCount);
+        DocumentSession session = jobSession.get();
+        return extractPages(filePath, session != null ? session.document(filePath) : null, range.start, range.end, sink, token);
+    }
+    
+    /**
+     * Extract pages without validation; a range that fits one shard is stripped on this thread,
+     * from the parsed document if one is given
+     */
+    ParallelTextExtractor.Result extractPages(Path filePath, PDDocument parsed, int firstPage, int lastPage,
+                                              ParallelTextExtractor.PageSink sink, CancellationToken token) throws IOException {
+        int shardPages = textShardPages > 0 ? textShardPages : 50;
+        int threads = textThreads > 0 ? textThreads : Runtime.getRuntime().availableProcessors();
+        if (lastPage - firstPage + 1 <= shardPages || threads == 1) {
+            if (parsed != null) {
+                return ParallelTextExtractor.extract(parsed, firstPage, lastPage, sink, token);
+            }
+            try (PDDocument document = loadDocument(filePath)) {
+                return ParallelTextExtractor.extract(document, firstPage, lastPage, sink, token);
             }
-            
-            return stripper.getText(document);
         }
+        return new ParallelTextExtractor(filePath, streamCache(Files.size(filePath)), workPool, threads, shardPages, token)
+            .extract(parsed, firstPage, lastPage, sink);
     }
     
     /**
      * Get page count
      */
     public int getPageCount(Path filePath) throws IOException {
+        DocumentSession session = jobSession.get();
+        if (session != null) {
+            return validatePDFFile(filePath);
+        }
         try (PDDocument document = loadPDF(filePath)) {
             return document.getNumberOfPages();
         }
@@ -112,10 +436,25 @@ public class PDFUtil {
      * Render PDF pages as images
      */
     public List<BufferedImage> renderPages(Path filePath, int dpi) throws IOException {
+        return renderPages(filePath, dpi, CancellationToken.NONE);
+    }
+    
+    /**
+     * Render all pages as images, checking for cancellation before each page
+     */
+    public List<BufferedImage> renderPages(Path filePath, int dpi, CancellationToken token) throws IOException {
+        return renderPages(filePath, dpi, "all", token);
+    }
+    
+    /**
+     * Render all pages without the session cache
+     */
+    private List<BufferedImage> renderAllPages(Path filePath, int dpi, CancellationToken token) throws IOException {
         List<BufferedImage> images = new ArrayList<>();
         try (PDDocument document = loadPDF(filePath)) {
             PDFRenderer renderer = new PDFRenderer(document);
             for (int page = 0; page < document.getNumberOfPages(); page++) {
+                token.throwIfCancelled();
                 BufferedImage image = renderer.renderImageWithDPI(page, dpi);
                 images.add(image);
             }
@@ -123,16 +462,56 @@ public class PDFUtil {
         return images;
     }
     
+    /**
+     * Render a page range in parallel, handing pages out in order as they are ready.
+     * The caller must close the stream; pages are not kept once handed out.
+     */
+    public PageRenderStream streamPages(Path filePath, int dpi, String pageRange, CancellationToken token) throws IOException {
+        int pageCount = validatePDFFile(filePath);
+        PageRange range = parsePageRange(pageRange, pageCount);
+        int[] pageIndices = new int[Math.max(0, range.end - range.start + 1)];
+        for (int i = 0; i < pageIndices.length; i++) {
+            pageIndices[i] = range.start - 1 + i;
+        }
+        int threads = renderThreads > 0 ? renderThreads : Runtime.getRuntime().availableProcessors();
+        int maxInFlight = renderMaxInFlight > 0 ? renderMaxInFlight : threads * 2;
+        DocumentSession session = jobSession.get();
+        // Resolved on this thread so render threads spill into the job's scratch directory
+        return new PageRenderStream(filePath, streamCache(Files.size(filePath)),
+            session != null ? session.document(filePath) : null, pageIndices, dpi, workPool, threads, maxInFlight, token);
+    }
+    
     /**
      * Render specific page range as images
      */
     public List<BufferedImage> renderPages(Path filePath, int dpi, String pageRange) throws IOException {
+        return renderPages(filePath, dpi, pageRange, CancellationToken.NONE);
+    }
+    
+    /**
+     * Render a page range as images, checking for cancellation before each page
+     */
+    public List<BufferedImage> renderPages(Path filePath, int dpi, String pageRange, CancellationToken token) throws IOException {
+        DocumentSession session = jobSession.get();
+        if (session == null && "all".equals(pageRange)) {
+            return renderAllPages(filePath, dpi, token);
+        }
         List<BufferedImage> images = new ArrayList<>();
+        if (session != null) {
+            int pageCount = validatePDFFile(filePath);
+            PageRange range = "all".equals(pageRange) ? new PageRange(1, pageCount) : parsePageRange(pageRange, pageCount);
+            for (int page = range.start - 1; page < range.end; page++) {
+                token.throwIfCancelled();
+                images.add(session.render(filePath, page, dpi));
+            }
+            return images;
+        }
         try (PDDocument document = loadPDF(filePath)) {
             PDFRenderer renderer = new PDFRenderer(document);
             PageRange range = parsePageRange(pageRange, document.getNumberOfPages());
             
             for (int page = range.start - 1; page < range.end; page++) {
+                token.throwIfCancelled();
                 BufferedImage image = renderer.renderImageWithDPI(page, dpi);
                 images.add(image);
             }
@@ -151,52 +530,160 @@ public class PDFUtil {
         }
         
         merger.setDestinationFileName(outputFile.toString());
-        // PDFBox 3.x requires a MemoryUsageSetting parameter
-        merger.mergeDocuments(org.apache.pdfbox.io.IOUtils.createMemoryOnlyStreamCache());
+        merger.mergeDocuments(streamCache(totalSize(inputFiles)));
         
         logger.info("Merged {} PDF files into {}", inputFiles.size(), outputFile);
         return outputFile;
     }
     
+    /**
+     * Combined size of a set of files
+     */
+    public long totalSize(List<Path> files) throws IOException {
+        long total = 0;
+        for (Path file : files) {
+            total += Files.size(file);
+        }
+        return total;
+    }
+    
     /**
      * Split PDF by page ranges or every N pages
      */
     public List<Path> splitPDF(Path inputFile, Path outputDir, String outputPrefix, 
                                int splitEveryNPages, String pageRanges) throws IOException {
-        List<Path> outputFiles = new ArrayList<>();
-        
-        try (PDDocument document = loadPDF(inputFile)) {
-            Splitter splitter = new Splitter();
-            
-            if (pageRanges != null && !pageRanges.isEmpty()) {
-                // Split by custom page ranges
-                List<PageRange> ranges = parseMultiplePageRanges(pageRanges, document.getNumberOfPages());
-                for (int i = 0; i < ranges.size(); i++) {
-                    PageRange range = ranges.get(i);
-                    splitter.setStartPage(range.start);
-                    splitter.setEndPage(range.end);
-                    
-                    PDDocument splitDoc = splitter.split(document).get(0);
-                    Path outputFile = outputDir.resolve(outputPrefix + "_part" + (i + 1) + ".pdf");
-                    splitDoc.save(outputFile.toFile());
-                    splitDoc.close();
-                    outputFiles.add(outputFile);
-                }
-            } else {
-                // Split by every N pages
-                splitter.setSplitAtPage(splitEveryNPages);
-                List<PDDocument> splitDocs = splitter.split(document);
-                
-                for (int i = 0; i < splitDocs.size(); i++) {
-                    Path outputFile = outputDir.resolve(outputPrefix + "_part" + (i + 1) + ".pdf");
-                    splitDocs.get(i).save(outputFile.toFile());
-                    splitDocs.get(i).close();
-                    outputFiles.add(outputFile);
+        return splitPDF(inputFile, outputDir, outputPrefix, splitEveryNPages, pageRanges, CancellationToken.NONE);
+    }
+    
+    /**
+     * Split PDF, checking for cancellation before each part
+     */
+    public List<Path> splitPDF(Path inputFile, Path outputDir, String outputPrefix, 
+                               int splitEveryNPages, String pageRanges, CancellationToken token) throws IOException {
+        List<ParallelSplitter.Part> parts = planSplit(inputFile, splitEveryNPages, pageRanges,
+            part -> outputDir.resolve(outputPrefix + "_part" + part + ".pdf"));
+        writeParts(inputFile, parts, token);
+        return parts.stream().map(ParallelSplitter.Part::target).toList();
+    }
+    
+    /**
+     * Work out every part of a split in one pass: custom page ranges, or every N pages.
+     * The target function receives the 1-based part number.
+     */
+    public List<ParallelSplitter.Part> planSplit(Path inputFile, int splitEveryNPages, String pageRanges,
+                                                 IntFunction<Path> target) throws IOException {
+        int pageCount = validatePDFFile(inputFile);
+        List<ParallelSplitter.Part> parts = new ArrayList<>();
+        if (pageRanges != null && !pageRanges.isEmpty()) {
+            for (PageRange range : parseMultiplePageRanges(pageRanges, pageCount)) {
+                parts.add(new ParallelSplitter.Part(range.start, range.end, target.apply(parts.size() + 1)));
+            }
+        } else {
+            int step = Math.max(1, splitEveryNPages);
+            for (int start = 1; start <= pageCount; start += step) {
+                parts.add(new ParallelSplitter.Part(start, Math.min(pageCount, start + step - 1), target.apply(parts.size() + 1)));
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * Plan a split into parts of at most {@code targetBytes} each, packing consecutive pages greedily.
+     * Every page is measured once; objects shared by pages of a part are counted once for that part,
+     * and a page larger than the target gets a part of its own.
+     */
+    public List<ParallelSplitter.Part> planSplitBySize(Path inputFile, long targetBytes,
+                                                       IntFunction<Path> target) throws IOException {
+        validatePDFFile(inputFile);
+        DocumentSession session = jobSession.get();
+        PDDocument document = session != null ? session.document(inputFile) : loadDocument(inputFile);
+        try {
+            PageSizeEstimator estimator = new PageSizeEstimator();
+            List<ParallelSplitter.Part> parts = new ArrayList<>();
+            PageSizeEstimator.Part part = estimator.newPart();
+            int firstPage = 1;
+            int pageCount = document.getNumberOfPages();
+            for (int p = 1; p <= pageCount; p++) {
+                PageSizeEstimator.Footprint page = estimator.measure(document.getPage(p - 1));
+                if (part.getPages() > 0 && part.getBytes() + part.cost(page) > targetBytes) {
+                    parts.add(new ParallelSplitter.Part(firstPage, p - 1, target.apply(parts.size() + 1)));
+                    part = estimator.newPart();
+                    firstPage = p;
                 }
+                part.add(page);
+            }
+            if (pageCount > 0) {
+                parts.add(new ParallelSplitter.Part(firstPage, pageCount, target.apply(parts.size() + 1)));
+            }
+            return parts;
+        } finally {
+            if (session == null) {
+                document.close();
             }
         }
-        
-        return outputFiles;
+    }
+
+    /**
+     * Write split parts of a document concurrently, each straight to its target file
+     */
+    public void writeParts(Path inputFile, List<ParallelSplitter.Part> parts, CancellationToken token) throws IOException {
+        writeParts(inputFile, parts, null, token);
+    }
+    
+    /**
+     * Write split parts of a document concurrently, each straight into {@code archive} as it is
+     * finished; without an archive each part goes to its target file
+     */
+    public void writeParts(Path inputFile, List<ParallelSplitter.Part> parts, ResultArchive archive,
+                           CancellationToken token) throws IOException {
+        int threads = splitThreads > 0 ? splitThreads : Runtime.getRuntime().availableProcessors();
+        new ParallelSplitter(inputFile, streamCache(Files.size(inputFile)), workPool, threads, compressParameters(), token)
+            .write(parts, archive, archive != null ? scratchDirectory() : null);
+    }
+    
+    /**
+     * Downsample and re-encode the images of a document loaded from {@code sourceFile}, decoding
+     * distinct images in parallel; the document is changed on the calling thread only
+     */
+    public ImageRecompressor.Result recompressImages(Path sourceFile, PDDocument document, ImageRecompressor.Options options,
+                                                     CancellationToken token) throws IOException {
+        int threads = imageThreads > 0 ? imageThreads : Runtime.getRuntime().availableProcessors();
+        return new ImageRecompressor(sourceFile, streamCache(Files.size(sourceFile)), workPool, threads, options, token)
+            .recompress(document);
+    }
+    
+    /**
+     * Cut the embedded TrueType CID fonts of a document loaded from {@code sourceFile} down to the
+     * glyphs it shows; pages are walked in parallel, the document is changed on the calling thread only
+     */
+    public FontSubsetter.Result subsetFonts(Path sourceFile, PDDocument document, CancellationToken token) throws IOException {
+        int threads = fontThreads > 0 ? fontThreads : Runtime.getRuntime().availableProcessors();
+        return new FontSubsetter(sourceFile, streamCache(Files.size(sourceFile)), workPool, threads, token).subset(document);
+    }
+    
+    /**
+     * Merge identical fonts, images, profiles and other objects of a document into single copies
+     */
+    public ObjectDeduplicator.Result deduplicateObjects(PDDocument document, CancellationToken token) throws IOException {
+        return new ObjectDeduplicator(document, token).deduplicate();
+    }
+    
+    /**
+     * Write {@code sourceFile} linearized for fast web view to {@code outputFile}, which may be the
+     * same file. Returns false, leaving the output untouched, if the document cannot be linearized.
+     */
+    public boolean linearize(Path sourceFile, Path outputFile, CancellationToken token) throws IOException {
+        Path linearized = outputFile.resolveSibling(outputFile.getFileName() + ".lin");
+        try (PDDocument document = loadDocument(sourceFile)) {
+            if (!new LinearizedWriter(document, token).write(linearized)) {
+                return false;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(linearized);
+            throw e;
+        }
+        Files.move(linearized, outputFile, StandardCopyOption.REPLACE_EXISTING);
+        return true;
     }
     
     /**
@@ -217,7 +704,7 @@ public class PDFUtil {
                 pageIndex++;
             }
             
-            document.save(outputFile.toFile());
+            save(document, outputFile);
             return outputFile;
         }
     }
@@ -287,7 +774,7 @@ public class PDFUtil {
                 }
             }
             
-            document.save(outputFile.toFile());
+            save(document, outputFile);
             return outputFile;
         }
     }
@@ -317,7 +804,7 @@ public class PDFUtil {
             policy.setEncryptionKeyLength(256);
             
             document.protect(policy);
-            document.save(outputFile.toFile());
+            save(document, outputFile);
             
             return outputFile;
         }
@@ -331,7 +818,7 @@ public class PDFUtil {
             if (document.isEncrypted()) {
                 document.setAllSecurityToBeRemoved(true);
             }
-            document.save(outputFile.toFile());
+            save(document, outputFile);
             return outputFile;
         }
     }
@@ -399,7 +886,7 @@ public class PDFUtil {
                 pageIndex++;
             }
             
-            document.save(outputFile.toFile());
+            save(document, outputFile);
             return outputFile;
         }
     }
@@ -419,7 +906,7 @@ public class PDFUtil {
             }
             
             // Create new document with remaining pages
-            PDDocument newDocument = new PDDocument();
+            PDDocument newDocument = createDocument(Files.size(inputFile));
             for (int i = 1; i <= document.getNumberOfPages(); i++) {
                 if (!pagesToDelete.contains(i)) {
                     PDPage page = document.getPage(i - 1);
@@ -427,7 +914,7 @@ public class PDFUtil {
                 }
             }
             
-            newDocument.save(outputFile.toFile());
+            save(newDocument, outputFile);
             newDocument.close();
             return outputFile;
         }
@@ -461,7 +948,7 @@ public class PDFUtil {
                 pageIndex++;
             }
             
-            document.save(outputFile.toFile());
+            save(document, outputFile);
             return outputFile;
         }
     }
@@ -488,7 +975,7 @@ public class PDFUtil {
                 pageIndex++;
             }
             
-            document.save(outputFile.toFile());
+            save(document, outputFile);
             return outputFile;
         }
     }
@@ -513,7 +1000,23 @@ public class PDFUtil {
         }
         return images;
     }
-    
+
+    /**
+     * Extract each distinct image to the sink as it is found, as its original encoded bytes where
+     * the codec allows (passthrough) or re-encoded as PNG; returns the number of images
+     */
+    public int extractImages(Path filePath, boolean passthrough, ImageStreamExtractor.ImageSink sink,
+                             CancellationToken token) throws IOException {
+        validatePDFFile(filePath);
+        DocumentSession session = jobSession.get();
+        if (session != null) {
+            return new ImageStreamExtractor(session.document(filePath), passthrough, token).extract(sink);
+        }
+        try (PDDocument document = loadDocument(filePath)) {
+            return new ImageStreamExtractor(document, passthrough, token).extract(sink);
+        }
+    }
+
     /**
      * Extract metadata
      */
@@ -564,11 +1067,24 @@ public class PDFUtil {
             });
             
             document.setDocumentInformation(docInfo);
-            document.save(outputFile.toFile());
-            return outputFile;
+            return saveEdited(document, inputFile, outputFile);
         }
     }
     
+    /**
+     * Save a document loaded from {@code sourceFile} after a small edit. Only the changed objects are
+     * appended to a copy of the source, so the cost follows the edit rather than the document size.
+     * Falls back to a full save when rewrites are forced or the edit removes encryption.
+     */
+    public Path saveEdited(PDDocument document, Path sourceFile, Path outputFile) throws IOException {
+        if (fullRewrite || document.isAllSecurityToBeRemoved() || sourceFile.equals(outputFile)) {
+            save(document, outputFile);
+        } else {
+            IncrementalUpdateWriter.write(document, sourceFile, outputFile);
+        }
+        return outputFile;
+    }
+    
     // Helper methods
     
     private PageRange parsePageRange(String range, int totalPages) {
@@ -634,7 +1150,23 @@ public class PDFUtil {
         };
     }
     
-    private void validatePDFFile(Path filePath) throws IOException {
+    private int validatePDFFile(Path filePath) throws IOException {
+        checkFileSize(filePath);
+        
+        int pageCount;
+        DocumentSession session = jobSession.get();
+        if (session != null) {
+            pageCount = session.pageCount(filePath);
+        } else {
+            try (PDDocument doc = loadDocument(filePath)) {
+                pageCount = doc.getNumberOfPages();
+            }
+        }
+        checkPageCount(pageCount);
+        return pageCount;
+    }
+    
+    private void checkFileSize(Path filePath) throws IOException {
         if (!Files.exists(filePath)) {
             throw new PDFProcessingException("FILE_NOT_FOUND", "PDF file not found: " + filePath);
         }
@@ -644,15 +1176,28 @@ public class PDFUtil {
             throw new PDFProcessingException("FILE_TOO_LARGE", 
                 String.format("PDF file size (%d MB) exceeds maximum allowed (%d MB)", fileSizeMB, maxFileSizeMB));
         }
-        
-        try (PDDocument doc = Loader.loadPDF(filePath.toFile())) {
-            if (doc.getNumberOfPages() > maxPages) {
-                throw new PDFProcessingException("TOO_MANY_PAGES", 
-                    String.format("PDF has %d pages, maximum allowed is %d", doc.getNumberOfPages(), maxPages));
-            }
+    }
+    
+    private void checkPageCount(int pageCount) {
+        if (pageCount > maxPages) {
+            throw new PDFProcessingException("TOO_MANY_PAGES", 
+                String.format("PDF has %d pages, maximum allowed is %d", pageCount, maxPages));
         }
     }
     
+    /**
+     * Close a freshly loaded document that is over the page limit
+     */
+    private PDDocument checkPageCount(PDDocument document) throws IOException {
+        try {
+            checkPageCount(document.getNumberOfPages());
+        } catch (RuntimeException e) {
+            document.close();
+            throw e;
+        }
+        return document;
+    }
+    
     private static class PageRange {
         final int start;
         final int end;
@@ -662,4 +1207,32 @@ public class PDFUtil {
             this.end = end;
         }
     }
+    
+    /**
+     * Stream cache that hands its heap reservation back to the shared pool when its document closes
+     */
+    private class ReservedStreamCache implements RandomAccessStreamCache {
+        private final RandomAccessStreamCache delegate;
+        private final long reservedBytes;
+        private boolean released;
+        
+        ReservedStreamCache(RandomAccessStreamCache delegate, long reservedBytes) {
+            this.delegate = delegate;
+            this.reservedBytes = reservedBytes;
+        }
+        
+        @Override
+        public RandomAccess createBuffer() throws IOException {
+            return delegate.createBuffer();
+        }
+        
+        @Override
+        public synchronized void close() throws IOException {
+            if (!released) {
+                released = true;
+                reservedHeap.addAndGet(-reservedBytes);
+            }
+            delegate.close();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pages of a PDF rendered in parallel and handed out one at a time in page order.
+ *
+ * Free threads of the shared {@link ParallelWorkPool} render ahead of the caller, each from its own
+ * {@link PDDocument} over the file, since PDFBox documents are not thread-safe. A thread must take
+ * a permit before rendering a page and the permit is returned when the page is handed out, so at
+ * most {@code maxInFlight} rasters are held besides the one the caller is working on. When no thread
+ * has taken the next page yet, the caller renders it itself from the already parsed document.
+ * Closing the stream stops the render threads and closes their documents.
+ */
+public class PageRenderStream implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageRenderStream.class);
+
+    /**
+     * A rendered page; {@code pageIndex} is 0-based
+     */
+    public record Page(int pageIndex, BufferedImage image) {}
+
+    private final Path file;
+    private final StreamCacheCreateFunction streamCache;
+    private final PDDocument parsed;
+    private final int[] pageIndices;
+    private final float dpi;
+    private final CancellationToken token;
+    private final CompletableFuture<BufferedImage>[] slots;
+    private final Semaphore permits;
+    private final AtomicInteger nextToRender = new AtomicInteger();
+    private final ParallelWorkPool.Group renderers;
+    private PDDocument own;
+    private PDFRenderer callerRenderer;
+    private int nextToHand;
+    private volatile boolean closed;
+
+    /**
+     * The caller renders from {@code parsed}, or from a copy it opens when that is null
+     */
+    @SuppressWarnings("unchecked")
+    PageRenderStream(Path file, StreamCacheCreateFunction streamCache, PDDocument parsed, int[] pageIndices, float dpi,
+                     ParallelWorkPool pool, int threads, int maxInFlight, CancellationToken token) {
+        this.file = file;
+        this.streamCache = streamCache;
+        this.parsed = parsed;
+        this.pageIndices = pageIndices;
+        this.dpi = dpi;
+        this.token = token != null ? token : CancellationToken.NONE;
+        this.slots = (CompletableFuture<BufferedImage>[]) new CompletableFuture<?>[pageIndices.length];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new CompletableFuture<>();
+        }
+        this.permits = new Semaphore(Math.max(1, maxInFlight));
+
+        int workers = Math.max(1, Math.min(threads, pageIndices.length));
+        this.renderers = pool.start(workers - 1, caller -> {
+            renderLoop();
+            return null;
+        });
+    }
+
+    /**
+     * Number of pages the stream will hand out
+     */
+    public int size() {
+        return pageIndices.length;
+    }
+
+    public boolean hasNext() {
+        return nextToHand < pageIndices.length;
+    }
+
+    /**
+     * Next page in order, waiting for it to be rendered
+     */
+    public Page next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int slot = nextToHand;
+        BufferedImage image;
+        if (nextToRender.compareAndSet(slot, slot + 1)) {
+            // No thread has taken this page, so the caller renders it without waiting
+            token.throwIfCancelled();
+            image = callerRenderer().renderImageWithDPI(pageIndices[slot], dpi);
+        } else {
+            image = await(slot);
+            permits.release();
+        }
+        slots[slot] = null;
+        nextToHand++;
+        return new Page(pageIndices[slot], image);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        renderers.stop(true);
+        // Unblock render threads still waiting for a permit
+        permits.release(pageIndices.length + 1);
+        if (own != null) {
+            try {
+                own.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close render copy of {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private BufferedImage await(int slot) throws IOException {
+        try {
+            return slots[slot].get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PDFProcessingException("RENDER_INTERRUPTED", "Interrupted while rendering pages");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IOException("Failed to render page " + (pageIndices[slot] + 1), cause);
+        }
+    }
+
+    private PDFRenderer callerRenderer() throws IOException {
+        if (callerRenderer == null) {
+            if (parsed == null) {
+                own = Loader.loadPDF(file.toFile(), streamCache);
+            }
+            callerRenderer = new PDFRenderer(parsed != null ? parsed : own);
+        }
+        return callerRenderer;
+    }
+
+    private void renderLoop() {
+        PDDocument document = null;
+        PDFRenderer renderer = null;
+        try {
+            while (!closed) {
+                permits.acquire();
+                int slot = nextToRender.getAndIncrement();
+                if (closed || slot >= pageIndices.length) {
+                    return;
+                }
+                try {
+                    token.throwIfCancelled();
+                    if (renderer == null) {
+                        document = Loader.loadPDF(file.toFile(), streamCache);
+                        renderer = new PDFRenderer(document);
+                    }
+                    slots[slot].complete(renderer.renderImageWithDPI(pageIndices[slot], dpi));
+                } catch (Throwable e) {
+                    slots[slot].completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (document != null) {
+                try {
+                    document.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close render copy of {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+}
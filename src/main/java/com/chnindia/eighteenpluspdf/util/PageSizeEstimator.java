@@ -0,0 +1,171 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.cos.*;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+
+import java.util.*;
+
+/**
+ * Estimates how many bytes pages add to a document they are saved into.
+ *
+ * A page costs its own dictionary plus every indirect object it reaches: content streams at their
+ * encoded length, fonts, images, forms and annotations. Other pages and the page tree are not
+ * followed. Indirect objects are tracked by identity, so a {@link Part} counts a shared font or
+ * image once however many of its pages use it. Object sizes are computed once and cached.
+ */
+public class PageSizeEstimator {
+
+    // Catalog, page tree, document information, xref table and trailer of a saved part
+    public static final long DOCUMENT_OVERHEAD = 1024;
+
+    // "n 0 obj ... endobj" plus the xref entry
+    private static final long INDIRECT_OVERHEAD = 32;
+    private static final long STREAM_OVERHEAD = 20;
+    private static final long REFERENCE_SIZE = 10;
+    private static final long NUMBER_SIZE = 8;
+
+    private final Map<COSBase, Node> nodes = new IdentityHashMap<>();
+
+    /**
+     * Running total of the pages packed into one output document
+     */
+    public class Part {
+        private final Set<COSBase> objects = Collections.newSetFromMap(new IdentityHashMap<>());
+        private long bytes = DOCUMENT_OVERHEAD;
+        private int pages;
+
+        /**
+         * Bytes the page would add to this part
+         */
+        public long cost(Footprint page) {
+            long cost = 0;
+            for (COSBase object : page.objects) {
+                if (!objects.contains(object)) {
+                    cost += node(object).size;
+                }
+            }
+            return cost;
+        }
+
+        public void add(Footprint page) {
+            for (COSBase object : page.objects) {
+                if (objects.add(object)) {
+                    bytes += node(object).size;
+                }
+            }
+            pages++;
+        }
+
+        public long getBytes() { return bytes; }
+        public int getPages() { return pages; }
+    }
+
+    /**
+     * Objects a page reaches; measured once and then priced against any part
+     */
+    public static final class Footprint {
+        private final Set<COSBase> objects;
+
+        private Footprint(Set<COSBase> objects) {
+            this.objects = objects;
+        }
+    }
+
+    public Part newPart() {
+        return new Part();
+    }
+
+    /**
+     * The page dictionary and every object it reaches, each once
+     */
+    public Footprint measure(PDPage page) {
+        Set<COSBase> reached = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<COSBase> pending = new ArrayDeque<>();
+        pending.push(page.getCOSObject());
+        // Resources inherited from the page tree are copied onto the page when it is saved alone
+        PDResources resources = page.getResources();
+        if (resources != null && !page.getCOSObject().containsKey(COSName.RESOURCES)) {
+            pending.push(resources.getCOSObject());
+        }
+        while (!pending.isEmpty()) {
+            COSBase object = pending.pop();
+            if (reached.add(object)) {
+                for (COSBase child : node(object).children) {
+                    if (!reached.contains(child)) {
+                        pending.push(child);
+                    }
+                }
+            }
+        }
+        return new Footprint(reached);
+    }
+
+    private Node node(COSBase object) {
+        Node node = nodes.get(object);
+        if (node == null) {
+            List<COSBase> children = new ArrayList<>();
+            long size = INDIRECT_OVERHEAD + inlineSize(object, children, true);
+            node = new Node(size, children);
+            nodes.put(object, node);
+        }
+        return node;
+    }
+
+    /**
+     * Serialized size of a value written in place; indirect references are collected, not followed
+     */
+    private long inlineSize(COSBase value, List<COSBase> references, boolean top) {
+        if (value instanceof COSObject reference) {
+            COSBase target = reference.getObject();
+            if (target != null && !isPageTreeNode(target)) {
+                references.add(target);
+            }
+            return REFERENCE_SIZE;
+        }
+        if (!top && isPageTreeNode(value)) {
+            return REFERENCE_SIZE;
+        }
+        if (value instanceof COSStream stream) {
+            return dictionarySize(stream, references) + stream.getLength() + STREAM_OVERHEAD;
+        }
+        if (value instanceof COSDictionary dictionary) {
+            return dictionarySize(dictionary, references);
+        }
+        if (value instanceof COSArray array) {
+            long size = 2;
+            for (int i = 0; i < array.size(); i++) {
+                size += 1 + inlineSize(array.get(i), references, false);
+            }
+            return size;
+        }
+        if (value instanceof COSString string) {
+            return string.getBytes().length + 2L;
+        }
+        if (value instanceof COSName name) {
+            return name.getName().length() + 1L;
+        }
+        return NUMBER_SIZE;
+    }
+
+    private long dictionarySize(COSDictionary dictionary, List<COSBase> references) {
+        long size = 4;
+        for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet()) {
+            if (COSName.PARENT.equals(entry.getKey()) && isPageTreeNode(dictionary)) {
+                continue;
+            }
+            size += entry.getKey().getName().length() + 2 + inlineSize(entry.getValue(), references, false);
+        }
+        return size;
+    }
+
+    private static boolean isPageTreeNode(COSBase object) {
+        if (object instanceof COSDictionary dictionary && !(object instanceof COSStream)) {
+            COSName type = dictionary.getCOSName(COSName.TYPE);
+            return COSName.PAGE.equals(type) || COSName.PAGES.equals(type);
+        }
+        return false;
+    }
+
+    private record Node(long size, List<COSBase> children) {}
+}
@@ -0,0 +1,195 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.interactive.action.PDAction;
+import org.apache.pdfbox.pdmodel.interactive.action.PDActionGoTo;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDDestination;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageDestination;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes page ranges of one PDF as separate documents, several parts at a time.
+ *
+ * The calling thread and any free threads of the shared {@link ParallelWorkPool} take unwritten
+ * parts in turn, each from its own copy of the source, opened once it has claimed a part. Pages are
+ * moved into the part by reference rather than through {@link PDDocument#importPage}, so content
+ * streams are not decoded and re-encoded, and a font or image shared by several pages of a part
+ * is written to it once. Links to pages are detached so a part does not pull in pages of others.
+ *
+ * Parts can also go straight into a {@link ResultArchive}: each is saved to a buffer that spills
+ * to a scratch file only past {@link #ARCHIVE_BUFFER_BYTES}, then added as one entry, in the order
+ * the parts finish.
+ */
+public class ParallelSplitter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelSplitter.class);
+
+    // Parts up to this size go into an archive from memory; larger ones pass through a scratch file
+    static final int ARCHIVE_BUFFER_BYTES = 8 * 1024 * 1024;
+
+    /**
+     * Pages {@code firstPage..lastPage} (1-based, inclusive) written to {@code target}, or added to
+     * an archive under the file name of {@code target}
+     */
+    public record Part(int firstPage, int lastPage, Path target) {}
+
+    private final Path file;
+    private final StreamCacheCreateFunction streamCache;
+    private final ParallelWorkPool pool;
+    private final int threads;
+    private final CompressParameters compression;
+    private final CancellationToken token;
+
+    ParallelSplitter(Path file, StreamCacheCreateFunction streamCache, ParallelWorkPool pool, int threads,
+                     CompressParameters compression, CancellationToken token) {
+        this.file = file;
+        this.streamCache = streamCache;
+        this.pool = pool;
+        this.threads = Math.max(1, threads);
+        this.compression = compression;
+        this.token = token != null ? token : CancellationToken.NONE;
+    }
+
+    /**
+     * Write all parts, returning once every part is saved or the first failure is known
+     */
+    void write(List<Part> parts) throws IOException {
+        write(parts, null, null);
+    }
+
+    /**
+     * Write all parts into {@code archive}, or to their target files when it is null; parts that
+     * outgrow the memory buffer spill to {@code spillDir}
+     */
+    void write(List<Part> parts, ResultArchive archive, File spillDir) throws IOException {
+        if (parts.isEmpty()) {
+            return;
+        }
+        AtomicInteger nextPart = new AtomicInteger();
+        try {
+            pool.invoke(Math.min(threads, parts.size()) - 1, caller -> writeParts(parts, nextPart, archive, spillDir));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PDFProcessingException("SPLIT_INTERRUPTED", "Interrupted while writing split parts");
+        } finally {
+            nextPart.set(parts.size());
+        }
+    }
+
+    private Void writeParts(List<Part> parts, AtomicInteger nextPart, ResultArchive archive, File spillDir) throws IOException {
+        PDDocument source = null;
+        try {
+            int index;
+            while ((index = nextPart.getAndIncrement()) < parts.size()) {
+                token.throwIfCancelled();
+                if (source == null) {
+                    source = Loader.loadPDF(file.toFile(), streamCache);
+                }
+                writePart(source, parts.get(index), archive, spillDir);
+            }
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // Other workers stop at their next part
+            nextPart.set(parts.size());
+            throw e;
+        } finally {
+            if (source != null) {
+                source.close();
+            }
+        }
+    }
+
+    private void writePart(PDDocument source, Part part, ResultArchive archive, File spillDir) throws IOException {
+        try (PDDocument target = new PDDocument(streamCache)) {
+            target.setDocumentInformation(source.getDocumentInformation());
+            target.getDocumentCatalog().setViewerPreferences(source.getDocumentCatalog().getViewerPreferences());
+            for (int p = part.firstPage(); p <= part.lastPage(); p++) {
+                target.addPage(detach(source.getPage(p - 1)));
+            }
+            if (archive != null) {
+                archivePart(target, part, archive, spillDir);
+            } else {
+                target.save(part.target().toFile(), compression);
+            }
+        }
+        logger.debug("Wrote pages {}-{} to {}", part.firstPage(), part.lastPage(), part.target().getFileName());
+    }
+
+    private void archivePart(PDDocument target, Part part, ResultArchive archive, File spillDir) throws IOException {
+        DeferredFileOutputStream buffer = DeferredFileOutputStream.builder()
+            .setThreshold(ARCHIVE_BUFFER_BYTES)
+            .setPrefix("part")
+            .setSuffix(".pdf")
+            .setDirectory(spillDir)
+            .get();
+        try {
+            try (buffer) {
+                target.save(buffer, compression);
+            }
+            String name = part.target().getFileName().toString();
+            // Entries are written one at a time; workers only wait here once their part is saved
+            synchronized (archive) {
+                token.throwIfCancelled();
+                if (buffer.isInMemory()) {
+                    archive.add(name, buffer.getData());
+                } else {
+                    archive.add(name, buffer.getFile().toPath());
+                }
+            }
+        } finally {
+            if (!buffer.isInMemory()) {
+                Files.deleteIfExists(buffer.getFile().toPath());
+            }
+        }
+    }
+
+    /**
+     * Shallow copy of a page that no longer depends on the source page tree
+     */
+    private static PDPage detach(PDPage page) throws IOException {
+        COSDictionary dictionary = new COSDictionary(page.getCOSObject());
+        dictionary.removeItem(COSName.PARENT);
+        PDPage copy = new PDPage(dictionary);
+        // Attributes inherited from the source page tree are lost once the page leaves it
+        copy.setMediaBox(new PDRectangle(page.getMediaBox().getCOSArray()));
+        copy.setCropBox(new PDRectangle(page.getCropBox().getCOSArray()));
+        copy.setRotation(page.getRotation());
+        if (page.getResources() != null && !dictionary.containsKey(COSName.RESOURCES)) {
+            copy.setResources(page.getResources());
+        }
+
+        for (PDAnnotation annotation : copy.getAnnotations()) {
+            if (annotation instanceof PDAnnotationLink link) {
+                PDDestination destination = link.getDestination();
+                PDAction action = link.getAction();
+                if (destination == null && action instanceof PDActionGoTo goTo) {
+                    destination = goTo.getDestination();
+                }
+                if (destination instanceof PDPageDestination pageDestination) {
+                    pageDestination.setPage(null);
+                }
+            }
+            annotation.setPage(null);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,237 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessStreamCache.StreamCacheCreateFunction;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Text extraction split into page-range shards that are stripped concurrently.
+ *
+ * Free threads of the shared {@link ParallelWorkPool} strip whole shards ahead of the caller with one
+ * {@link PDFTextStripper} pass each, so the page tree is walked once per shard rather than once per page;
+ * each opens its own {@link PDDocument} over the file once it has claimed a shard. When no thread has
+ * claimed the next shard yet, the calling thread strips it itself from the already parsed document.
+ * Page text is delivered to a {@link PageSink} on the calling thread in page order; at most two
+ * finished shards per thread wait for the sink, so callers never need the whole text in memory.
+ * The concatenated page text equals what a single stripper returns for the same range.
+ */
+public class ParallelTextExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelTextExtractor.class);
+
+    /**
+     * Receives the text of each page (1-based) in order
+     */
+    @FunctionalInterface
+    public interface PageSink {
+        void accept(int pageNumber, String text) throws IOException;
+    }
+
+    /**
+     * Pages extracted, total characters delivered, and the character offset at which each page starts
+     */
+    public record Result(int pageCount, long length, Map<Integer, Long> pageOffsets) {}
+
+    private final Path file;
+    private final StreamCacheCreateFunction streamCache;
+    private final ParallelWorkPool pool;
+    private final int threads;
+    private final int shardPages;
+    private final CancellationToken token;
+
+    ParallelTextExtractor(Path file, StreamCacheCreateFunction streamCache, ParallelWorkPool pool, int threads,
+                          int shardPages, CancellationToken token) {
+        this.file = file;
+        this.streamCache = streamCache;
+        this.pool = pool;
+        this.threads = Math.max(1, threads);
+        this.shardPages = Math.max(1, shardPages);
+        this.token = token != null ? token : CancellationToken.NONE;
+    }
+
+    /**
+     * Extract pages {@code firstPage..lastPage} (1-based, inclusive) of an already parsed document on this thread
+     */
+    static Result extract(PDDocument document, int firstPage, int lastPage, PageSink sink, CancellationToken token)
+            throws IOException {
+        OffsetTracker tracker = new OffsetTracker(sink);
+        int pageNumber = firstPage;
+        for (String text : strip(document, firstPage, lastPage)) {
+            if (token != null) token.throwIfCancelled();
+            tracker.accept(pageNumber++, text);
+        }
+        return tracker.result();
+    }
+
+    /**
+     * Extract pages {@code firstPage..lastPage} (1-based, inclusive) in parallel shards. The caller strips
+     * shards no other thread has taken from {@code parsed}, or from a copy it opens when that is null.
+     */
+    @SuppressWarnings("unchecked")
+    Result extract(PDDocument parsed, int firstPage, int lastPage, PageSink sink) throws IOException {
+        int pages = Math.max(0, lastPage - firstPage + 1);
+        int shardCount = (pages + shardPages - 1) / shardPages;
+        int workers = Math.max(1, Math.min(threads, shardCount));
+        CompletableFuture<String[]>[] shards = (CompletableFuture<String[]>[]) new CompletableFuture<?>[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new CompletableFuture<>();
+        }
+        Semaphore permits = new Semaphore(workers * 2);
+        AtomicInteger nextShard = new AtomicInteger();
+        ParallelWorkPool.Group helpers = pool.start(workers - 1, caller -> {
+            stripShards(shards, permits, nextShard, firstPage, lastPage);
+            return null;
+        });
+
+        OffsetTracker tracker = new OffsetTracker(sink);
+        PDDocument own = null;
+        try {
+            for (int shard = 0; shard < shardCount; shard++) {
+                int pageNumber = firstPage + shard * shardPages;
+                String[] texts;
+                if (nextShard.compareAndSet(shard, shard + 1)) {
+                    // No thread has taken this shard, so the caller strips it without waiting
+                    token.throwIfCancelled();
+                    if (parsed == null && own == null) {
+                        own = Loader.loadPDF(file.toFile(), streamCache);
+                    }
+                    texts = strip(parsed != null ? parsed : own, pageNumber, Math.min(lastPage, pageNumber + shardPages - 1));
+                } else {
+                    texts = await(shards[shard], pageNumber);
+                    permits.release();
+                }
+                shards[shard] = null;
+                for (String text : texts) {
+                    token.throwIfCancelled();
+                    tracker.accept(pageNumber++, text);
+                }
+            }
+        } finally {
+            nextShard.set(shardCount);
+            helpers.stop(true);
+            // Unblock threads still waiting for a permit once the caller stops early
+            permits.release(shardCount + workers);
+            if (own != null) {
+                own.close();
+            }
+        }
+        return tracker.result();
+    }
+
+    private void stripShards(CompletableFuture<String[]>[] shards, Semaphore permits, AtomicInteger nextShard,
+                             int firstPage, int lastPage) {
+        PDDocument document = null;
+        try {
+            while (true) {
+                permits.acquire();
+                int shard = nextShard.getAndIncrement();
+                if (shard >= shards.length || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                int start = firstPage + shard * shardPages;
+                int end = Math.min(lastPage, start + shardPages - 1);
+                try {
+                    token.throwIfCancelled();
+                    if (document == null) {
+                        document = Loader.loadPDF(file.toFile(), streamCache);
+                    }
+                    shards[shard].complete(strip(document, start, end));
+                } catch (Throwable e) {
+                    shards[shard].completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (document != null) {
+                try {
+                    document.close();
+                } catch (IOException e) {
+                    logger.warn("Failed to close text copy of {}: {}", file, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Text of each page in the range; pages without content streams come back empty
+     */
+    private static String[] strip(PDDocument document, int firstPage, int lastPage) throws IOException {
+        String[] texts = new String[lastPage - firstPage + 1];
+        Arrays.fill(texts, "");
+        PageStripper stripper = new PageStripper((page, text) -> texts[page - firstPage] = text);
+        stripper.setStartPage(firstPage);
+        stripper.setEndPage(lastPage);
+        stripper.writeText(document, stripper.buffer);
+        return texts;
+    }
+
+    private static String[] await(CompletableFuture<String[]> shard, int firstPage) throws IOException {
+        try {
+            return shard.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PDFProcessingException("TEXT_EXTRACTION_INTERRUPTED", "Interrupted while extracting text");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IOException("Failed to extract text from page " + firstPage, cause);
+        }
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    /**
+     * Stripper that hands out the text of each page as soon as the page is written.
+     * Pages without content streams are skipped by PDFBox and never reach the sink.
+     */
+    private static class PageStripper extends PDFTextStripper {
+        private final PageSink pageSink;
+        private final StringWriter buffer = new StringWriter();
+
+        PageStripper(PageSink pageSink) {
+            this.pageSink = pageSink;
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            super.endPage(page);
+            String text = buffer.toString();
+            buffer.getBuffer().setLength(0);
+            pageSink.accept(getCurrentPageNo(), text);
+        }
+    }
+
+    private static class OffsetTracker {
+        private final PageSink sink;
+        private final Map<Integer, Long> pageOffsets = new LinkedHashMap<>();
+        private long length;
+
+        OffsetTracker(PageSink sink) {
+            this.sink = sink;
+        }
+
+        void accept(int pageNumber, String text) throws IOException {
+            pageOffsets.put(pageNumber, length);
+            length += text.length();
+            sink.accept(pageNumber, text);
+        }
+
+        Result result() {
+            return new Result(pageOffsets.size(), length, pageOffsets);
+        }
+    }
+}
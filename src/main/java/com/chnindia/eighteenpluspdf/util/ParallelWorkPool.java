@@ -0,0 +1,203 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One bounded pool of threads shared by the parallel PDF engines of every job.
+ *
+ * A job never gets threads of its own. The calling thread always does part of the work, and
+ * pool threads join in only while they are free and work remains; a worker that starts after
+ * the work has run out returns at once. Under load a job therefore falls back to its own thread
+ * instead of adding threads, and the document copies that workers open stay within the pool size.
+ */
+@Component
+public class ParallelWorkPool implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelWorkPool.class);
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    // Threads shared by all jobs for parallel rendering, text extraction, splitting and compression; 0 uses one per core
+    @Value("${app.pdf.parallel.threads:0}")
+    private int threads;
+
+    private ThreadPoolExecutor executor;
+
+    public ParallelWorkPool() {
+    }
+
+    ParallelWorkPool(int threads) {
+        this.threads = threads;
+        initialize();
+    }
+
+    /**
+     * Claims and processes items until none remain; {@code caller} is true on the calling thread
+     */
+    @FunctionalInterface
+    public interface Worker<T> {
+        T run(boolean caller) throws IOException;
+    }
+
+    @PostConstruct
+    public void initialize() {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "pdf-work-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        logger.info("✅ Parallel PDF work pool initialized ({} threads)", size);
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Threads in the pool
+     */
+    public int getThreads() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Run {@code worker} on the calling thread and on up to {@code helpers} pool threads, returning
+     * once the caller's share is done and every helper that started has stopped. The results of all
+     * workers that ran come back, the caller's first; the first failure is rethrown instead.
+     */
+    public <T> List<T> invoke(int helpers, Worker<T> worker) throws IOException, InterruptedException {
+        Group group = start(helpers, worker);
+        T own;
+        try {
+            own = worker.run(true);
+        } catch (IOException | RuntimeException | Error e) {
+            group.stop(false);
+            try {
+                group.await();
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            throw e;
+        }
+        group.stop(false);
+        group.await();
+        group.rethrow();
+        List<T> results = new ArrayList<>();
+        results.add(own);
+        for (Object result : group.results) {
+            @SuppressWarnings("unchecked")
+            T helperResult = (T) result;
+            results.add(helperResult);
+        }
+        return results;
+    }
+
+    /**
+     * Run {@code worker} on up to {@code helpers} pool threads in the background while the caller
+     * goes on; the caller stops them through the returned group
+     */
+    public Group start(int helpers, Worker<?> worker) {
+        Group group = new Group(worker);
+        for (int i = 0; i < helpers; i++) {
+            Runnable task = group::runHelper;
+            group.tasks.add(task);
+            executor.execute(task);
+        }
+        return group;
+    }
+
+    // ==================== INNER CLASSES ====================
+
+    /**
+     * Helpers started for one piece of work
+     */
+    public class Group {
+        private final Worker<?> worker;
+        private final List<Runnable> tasks = new ArrayList<>();
+        private final List<Object> results = new ArrayList<>();
+        private final Set<Thread> running = new HashSet<>();
+        private Throwable failure;
+        private boolean stopped;
+
+        private Group(Worker<?> worker) {
+            this.worker = worker;
+        }
+
+        /**
+         * Keep helpers that have not started from running; with {@code interrupt}, also interrupt the running ones
+         */
+        public void stop(boolean interrupt) {
+            synchronized (this) {
+                stopped = true;
+                if (interrupt) {
+                    running.forEach(Thread::interrupt);
+                }
+            }
+            for (Runnable task : tasks) {
+                executor.remove(task);
+            }
+        }
+
+        /**
+         * Wait for running helpers to stop
+         */
+        public synchronized void await() throws InterruptedException {
+            while (!running.isEmpty()) {
+                wait();
+            }
+        }
+
+        private void runHelper() {
+            Thread thread = Thread.currentThread();
+            synchronized (this) {
+                if (stopped) {
+                    return;
+                }
+                running.add(thread);
+            }
+            Object result = null;
+            Throwable error = null;
+            try {
+                result = worker.run(false);
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                synchronized (this) {
+                    running.remove(thread);
+                    if (error != null) {
+                        if (failure == null) failure = error;
+                    } else {
+                        results.add(result);
+                    }
+                    // An interrupt meant for this work must not reach the next task of the thread
+                    Thread.interrupted();
+                    notifyAll();
+                }
+            }
+        }
+
+        private synchronized void rethrow() throws IOException {
+            if (failure instanceof IOException io) throw io;
+            if (failure instanceof RuntimeException runtime) throw runtime;
+            if (failure instanceof Error error) throw error;
+            if (failure != null) throw new IOException(failure);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.commons.io.FilenameUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ZIP archive of a multi-file result, written entry by entry as artifacts are produced.
+ *
+ * Formats that are already compressed (images, PDFs, Office documents) are STORED so they are
+ * not deflated a second time; everything else is DEFLATED. The archive can target a file or a
+ * response stream, so it never has to exist on disk to be downloaded.
+ */
+public class ResultArchive implements Closeable {
+
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+        "png", "jpg", "jpeg", "jp2", "jb2", "gif", "webp", "pdf", "zip", "docx", "xlsx", "pptx", "odt", "ods", "odp");
+
+    private final ZipOutputStream zip;
+    private final Set<String> names = new HashSet<>();
+    private final List<String> entries = new ArrayList<>();
+
+    public ResultArchive(OutputStream out) {
+        this.zip = new ZipOutputStream(new BufferedOutputStream(out, 64 * 1024));
+    }
+
+    /**
+     * Add an artifact held in memory; returns the entry name, made unique if already used
+     */
+    public String add(String name, byte[] data) throws IOException {
+        ZipEntry entry = new ZipEntry(uniqueName(name));
+        if (isCompressed(name)) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            stored(entry, data.length, crc.getValue());
+        }
+        zip.putNextEntry(entry);
+        zip.write(data);
+        zip.closeEntry();
+        return track(entry);
+    }
+
+    /**
+     * Add an artifact from a file, streamed rather than loaded
+     */
+    public String add(String name, Path file) throws IOException {
+        ZipEntry entry = new ZipEntry(uniqueName(name));
+        entry.setLastModifiedTime(Files.getLastModifiedTime(file));
+        if (isCompressed(name)) {
+            stored(entry, Files.size(file), crc(file));
+        }
+        zip.putNextEntry(entry);
+        Files.copy(file, zip);
+        zip.closeEntry();
+        return track(entry);
+    }
+
+    /**
+     * Entry names in the order they were added
+     */
+    public List<String> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    public static boolean isCompressed(String name) {
+        return COMPRESSED_EXTENSIONS.contains(FilenameUtils.getExtension(name).toLowerCase());
+    }
+
+    private static void stored(ZipEntry entry, long size, long crc) {
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc);
+    }
+
+    // STORED entries carry their CRC in the local header, so it is taken before the data is written
+    private static long crc(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+        }
+        return crc.getValue();
+    }
+
+    private String uniqueName(String name) {
+        String candidate = name;
+        for (int i = 2; names.contains(candidate); i++) {
+            candidate = FilenameUtils.getBaseName(name) + "_" + i
+                + (FilenameUtils.getExtension(name).isEmpty() ? "" : "." + FilenameUtils.getExtension(name));
+        }
+        return candidate;
+    }
+
+    private String track(ZipEntry entry) {
+        names.add(entry.getName());
+        entries.add(entry.getName());
+        return entry.getName();
+    }
+}
@@ -0,0 +1,97 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * MultipartFile backed by a file already spooled to temp storage.
+ * Lets queued jobs keep reading an upload after the originating request has completed.
+ */
+public class SpooledMultipartFile implements MultipartFile {
+
+    private final Path path;
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final long size;
+    private final String sha256;
+
+    public SpooledMultipartFile(Path path, String name, String originalFilename, String contentType, long size) {
+        this(path, name, originalFilename, contentType, size, null);
+    }
+
+    public SpooledMultipartFile(Path path, String name, String originalFilename, String contentType, long size,
+                                String sha256) {
+        this.path = path;
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.size = size;
+        this.sha256 = sha256;
+    }
+
+    /**
+     * Location of the spooled content
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * SHA-256 of the content recorded while spooling, or null if unknown
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        Files.copy(path, dest, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -1,19 +1,30 @@
 package com.chnindia.eighteenpluspdf.worker;
 
 import com.chnindia.eighteenpluspdf.exception.ExternalToolException;
+import com.chnindia.eighteenpluspdf.exception.JobCancelledException;
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
 import com.chnindia.eighteenpluspdf.model.JobStatus;
 import com.chnindia.eighteenpluspdf.service.JobQueueService;
 import com.chnindia.eighteenpluspdf.service.DigitalSignatureService;
 import com.chnindia.eighteenpluspdf.service.MetadataSanitizationService;
+import com.chnindia.eighteenpluspdf.service.LinearizationService;
+import com.chnindia.eighteenpluspdf.util.CancellationToken;
+import com.chnindia.eighteenpluspdf.util.DocumentSession;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
+import com.chnindia.eighteenpluspdf.util.FontSubsetter;
+import com.chnindia.eighteenpluspdf.util.ImageRecompressor;
+import com.chnindia.eighteenpluspdf.util.ObjectDeduplicator;
 import com.chnindia.eighteenpluspdf.util.PDFUtil;
+import com.chnindia.eighteenpluspdf.util.PageRenderStream;
+import com.chnindia.eighteenpluspdf.util.ParallelSplitter;
+import com.chnindia.eighteenpluspdf.util.ParallelTextExtractor;
+import com.chnindia.eighteenpluspdf.util.ResultArchive;
+import com.chnindia.eighteenpluspdf.util.SpooledMultipartFile;
 import de.redsix.pdfcompare.PdfComparator;
 import de.redsix.pdfcompare.CompareResult;
 import net.sourceforge.tess4j.ITesseract;
 import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
-import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
@@ -30,7 +41,6 @@ import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
 import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
 import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
 import org.apache.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
-import org.imgscalr.Scalr;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,6 +55,7 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -70,6 +81,12 @@ public class PDFWorker {
     @Autowired
     private MetadataSanitizationService metadataSanitizationService;
     
+    @Autowired
+    private LinearizationService linearizationService;
+    
+    // Cancellation token of the job running on the current thread
+    private final ThreadLocal<CancellationToken> currentToken = ThreadLocal.withInitial(() -> CancellationToken.NONE);
+    
     @Value("${app.external-tools.tesseract-path:tesseract}")
     private String tesseractPath;
     
@@ -104,7 +121,18 @@ public class PDFWorker {
      * Main processing method with progress tracking
      */
     public Map<String, Object> process(String toolName, Path inputFile, Map<String, Object> parameters, JobStatus jobStatus) {
+        return process(toolName, inputFile, parameters, jobStatus, CancellationToken.NONE);
+    }
+    
+    /**
+     * Process with a cancellation token checked between pages and stages
+     */
+    public Map<String, Object> process(String toolName, Path inputFile, Map<String, Object> parameters,
+                                       JobStatus jobStatus, CancellationToken token) {
+        currentToken.set(token);
+        pdfUtil.beginJobScope(jobStatus.getId());
         try {
+            configureSave(toolName, parameters);
             logger.info("Starting processing for tool: {} on file: {}", toolName, inputFile);
             
             // Update progress
@@ -143,7 +171,7 @@ public class PDFWorker {
                     result = handleExtractText(inputFile, jobStatus);
                     break;
                 case "extract-images":
-                    result = handleExtractImages(inputFile, jobStatus);
+                    result = handleExtractImages(inputFile, parameters, jobStatus);
                     break;
                 case "extract-metadata":
                     result = handleExtractMetadata(inputFile, jobStatus);
@@ -306,14 +334,59 @@ public class PDFWorker {
                     throw new PDFProcessingException("UNKNOWN_TOOL", "Unknown tool: " + toolName);
             }
             
+            token.throwIfCancelled();
             jobQueueService.updateProgress(jobStatus.getId(), 100, "Completed");
             return result;
             
+        } catch (JobCancelledException e) {
+            throw e;
         } catch (Exception e) {
+            // Failures caused by a cancellation (e.g. a killed external process) report the cancellation
+            token.throwIfCancelled();
             logger.error("Processing failed for tool {}: {}", toolName, e.getMessage(), e);
-            throw new PDFProcessingException("PROCESSING_ERROR", 
-                "Failed to process with tool " + toolName + ": " + e.getMessage(), 
-                e.getClass().getSimpleName());
+            String message = "Failed to process with tool " + toolName + ": " + e.getMessage();
+            // Keep the original error code so the job queue can tell transient failures from bad input
+            if (e instanceof PDFProcessingException pe) {
+                throw new PDFProcessingException(pe.getErrorCode(), message, pe.getDetails());
+            }
+            if (e instanceof ExternalToolException ee) {
+                throw new ExternalToolException(ee.getErrorCode(), message, ee.getDetails());
+            }
+            throw new PDFProcessingException("PROCESSING_ERROR", message, e.getClass().getSimpleName());
+        } finally {
+            currentToken.remove();
+            pdfUtil.endJobScope();
+        }
+    }
+    
+    /**
+     * Object streams and a cross-reference stream for every save of this job. Compress and optimize
+     * use them unless {@code objectStreams=false}; other tools follow the configured default.
+     */
+    private void configureSave(String toolName, Map<String, Object> parameters) {
+        Boolean objectStreams = (Boolean) parameters.get("objectStreams");
+        Integer objectStreamSize = (Integer) parameters.get("objectStreamSize");
+        String tool = toolName.toLowerCase();
+        if (objectStreams == null && (tool.equals("compress") || tool.equals("optimize"))) {
+            objectStreams = true;
+        }
+        pdfUtil.configureSave(objectStreams, objectStreamSize);
+    }
+    
+    /**
+     * Cancellation checkpoint for per-page loops
+     */
+    private void checkCancelled() {
+        currentToken.get().throwIfCancelled();
+    }
+    
+    // Progress between two percentages for page-by-page work, reported only when the percentage moves
+    private void updatePageProgress(JobStatus jobStatus, int from, int to, int done, int total, String operation) {
+        if (total <= 0) return;
+        int previous = from + (to - from) * (done - 1) / total;
+        int current = from + (to - from) * done / total;
+        if (current != previous) {
+            jobQueueService.updateProgress(jobStatus.getId(), current, operation);
         }
     }
     
@@ -337,18 +410,100 @@ public class PDFWorker {
     
     private Path createOutputFile(String baseName, String extension) {
         try {
-            return fileUtil.createOutputFile(baseName, extension);
+            Path outputFile = fileUtil.createOutputFile(baseName, extension);
+            // Partial output is deleted if the job is cancelled
+            currentToken.get().registerTempPath(outputFile);
+            return outputFile;
         } catch (IOException e) {
             throw new PDFProcessingException("OUTPUT_ERROR", "Cannot create output file: " + e.getMessage());
         }
     }
     
-    private Path createTempDir() {
-        try {
-            return fileUtil.createTempDirectory();
-        } catch (IOException e) {
-            throw new PDFProcessingException("TEMP_DIR_ERROR", "Cannot create temp directory: " + e.getMessage());
+    // Size hint for a document built from uploaded images
+    private static long imageBytes(List<?> images) {
+        long total = 0;
+        for (Object image : images) {
+            if (image instanceof MultipartFile file) {
+                total += file.getSize();
+            }
+        }
+        return total;
+    }
+    
+    // Size hint for a document embedding rendered page images, assuming Letter-sized pages
+    private static long rasterBytes(int pages, int dpi) {
+        return (long) pages * (long) (8.5 * dpi) * (long) (11 * dpi) * 3;
+    }
+    
+    // Multi-file results are packaged into one ZIP unless the job asks for loose files
+    private static boolean packageAsZip(Map<String, Object> parameters) {
+        return !"none".equalsIgnoreCase((String) parameters.get("packaging"));
+    }
+    
+    private static ResultArchive openArchive(Path archivePath) throws IOException {
+        return archivePath != null ? new ResultArchive(Files.newOutputStream(archivePath)) : null;
+    }
+    
+    /**
+     * Add an image to the archive, or write it as its own output file without one; returns its name
+     */
+    private String writeImage(ResultArchive archive, BufferedImage image, String fileName, String format) throws IOException {
+        if (archive != null) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            ImageIO.write(image, format.toUpperCase(), buffer);
+            return archive.add(fileName, buffer.toByteArray());
         }
+        Path imagePath = createOutputFile(fileUtil.getBaseFilename(fileName), format);
+        ImageIO.write(image, format.toUpperCase(), imagePath.toFile());
+        return imagePath.getFileName().toString();
+    }
+    
+    /**
+     * Add encoded bytes to the archive, or write them as their own output file without one; returns the name
+     */
+    private String writeFile(ResultArchive archive, byte[] data, String baseName, String extension) throws IOException {
+        if (archive != null) {
+            return archive.add(baseName + "." + extension, data);
+        }
+        Path path = createOutputFile(baseName, extension);
+        Files.write(path, data);
+        return path.getFileName().toString();
+    }
+    
+    /**
+     * Where a split part goes: an entry name in the result archive, or an output file of its own
+     */
+    private Path partTarget(Map<String, Object> parameters, String baseName) {
+        return packageAsZip(parameters) ? Path.of(baseName + ".pdf").getFileName() : createOutputFile(baseName, "pdf");
+    }
+    
+    /**
+     * Write split parts straight into one ZIP, or as separate output files for loose results
+     */
+    private Map<String, Object> writeParts(Path inputFile, Map<String, Object> parameters, List<ParallelSplitter.Part> parts,
+                                           String archiveName) throws IOException {
+        Path archivePath = packageAsZip(parameters) ? createOutputFile(archiveName, "zip") : null;
+        try (ResultArchive archive = openArchive(archivePath)) {
+            pdfUtil.writeParts(inputFile, parts, archive, currentToken.get());
+        }
+        List<String> files = parts.stream().map(part -> part.target().getFileName().toString()).toList();
+        Map<String, Object> result = packagedResult(archivePath, files, archiveName);
+        result.put("resultFiles", files);
+        return result;
+    }
+    
+    /**
+     * Download links of a multi-file result: the packaged ZIP, or a ZIP streamed on request from the loose files
+     */
+    private Map<String, Object> packagedResult(Path archivePath, List<String> files, String archiveName) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (archivePath != null) {
+            result.put("resultUrl", fileUtil.getDownloadUrl(archivePath.getFileName().toString()));
+            result.put("archiveFile", archivePath.getFileName().toString());
+        } else {
+            result.put("archiveUrl", fileUtil.getArchiveUrl(files, archiveName + ".zip"));
+        }
+        return result;
     }
     
     // ==================== PDF MANIPULATION HANDLERS ====================
@@ -371,6 +526,10 @@ public class PDFWorker {
         Boolean removeDuplicates = (Boolean) parameters.get("removeDuplicates");
         if (removeDuplicates == null) removeDuplicates = false;
         
+        // Sources made from one template carry identical fonts, logos and profiles; keep one copy of each
+        Boolean deduplicateObjects = (Boolean) parameters.get("deduplicateObjects");
+        if (deduplicateObjects == null) deduplicateObjects = true;
+        
         // Interleave mode - alternates pages from each document (useful for duplex scanning)
         String mergeMode = (String) parameters.get("mergeMode");
         if (mergeMode == null) mergeMode = "sequential"; // sequential, interleave, interleave-reverse
@@ -380,11 +539,17 @@ public class PDFWorker {
         paths.add(inputFile);
         fileNames.add(getCleanFileName(inputFile.getFileName().toString()));
         
+        // Copies made for uploads that were not spooled by the job queue
+        List<Path> tempCopies = new ArrayList<>();
+        
         try {
             for (Object file : files) {
                 if (file instanceof MultipartFile multipartFile) {
-                    Path tempFile = fileUtil.saveTempFile(multipartFile);
-                    paths.add(tempFile);
+                    Path localFile = fileUtil.toLocalPath(multipartFile);
+                    if (!(multipartFile instanceof SpooledMultipartFile)) {
+                        tempCopies.add(localFile);
+                    }
+                    paths.add(localFile);
                     fileNames.add(getCleanFileName(multipartFile.getOriginalFilename()));
                 }
             }
@@ -398,28 +563,22 @@ public class PDFWorker {
             
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Combining documents");
             
-            // Handle different merge modes
+            // Handle different merge modes; duplicates are merged in memory before the single save
+            MergeResult merged;
             if ("interleave".equals(mergeMode) || "interleave-reverse".equals(mergeMode)) {
-                mergeInterleaved(paths, outputPath, "interleave-reverse".equals(mergeMode));
+                merged = mergeInterleaved(paths, outputPath, "interleave-reverse".equals(mergeMode), deduplicateObjects);
             } else if (createBookmarks) {
-                mergeWithBookmarks(paths, fileNames, outputPath, metadataSource);
+                merged = mergeWithBookmarks(paths, fileNames, outputPath, metadataSource, deduplicateObjects);
             } else {
-                PDFMergerUtility merger = new PDFMergerUtility();
-                merger.setDestinationFileName(outputPath.toString());
-                
-                for (Path path : paths) {
-                    merger.addSource(path.toFile());
-                }
-                
-                merger.mergeDocuments(org.apache.pdfbox.io.IOUtils.createMemoryOnlyStreamCache());
+                merged = mergeAppended(paths, outputPath, deduplicateObjects);
             }
+            int pageCount = merged.pageCount();
+            ObjectDeduplicator.Result duplicates = merged.duplicates();
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
             
-            // Cleanup temp files (except original)
-            paths.stream().skip(1).forEach(fileUtil::cleanupTempFile);
-            
-            int pageCount = pdfUtil.getPageCount(outputPath);
+            // Cleanup temp copies; spooled uploads are removed with the job
+            tempCopies.forEach(fileUtil::cleanupTempFile);
             
             return Map.of(
                 "resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()),
@@ -427,7 +586,9 @@ public class PDFWorker {
                 "fileSize", fileUtil.getHumanReadableSize(outputPath),
                 "filesMerged", paths.size(),
                 "bookmarksCreated", createBookmarks,
-                "metadataSource", metadataSource
+                "metadataSource", metadataSource,
+                "duplicateObjectsRemoved", duplicates.objectsRemoved(),
+                "duplicateBytesSaved", duplicates.bytesSaved()
             );
             
         } catch (IOException e) {
@@ -435,8 +596,48 @@ public class PDFWorker {
         }
     }
     
-    private void mergeWithBookmarks(List<Path> paths, List<String> fileNames, Path outputPath, String metadataSource) throws IOException {
-        try (PDDocument mergedDoc = new PDDocument()) {
+    /**
+     * Page count of a saved merge and the duplicate objects merged before it was saved
+     */
+    private record MergeResult(int pageCount, ObjectDeduplicator.Result duplicates) {}
+    
+    /**
+     * Save a merged document once, merging its duplicate objects first if asked
+     */
+    private MergeResult saveMerged(PDDocument mergedDoc, Path outputPath, boolean deduplicate) throws IOException {
+        ObjectDeduplicator.Result duplicates = deduplicate
+            ? pdfUtil.deduplicateObjects(mergedDoc, currentToken.get())
+            : new ObjectDeduplicator.Result(0, 0);
+        pdfUtil.save(mergedDoc, outputPath);
+        return new MergeResult(mergedDoc.getNumberOfPages(), duplicates);
+    }
+    
+    /**
+     * Append whole documents, keeping their forms, outlines and structure trees
+     */
+    private MergeResult mergeAppended(List<Path> paths, Path outputPath, boolean deduplicate) throws IOException {
+        PDFMergerUtility merger = new PDFMergerUtility();
+        // Appended pages share resources with their sources, so those stay open until the save
+        List<PDDocument> sourceDocs = new ArrayList<>();
+        try (PDDocument mergedDoc = pdfUtil.createDocument(pdfUtil.totalSize(paths))) {
+            for (Path path : paths) {
+                PDDocument sourceDoc = pdfUtil.loadDocument(path);
+                sourceDocs.add(sourceDoc);
+                merger.appendDocument(mergedDoc, sourceDoc);
+            }
+            return saveMerged(mergedDoc, outputPath, deduplicate);
+        } finally {
+            for (PDDocument doc : sourceDocs) {
+                doc.close();
+            }
+        }
+    }
+    
+    private MergeResult mergeWithBookmarks(List<Path> paths, List<String> fileNames, Path outputPath, String metadataSource,
+                                           boolean deduplicate) throws IOException {
+        // Imported pages share resources with their sources, so those stay open until the save
+        List<PDDocument> sourceDocs = new ArrayList<>();
+        try (PDDocument mergedDoc = pdfUtil.createDocument(pdfUtil.totalSize(paths))) {
             org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline outline = 
                 new org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline();
             mergedDoc.getDocumentCatalog().setDocumentOutline(outline);
@@ -446,32 +647,33 @@ public class PDFWorker {
             org.apache.pdfbox.pdmodel.PDDocumentInformation lastInfo = null;
             
             for (int i = 0; i < paths.size(); i++) {
-                try (PDDocument sourceDoc = Loader.loadPDF(paths.get(i).toFile())) {
-                    // Store metadata from first and last
-                    if (i == 0) firstInfo = sourceDoc.getDocumentInformation();
-                    lastInfo = sourceDoc.getDocumentInformation();
-                    
-                    // Create bookmark for this file
-                    org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem bookmark = 
-                        new org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem();
-                    bookmark.setTitle(fileNames.get(i));
+                PDDocument sourceDoc = pdfUtil.loadDocument(paths.get(i));
+                sourceDocs.add(sourceDoc);
+                
+                // Store metadata from first and last
+                if (i == 0) firstInfo = sourceDoc.getDocumentInformation();
+                lastInfo = sourceDoc.getDocumentInformation();
+                
+                // Create bookmark for this file
+                org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem bookmark = 
+                    new org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem();
+                bookmark.setTitle(fileNames.get(i));
+                
+                // Add pages and set bookmark destination
+                for (int p = 0; p < sourceDoc.getNumberOfPages(); p++) {
+                    PDPage page = sourceDoc.getPage(p);
+                    PDPage importedPage = mergedDoc.importPage(page);
                     
-                    // Add pages and set bookmark destination
-                    for (int p = 0; p < sourceDoc.getNumberOfPages(); p++) {
-                        PDPage page = sourceDoc.getPage(p);
-                        PDPage importedPage = mergedDoc.importPage(page);
-                        
-                        if (p == 0) {
-                            org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination dest = 
-                                new org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination();
-                            dest.setPage(importedPage);
-                            bookmark.setDestination(dest);
-                        }
+                    if (p == 0) {
+                        org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination dest = 
+                            new org.apache.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination();
+                        dest.setPage(importedPage);
+                        bookmark.setDestination(dest);
                     }
-                    
-                    outline.addLast(bookmark);
-                    pageOffset += sourceDoc.getNumberOfPages();
                 }
+                
+                outline.addLast(bookmark);
+                pageOffset += sourceDoc.getNumberOfPages();
             }
             
             // Apply metadata based on source preference
@@ -498,7 +700,11 @@ public class PDFWorker {
                     break;
             }
             
-            mergedDoc.save(outputPath.toFile());
+            return saveMerged(mergedDoc, outputPath, deduplicate);
+        } finally {
+            for (PDDocument doc : sourceDocs) {
+                doc.close();
+            }
         }
     }
     
@@ -508,19 +714,22 @@ public class PDFWorker {
      * @param paths List of PDF files to merge
      * @param outputPath Output file path
      * @param reverseSecond If true, reverses pages of second document (for back-to-front scanning)
+     * @param deduplicate If true, merges duplicate objects before the save
+     * @return Number of pages in the merged document and the duplicates removed
      */
-    private void mergeInterleaved(List<Path> paths, Path outputPath, boolean reverseSecond) throws IOException {
+    private MergeResult mergeInterleaved(List<Path> paths, Path outputPath, boolean reverseSecond,
+                                         boolean deduplicate) throws IOException {
         if (paths.size() < 2) {
             throw new PDFProcessingException("INTERLEAVE_ERROR", "Interleave merge requires at least 2 files");
         }
         
-        try (PDDocument mergedDoc = new PDDocument()) {
+        try (PDDocument mergedDoc = pdfUtil.createDocument(pdfUtil.totalSize(paths))) {
             List<PDDocument> sourceDocs = new ArrayList<>();
             List<List<PDPage>> pageCollections = new ArrayList<>();
             
             // Load all documents and collect pages
             for (Path path : paths) {
-                PDDocument doc = Loader.loadPDF(path.toFile());
+                PDDocument doc = pdfUtil.loadDocument(path);
                 sourceDocs.add(doc);
                 
                 List<PDPage> pages = new ArrayList<>();
@@ -548,12 +757,13 @@ public class PDFWorker {
                 }
             }
             
-            mergedDoc.save(outputPath.toFile());
+            MergeResult merged = saveMerged(mergedDoc, outputPath, deduplicate);
             
             // Close source documents
             for (PDDocument doc : sourceDocs) {
                 doc.close();
             }
+            return merged;
         }
     }
     
@@ -580,31 +790,19 @@ public class PDFWorker {
         }
         
         try {
-            Path tempDir = createTempDir();
-            
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Creating split files");
             
-            List<Path> outputFiles = pdfUtil.splitPDF(inputFile, tempDir, outputPrefix, 
-                pagesPerFile != null ? pagesPerFile : 1, pageRanges);
-            
-            jobQueueService.updateProgress(jobStatus.getId(), 90, "Moving files to output");
+            // Parts are planned in one pass and written concurrently straight to the output directory
+            String prefix = outputPrefix;
+            List<ParallelSplitter.Part> parts = pdfUtil.planSplit(inputFile, pagesPerFile != null ? pagesPerFile : 1,
+                pageRanges, part -> partTarget(parameters, prefix + "_" + prefix + "_part" + part));
+            Map<String, Object> result = writeParts(inputFile, parameters, parts, prefix);
             
-            // Move to output directory
-            List<String> resultFiles = new ArrayList<>();
-            for (Path file : outputFiles) {
-                Path target = createOutputFile(outputPrefix + "_" + file.getFileName().toString().replace(".pdf", ""), "pdf");
-                Files.move(file, target);
-                resultFiles.add(target.getFileName().toString());
-            }
-            
-            // Cleanup temp dir
-            fileUtil.cleanupTempDirectory(tempDir);
+            jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
             
-            return Map.of(
-                "resultFiles", resultFiles,
-                "totalFiles", outputFiles.size(),
-                "outputPrefix", outputPrefix
-            );
+            result.put("totalFiles", parts.size());
+            result.put("outputPrefix", outputPrefix);
+            return result;
             
         } catch (IOException e) {
             throw new PDFProcessingException("SPLIT_ERROR", "Failed to split PDF: " + e.getMessage());
@@ -672,13 +870,16 @@ public class PDFWorker {
             Path outputPath = createOutputFile(outputName, "pdf");
             long originalSize = Files.size(inputFile);
             int imagesProcessed = 0;
+            long imageBytesSaved = 0;
+            int objectsRemoved = 0;
+            long duplicateBytesSaved = 0;
+            int fontsSubset = 0;
+            long fontBytesSaved = 0;
             
             jobQueueService.updateProgress(jobStatus.getId(), 30, "Optimizing document structure");
             
             try (PDDocument document = pdfUtil.loadPDF(inputFile)) {
                 int totalPages = document.getNumberOfPages();
-                int fontsSubset = 0;
-                int objectsRemoved = 0;
                 
                 // Remove metadata if requested
                 if (settings.removeMetadata) {
@@ -691,34 +892,34 @@ public class PDFWorker {
                     removePrivateApplicationData(document);
                 }
                 
-                // Process each page for image optimization
-                if (settings.optimizeImages) {
-                    jobQueueService.updateProgress(jobStatus.getId(), 40, "Optimizing images");
-                    
-                    for (int i = 0; i < totalPages; i++) {
-                        PDPage page = document.getPage(i);
-                        int processed = optimizePageImages(document, page, settings);
-                        imagesProcessed += processed;
-                        
-                        if (totalPages > 10 && i % (totalPages / 10) == 0) {
-                            int progress = 40 + (int)(((double)i / totalPages) * 30);
-                            jobQueueService.updateProgress(jobStatus.getId(), progress, 
-                                "Optimizing page " + (i + 1) + " of " + totalPages);
-                        }
-                    }
+                // Cut embedded fonts down to the glyphs in use. Done while object keys still match
+                // the source file, which the parallel glyph walk reads
+                if (settings.subsetFonts) {
+                    jobQueueService.updateProgress(jobStatus.getId(), 32, "Subsetting fonts");
+                    FontSubsetter.Result fonts = pdfUtil.subsetFonts(inputFile, document, currentToken.get());
+                    fontsSubset = fonts.fontsSubset();
+                    fontBytesSaved = fonts.bytesSaved();
                 }
                 
-                // Remove unused objects
+                // Merge duplicate objects; unreferenced ones are dropped when saving.
+                // Done before images so copies of an image are re-encoded once
                 if (settings.removeUnusedObjects) {
-                    jobQueueService.updateProgress(jobStatus.getId(), 75, "Removing unused objects");
-                    // PDFBox automatically removes unreferenced objects when saving
-                    objectsRemoved = cleanUnusedObjects(document);
+                    jobQueueService.updateProgress(jobStatus.getId(), 35, "Removing duplicate objects");
+                    ObjectDeduplicator.Result duplicates = pdfUtil.deduplicateObjects(document, currentToken.get());
+                    objectsRemoved = duplicates.objectsRemoved();
+                    duplicateBytesSaved = duplicates.bytesSaved();
                 }
                 
-                // Font subsetting
-                if (settings.subsetFonts) {
-                    jobQueueService.updateProgress(jobStatus.getId(), 80, "Subsetting fonts");
-                    fontsSubset = subsetFonts(document);
+                // Downsample and re-encode images, each distinct image once
+                if (settings.optimizeImages) {
+                    jobQueueService.updateProgress(jobStatus.getId(), 40, "Optimizing images");
+                    ImageRecompressor.Options imageOptions = new ImageRecompressor.Options(settings.imageCompression,
+                        (float) settings.imageQuality, settings.downsampleImages ? settings.maxDpi : 0,
+                        settings.grayscaleImages, settings.convertCmykToRgb);
+                    ImageRecompressor.Result images = pdfUtil.recompressImages(inputFile, document, imageOptions,
+                        currentToken.get());
+                    imagesProcessed = images.imagesReplaced();
+                    imageBytesSaved = images.bytesSaved();
                 }
                 
                 // Remove thumbnails
@@ -733,13 +934,14 @@ public class PDFWorker {
                 jobQueueService.updateProgress(jobStatus.getId(), 85, "Saving optimized document");
                 
                 // Save with compression
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
             }
             
             // Post-processing: linearize if requested
+            boolean linearized = false;
             if (settings.linearize) {
                 jobQueueService.updateProgress(jobStatus.getId(), 90, "Linearizing for web");
-                linearizeDocument(outputPath);
+                linearized = linearizeDocument(outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 95, "Finalizing");
@@ -766,7 +968,14 @@ public class PDFWorker {
             details.put("imageCompression", settings.imageCompression);
             details.put("metadataRemoved", settings.removeMetadata);
             details.put("imagesOptimized", imagesProcessed);
-            details.put("linearized", settings.linearize);
+            details.put("imageBytesSaved", imageBytesSaved);
+            details.put("duplicateObjectsRemoved", objectsRemoved);
+            details.put("duplicateBytesSaved", duplicateBytesSaved);
+            details.put("fontsSubset", fontsSubset);
+            details.put("fontBytesSaved", fontBytesSaved);
+            details.put("linearized", linearized);
+            // Linearized files keep a classic cross-reference table
+            details.put("objectStreams", pdfUtil.compressParameters().isCompress() && !linearized);
             result.put("compressionDetails", details);
             
             // Quality assessment
@@ -916,71 +1125,6 @@ public class PDFWorker {
         return settings;
     }
     
-    /**
-     * Optimize images on a page
-     */
-    private int optimizePageImages(PDDocument document, PDPage page, CompressionSettings settings) {
-        int processed = 0;
-        try {
-            if (page.getResources() == null) return 0;
-            
-            Iterable<org.apache.pdfbox.cos.COSName> xObjectNames = page.getResources().getXObjectNames();
-            if (xObjectNames == null) return 0;
-            
-            for (org.apache.pdfbox.cos.COSName name : xObjectNames) {
-                try {
-                    org.apache.pdfbox.pdmodel.graphics.PDXObject xObject = page.getResources().getXObject(name);
-                    if (xObject instanceof PDImageXObject) {
-                        PDImageXObject image = (PDImageXObject) xObject;
-                        
-                        // Get image dimensions
-                        int width = image.getWidth();
-                        int height = image.getHeight();
-                        
-                        // Calculate if downsampling needed
-                        if (settings.downsampleImages && settings.maxDpi > 0) {
-                            // Estimate current DPI based on image placement
-                            int targetWidth = (int) (width * settings.imageQuality);
-                            int targetHeight = (int) (height * settings.imageQuality);
-                            
-                            if (targetWidth > 0 && targetHeight > 0 && 
-                                (targetWidth < width || targetHeight < height)) {
-                                // Downsample image
-                                BufferedImage bufferedImage = image.getImage();
-                                BufferedImage scaled = Scalr.resize(bufferedImage, 
-                                    Scalr.Method.QUALITY, 
-                                    Scalr.Mode.AUTOMATIC,
-                                    targetWidth, targetHeight);
-                                
-                                // Convert to grayscale if requested
-                                if (settings.grayscaleImages) {
-                                    BufferedImage grayscale = new BufferedImage(
-                                        scaled.getWidth(), scaled.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-                                    Graphics g = grayscale.getGraphics();
-                                    g.drawImage(scaled, 0, 0, null);
-                                    g.dispose();
-                                    scaled = grayscale;
-                                }
-                                
-                                // Create optimized image
-                                PDImageXObject optimized = LosslessFactory.createFromImage(document, scaled);
-                                
-                                // Replace in resources (this is simplified - actual implementation 
-                                // would need to update content streams)
-                                processed++;
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    logger.debug("Could not optimize image {}: {}", name, e.getMessage());
-                }
-            }
-        } catch (Exception e) {
-            logger.debug("Error optimizing page images: {}", e.getMessage());
-        }
-        return processed;
-    }
-    
     /**
      * Remove private application data from document
      */
@@ -1005,31 +1149,11 @@ public class PDFWorker {
     }
     
     /**
-     * Clean unused objects from document
-     */
-    private int cleanUnusedObjects(PDDocument document) {
-        // PDFBox handles this automatically during save
-        // This method is a placeholder for additional cleanup
-        return 0;
-    }
-    
-    /**
-     * Subset fonts in document (keep only used glyphs)
-     */
-    private int subsetFonts(PDDocument document) {
-        // Font subsetting is complex and requires analyzing which glyphs are used
-        // PDFBox handles some of this automatically
-        // Full implementation would require walking through all content streams
-        return 0;
-    }
-    
-    /**
-     * Linearize document for fast web viewing
+     * Linearize document in place for fast web viewing, returning whether the result checks out
      */
-    private void linearizeDocument(Path outputPath) {
-        // Linearization rearranges PDF for progressive download
-        // Full implementation would require rewriting PDF structure
-        // For now, this is a placeholder
+    private boolean linearizeDocument(Path outputPath) throws IOException {
+        return pdfUtil.linearize(outputPath, outputPath, currentToken.get())
+            && linearizationService.checkLinearization(outputPath).isLinearized();
     }
     
     /**
@@ -1225,18 +1349,16 @@ public class PDFWorker {
         jobQueueService.updateProgress(jobStatus.getId(), 25, "Extracting text");
         
         try {
-            String text = pdfUtil.extractText(inputFile);
-            
-            jobQueueService.updateProgress(jobStatus.getId(), 90, "Creating text file");
-            
             String outputName = "extracted_text_" + System.currentTimeMillis();
             Path outputPath = createOutputFile(outputName, "txt");
             
-            Files.write(outputPath, text.getBytes());
+            ParallelTextExtractor.Result extraction = extractTextToFile(inputFile, "all", outputPath);
+            
+            jobQueueService.updateProgress(jobStatus.getId(), 90, "Creating text file");
             
             return Map.of(
                 "resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()),
-                "textLength", text.length(),
+                "textLength", extraction.length(),
                 "pageCount", pdfUtil.getPageCount(inputFile)
             );
             
@@ -1245,34 +1367,42 @@ public class PDFWorker {
         }
     }
     
-    private Map<String, Object> handleExtractImages(Path inputFile, JobStatus jobStatus) {
+    /**
+     * Stream the text of a page range straight into a file, page by page
+     */
+    private ParallelTextExtractor.Result extractTextToFile(Path inputFile, String pageRange, Path outputPath) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(outputPath)) {
+            return pdfUtil.extractText(inputFile, pageRange, (page, text) -> writer.write(text), currentToken.get());
+        }
+    }
+    
+    private Map<String, Object> handleExtractImages(Path inputFile, Map<String, Object> parameters, JobStatus jobStatus) {
         jobQueueService.updateProgress(jobStatus.getId(), 25, "Extracting images");
         
         try {
-            List<BufferedImage> images = pdfUtil.extractImages(inputFile);
-            
-            jobQueueService.updateProgress(jobStatus.getId(), 60, "Saving images");
-            
+            // Original encoded streams by default; "png" decodes and re-encodes every image
+            boolean passthrough = !"png".equalsIgnoreCase((String) parameters.get("imageFormat"));
+            Path archivePath = packageAsZip(parameters) ? createOutputFile("extracted_images", "zip") : null;
             List<String> imageFiles = new ArrayList<>();
-            Path tempDir = createTempDir();
+            int[] passedThrough = {0};
             
-            for (int i = 0; i < images.size(); i++) {
-                String fileName = "image_" + (i + 1) + ".png";
-                Path imagePath = tempDir.resolve(fileName);
-                ImageIO.write(images.get(i), "PNG", imagePath.toFile());
-                imageFiles.add(fileName);
+            try (ResultArchive archive = openArchive(archivePath)) {
+                pdfUtil.extractImages(inputFile, passthrough, image -> {
+                    if (image.passthrough()) {
+                        passedThrough[0]++;
+                    }
+                    imageFiles.add(writeFile(archive, image.data(), "image_" + (imageFiles.size() + 1), image.extension()));
+                }, currentToken.get());
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Packaging results");
             
-            // For now, return list of image names
-            // In production, you'd create a zip file
-            
-            return Map.of(
-                "imageCount", images.size(),
-                "imageFiles", imageFiles,
-                "extracted", true
-            );
+            Map<String, Object> result = packagedResult(archivePath, imageFiles, "extracted_images");
+            result.put("imageCount", imageFiles.size());
+            result.put("imageFiles", imageFiles);
+            result.put("passthroughCount", passedThrough[0]);
+            result.put("extracted", true);
+            return result;
             
         } catch (IOException e) {
             throw new PDFProcessingException("EXTRACT_IMAGES_ERROR", "Failed to extract images: " + e.getMessage());
@@ -1474,28 +1604,29 @@ public class PDFWorker {
         try {
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Rendering pages");
             
-            List<BufferedImage> images = pdfUtil.renderPages(inputFile, dpi, pageRange);
-            
-            jobQueueService.updateProgress(jobStatus.getId(), 75, "Saving images");
-            
-            Path tempDir = createTempDir();
+            Path archivePath = packageAsZip(parameters) ? createOutputFile(outputPrefix, "zip") : null;
             List<String> imageFiles = new ArrayList<>();
             
-            for (int i = 0; i < images.size(); i++) {
-                String fileName = outputPrefix + "_" + (i + 1) + "." + imageFormat;
-                Path imagePath = tempDir.resolve(fileName);
-                ImageIO.write(images.get(i), imageFormat.toUpperCase(), imagePath.toFile());
-                imageFiles.add(fileName);
+            // Each page is packaged as soon as it is rendered
+            try (ResultArchive archive = openArchive(archivePath);
+                 PageRenderStream pages = pdfUtil.streamPages(inputFile, dpi, pageRange, currentToken.get())) {
+                while (pages.hasNext()) {
+                    checkCancelled();
+                    PageRenderStream.Page page = pages.next();
+                    String fileName = outputPrefix + "_" + (imageFiles.size() + 1) + "." + imageFormat;
+                    imageFiles.add(writeImage(archive, page.image(), fileName, imageFormat));
+                    updatePageProgress(jobStatus, 50, 90, imageFiles.size(), pages.size(), "Rendering pages");
+                }
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Packaging");
             
-            return Map.of(
-                "imageCount", images.size(),
-                "imageFiles", imageFiles,
-                "dpi", dpi,
-                "format", imageFormat
-            );
+            Map<String, Object> result = packagedResult(archivePath, imageFiles, outputPrefix);
+            result.put("imageCount", imageFiles.size());
+            result.put("imageFiles", imageFiles);
+            result.put("dpi", dpi);
+            result.put("format", imageFormat);
+            return result;
             
         } catch (IOException e) {
             throw new PDFProcessingException("PDF_TO_IMAGE_ERROR", "Failed to convert PDF to images: " + e.getMessage());
@@ -1518,10 +1649,10 @@ public class PDFWorker {
             
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Creating PDF");
             
-            try (PDDocument document = new PDDocument()) {
+            try (PDDocument document = pdfUtil.createDocument(imageBytes(images))) {
                 for (Object img : images) {
                     if (img instanceof MultipartFile multipartFile) {
-                        Path tempImage = fileUtil.saveTempFile(multipartFile);
+                        Path tempImage = fileUtil.toLocalPath(multipartFile);
                         BufferedImage bufferedImage = ImageIO.read(tempImage.toFile());
                         
                         PDPage page = new PDPage(PDRectangle.A4);
@@ -1538,11 +1669,11 @@ public class PDFWorker {
                         contentStream.drawImage(pdImage, 0, 0, pdImage.getWidth() * scale, pdImage.getHeight() * scale);
                         contentStream.close();
                         
-                        fileUtil.cleanupTempFile(tempImage);
+                        fileUtil.releaseLocalPath(multipartFile, tempImage);
                     }
                 }
                 
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -1569,23 +1700,14 @@ public class PDFWorker {
         try {
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Processing text");
             
-            String text;
-            if ("all".equals(pageRange)) {
-                text = pdfUtil.extractText(inputFile);
-            } else {
-                text = pdfUtil.extractText(inputFile, pageRange);
-            }
-            
-            jobQueueService.updateProgress(jobStatus.getId(), 75, "Saving text");
-            
             Path outputPath = createOutputFile(outputName, "txt");
-            Files.write(outputPath, text.getBytes());
+            ParallelTextExtractor.Result extraction = extractTextToFile(inputFile, pageRange, outputPath);
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
             
             return Map.of(
                 "resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()),
-                "textLength", text.length(),
+                "textLength", extraction.length(),
                 "pageRange", pageRange
             );
             
@@ -1621,7 +1743,7 @@ public class PDFWorker {
             
             jobQueueService.updateProgress(jobStatus.getId(), 75, "Creating PDF");
             
-            try (PDDocument document = new PDDocument()) {
+            try (PDDocument document = pdfUtil.createDocument(Files.size(inputFile))) {
                 PDPage page = new PDPage(PDRectangle.A4);
                 document.addPage(page);
                 
@@ -1656,7 +1778,7 @@ public class PDFWorker {
                 
                 contentStream.endText();
                 contentStream.close();
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -1690,7 +1812,7 @@ public class PDFWorker {
             Path outputPath = createOutputFile(outputName, "docx");
             
             // Extract text from PDF using PDFBox
-            try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+            try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
                 PDFTextStripper stripper = new PDFTextStripper();
                 String text = stripper.getText(document);
                 
@@ -1747,7 +1869,7 @@ public class PDFWorker {
             
             // Try to extract tables using Tabula
             try {
-                PDDocument pdfDocument = Loader.loadPDF(inputFile.toFile());
+                PDDocument pdfDocument = pdfUtil.loadDocument(inputFile);
                 technology.tabula.ObjectExtractor extractor = new technology.tabula.ObjectExtractor(pdfDocument);
                 
                 technology.tabula.extractors.SpreadsheetExtractionAlgorithm sea = 
@@ -1831,7 +1953,7 @@ public class PDFWorker {
      */
     private Map<String, Object> handlePDFToExcelTextFallback(Path inputFile, Path outputPath, JobStatus jobStatus) {
         try {
-            try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+            try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
                 PDFTextStripper stripper = new PDFTextStripper();
                 String text = stripper.getText(document);
                 
@@ -1901,7 +2023,7 @@ public class PDFWorker {
         try {
             Path outputPath = createOutputFile(outputName, "pptx");
             
-            try (PDDocument document = Loader.loadPDF(inputFile.toFile());
+            try (PDDocument document = pdfUtil.loadDocument(inputFile);
                  org.apache.poi.xslf.usermodel.XMLSlideShow ppt = 
                      new org.apache.poi.xslf.usermodel.XMLSlideShow()) {
                 
@@ -2072,11 +2194,6 @@ public class PDFWorker {
         try {
             jobQueueService.updateProgress(jobStatus.getId(), 40, "Extracting text from images");
             
-            // Render PDF pages as images
-            List<BufferedImage> images = pdfUtil.renderPages(inputFile, dpi);
-            
-            jobQueueService.updateProgress(jobStatus.getId(), 60, "Running OCR");
-            
             ITesseract tesseract = new Tesseract();
             if (tesseractDataPath != null && !tesseractDataPath.isEmpty()) {
                 tesseract.setDatapath(tesseractDataPath);
@@ -2092,53 +2209,73 @@ public class PDFWorker {
             List<Map<String, Object>> detectedTables = new ArrayList<>();
             double totalConfidence = 0;
             int wordCount = 0;
-            
-            for (int pageNum = 0; pageNum < images.size(); pageNum++) {
-                BufferedImage image = images.get(pageNum);
-                
-                // Preprocess image if requested
-                if (preprocessImage) {
-                    image = preprocessForOCR(image);
-                }
-                
-                Map<String, Object> pageResult = new LinkedHashMap<>();
-                pageResult.put("pageNumber", pageNum + 1);
-                
-                try {
-                    String text = tesseract.doOCR(image);
-                    extractedText.append(text).append("\n\n");
-                    pageResult.put("text", text);
-                    pageResult.put("success", true);
-                    
-                    // Estimate word count
-                    int pageWordCount = text.split("\\s+").length;
-                    wordCount += pageWordCount;
-                    pageResult.put("wordCount", pageWordCount);
+            boolean searchablePdf = !"json".equals(outputFormat) && !"txt".equals(outputFormat);
+            Path searchablePath = null;
+            
+            // Pages are rendered in parallel ahead of OCR and released once recognized
+            try (PageRenderStream pages = pdfUtil.streamPages(inputFile, dpi, "all", currentToken.get());
+                 PDDocument searchable = searchablePdf ? pdfUtil.createDocument(rasterBytes(pages.size(), dpi)) : null) {
+                while (pages.hasNext()) {
+                    checkCancelled();
+                    PageRenderStream.Page rendered = pages.next();
+                    int pageNum = rendered.pageIndex();
+                    BufferedImage image = rendered.image();
                     
-                    // Get confidence if requested (requires additional Tesseract config)
-                    if (includeConfidence) {
-                        // Simulate confidence based on text quality metrics
-                        double confidence = calculateTextConfidence(text);
-                        totalConfidence += confidence;
-                        pageResult.put("confidence", confidence);
+                    // Preprocess image if requested
+                    if (preprocessImage) {
+                        image = preprocessForOCR(image);
                     }
                     
-                    // Extract tables if requested
-                    if (extractTables) {
-                        List<Map<String, Object>> pageTables = detectTablesInText(text, pageNum + 1);
-                        if (!pageTables.isEmpty()) {
-                            detectedTables.addAll(pageTables);
-                            pageResult.put("tablesFound", pageTables.size());
+                    Map<String, Object> pageResult = new LinkedHashMap<>();
+                    pageResult.put("pageNumber", pageNum + 1);
+                    String pageText = "";
+                    
+                    try {
+                        String text = tesseract.doOCR(image);
+                        pageText = text;
+                        extractedText.append(text).append("\n\n");
+                        pageResult.put("text", text);
+                        pageResult.put("success", true);
+                        
+                        // Estimate word count
+                        int pageWordCount = text.split("\\s+").length;
+                        wordCount += pageWordCount;
+                        pageResult.put("wordCount", pageWordCount);
+                        
+                        // Get confidence if requested (requires additional Tesseract config)
+                        if (includeConfidence) {
+                            // Simulate confidence based on text quality metrics
+                            double confidence = calculateTextConfidence(text);
+                            totalConfidence += confidence;
+                            pageResult.put("confidence", confidence);
+                        }
+                        
+                        // Extract tables if requested
+                        if (extractTables) {
+                            List<Map<String, Object>> pageTables = detectTablesInText(text, pageNum + 1);
+                            if (!pageTables.isEmpty()) {
+                                detectedTables.addAll(pageTables);
+                                pageResult.put("tablesFound", pageTables.size());
+                            }
                         }
+                        
+                    } catch (TesseractException e) {
+                        logger.warn("OCR failed for page {}: {}", pageNum + 1, e.getMessage());
+                        pageResult.put("success", false);
+                        pageResult.put("error", e.getMessage());
                     }
                     
-                } catch (TesseractException e) {
-                    logger.warn("OCR failed for page {}: {}", pageNum + 1, e.getMessage());
-                    pageResult.put("success", false);
-                    pageResult.put("error", e.getMessage());
+                    pageResults.add(pageResult);
+                    if (searchable != null) {
+                        addSearchablePage(searchable, rendered.image(), pageText);
+                    }
+                    updatePageProgress(jobStatus, 40, 85, pageResults.size(), pages.size(), "Running OCR");
                 }
                 
-                pageResults.add(pageResult);
+                if (searchable != null) {
+                    searchablePath = createOutputFile(outputName, "pdf");
+                    pdfUtil.save(searchable, searchablePath);
+                }
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 85, "Creating output");
@@ -2173,17 +2310,14 @@ public class PDFWorker {
                 result.put("format", "txt");
                 
             } else {
-                // Create searchable PDF
-                Path outputPath = createOutputFile(outputName, "pdf");
-                createSearchablePDF(outputPath, images, extractedText.toString());
-                
-                result.put("resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()));
+                // Searchable PDF, built page by page above
+                result.put("resultUrl", fileUtil.getDownloadUrl(searchablePath.getFileName().toString()));
                 result.put("format", "pdf");
             }
             
             result.put("textLength", extractedText.length());
             result.put("wordCount", wordCount);
-            result.put("pagesProcessed", images.size());
+            result.put("pagesProcessed", pageResults.size());
             result.put("language", language);
             result.put("dpi", dpi);
             
@@ -2317,42 +2451,35 @@ public class PDFWorker {
         return data;
     }
     
-    private void createSearchablePDF(Path outputPath, List<BufferedImage> images, String extractedText) throws IOException {
-        try (PDDocument document = new PDDocument()) {
-            String[] textPages = extractedText.split("\n\n");
-            
-            for (int i = 0; i < images.size(); i++) {
-                BufferedImage image = images.get(i);
-                
-                // Create page with image dimensions
-                PDRectangle pageSize = new PDRectangle(image.getWidth(), image.getHeight());
-                PDPage page = new PDPage(pageSize);
-                document.addPage(page);
-                
-                // Add original image as background
-                PDImageXObject pdImage = LosslessFactory.createFromImage(document, image);
-                try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
-                    contentStream.drawImage(pdImage, 0, 0, pageSize.getWidth(), pageSize.getHeight());
-                    
-                    // Add invisible text layer for searchability
-                    if (i < textPages.length) {
-                        contentStream.beginText();
-                        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 1);
-                        contentStream.setNonStrokingColor(1f, 1f, 1f); // White (invisible)
-                        contentStream.newLineAtOffset(10, pageSize.getHeight() - 10);
-                        
-                        // Add text in very small font (effectively invisible but searchable)
-                        String pageText = textPages[i].replace("\n", " ");
-                        if (pageText.length() > 1000) {
-                            pageText = pageText.substring(0, 1000); // Limit text length
-                        }
-                        contentStream.showText(pageText);
-                        contentStream.endText();
-                    }
+    /**
+     * Add a page showing the scanned image, with the recognized text as an invisible layer for search
+     */
+    private void addSearchablePage(PDDocument document, BufferedImage image, String pageText) throws IOException {
+        // Create page with image dimensions
+        PDRectangle pageSize = new PDRectangle(image.getWidth(), image.getHeight());
+        PDPage page = new PDPage(pageSize);
+        document.addPage(page);
+        
+        // Add original image as background
+        PDImageXObject pdImage = LosslessFactory.createFromImage(document, image);
+        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+            contentStream.drawImage(pdImage, 0, 0, pageSize.getWidth(), pageSize.getHeight());
+            
+            // Add invisible text layer for searchability
+            if (pageText != null && !pageText.isBlank()) {
+                contentStream.beginText();
+                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 1);
+                contentStream.setNonStrokingColor(1f, 1f, 1f); // White (invisible)
+                contentStream.newLineAtOffset(10, pageSize.getHeight() - 10);
+                
+                // Add text in very small font (effectively invisible but searchable)
+                String text = pageText.replace("\n", " ");
+                if (text.length() > 1000) {
+                    text = text.substring(0, 1000); // Limit text length
                 }
+                contentStream.showText(text);
+                contentStream.endText();
             }
-            
-            document.save(outputPath.toFile());
         }
     }
     
@@ -2379,7 +2506,7 @@ public class PDFWorker {
         try {
             Path file2;
             if (file2Obj instanceof MultipartFile multipartFile) {
-                file2 = fileUtil.saveTempFile(multipartFile);
+                file2 = fileUtil.toLocalPath(multipartFile);
             } else {
                 throw new PDFProcessingException("INVALID_PARAMETER", "file2 must be a multipart file");
             }
@@ -2534,46 +2661,47 @@ public class PDFWorker {
     private Map<String, Object> performStructuralComparison(Path file1, Path file2) throws IOException {
         Map<String, Object> structural = new LinkedHashMap<>();
         
-        try (PDDocument doc1 = pdfUtil.loadPDF(file1);
-             PDDocument doc2 = pdfUtil.loadPDF(file2)) {
-            
-            // Page count comparison
-            structural.put("file1PageCount", doc1.getNumberOfPages());
-            structural.put("file2PageCount", doc2.getNumberOfPages());
-            structural.put("pageCountDifferent", doc1.getNumberOfPages() != doc2.getNumberOfPages());
-            
-            // Metadata comparison
-            Map<String, Object> metadataDiff = new LinkedHashMap<>();
-            org.apache.pdfbox.pdmodel.PDDocumentInformation info1 = doc1.getDocumentInformation();
-            org.apache.pdfbox.pdmodel.PDDocumentInformation info2 = doc2.getDocumentInformation();
-            
-            if (info1 != null && info2 != null) {
-                if (!Objects.equals(info1.getTitle(), info2.getTitle())) {
-                    metadataDiff.put("title", Map.of("file1", info1.getTitle(), "file2", info2.getTitle()));
-                }
-                if (!Objects.equals(info1.getAuthor(), info2.getAuthor())) {
-                    metadataDiff.put("author", Map.of("file1", info1.getAuthor(), "file2", info2.getAuthor()));
-                }
+        // Read-only use: the documents text extraction already parsed, owned by the job session
+        DocumentSession session = pdfUtil.session();
+        PDDocument doc1 = session.document(file1);
+        PDDocument doc2 = session.document(file2);
+        
+        // Page count comparison
+        structural.put("file1PageCount", doc1.getNumberOfPages());
+        structural.put("file2PageCount", doc2.getNumberOfPages());
+        structural.put("pageCountDifferent", doc1.getNumberOfPages() != doc2.getNumberOfPages());
+        
+        // Metadata comparison
+        Map<String, Object> metadataDiff = new LinkedHashMap<>();
+        org.apache.pdfbox.pdmodel.PDDocumentInformation info1 = doc1.getDocumentInformation();
+        org.apache.pdfbox.pdmodel.PDDocumentInformation info2 = doc2.getDocumentInformation();
+        
+        if (info1 != null && info2 != null) {
+            if (!Objects.equals(info1.getTitle(), info2.getTitle())) {
+                metadataDiff.put("title", Map.of("file1", info1.getTitle(), "file2", info2.getTitle()));
+            }
+            if (!Objects.equals(info1.getAuthor(), info2.getAuthor())) {
+                metadataDiff.put("author", Map.of("file1", info1.getAuthor(), "file2", info2.getAuthor()));
             }
-            structural.put("metadataDifferences", metadataDiff);
-            
-            // Font comparison
-            Set<String> fonts1 = extractFontNames(doc1);
-            Set<String> fonts2 = extractFontNames(doc2);
-            
-            Set<String> addedFonts = new HashSet<>(fonts2);
-            addedFonts.removeAll(fonts1);
-            Set<String> removedFonts = new HashSet<>(fonts1);
-            removedFonts.removeAll(fonts2);
-            
-            structural.put("fontsAdded", addedFonts);
-            structural.put("fontsRemoved", removedFonts);
-            
-            // Form field comparison
-            boolean hasForm1 = doc1.getDocumentCatalog().getAcroForm() != null;
-            boolean hasForm2 = doc2.getDocumentCatalog().getAcroForm() != null;
-            structural.put("formFieldsDifferent", hasForm1 != hasForm2);
         }
+        structural.put("metadataDifferences", metadataDiff);
+        
+        // Font comparison
+        Set<String> fonts1 = extractFontNames(doc1);
+        Set<String> fonts2 = extractFontNames(doc2);
+        
+        Set<String> addedFonts = new HashSet<>(fonts2);
+        addedFonts.removeAll(fonts1);
+        Set<String> removedFonts = new HashSet<>(fonts1);
+        removedFonts.removeAll(fonts2);
+        
+        structural.put("fontsAdded", addedFonts);
+        structural.put("fontsRemoved", removedFonts);
+        
+        // Form field comparison
+        boolean hasForm1 = doc1.getDocumentCatalog().getAcroForm() != null;
+        boolean hasForm2 = doc2.getDocumentCatalog().getAcroForm() != null;
+        structural.put("formFieldsDifferent", hasForm1 != hasForm2);
         
         return structural;
     }
@@ -2594,7 +2722,7 @@ public class PDFWorker {
     private void generateRedlineDocument(Path originalPdf, String originalText, 
             List<Map<String, Object>> differences, Path outputPath) throws IOException {
         
-        try (PDDocument document = new PDDocument()) {
+        try (PDDocument document = pdfUtil.createDocument(Files.size(originalPdf))) {
             PDPage page = new PDPage(PDRectangle.A4);
             document.addPage(page);
             
@@ -2679,7 +2807,7 @@ public class PDFWorker {
             }
             
             contentStream.close();
-            document.save(outputPath.toFile());
+            pdfUtil.save(document, outputPath);
         }
     }
     
@@ -2771,11 +2899,11 @@ public class PDFWorker {
             
             // Load and re-save with PDF/A-compatible settings
             // Note: Full PDF/A conversion requires specialized libraries
-            try (PDDocument doc = Loader.loadPDF(inputFile.toFile())) {
+            try (PDDocument doc = pdfUtil.loadDocument(inputFile)) {
                 // Set PDF version and basic metadata for PDF/A compliance
                 doc.getDocumentCatalog().setVersion(String.valueOf(doc.getVersion()));
                 
-                doc.save(outputPath.toFile());
+                pdfUtil.save(doc, outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -2802,17 +2930,17 @@ public class PDFWorker {
             
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Optimizing for web");
             
-            try (PDDocument document = pdfUtil.loadPDF(inputFile)) {
-                // Linearization is a complex process - for now we'll just save
-                // In production, you'd use specialized linearization tools
-                document.save(outputPath.toFile());
+            // Encrypted files cannot be reordered and are passed through as they are
+            boolean linearized = pdfUtil.linearize(inputFile, outputPath, currentToken.get());
+            if (!linearized) {
+                Files.copy(inputFile, outputPath, StandardCopyOption.REPLACE_EXISTING);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
             
             return Map.of(
                 "resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()),
-                "linearized", true
+                "linearized", linearized && linearizationService.checkLinearization(outputPath).isLinearized()
             );
             
         } catch (IOException e) {
@@ -2829,6 +2957,12 @@ public class PDFWorker {
         Boolean compressImages = (Boolean) parameters.get("compressImages");
         if (compressImages == null) compressImages = true;
         
+        Boolean subsetFonts = (Boolean) parameters.get("subsetFonts");
+        if (subsetFonts == null) subsetFonts = true;
+        
+        Boolean linearize = (Boolean) parameters.get("linearize");
+        if (linearize == null) linearize = false;
+        
         Integer imageQuality = (Integer) parameters.get("imageQuality");
         if (imageQuality == null) imageQuality = 85;
         
@@ -2840,10 +2974,22 @@ public class PDFWorker {
             
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Applying optimizations");
             
-            // This is a simplified optimization
-            // In production, you'd use specialized tools
+            ObjectDeduplicator.Result duplicates = new ObjectDeduplicator.Result(0, 0);
+            FontSubsetter.Result fonts = new FontSubsetter.Result(0, 0, 0);
             try (PDDocument document = pdfUtil.loadPDF(inputFile)) {
-                document.save(outputPath.toFile());
+                if (subsetFonts) {
+                    fonts = pdfUtil.subsetFonts(inputFile, document, currentToken.get());
+                }
+                if (removeUnused) {
+                    duplicates = pdfUtil.deduplicateObjects(document, currentToken.get());
+                }
+                pdfUtil.save(document, outputPath);
+            }
+            
+            boolean linearized = false;
+            if (linearize) {
+                jobQueueService.updateProgress(jobStatus.getId(), 80, "Linearizing for web");
+                linearized = linearizeDocument(outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -2852,11 +2998,19 @@ public class PDFWorker {
             long optimizedSize = Files.size(outputPath);
             double savings = (1.0 - (double) optimizedSize / originalSize) * 100;
             
-            return Map.of(
-                "resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()),
-                "optimized", true,
-                "savings", String.format("%.1f%%", savings)
-            );
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("resultUrl", fileUtil.getDownloadUrl(outputPath.getFileName().toString()));
+            result.put("optimized", true);
+            result.put("savings", String.format("%.1f%%", savings));
+            result.put("originalSizeBytes", originalSize);
+            result.put("optimizedSizeBytes", optimizedSize);
+            result.put("objectStreams", pdfUtil.compressParameters().isCompress() && !linearized);
+            result.put("duplicateObjectsRemoved", duplicates.objectsRemoved());
+            result.put("duplicateBytesSaved", duplicates.bytesSaved());
+            result.put("fontsSubset", fonts.fontsSubset());
+            result.put("fontBytesSaved", fonts.bytesSaved());
+            result.put("linearized", linearized);
+            return result;
             
         } catch (IOException e) {
             throw new PDFProcessingException("OPTIMIZE_ERROR", "Failed to optimize PDF: " + e.getMessage());
@@ -3075,7 +3229,7 @@ public class PDFWorker {
                 
                 // For production, you'd implement text search and rectangle redaction
                 // This is a simplified implementation
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -3124,7 +3278,7 @@ public class PDFWorker {
                     }
                 }
                 
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -3156,18 +3310,16 @@ public class PDFWorker {
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Attempting repair");
             
             // Try to load and re-save to fix minor issues
-            try (PDDocument document = Loader.loadPDF(inputFile.toFile())) {
+            try (PDDocument document = pdfUtil.loadDocument(inputFile)) {
                 // Re-save with clean structure
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 75, "Validating repair");
             
             boolean isValid = false;
             if (validateAfterRepair) {
-                try (PDDocument repaired = Loader.loadPDF(outputPath.toFile())) {
-                    isValid = repaired.getNumberOfPages() > 0;
-                }
+                isValid = pdfUtil.session().pageCount(outputPath) > 0;
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -3203,7 +3355,7 @@ public class PDFWorker {
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Rearranging pages");
             
             try (PDDocument sourceDoc = pdfUtil.loadPDF(inputFile);
-                 PDDocument newDoc = new PDDocument()) {
+                 PDDocument newDoc = pdfUtil.createDocument(Files.size(inputFile))) {
                 
                 for (Integer pageNum : pageOrder) {
                     if (pageNum > 0 && pageNum <= sourceDoc.getNumberOfPages()) {
@@ -3212,7 +3364,7 @@ public class PDFWorker {
                     }
                 }
                 
-                newDoc.save(outputPath.toFile());
+                pdfUtil.save(newDoc, outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -3245,7 +3397,7 @@ public class PDFWorker {
         try {
             Path sourcePath;
             if (sourcePdfObj instanceof MultipartFile multipartFile) {
-                sourcePath = fileUtil.saveTempFile(multipartFile);
+                sourcePath = fileUtil.toLocalPath(multipartFile);
             } else {
                 throw new PDFProcessingException("INVALID_PARAMETER", "sourcePdf must be a file");
             }
@@ -3256,7 +3408,7 @@ public class PDFWorker {
             
             try (PDDocument targetDoc = pdfUtil.loadPDF(inputFile);
                  PDDocument sourceDoc = pdfUtil.loadPDF(sourcePath);
-                 PDDocument newDoc = new PDDocument()) {
+                 PDDocument newDoc = pdfUtil.createDocument(Files.size(inputFile) + Files.size(sourcePath))) {
                 
                 // Add pages from target up to insert point
                 for (int i = 0; i < insertAfterPage && i < targetDoc.getNumberOfPages(); i++) {
@@ -3273,10 +3425,10 @@ public class PDFWorker {
                     newDoc.addPage(targetDoc.getPage(i));
                 }
                 
-                newDoc.save(outputPath.toFile());
+                pdfUtil.save(newDoc, outputPath);
             }
             
-            fileUtil.cleanupTempFile(sourcePath);
+            fileUtil.releaseLocalPath((MultipartFile) sourcePdfObj, sourcePath);
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
             
@@ -3307,7 +3459,7 @@ public class PDFWorker {
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Processing pages");
             
             try (PDDocument sourceDoc = pdfUtil.loadPDF(inputFile);
-                 PDDocument newDoc = new PDDocument()) {
+                 PDDocument newDoc = pdfUtil.createDocument(Files.size(inputFile))) {
                 
                 // Parse page range and extract pages
                 List<Integer> pagesToExtract = parsePageList(pageRange, sourceDoc.getNumberOfPages());
@@ -3318,7 +3470,7 @@ public class PDFWorker {
                     }
                 }
                 
-                newDoc.save(outputPath.toFile());
+                pdfUtil.save(newDoc, outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -3410,9 +3562,19 @@ public class PDFWorker {
             
             Process process = pb.start();
             
-            boolean finished = process.waitFor(timeoutSeconds, java.util.concurrent.TimeUnit.SECONDS);
+            // Cancelling the job kills the process and its children
+            CancellationToken token = currentToken.get();
+            token.register(process);
+            boolean finished;
+            try {
+                finished = process.waitFor(timeoutSeconds, java.util.concurrent.TimeUnit.SECONDS);
+            } finally {
+                token.unregister(process);
+            }
+            token.throwIfCancelled();
             
             if (!finished) {
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
                 process.destroyForcibly();
                 throw new ExternalToolException("TIMEOUT", 
                     operation + " timed out after " + timeoutSeconds + " seconds");
@@ -3492,7 +3654,7 @@ public class PDFWorker {
                     throw new PDFProcessingException("INVALID_OPERATION", "Cannot delete all pages from PDF");
                 }
                 
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
                 
                 jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
                 
@@ -3539,7 +3701,7 @@ public class PDFWorker {
                     document.getPages().insertBefore(blankPage, document.getPage(Math.min(insertIndex, document.getNumberOfPages() - 1)));
                 }
                 
-                document.save(outputPath.toFile());
+                pdfUtil.saveEdited(document, inputFile, outputPath);
                 
                 jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
                 
@@ -3693,7 +3855,7 @@ public class PDFWorker {
                 throw new PDFProcessingException("EMPTY_FILE", "CSV file is empty");
             }
             
-            try (PDDocument document = new PDDocument()) {
+            try (PDDocument document = pdfUtil.createDocument(Files.size(inputFile))) {
                 PDPage page = new PDPage(PDRectangle.A4);
                 document.addPage(page);
                 
@@ -3744,7 +3906,7 @@ public class PDFWorker {
                 }
                 
                 contentStream.close();
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -3783,7 +3945,7 @@ public class PDFWorker {
                 jsonContent = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
             }
             
-            try (PDDocument document = new PDDocument()) {
+            try (PDDocument document = pdfUtil.createDocument(Files.size(inputFile))) {
                 PDPage page = new PDPage(PDRectangle.A4);
                 document.addPage(page);
                 
@@ -3825,7 +3987,7 @@ public class PDFWorker {
                 }
                 
                 contentStream.close();
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
             }
             
             jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
@@ -3883,7 +4045,7 @@ public class PDFWorker {
                 
                 jobQueueService.updateProgress(jobStatus.getId(), 70, "Creating split files");
                 
-                List<String> resultFiles = new ArrayList<>();
+                List<ParallelSplitter.Part> parts = new ArrayList<>();
                 
                 for (int i = 0; i < splitPoints.size(); i++) {
                     BookmarkSplitPoint point = splitPoints.get(i);
@@ -3892,27 +4054,19 @@ public class PDFWorker {
                     
                     if (endPage >= startPage) {
                         String sanitizedTitle = point.title.replaceAll("[^a-zA-Z0-9]", "_").substring(0, Math.min(50, point.title.length()));
-                        Path outputPath = createOutputFile(outputPrefix + "_" + (i + 1) + "_" + sanitizedTitle, "pdf");
-                        
-                        try (PDDocument newDoc = new PDDocument()) {
-                            for (int p = startPage; p <= endPage; p++) {
-                                newDoc.addPage(document.getPage(p - 1));
-                            }
-                            newDoc.save(outputPath.toFile());
-                        }
-                        
-                        resultFiles.add(outputPath.getFileName().toString());
+                        Path outputPath = partTarget(parameters, outputPrefix + "_" + (i + 1) + "_" + sanitizedTitle);
+                        parts.add(new ParallelSplitter.Part(startPage, endPage, outputPath));
                     }
                 }
                 
+                Map<String, Object> result = writeParts(inputFile, parameters, parts, outputPrefix);
+                
                 jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
                 
-                return Map.of(
-                    "resultFiles", resultFiles,
-                    "totalFiles", resultFiles.size(),
-                    "splitBy", "bookmarks",
-                    "bookmarksFound", splitPoints.size()
-                );
+                result.put("totalFiles", parts.size());
+                result.put("splitBy", "bookmarks");
+                result.put("bookmarksFound", splitPoints.size());
+                return result;
             }
             
         } catch (IOException e) {
@@ -3971,44 +4125,20 @@ public class PDFWorker {
             
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Calculating split points");
             
-            try (PDDocument document = pdfUtil.loadPDF(inputFile)) {
-                int totalPages = document.getNumberOfPages();
-                
-                // Estimate bytes per page
-                long avgBytesPerPage = originalSize / totalPages;
-                int pagesPerFile = (int) Math.max(1, targetSizeBytes / avgBytesPerPage);
-                
-                List<String> resultFiles = new ArrayList<>();
-                int fileIndex = 1;
-                int startPage = 0;
-                
-                while (startPage < totalPages) {
-                    int endPage = Math.min(startPage + pagesPerFile, totalPages);
-                    
-                    Path outputPath = createOutputFile(outputPrefix + "_" + fileIndex, "pdf");
-                    
-                    try (PDDocument newDoc = new PDDocument()) {
-                        for (int p = startPage; p < endPage; p++) {
-                            newDoc.addPage(document.getPage(p));
-                        }
-                        newDoc.save(outputPath.toFile());
-                    }
-                    
-                    resultFiles.add(outputPath.getFileName().toString());
-                    startPage = endPage;
-                    fileIndex++;
-                }
-                
-                jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
-                
-                return Map.of(
-                    "resultFiles", resultFiles,
-                    "totalFiles", resultFiles.size(),
-                    "targetSizeMB", targetSizeMB,
-                    "splitBy", "size",
-                    "originalSizeMB", originalSize / (1024 * 1024)
-                );
-            }
+            String prefix = outputPrefix;
+            List<ParallelSplitter.Part> parts = pdfUtil.planSplitBySize(inputFile, targetSizeBytes,
+                part -> partTarget(parameters, prefix + "_" + part));
+            
+            jobQueueService.updateProgress(jobStatus.getId(), 60, "Writing " + parts.size() + " parts");
+            Map<String, Object> result = writeParts(inputFile, parameters, parts, prefix);
+            
+            jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
+            
+            result.put("totalFiles", parts.size());
+            result.put("targetSizeMB", targetSizeMB);
+            result.put("splitBy", "size");
+            result.put("originalSizeMB", originalSize / (1024 * 1024));
+            return result;
             
         } catch (IOException e) {
             throw new PDFProcessingException("SPLIT_SIZE_ERROR", "Failed to split by size: " + e.getMessage());
@@ -4028,18 +4158,18 @@ public class PDFWorker {
             
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Analyzing pages");
             
-            try (PDDocument document = pdfUtil.loadPDF(inputFile)) {
-                PDFRenderer renderer = new PDFRenderer(document);
+            // Pages are analyzed from parallel renders of the original while this copy is edited
+            try (PDDocument document = pdfUtil.loadPDF(inputFile);
+                 PageRenderStream pages = pdfUtil.streamPages(inputFile, 72, "all", currentToken.get())) {
                 int rotatedCount = 0;
                 
-                for (int i = 0; i < document.getNumberOfPages(); i++) {
-                    PDPage page = document.getPage(i);
-                    
-                    // Render page to image
-                    BufferedImage image = renderer.renderImageWithDPI(i, 72);
+                while (pages.hasNext()) {
+                    checkCancelled();
+                    PageRenderStream.Page rendered = pages.next();
+                    PDPage page = document.getPage(rendered.pageIndex());
                     
                     // Detect text orientation using image analysis
-                    int suggestedRotation = detectTextOrientation(image);
+                    int suggestedRotation = detectTextOrientation(rendered.image());
                     
                     if (suggestedRotation != 0) {
                         page.setRotation((page.getRotation() + suggestedRotation) % 360);
@@ -4047,7 +4177,7 @@ public class PDFWorker {
                     }
                 }
                 
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
                 
                 jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
                 
@@ -4118,12 +4248,15 @@ public class PDFWorker {
             
             jobQueueService.updateProgress(jobStatus.getId(), 50, "Analyzing content boundaries");
             
-            try (PDDocument document = pdfUtil.loadPDF(inputFile)) {
-                PDFRenderer renderer = new PDFRenderer(document);
+            // Pages are analyzed from parallel renders of the original while this copy is edited
+            try (PDDocument document = pdfUtil.loadPDF(inputFile);
+                 PageRenderStream pages = pdfUtil.streamPages(inputFile, 72, "all", currentToken.get())) {
                 
-                for (int i = 0; i < document.getNumberOfPages(); i++) {
-                    PDPage page = document.getPage(i);
-                    BufferedImage image = renderer.renderImageWithDPI(i, 72);
+                while (pages.hasNext()) {
+                    checkCancelled();
+                    PageRenderStream.Page rendered = pages.next();
+                    PDPage page = document.getPage(rendered.pageIndex());
+                    BufferedImage image = rendered.image();
                     
                     // Detect content bounding box
                     int[] bounds = detectContentBounds(image);
@@ -4142,7 +4275,7 @@ public class PDFWorker {
                     }
                 }
                 
-                document.save(outputPath.toFile());
+                pdfUtil.save(document, outputPath);
                 
                 jobQueueService.updateProgress(jobStatus.getId(), 90, "Finalizing");
                 
@@ -0,0 +1,18 @@
+-- Baseline schema: the jobs table as previously created by ddl-auto
+
+CREATE TABLE IF NOT EXISTS jobs (
+    id                 VARCHAR(255) NOT NULL PRIMARY KEY,
+    status             VARCHAR(255),
+    tool_name          VARCHAR(255),
+    file_name          VARCHAR(255),
+    result_url         VARCHAR(255),
+    error_message      VARCHAR(255),
+    created_at         TIMESTAMP(6),
+    updated_at         TIMESTAMP(6),
+    completed_at       TIMESTAMP(6),
+    processing_time_ms BIGINT,
+    progress           INTEGER,
+    current_operation  VARCHAR(255),
+    result_hash        VARCHAR(255),
+    file_size          BIGINT
+);
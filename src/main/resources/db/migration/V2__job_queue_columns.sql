@@ -0,0 +1,6 @@
+-- Shared job queue: priority, spooled input and parameters, and the claiming node's lease
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS priority INTEGER;
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS input_path VARCHAR(1024);
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS payload TEXT;
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(255);
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP(6);
@@ -0,0 +1,16 @@
+-- Content-addressed result cache
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS cache_key VARCHAR(64);
+
+CREATE TABLE IF NOT EXISTS result_cache (
+    cache_key        VARCHAR(64) NOT NULL PRIMARY KEY,
+    input_hash       VARCHAR(255),
+    tool_name        VARCHAR(255),
+    source_job_id    VARCHAR(255),
+    result_url       VARCHAR(1024),
+    result_data      TEXT,
+    output_files     TEXT,
+    size_bytes       BIGINT,
+    hit_count        BIGINT,
+    created_at       TIMESTAMP(6),
+    last_accessed_at TIMESTAMP(6)
+);
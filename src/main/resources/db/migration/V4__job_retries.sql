@@ -0,0 +1,4 @@
+-- Retry state: attempts made, when the next one may start, and the attempt history
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS attempt_count INTEGER;
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP(6);
+ALTER TABLE jobs ADD COLUMN IF NOT EXISTS attempt_history TEXT;
@@ -0,0 +1,9 @@
+-- Job listing is keyset-paginated on (created_at, id), optionally filtered by status
+CREATE INDEX IF NOT EXISTS idx_jobs_created_at ON jobs (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_jobs_status ON jobs (status, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_jobs_tool_name ON jobs (tool_name, created_at);
+CREATE INDEX IF NOT EXISTS idx_jobs_completed_at ON jobs (completed_at);
+CREATE INDEX IF NOT EXISTS idx_jobs_result_hash ON jobs (result_hash);
+
+-- Result cache eviction scans by last access
+CREATE INDEX IF NOT EXISTS idx_result_cache_last_accessed_at ON result_cache (last_accessed_at);
@@ -2,8 +2,10 @@ package com.chnindia.eighteenpluspdf;
 
 import com.chnindia.eighteenpluspdf.model.JobStatus;
 import com.chnindia.eighteenpluspdf.service.JobQueueService;
+import com.chnindia.eighteenpluspdf.service.LinearizationService;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
 import com.chnindia.eighteenpluspdf.util.PDFUtil;
+import com.chnindia.eighteenpluspdf.util.ParallelWorkPool;
 import com.chnindia.eighteenpluspdf.worker.PDFWorker;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -38,6 +40,7 @@ class AllToolsTest {
     private JobQueueService mockJobQueueService;
     private FileUtil fileUtil;
     private PDFUtil pdfUtil;
+    private ParallelWorkPool workPool;
     
     @TempDir
     Path tempDir;
@@ -60,11 +63,18 @@ class AllToolsTest {
         pdfUtil = new PDFUtil();
         ReflectionTestUtils.setField(pdfUtil, "maxPages", 2000);
         ReflectionTestUtils.setField(pdfUtil, "maxFileSizeMB", 500);
+        workPool = new ParallelWorkPool();
+        workPool.initialize();
+        ReflectionTestUtils.setField(pdfUtil, "workPool", workPool);
         
         // Inject dependencies
         ReflectionTestUtils.setField(pdfWorker, "jobQueueService", mockJobQueueService);
         ReflectionTestUtils.setField(pdfWorker, "fileUtil", fileUtil);
         ReflectionTestUtils.setField(pdfWorker, "pdfUtil", pdfUtil);
+        LinearizationService linearizationService = new LinearizationService();
+        ReflectionTestUtils.setField(linearizationService, "pdfUtil", pdfUtil);
+        ReflectionTestUtils.setField(linearizationService, "fileUtil", fileUtil);
+        ReflectionTestUtils.setField(pdfWorker, "linearizationService", linearizationService);
         ReflectionTestUtils.setField(pdfWorker, "tempDir", tempDir.toString());
         ReflectionTestUtils.setField(pdfWorker, "outputDir", outputPath.toString());
         ReflectionTestUtils.setField(pdfWorker, "ocrDpi", 300);
@@ -82,6 +92,11 @@ class AllToolsTest {
         jobStatus.setToolName("test");
         jobStatus.setStatus(JobStatus.Status.PROCESSING);
     }
+    
+    @AfterEach
+    void tearDown() {
+        workPool.close();
+    }
 
     // ==================== PDF MANIPULATION TOOLS ====================
     
@@ -356,6 +371,7 @@ class AllToolsTest {
         Map<String, Object> result = pdfWorker.process("linearize", pdfPath, new HashMap<>(), jobStatus);
         
         assertNotNull(result);
+        assertEquals(true, result.get("linearized"));
         System.out.println("✓ Linearize tool: " + result);
     }
     
@@ -3,20 +3,30 @@ package com.chnindia.eighteenpluspdf;
 import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
 import com.chnindia.eighteenpluspdf.model.JobStatus;
 import com.chnindia.eighteenpluspdf.service.JobQueueService;
+import com.chnindia.eighteenpluspdf.service.LinearizationService;
 import com.chnindia.eighteenpluspdf.util.FileUtil;
 import com.chnindia.eighteenpluspdf.util.PDFUtil;
+import com.chnindia.eighteenpluspdf.util.ParallelWorkPool;
 import com.chnindia.eighteenpluspdf.worker.PDFWorker;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -30,6 +40,7 @@ class PDFWorkerTest {
     private JobQueueService mockJobQueueService;
     private FileUtil fileUtil;
     private PDFUtil pdfUtil;
+    private ParallelWorkPool workPool;
     
     @TempDir
     Path tempDir;
@@ -52,11 +63,18 @@ class PDFWorkerTest {
         pdfUtil = new PDFUtil();
         ReflectionTestUtils.setField(pdfUtil, "maxPages", 2000);
         ReflectionTestUtils.setField(pdfUtil, "maxFileSizeMB", 500);
+        workPool = new ParallelWorkPool();
+        workPool.initialize();
+        ReflectionTestUtils.setField(pdfUtil, "workPool", workPool);
         
         // Inject dependencies
         ReflectionTestUtils.setField(pdfWorker, "jobQueueService", mockJobQueueService);
         ReflectionTestUtils.setField(pdfWorker, "fileUtil", fileUtil);
         ReflectionTestUtils.setField(pdfWorker, "pdfUtil", pdfUtil);
+        LinearizationService linearizationService = new LinearizationService();
+        ReflectionTestUtils.setField(linearizationService, "pdfUtil", pdfUtil);
+        ReflectionTestUtils.setField(linearizationService, "fileUtil", fileUtil);
+        ReflectionTestUtils.setField(pdfWorker, "linearizationService", linearizationService);
         ReflectionTestUtils.setField(pdfWorker, "tempDir", tempDir.toString());
         ReflectionTestUtils.setField(pdfWorker, "outputDir", outputPath.toString());
         ReflectionTestUtils.setField(pdfWorker, "ocrDpi", 300);
@@ -75,6 +93,11 @@ class PDFWorkerTest {
         jobStatus.setStatus(JobStatus.Status.PROCESSING);
     }
     
+    @AfterEach
+    void tearDown() {
+        workPool.close();
+    }
+    
     @Test
     void testExtractText() throws IOException {
         Path pdfPath = createTestPDF();
@@ -158,6 +181,20 @@ class PDFWorkerTest {
         
         assertNotNull(result);
         assertTrue(result.containsKey("resultUrl"));
+        assertEquals(true, result.get("objectStreams"));
+    }
+    
+    @Test
+    void testOptimizePDF_ClassicXref() throws IOException {
+        Path pdfPath = createTestPDF();
+        
+        Map<String, Object> params = new HashMap<>();
+        params.put("objectStreams", false);
+        
+        Map<String, Object> result = pdfWorker.process("optimize", pdfPath, params, jobStatus);
+        
+        assertEquals(false, result.get("objectStreams"));
+        assertTrue((Long) result.get("optimizedSizeBytes") > 0);
     }
     
     @Test
@@ -223,6 +260,33 @@ class PDFWorkerTest {
         assertTrue(result.containsKey("resultUrl"));
     }
     
+    @Test
+    void testMergePDF_DuplicatesRemovedBeforeTheSave() throws IOException {
+        Path pdfPath = createImagePDF();
+        byte[] copy = Files.readAllBytes(pdfPath);
+        
+        for (Map<String, Object> mode : List.<Map<String, Object>>of(
+                Map.of(), Map.of("createBookmarks", false), Map.of("mergeMode", "interleave"))) {
+            Map<String, Object> params = new HashMap<>(mode);
+            params.put("files", List.of(new MockMultipartFile("files", "copy.pdf", "application/pdf", copy)));
+            
+            Map<String, Object> result = pdfWorker.process("merge", pdfPath, params, jobStatus);
+            
+            assertEquals(2, result.get("pageCount"), mode.toString());
+            // The second copy of the image is dropped
+            assertTrue((Integer) result.get("duplicateObjectsRemoved") > 0, mode.toString());
+            Path output = tempDir.resolve("output").resolve(((String) result.get("resultUrl")).replaceAll(".*/", ""));
+            try (PDDocument merged = Loader.loadPDF(output.toFile())) {
+                assertEquals(merged.getPage(0).getResources().getXObject(COSName.getPDFName("Im1")).getCOSObject(),
+                    merged.getPage(1).getResources().getXObject(COSName.getPDFName("Im1")).getCOSObject(), mode.toString());
+            }
+        }
+        // No temporary rewrite is left beside the outputs
+        try (var outputs = Files.list(tempDir.resolve("output"))) {
+            assertTrue(outputs.noneMatch(file -> file.toString().endsWith(".dedup")));
+        }
+    }
+    
     @Test
     void testInvalidTool() {
         Path pdfPath = tempDir.resolve("test.pdf");
@@ -261,4 +325,23 @@ class PDFWorkerTest {
         }
         return pdfPath;
     }
+    
+    private Path createImagePDF() throws IOException {
+        Path pdfPath = tempDir.resolve("image_" + UUID.randomUUID() + ".pdf");
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 64; x++) {
+            image.setRGB(x, x, 0xFF0000);
+        }
+        try (PDDocument document = new PDDocument()) {
+            PDPage page = new PDPage();
+            document.addPage(page);
+            PDImageXObject xObject = LosslessFactory.createFromImage(document, image);
+            try (org.apache.pdfbox.pdmodel.PDPageContentStream contentStream =
+                    new org.apache.pdfbox.pdmodel.PDPageContentStream(document, page)) {
+                contentStream.drawImage(xObject, 50, 600);
+            }
+            document.save(pdfPath.toFile());
+        }
+        return pdfPath;
+    }
 }
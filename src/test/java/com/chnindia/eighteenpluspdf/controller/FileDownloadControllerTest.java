@@ -0,0 +1,173 @@
+package com.chnindia.eighteenpluspdf.controller;
+
+import com.chnindia.eighteenpluspdf.util.FileUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class FileDownloadControllerTest {
+
+    private static final Instant MODIFIED = Instant.parse("2026-01-01T10:00:00Z");
+    private static final String URL = "/pdf/download/result.pdf";
+
+    private MockMvc mockMvc;
+    private FileUtil fileUtil;
+    private Path file;
+    private byte[] content;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileUtil = new FileUtil();
+        ReflectionTestUtils.setField(fileUtil, "outputDir", tempDir.toString());
+        FileDownloadController controller = new FileDownloadController();
+        ReflectionTestUtils.setField(controller, "fileUtil", fileUtil);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        content = new byte[100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) ('a' + i % 26);
+        }
+        file = Files.write(tempDir.resolve("result.pdf"), content);
+        Files.setLastModifiedTime(file, FileTime.from(MODIFIED));
+    }
+
+    @Test
+    void testDownload_FullBodyWithValidators() throws Exception {
+        String etag = fileUtil.contentETag(file);
+
+        MockHttpServletResponse response = mockMvc.perform(get(URL))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+            .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "100"))
+            .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED, MODIFIED.toEpochMilli()))
+            .andReturn().getResponse();
+
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void testDownload_TaggedOutputUsesContentHash() throws Exception {
+        String etag = fileUtil.tagOutputFile(file);
+
+        assertEquals("\"" + fileUtil.calculateFileHash(file) + "\"", etag);
+        mockMvc.perform(get(URL)).andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void testDownload_NotModified() throws Exception {
+        String etag = fileUtil.contentETag(file);
+
+        mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get(URL).header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED)))
+            .andExpect(status().isNotModified());
+        mockMvc.perform(get(URL).header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED.minusSeconds(60))))
+            .andExpect(status().isOk());
+        // If-None-Match wins over If-Modified-Since
+        mockMvc.perform(get(URL)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"other\"")
+                .header(HttpHeaders.IF_MODIFIED_SINCE, httpDate(MODIFIED)))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testDownload_SingleRange() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=10-19"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-19/100"))
+            .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "10"))
+            .andReturn().getResponse();
+
+        assertArrayEquals(Arrays.copyOfRange(content, 10, 20), response.getContentAsByteArray());
+
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=-5"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 95-99/100"))
+            .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "5"));
+    }
+
+    @Test
+    void testDownload_IfRange() throws Exception {
+        String etag = fileUtil.contentETag(file);
+
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, etag))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-9/100"));
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, httpDate(MODIFIED)))
+            .andExpect(status().isPartialContent());
+
+        // A stale validator gets the whole current file
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"stale\""))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+            .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "100"));
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-9")
+                .header(HttpHeaders.IF_RANGE, httpDate(MODIFIED.minusSeconds(60))))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void testDownload_RangeNotSatisfiable() throws Exception {
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=100-200"))
+            .andExpect(status().isRequestedRangeNotSatisfiable())
+            .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100"))
+            .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void testDownload_MultipleRanges() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-4,50-54"))
+            .andExpect(status().isPartialContent())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+            .andReturn().getResponse();
+
+        String contentType = response.getContentType();
+        assertTrue(contentType.startsWith("multipart/byteranges; boundary="), contentType);
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+        byte[] body = response.getContentAsByteArray();
+        assertEquals(String.valueOf(body.length), response.getHeader(HttpHeaders.CONTENT_LENGTH));
+
+        String text = new String(body, StandardCharsets.US_ASCII);
+        String[] parts = text.split("\r\n--" + boundary);
+        // Leading empty preamble, two parts and the closing delimiter
+        assertEquals(4, parts.length);
+        assertTrue(parts[1].contains("Content-Range: bytes 0-4/100\r\n\r\nabcde"), parts[1]);
+        assertTrue(parts[2].contains("Content-Range: bytes 50-54/100\r\n\r\nyzabc"), parts[2]);
+        assertEquals("--\r\n", parts[3]);
+    }
+
+    @Test
+    void testDownload_MissingAndUnsafeNames() throws Exception {
+        mockMvc.perform(get("/pdf/download/missing.pdf")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/pdf/download/..evil.pdf")).andExpect(status().isBadRequest());
+    }
+
+    private static String httpDate(Instant instant) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atOffset(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,96 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.dto.response.JobProgressEvent;
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import com.chnindia.eighteenpluspdf.repository.JobRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobEventBusTest {
+
+    @Mock
+    private JobRepository jobRepository;
+
+    @InjectMocks
+    private JobEventBus eventBus;
+
+    @Test
+    void testPublish_DeliversLocalEventsAndCompletesOnTerminal() {
+        List<JobProgressEvent> received = new ArrayList<>();
+        Runnable unsubscribe = eventBus.subscribe("job-1", received::add);
+        CompletableFuture<JobProgressEvent> completion = eventBus.completionOf("job-1");
+
+        eventBus.publish(new JobProgressEvent("job-1", JobProgressEvent.Type.PROGRESS, JobStatus.Status.PROCESSING, 40, "Page 4"));
+        assertFalse(completion.isDone());
+        // Local jobs are not polled from the database
+        eventBus.refreshRemoteJobs();
+        verifyNoInteractions(jobRepository);
+
+        eventBus.publish(new JobProgressEvent("job-1", JobProgressEvent.Type.COMPLETED, JobStatus.Status.COMPLETED, 100, "Completed"));
+        assertEquals(JobProgressEvent.Type.COMPLETED, completion.join().getType());
+        assertEquals(List.of(40, 100), received.stream().map(JobProgressEvent::getProgress).toList());
+
+        unsubscribe.run();
+        eventBus.publish(new JobProgressEvent("job-1", JobProgressEvent.Type.PROGRESS, JobStatus.Status.PROCESSING, 10, "Again"));
+        assertEquals(2, received.size());
+    }
+
+    @Test
+    void testRefreshRemoteJobs_PublishesOnlyChanges() {
+        JobStatus remote = new JobStatus("job-2", "compress", "test.pdf");
+        remote.setStatus(JobStatus.Status.PROCESSING);
+        remote.setProgress(20);
+        when(jobRepository.findAllById(any())).thenAnswer(invocation -> List.of(remote));
+        List<JobProgressEvent> received = new ArrayList<>();
+        eventBus.subscribe("job-2", received::add);
+        CompletableFuture<JobProgressEvent> completion = eventBus.completionOf("job-2");
+
+        eventBus.refreshRemoteJobs();
+        eventBus.refreshRemoteJobs();
+        assertEquals(1, received.size());
+        assertEquals(JobProgressEvent.Type.PROGRESS, received.get(0).getType());
+
+        remote.setStatus(JobStatus.Status.FAILED);
+        eventBus.refreshRemoteJobs();
+        assertEquals(2, received.size());
+        assertEquals(JobProgressEvent.Type.FAILED, completion.join().getType());
+    }
+
+    @Test
+    void testRefreshRemoteJobs_ReleasesWaitersOfDeletedJob() {
+        when(jobRepository.findAllById(any())).thenReturn(List.of());
+        CompletableFuture<JobProgressEvent> completion = eventBus.completionOf("job-3");
+
+        eventBus.refreshRemoteJobs();
+
+        assertTrue(completion.isDone());
+        assertNull(completion.join());
+    }
+
+    @Test
+    void testDetach_HandsJobBackToDatabaseRefresh() {
+        JobStatus job = new JobStatus("job-4", "compress", "test.pdf");
+        when(jobRepository.findAllById(any())).thenReturn(List.of(job));
+        eventBus.subscribe("job-4", event -> {});
+        eventBus.publish(new JobProgressEvent("job-4", JobProgressEvent.Type.PROGRESS, JobStatus.Status.PROCESSING, 50, "Page 5"));
+
+        eventBus.refreshRemoteJobs();
+        verifyNoInteractions(jobRepository);
+
+        eventBus.detach("job-4");
+        eventBus.refreshRemoteJobs();
+        verify(jobRepository).findAllById(any());
+    }
+}
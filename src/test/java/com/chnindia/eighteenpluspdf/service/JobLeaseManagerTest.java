@@ -0,0 +1,131 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import com.chnindia.eighteenpluspdf.repository.JobRepository;
+import com.chnindia.eighteenpluspdf.util.CancellationToken;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:jobleasetestdb;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "app.file-storage.temp-dir=./temp-test",
+    "app.file-storage.output-dir=./output-test",
+    // Scheduled pollers would claim the rows these tests set up
+    "app.job-queue.poll-interval-ms=3600000",
+    "app.job-queue.heartbeat-interval-ms=3600000",
+    "app.job-queue.watchdog-interval-ms=3600000"
+})
+class JobLeaseManagerTest {
+
+    @Autowired
+    private JobLeaseManager leaseManager;
+
+    @Autowired
+    private JobWatchdog watchdog;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testClaim_OnlyFreeOrExpiredLeases() {
+        String held = createJob(JobStatus.Status.PROCESSING);
+        setLease(held, "other-node", LocalDateTime.now().plusMinutes(5));
+        String expired = createJob(JobStatus.Status.PROCESSING);
+        setLease(expired, "crashed-node", LocalDateTime.now().minusMinutes(5));
+
+        assertFalse(leaseManager.claim(held));
+        assertTrue(leaseManager.claim(expired));
+        assertEquals(leaseManager.getNodeId(), leaseOwner(expired));
+
+        leaseManager.release(expired);
+        assertNull(leaseOwner(expired));
+    }
+
+    @Test
+    void testRenewLeases_StopsJobReclaimedByAnotherNode() {
+        String kept = createJob(JobStatus.Status.PROCESSING);
+        String lost = createJob(JobStatus.Status.PROCESSING);
+        assertTrue(leaseManager.claim(kept));
+        assertTrue(leaseManager.claim(lost));
+        CancellationToken keptToken = watchdog.register(kept, "compress");
+        CancellationToken lostToken = watchdog.register(lost, "compress");
+        try {
+            // Another node reclaimed the job after our lease lapsed
+            setLease(lost, "other-node", LocalDateTime.now().plusMinutes(5));
+
+            leaseManager.renewLeases();
+
+            assertFalse(keptToken.isCancelled());
+            assertEquals(CancellationToken.Reason.LEASE_LOST, lostToken.getReason());
+            assertEquals("other-node", leaseOwner(lost));
+
+            // The stale worker's terminal state must not overwrite the new owner's row
+            JobStatus stale = jobRepository.findById(lost).orElseThrow();
+            stale.setStatus(JobStatus.Status.COMPLETED);
+            assertFalse(leaseManager.updateIfOwner(stale));
+            assertEquals("PROCESSING", status(lost));
+
+            JobStatus owned = jobRepository.findById(kept).orElseThrow();
+            owned.setStatus(JobStatus.Status.COMPLETED);
+            owned.setResultUrl("/api/download/result.pdf");
+            assertTrue(leaseManager.updateIfOwner(owned));
+            assertEquals("COMPLETED", status(kept));
+        } finally {
+            watchdog.unregister(kept);
+            watchdog.unregister(lost);
+            leaseManager.release(kept);
+        }
+    }
+
+    @Test
+    void testUpdateIfOwner_RefusesCancelledJob() {
+        String jobId = createJob(JobStatus.Status.PROCESSING);
+        assertTrue(leaseManager.claim(jobId));
+        try {
+            // Cancelled after the claim; the lease stays with the worker that cleans up
+            jdbcTemplate.update("UPDATE jobs SET status = 'CANCELLED' WHERE id = ?", jobId);
+
+            JobStatus finished = jobRepository.findById(jobId).orElseThrow();
+            finished.setStatus(JobStatus.Status.COMPLETED);
+            assertFalse(leaseManager.updateIfOwner(finished));
+            assertEquals("CANCELLED", status(jobId));
+        } finally {
+            leaseManager.release(jobId);
+        }
+    }
+
+    private String createJob(JobStatus.Status status) {
+        JobStatus job = new JobStatus(UUID.randomUUID().toString(), "compress", "test.pdf");
+        job.setStatus(status);
+        jobRepository.save(job);
+        return job.getId();
+    }
+
+    private void setLease(String jobId, String owner, LocalDateTime expiresAt) {
+        jdbcTemplate.update("UPDATE jobs SET lease_owner = ?, lease_expires_at = ? WHERE id = ?",
+            owner, Timestamp.valueOf(expiresAt), jobId);
+    }
+
+    private String leaseOwner(String jobId) {
+        return jdbcTemplate.queryForObject("SELECT lease_owner FROM jobs WHERE id = ?", String.class, jobId);
+    }
+
+    private String status(String jobId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM jobs WHERE id = ?", String.class, jobId);
+    }
+}
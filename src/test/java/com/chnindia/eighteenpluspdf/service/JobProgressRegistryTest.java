@@ -0,0 +1,122 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import com.chnindia.eighteenpluspdf.repository.JobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:jobprogresstestdb;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "app.file-storage.temp-dir=./temp-test",
+    "app.file-storage.output-dir=./output-test",
+    // Flushes are driven by the tests
+    "app.job-queue.progress-flush-interval-ms=3600000",
+    "app.job-queue.poll-interval-ms=3600000"
+})
+class JobProgressRegistryTest {
+
+    @Autowired
+    private JobProgressRegistry progressRegistry;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testFlush_CoalescesTicksIntoOneWrite() {
+        JobStatus job = processingJob();
+        progressRegistry.track(job);
+        progressRegistry.update(job.getId(), 30, "Page 3");
+        progressRegistry.update(job.getId(), 60, "Page 6");
+
+        // Nothing reaches the table until the flush
+        assertEquals(0, row(job.getId()).get("PROGRESS"));
+        assertEquals(60, progressRegistry.getSnapshot(job.getId()).getProgress());
+
+        long rowsBefore = (Long) progressRegistry.getMetrics().get("flushedRows");
+        progressRegistry.flush();
+
+        Map<String, Object> row = row(job.getId());
+        assertEquals("PROCESSING", row.get("STATUS"));
+        assertEquals(60, row.get("PROGRESS"));
+        assertEquals("Page 6", row.get("CURRENT_OPERATION"));
+        assertEquals(rowsBefore + 1, (Long) progressRegistry.getMetrics().get("flushedRows"));
+
+        // A clean entry is not written again
+        progressRegistry.flush();
+        assertEquals(rowsBefore + 1, (Long) progressRegistry.getMetrics().get("flushedRows"));
+        progressRegistry.complete(job.getId());
+    }
+
+    @Test
+    void testFlush_DoesNotOverwriteTerminalRow() {
+        JobStatus job = processingJob();
+        progressRegistry.track(job);
+        progressRegistry.update(job.getId(), 90, "Saving");
+
+        // The terminal update lands before the tick taken earlier is flushed
+        jdbcTemplate.update("UPDATE jobs SET status = 'COMPLETED', progress = 100, current_operation = 'Completed' WHERE id = ?",
+            job.getId());
+        progressRegistry.flush();
+
+        Map<String, Object> row = row(job.getId());
+        assertEquals("COMPLETED", row.get("STATUS"));
+        assertEquals(100, row.get("PROGRESS"));
+        assertEquals("Completed", row.get("CURRENT_OPERATION"));
+        progressRegistry.complete(job.getId());
+    }
+
+    @Test
+    void testFlush_DoesNotOverwriteScheduledRetry() {
+        JobStatus job = processingJob();
+        progressRegistry.track(job);
+        progressRegistry.update(job.getId(), 40, "Page 4");
+
+        jdbcTemplate.update("UPDATE jobs SET status = 'PENDING', progress = 0, current_operation = 'Retrying', " +
+            "next_attempt_at = ? WHERE id = ?", Timestamp.valueOf(LocalDateTime.now().plusMinutes(5)), job.getId());
+        progressRegistry.flush();
+
+        Map<String, Object> row = row(job.getId());
+        assertEquals("PENDING", row.get("STATUS"));
+        assertEquals("Retrying", row.get("CURRENT_OPERATION"));
+        progressRegistry.complete(job.getId());
+    }
+
+    @Test
+    void testDetach_FlushesLastTickAndStopsTracking() {
+        JobStatus job = processingJob();
+        progressRegistry.track(job);
+        progressRegistry.update(job.getId(), 70, "Page 7");
+
+        progressRegistry.detach(job.getId());
+
+        assertEquals(70, row(job.getId()).get("PROGRESS"));
+        assertNull(progressRegistry.getSnapshot(job.getId()));
+    }
+
+    private JobStatus processingJob() {
+        JobStatus job = new JobStatus(UUID.randomUUID().toString(), "compress", "test.pdf");
+        job.setStatus(JobStatus.Status.PROCESSING);
+        jobRepository.save(job);
+        return job;
+    }
+
+    private Map<String, Object> row(String jobId) {
+        return jdbcTemplate.queryForMap("SELECT status, progress, current_operation FROM jobs WHERE id = ?", jobId);
+    }
+}
@@ -0,0 +1,165 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.dto.response.JobAttempt;
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import com.chnindia.eighteenpluspdf.repository.JobRepository;
+import com.chnindia.eighteenpluspdf.util.CancellationToken;
+import com.chnindia.eighteenpluspdf.util.FileUtil;
+import com.chnindia.eighteenpluspdf.worker.PDFWorker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:jobretrytestdb;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "app.file-storage.temp-dir=./temp-test",
+    "app.file-storage.output-dir=./output-test",
+    "app.job-queue.poll-interval-ms=3600000",
+    "app.job-queue.max-retries=3",
+    "app.job-queue.retry-delay-ms=60000"
+})
+class JobQueueServiceRetryTest {
+
+    @Autowired
+    private JobQueueService jobQueueService;
+
+    @Autowired
+    private JobRepository jobRepository;
+
+    @Autowired
+    private JobLeaseManager leaseManager;
+
+    @Autowired
+    private JobRetryScheduler retryScheduler;
+
+    @Autowired
+    private FileUtil fileUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private PDFWorker pdfWorker;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testProcessJob_RetryableFailureIsRescheduledWithBackoff() throws IOException {
+        when(pdfWorker.process(any(), any(), any(), any(), any()))
+            .thenThrow(new PDFProcessingException("TEMP_ERROR", "Temp storage unavailable"));
+        String jobId = claimedJob();
+
+        jobQueueService.processJob(jobId);
+
+        JobStatus job = jobRepository.findById(jobId).orElseThrow();
+        assertEquals(JobStatus.Status.PENDING, job.getStatus());
+        assertEquals(1, job.getAttemptCount());
+        // Backoff of 30-60s on the first retry
+        assertTrue(job.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(25)));
+        List<JobAttempt> history = JobAttempt.readHistory(job.getAttemptHistory());
+        assertEquals("RETRY_SCHEDULED", history.get(0).getOutcome());
+        assertEquals("TEMP_ERROR", history.get(0).getErrorCode());
+        assertTrue(retryScheduler.cancel(jobId));
+        // The input is kept for the next attempt
+        assertTrue(Files.exists(Path.of(job.getInputPath())));
+    }
+
+    @Test
+    void testProcessJob_NonRetryableFailureFailsTheJob() throws IOException {
+        when(pdfWorker.process(any(), any(), any(), any(), any()))
+            .thenThrow(new PDFProcessingException("INVALID_PDF", "Not a PDF"));
+        String jobId = claimedJob();
+
+        jobQueueService.processJob(jobId);
+
+        JobStatus job = jobRepository.findById(jobId).orElseThrow();
+        assertEquals(JobStatus.Status.FAILED, job.getStatus());
+        assertNull(job.getNextAttemptAt());
+        assertNotNull(job.getCompletedAt());
+        List<JobAttempt> history = JobAttempt.readHistory(job.getAttemptHistory());
+        assertEquals("FAILED", history.get(0).getOutcome());
+        assertFalse(history.get(0).getRetryable());
+        assertFalse(retryScheduler.cancel(jobId));
+        assertNull(job.getLeaseOwner());
+    }
+
+    @Test
+    void testProcessJob_CancelBeforeCompletionWins() throws IOException {
+        String jobId = claimedJob();
+        String cacheKey = UUID.randomUUID().toString();
+        jdbcTemplate.update("UPDATE jobs SET cache_key = ? WHERE id = ?", cacheKey, jobId);
+        Path output = fileUtil.resolveOutputFile("cancelled-" + UUID.randomUUID() + ".pdf");
+        when(pdfWorker.process(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            Files.createDirectories(output.getParent());
+            Files.writeString(output, "%PDF-1.4");
+            invocation.<CancellationToken>getArgument(4).registerTempPath(output);
+            // Cancelled through another node, which cannot stop this worker directly
+            cancelElsewhere(jobId);
+            return Map.of("resultUrl", fileUtil.getDownloadUrl(output.getFileName().toString()));
+        });
+
+        jobQueueService.processJob(jobId);
+
+        JobStatus job = jobRepository.findById(jobId).orElseThrow();
+        assertEquals(JobStatus.Status.CANCELLED, job.getStatus());
+        assertNull(job.getResultUrl());
+        assertNull(job.getLeaseOwner());
+        assertFalse(Files.exists(Path.of(job.getInputPath())));
+        // The dropped output is neither kept nor indexed for later submissions
+        assertFalse(Files.exists(output));
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM result_cache WHERE cache_key = ?", Integer.class, cacheKey));
+    }
+
+    @Test
+    void testProcessJob_CancelBeforeRetryWins() throws IOException {
+        String jobId = claimedJob();
+        when(pdfWorker.process(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            cancelElsewhere(jobId);
+            throw new PDFProcessingException("TEMP_ERROR", "Temp storage unavailable");
+        });
+
+        jobQueueService.processJob(jobId);
+
+        JobStatus job = jobRepository.findById(jobId).orElseThrow();
+        assertEquals(JobStatus.Status.CANCELLED, job.getStatus());
+        assertNull(job.getNextAttemptAt());
+        assertFalse(retryScheduler.cancel(jobId));
+        assertNull(job.getLeaseOwner());
+        assertFalse(Files.exists(Path.of(job.getInputPath())));
+    }
+
+    private void cancelElsewhere(String jobId) {
+        jdbcTemplate.update("UPDATE jobs SET status = 'CANCELLED' WHERE id = ?", jobId);
+    }
+
+    private String claimedJob() throws IOException {
+        Path input = Files.writeString(tempDir.resolve(UUID.randomUUID() + ".pdf"), "%PDF-1.4");
+        JobStatus job = new JobStatus(UUID.randomUUID().toString(), "compress", "test.pdf");
+        job.setInputPath(input.toString());
+        jobRepository.save(job);
+        assertTrue(leaseManager.claim(job.getId()));
+        return job.getId();
+    }
+}
@@ -2,7 +2,9 @@ package com.chnindia.eighteenpluspdf.service;
 
 import com.chnindia.eighteenpluspdf.dto.JobRequest;
 import com.chnindia.eighteenpluspdf.dto.JobResponse;
+import com.chnindia.eighteenpluspdf.dto.response.JobPage;
 import com.chnindia.eighteenpluspdf.dto.response.JobStatusResponse;
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
 import com.chnindia.eighteenpluspdf.model.JobStatus;
 import com.chnindia.eighteenpluspdf.repository.JobRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,7 +18,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -123,6 +128,17 @@ class JobQueueServiceTest {
         }
     }
     
+    @Test
+    void testGetStatistics_IncludesQueueMetrics() {
+        var stats = jobQueueService.getStatistics();
+        
+        assertTrue(stats.containsKey("queue"));
+        @SuppressWarnings("unchecked")
+        var queue = (java.util.Map<String, Object>) stats.get("queue");
+        assertTrue(queue.containsKey("pools"));
+        assertTrue(queue.containsKey("tools"));
+    }
+    
     @Test
     void testCleanupOldJobs() {
         // Verify the method runs without error - in test it may throw due to transaction
@@ -135,6 +151,32 @@ class JobQueueServiceTest {
         }
     }
     
+    @Test
+    void testListJobs_KeysetPagination() {
+        // Far-future timestamps keep these jobs on the first pages; two share a timestamp to exercise the id tie-break
+        LocalDateTime base = LocalDateTime.of(2100, 1, 1, 0, 0);
+        for (int i = 0; i < 5; i++) {
+            JobStatus job = new JobStatus("keyset-" + i, "extract-text", "test.pdf");
+            job.setStatus(JobStatus.Status.CANCELLED);
+            job.setCreatedAt(base.plusMinutes(Math.min(i, 3)));
+            jobRepository.save(job);
+        }
+        jobRepository.flush();
+        List<String> expected = List.of("keyset-4", "keyset-3", "keyset-2", "keyset-1", "keyset-0");
+        
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            JobPage page = jobQueueService.listJobs(JobStatus.Status.CANCELLED, cursor, 2);
+            assertTrue(page.getJobs().size() <= 2);
+            page.getJobs().forEach(job -> seen.add(job.getJobId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null && seen.size() < 5);
+        
+        assertEquals(expected, seen.subList(0, 5));
+        assertThrows(PDFProcessingException.class, () -> jobQueueService.listJobs(null, "not-a-cursor", 2));
+    }
+    
     private JobRequest createJobRequest(String toolName) {
         JobRequest request = new JobRequest();
         request.setToolName(toolName);
@@ -0,0 +1,75 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.exception.ExternalToolException;
+import com.chnindia.eighteenpluspdf.exception.JobCancelledException;
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobRetrySchedulerTest {
+
+    private JobRetryScheduler retryScheduler;
+
+    @BeforeEach
+    void setUp() {
+        retryScheduler = new JobRetryScheduler();
+        ReflectionTestUtils.setField(retryScheduler, "retryDelayMs", 1000L);
+        ReflectionTestUtils.setField(retryScheduler, "retryMaxDelayMs", 8000L);
+        ReflectionTestUtils.setField(retryScheduler, "retryableErrorCodes", Set.of("TEMP_ERROR", "EXTERNAL_TOOL_ERROR"));
+        retryScheduler.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        retryScheduler.shutdown();
+    }
+
+    @Test
+    void testIsRetryable_ByErrorCode() {
+        assertTrue(retryScheduler.isRetryable(new PDFProcessingException("TEMP_ERROR", "disk full")));
+        assertTrue(retryScheduler.isRetryable(new ExternalToolException("EXTERNAL_TOOL_ERROR", "soffice crashed")));
+        assertFalse(retryScheduler.isRetryable(new PDFProcessingException("INVALID_PDF", "not a PDF")));
+        assertFalse(retryScheduler.isRetryable(new JobCancelledException("job-1", true)));
+        // Failures without an error code may be transient
+        assertTrue(retryScheduler.isRetryable(new IOException("connection reset")));
+        assertEquals("INVALID_PDF", retryScheduler.errorCodeOf(new PDFProcessingException("INVALID_PDF", "x")));
+        assertNull(retryScheduler.errorCodeOf(new IllegalStateException()));
+    }
+
+    @Test
+    void testBackoffMillis_DoublesWithJitterUpToTheCap() {
+        for (int i = 0; i < 50; i++) {
+            long first = retryScheduler.backoffMillis(1);
+            assertTrue(first >= 500 && first <= 1000, "attempt 1: " + first);
+            long third = retryScheduler.backoffMillis(3);
+            assertTrue(third >= 2000 && third <= 4000, "attempt 3: " + third);
+            long capped = retryScheduler.backoffMillis(30);
+            assertTrue(capped >= 4000 && capped <= 8000, "attempt 30: " + capped);
+        }
+    }
+
+    @Test
+    void testSchedule_DispatchesWhenDueUnlessCancelled() throws InterruptedException {
+        CountDownLatch dispatched = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        long start = System.nanoTime();
+        retryScheduler.schedule("job-due", 100, dispatched::countDown);
+        retryScheduler.schedule("job-cancelled", 100, cancelled::countDown);
+        assertTrue(retryScheduler.cancel("job-cancelled"));
+
+        assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+        assertFalse(cancelled.await(300, TimeUnit.MILLISECONDS));
+        assertEquals(2L, retryScheduler.getMetrics().get("retriesScheduled"));
+        assertEquals(0, retryScheduler.getMetrics().get("delayedJobs"));
+    }
+}
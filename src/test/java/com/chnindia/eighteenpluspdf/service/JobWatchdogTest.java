@@ -0,0 +1,100 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.exception.JobCancelledException;
+import com.chnindia.eighteenpluspdf.model.JobStatus;
+import com.chnindia.eighteenpluspdf.repository.JobRepository;
+import com.chnindia.eighteenpluspdf.util.CancellationToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobWatchdogTest {
+
+    @Mock
+    private JobRepository jobRepository;
+
+    @InjectMocks
+    private JobWatchdog watchdog;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(watchdog, "timeoutMinutes", 30);
+        ReflectionTestUtils.setField(watchdog, "toolTimeoutMinutes", "ocr-pdf=120, bad");
+        watchdog.initialize();
+    }
+
+    @Test
+    void testGetTimeoutMinutes_ToolOverrides() {
+        assertEquals(120, watchdog.getTimeoutMinutes("OCR-PDF"));
+        assertEquals(30, watchdog.getTimeoutMinutes("compress"));
+        assertEquals(30, watchdog.getTimeoutMinutes(null));
+    }
+
+    @Test
+    void testCancel_LeavesPartialOutputsForTheWorker() throws IOException {
+        Path partial = Files.writeString(tempDir.resolve("partial.pdf"), "%PDF-");
+        CancellationToken token = watchdog.register("job-1", "compress");
+        token.registerTempPath(partial);
+
+        assertTrue(watchdog.cancel("job-1"));
+        assertFalse(watchdog.cancel("job-1"));
+        assertFalse(watchdog.cancel("not-running"));
+
+        // The worker may still be writing, so the file stays until it stops
+        assertTrue(Files.exists(partial));
+        JobCancelledException e = assertThrows(JobCancelledException.class, token::throwIfCancelled);
+        assertFalse(e.isTimedOut());
+        token.releaseTempPaths();
+        assertFalse(Files.exists(partial));
+        assertEquals(1L, watchdog.getMetrics().get("cancelled"));
+    }
+
+    @Test
+    void testSweep_TimesOutOverdueJobsAndAppliesRemoteCancellations() {
+        CancellationToken overdue = new CancellationToken("job-overdue", System.currentTimeMillis() - 1);
+        @SuppressWarnings("unchecked")
+        Map<String, CancellationToken> tokens = (Map<String, CancellationToken>) ReflectionTestUtils.getField(watchdog, "tokens");
+        tokens.put("job-overdue", overdue);
+        CancellationToken remote = watchdog.register("job-remote", "compress");
+        CancellationToken running = watchdog.register("job-running", "compress");
+        when(jobRepository.findIdsByStatus(any(), eq(JobStatus.Status.CANCELLED))).thenReturn(List.of("job-remote"));
+
+        watchdog.sweep();
+
+        assertEquals(CancellationToken.Reason.TIMED_OUT, overdue.getReason());
+        assertTrue(assertThrows(JobCancelledException.class, overdue::throwIfCancelled).isTimedOut());
+        assertEquals(CancellationToken.Reason.CANCELLED, remote.getReason());
+        assertFalse(running.isCancelled());
+        assertEquals(1L, watchdog.getMetrics().get("timedOut"));
+    }
+
+    @Test
+    void testSweep_SkipsDatabaseWhenNothingRuns() {
+        watchdog.register("job-done", "compress");
+        watchdog.unregister("job-done");
+
+        watchdog.sweep();
+
+        verifyNoInteractions(jobRepository);
+    }
+}
@@ -0,0 +1,102 @@
+package com.chnindia.eighteenpluspdf.service;
+
+import com.chnindia.eighteenpluspdf.repository.ResultCacheRepository;
+import com.chnindia.eighteenpluspdf.util.FileUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:resultcachetestdb;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "app.file-storage.temp-dir=./temp-test",
+    "app.file-storage.output-dir=./output-test",
+    "app.result-cache.max-size-mb=1",
+    "app.result-cache.eviction-interval-ms=3600000"
+})
+class ResultCacheServiceTest {
+
+    @Autowired
+    private ResultCacheService resultCache;
+
+    @Autowired
+    private ResultCacheRepository cacheRepository;
+
+    @Autowired
+    private FileUtil fileUtil;
+
+    @Test
+    void testComputeKey_IgnoresParameterOrderAndPriority() {
+        String key = resultCache.computeKey("abc", "compress", Map.of("quality", 80, "preset", "web"));
+        assertEquals(key, resultCache.computeKey("abc", "compress", Map.of("preset", "web", "quality", 80, "priority", 9)));
+        assertNotEquals(key, resultCache.computeKey("abc", "compress", Map.of("preset", "print", "quality", 80)));
+        assertNotEquals(key, resultCache.computeKey("abc", "optimize", Map.of("quality", 80, "preset", "web")));
+    }
+
+    @Test
+    void testLookup_HitThenMissOnceOutputIsGone() throws IOException {
+        String key = UUID.randomUUID().toString();
+        Path output = writeOutput(1024);
+        resultCache.store(key, "hash", "compress", "job-1", result(output));
+        long hits = (Long) resultCache.getMetrics().get("hits");
+        long misses = (Long) resultCache.getMetrics().get("misses");
+
+        ResultCacheService.CachedResult cached = resultCache.lookup(key).orElseThrow();
+        assertEquals("job-1", cached.sourceJobId());
+        assertEquals(fileUtil.getDownloadUrl(output.getFileName().toString()), cached.resultUrl());
+        assertEquals(hits + 1, (Long) resultCache.getMetrics().get("hits"));
+
+        assertTrue(resultCache.lookup(UUID.randomUUID().toString()).isEmpty());
+        assertEquals(misses + 1, (Long) resultCache.getMetrics().get("misses"));
+
+        // An entry whose output was deleted is evicted on lookup
+        Files.delete(output);
+        assertTrue(resultCache.lookup(key).isEmpty());
+        assertFalse(cacheRepository.existsById(key));
+    }
+
+    @Test
+    void testEvictExpired_DropsLeastRecentlyUsedOverSizeLimit() throws Exception {
+        String older = UUID.randomUUID().toString();
+        String newer = UUID.randomUUID().toString();
+        Path olderOutput = writeOutput(600 * 1024);
+        Path newerOutput = writeOutput(600 * 1024);
+        resultCache.store(older, "hash-a", "compress", "job-a", result(olderOutput));
+        Thread.sleep(10);
+        resultCache.store(newer, "hash-b", "compress", "job-b", result(newerOutput));
+        Thread.sleep(10);
+        // Using the older entry makes the newer one the least recently used
+        assertTrue(resultCache.lookup(older).isPresent());
+
+        resultCache.evictExpired();
+
+        assertTrue(cacheRepository.existsById(older));
+        assertFalse(cacheRepository.existsById(newer));
+        assertTrue(Files.exists(olderOutput));
+        assertFalse(Files.exists(newerOutput));
+        cacheRepository.deleteById(older);
+        Files.deleteIfExists(olderOutput);
+    }
+
+    private Path writeOutput(int size) throws IOException {
+        Path output = fileUtil.resolveOutputFile("cache-test-" + UUID.randomUUID() + ".pdf");
+        Files.createDirectories(output.getParent());
+        Files.write(output, new byte[size]);
+        return output;
+    }
+
+    private Map<String, Object> result(Path output) {
+        return Map.of("resultUrl", fileUtil.getDownloadUrl(output.getFileName().toString()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteRangesTest {
+
+    @Test
+    void testParse_ResolvesSuffixAndOpenRanges() {
+        assertEquals(List.of(new ByteRanges.Range(900, 999)), ByteRanges.parse("bytes=-100", 1000));
+        assertEquals(List.of(new ByteRanges.Range(500, 999)), ByteRanges.parse("bytes=500-", 1000));
+        assertEquals(List.of(new ByteRanges.Range(990, 999)), ByteRanges.parse("bytes=990-5000", 1000));
+    }
+
+    @Test
+    void testParse_MergesOverlappingRanges() {
+        assertEquals(List.of(new ByteRanges.Range(0, 20), new ByteRanges.Range(50, 59)),
+            ByteRanges.parse("bytes=50-59, 10-20, 0-10", 1000));
+    }
+
+    @Test
+    void testParse_UnsatisfiableAndMalformed() {
+        assertTrue(ByteRanges.parse("bytes=1000-", 1000).isEmpty());
+        assertNull(ByteRanges.parse("bytes=20-10", 1000));
+        assertNull(ByteRanges.parse("items=0-10", 1000));
+        assertNull(ByteRanges.parse(null, 1000));
+    }
+}
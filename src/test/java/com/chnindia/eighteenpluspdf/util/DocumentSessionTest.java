@@ -0,0 +1,58 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocumentSessionTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDocument_ParsedOncePerSession() throws IOException {
+        Path file = writePdf("shared.pdf", 2);
+
+        try (DocumentSession session = new DocumentSession(new PDFUtil(), 1024 * 1024)) {
+            PDDocument first = session.document(file);
+
+            assertSame(first, session.document(file));
+            assertEquals(2, session.pageCount(file));
+            assertSame(session.render(file, 0, 36), session.render(file, 0, 36));
+        }
+    }
+
+    @Test
+    void testDocument_ReparsedWhenFileChanges() throws IOException {
+        Path file = writePdf("changing.pdf", 1);
+
+        DocumentSession session = new DocumentSession(new PDFUtil(), 1024 * 1024);
+        PDDocument original = session.document(file);
+        writePdf("changing.pdf", 3);
+
+        assertEquals(3, session.pageCount(file));
+        assertTrue(original.getDocument().isClosed());
+
+        PDDocument current = session.document(file);
+        session.close();
+        assertTrue(current.getDocument().isClosed());
+        assertThrows(IllegalStateException.class, () -> session.document(file));
+    }
+
+    private Path writePdf(String name, int pages) throws IOException {
+        Path file = tempDir.resolve(name);
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                document.addPage(new PDPage());
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+}
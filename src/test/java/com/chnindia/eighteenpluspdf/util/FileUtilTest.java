@@ -10,6 +10,8 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -32,6 +34,10 @@ class FileUtilTest {
         outputDirField.setAccessible(true);
         outputDirField.set(fileUtil, tempDir.resolve("output").toString());
         
+        var jobInputDirField = FileUtil.class.getDeclaredField("jobInputDir");
+        jobInputDirField.setAccessible(true);
+        jobInputDirField.set(fileUtil, tempDir.resolve("jobs").toString());
+        
         var allowedExtensionsField = FileUtil.class.getDeclaredField("allowedExtensions");
         allowedExtensionsField.setAccessible(true);
         allowedExtensionsField.set(fileUtil, ".pdf,.doc,.docx,.xls,.xlsx,.ppt,.pptx,.jpg,.jpeg,.png,.bmp,.tiff,.txt");
@@ -95,6 +101,27 @@ class FileUtilTest {
         assertEquals("test content", Files.readString(savedPath));
     }
     
+    @Test
+    void testSpoolUpload_RecordsHashAndSize() throws IOException {
+        MultipartFile file = new MockMultipartFile(
+            "file", 
+            "test.pdf", 
+            "application/pdf", 
+            "test content".getBytes()
+        );
+        
+        SpooledMultipartFile spooled = fileUtil.spoolUpload(file);
+        
+        assertTrue(Files.exists(spooled.getPath()));
+        assertEquals("test content", Files.readString(spooled.getPath()));
+        assertEquals(12, spooled.getSize());
+        assertEquals(fileUtil.calculateFileHash(spooled.getPath()), spooled.getSha256());
+        
+        // Spooled uploads are used in place
+        assertSame(spooled, fileUtil.spoolUpload(spooled));
+        assertEquals(spooled.getPath(), fileUtil.toLocalPath(spooled));
+    }
+    
     @Test
     void testCreateTempDirectory() throws IOException {
         Path dirPath = fileUtil.createTempDirectory();
@@ -288,4 +315,41 @@ class FileUtilTest {
         assertTrue(Files.exists(savedPaths.get(0)));
         assertTrue(Files.exists(savedPaths.get(1)));
     }
+    
+    @Test
+    void testContentETag_HashedOnlyWhenTagged() throws IOException {
+        Path output = Files.writeString(tempDir.resolve("output").resolve("result.pdf"), "result content");
+        
+        // Untagged files get a cheap tag from size and modification time
+        String fallback = fileUtil.contentETag(output);
+        assertTrue(fallback.matches("\"[0-9a-f]+-[0-9a-f]+\""), fallback);
+        
+        fileUtil.tagOutputFiles(Map.of("files", List.of(fileUtil.getDownloadUrl("result.pdf"), "missing.pdf")));
+        assertEquals("\"" + fileUtil.calculateFileHash(output) + "\"", fileUtil.contentETag(output));
+        
+        // A rewritten file is no longer covered by its old hash
+        Files.writeString(output, "rewritten content!");
+        assertNotEquals(fallback, fileUtil.contentETag(output));
+        assertTrue(fileUtil.contentETag(output).contains("-"));
+    }
+    
+    @Test
+    void testContentETag_PersistedUntilFileIsDeleted() throws Exception {
+        Path output = Files.writeString(tempDir.resolve("output").resolve("kept.pdf"), "kept content");
+        String etag = fileUtil.tagOutputFile(output);
+        
+        // Another node, or this one after a restart, serves the same tag
+        FileUtil otherNode = new FileUtil();
+        var outputDirField = FileUtil.class.getDeclaredField("outputDir");
+        outputDirField.setAccessible(true);
+        outputDirField.set(otherNode, tempDir.resolve("output").toString());
+        assertEquals(etag, otherNode.contentETag(output));
+        // The sidecar is not an output file
+        assertNull(fileUtil.resolveOutputFile(".etags/kept.pdf.sha256"));
+        
+        fileUtil.cleanupTempFile(output);
+        assertFalse(Files.exists(tempDir.resolve("output").resolve(".etags").resolve("kept.pdf.sha256")));
+        Files.writeString(output, "kept content");
+        assertNotEquals(etag, otherNode.contentETag(output));
+    }
 }
@@ -0,0 +1,134 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDTrueTypeFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FontSubsetterTest {
+
+    private static final String FONT = "/org/apache/pdfbox/resources/ttf/LiberationSans-Regular.ttf";
+
+    @TempDir
+    Path tempDir;
+
+    private final ParallelWorkPool pool = new ParallelWorkPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testSubset_KeepsOnlyDrawnGlyphsOfFullyEmbeddedFont() throws IOException {
+        Path source = tempDir.resolve("source.pdf");
+        try (PDDocument document = new PDDocument();
+             InputStream font = getClass().getResourceAsStream(FONT)) {
+            // Embedded whole, as office tools do
+            PDType0Font type0 = PDType0Font.load(document, font, false);
+            String[] lines = {"Hello subset", "Second page"};
+            for (String line : lines) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(type0, 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText(line);
+                    content.endText();
+                }
+            }
+            document.save(source.toFile());
+        }
+
+        Path output = tempDir.resolve("output.pdf");
+        try (PDDocument document = Loader.loadPDF(source.toFile())) {
+            FontSubsetter.Result result = new FontSubsetter(source, IOUtils.createMemoryOnlyStreamCache(), pool, 2, null)
+                .subset(document);
+            assertEquals(1, result.fontsSubset());
+            assertTrue(result.bytesSaved() > 100_000, "saved " + result.bytesSaved());
+            document.save(output.toFile());
+        }
+        assertTrue(Files.size(output) < Files.size(source) / 4);
+
+        try (PDDocument document = Loader.loadPDF(output.toFile())) {
+            PDType0Font font = (PDType0Font) document.getPage(1).getResources().getFont(
+                document.getPage(1).getResources().getFontNames().iterator().next());
+            assertTrue(font.getName().matches("[A-Z]{6}\\+LiberationSans"), font.getName());
+            assertEquals("Hello subset\nSecond page\n", new PDFTextStripper().getText(document));
+            // Glyph 'p' is drawn from the subset through the rewritten CIDToGIDMap
+            int code = font.encode("p")[1] & 0xFF;
+            assertTrue(font.getDescendantFont().codeToGID(code) > 0);
+            assertEquals(font.getWidth(code), 556, 1);
+        }
+    }
+
+    @Test
+    void testSubset_KeepsFontFileSharedWithSimpleFont() throws IOException {
+        Path source = tempDir.resolve("shared.pdf");
+        long programLength;
+        try (PDDocument document = new PDDocument();
+             InputStream font = getClass().getResourceAsStream(FONT)) {
+            PDType0Font type0 = PDType0Font.load(document, font, false);
+            // A simple TrueType font over the same descriptor and program draws with the font's own cmap
+            COSDictionary simple = new COSDictionary();
+            simple.setItem(COSName.TYPE, COSName.FONT);
+            simple.setItem(COSName.SUBTYPE, COSName.TRUE_TYPE);
+            simple.setName(COSName.BASE_FONT, "LiberationSans");
+            simple.setItem(COSName.ENCODING, COSName.WIN_ANSI_ENCODING);
+            simple.setInt(COSName.FIRST_CHAR, 32);
+            simple.setInt(COSName.LAST_CHAR, 126);
+            COSArray widths = new COSArray();
+            for (int code = 32; code <= 126; code++) {
+                widths.add(COSInteger.get(500));
+            }
+            simple.setItem(COSName.WIDTHS, widths);
+            simple.setItem(COSName.FONT_DESC, type0.getDescendantFont().getCOSObject().getItem(COSName.FONT_DESC));
+            PDTrueTypeFont trueType = new PDTrueTypeFont(simple);
+
+            PDFont[] fonts = {type0, trueType};
+            String[] lines = {"Hello", "Widely shared"};
+            for (int i = 0; i < fonts.length; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(fonts[i], 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText(lines[i]);
+                    content.endText();
+                }
+            }
+            document.save(source.toFile());
+            programLength = type0.getFontDescriptor().getFontFile2().getCOSObject().getLength();
+        }
+
+        try (PDDocument document = Loader.loadPDF(source.toFile())) {
+            FontSubsetter.Result result = new FontSubsetter(source, IOUtils.createMemoryOnlyStreamCache(), pool, 2, null)
+                .subset(document);
+            assertEquals(0, result.fontsSubset());
+            PDPage page = document.getPage(1);
+            PDFont trueType = page.getResources().getFont(page.getResources().getFontNames().iterator().next());
+            assertEquals(programLength, trueType.getFontDescriptor().getFontFile2().getCOSObject().getLength());
+        }
+    }
+}
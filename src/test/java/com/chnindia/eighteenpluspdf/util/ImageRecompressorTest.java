@@ -0,0 +1,77 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageRecompressorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ParallelWorkPool pool = new ParallelWorkPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testRecompress_DownsamplesSharedImageToPlacementDpi() throws IOException {
+        BufferedImage photo = new BufferedImage(1200, 1200, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(7);
+        for (int x = 0; x < 1200; x++) {
+            for (int y = 0; y < 1200; y++) {
+                photo.setRGB(x, y, (x / 5) << 16 | (y / 5) << 8 | random.nextInt(32));
+            }
+        }
+        Path source = tempDir.resolve("source.pdf");
+        try (PDDocument document = new PDDocument()) {
+            PDImageXObject image = LosslessFactory.createFromImage(document, photo);
+            for (int i = 0; i < 3; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    // 200pt wide is 432 dpi; the 3rd page draws it twice as large
+                    float size = i == 2 ? 400 : 200;
+                    content.drawImage(image, 50, 50, size, size);
+                }
+            }
+            document.save(source.toFile());
+        }
+
+        Path output = tempDir.resolve("output.pdf");
+        ImageRecompressor.Options options = new ImageRecompressor.Options("jpeg", 0.75f, 100, false, false);
+        try (PDDocument document = Loader.loadPDF(source.toFile())) {
+            ImageRecompressor.Result result = new ImageRecompressor(source, IOUtils.createMemoryOnlyStreamCache(),
+                pool, 2, options, null).recompress(document);
+            assertEquals(1, result.imagesReplaced());
+            assertTrue(result.bytesSaved() > 0);
+            document.save(output.toFile());
+        }
+
+        try (PDDocument document = Loader.loadPDF(output.toFile())) {
+            PDImageXObject first = (PDImageXObject) document.getPage(0).getResources().getXObject(COSName.getPDFName("Im1"));
+            PDImageXObject last = (PDImageXObject) document.getPage(2).getResources().getXObject(COSName.getPDFName("Im1"));
+            assertSame(first.getCOSObject(), last.getCOSObject());
+            // The largest placement (400pt, 216 dpi) decides: 1200 * 100 / 216
+            assertEquals(556, first.getWidth());
+            assertEquals("jpg", first.getSuffix());
+        }
+    }
+}
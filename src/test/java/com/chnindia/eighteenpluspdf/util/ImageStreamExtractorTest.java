@@ -0,0 +1,60 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageStreamExtractorTest {
+
+    @Test
+    void testExtract_PassesJpegThroughOnceAndDecodesFlate() throws IOException {
+        BufferedImage picture = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        picture.getGraphics().fillRect(10, 10, 20, 20);
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(picture, "jpg", jpeg);
+
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            PDImageXObject shared = JPEGFactory.createFromByteArray(document, jpeg.toByteArray());
+            PDImageXObject lossless = LosslessFactory.createFromImage(document, picture);
+            for (int i = 0; i < 2; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.drawImage(shared, 50, 50);
+                    if (i == 1) {
+                        content.drawImage(lossless, 200, 50);
+                    }
+                }
+            }
+            document.save(saved);
+        }
+
+        List<ImageStreamExtractor.ExtractedImage> images = new ArrayList<>();
+        try (PDDocument document = Loader.loadPDF(saved.toByteArray())) {
+            assertEquals(2, new ImageStreamExtractor(document, true, null).extract(images::add));
+        }
+
+        assertEquals("jpg", images.get(0).extension());
+        assertTrue(images.get(0).passthrough());
+        assertArrayEquals(jpeg.toByteArray(), images.get(0).data());
+        assertEquals("png", images.get(1).extension());
+        assertEquals(2, images.get(1).pageNumber());
+        assertEquals(64, ImageIO.read(new ByteArrayInputStream(images.get(1).data())).getWidth());
+    }
+}
@@ -0,0 +1,68 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.interactive.annotation.PDAnnotationText;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalUpdateWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWrite_AppendsOnlyTheEdit() throws IOException {
+        Path source = tempDir.resolve("source.pdf");
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int i = 0; i < 50; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 12);
+                    content.newLineAtOffset(50, 700);
+                    content.showText("Page " + (i + 1) + " " + "lorem ipsum dolor sit amet ".repeat(8));
+                    content.endText();
+                }
+            }
+            document.save(source.toFile());
+        }
+
+        Path target = tempDir.resolve("edited.pdf");
+        try (PDDocument document = Loader.loadPDF(source.toFile(), IOUtils.createMemoryOnlyStreamCache())) {
+            document.getDocumentInformation().setTitle("Edited");
+            document.addPage(new PDPage());
+            PDAnnotationText note = new PDAnnotationText();
+            note.setContents("Reviewed");
+            PDPage annotated = document.getPage(3);
+            annotated.setAnnotations(List.of(note));
+            IncrementalUpdateWriter.write(document, source, target);
+        }
+
+        byte[] original = Files.readAllBytes(source);
+        byte[] edited = Files.readAllBytes(target);
+        assertArrayEquals(original, Arrays.copyOf(edited, original.length));
+        assertTrue(edited.length - original.length < original.length / 4);
+
+        try (PDDocument document = Loader.loadPDF(target.toFile())) {
+            assertEquals("Edited", document.getDocumentInformation().getTitle());
+            assertEquals(51, document.getNumberOfPages());
+            assertEquals("Reviewed", document.getPage(3).getAnnotations().get(0).getContents());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+    
+    @Test
+    void testPercentiles_WithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(500, histogram.percentile(50), 500 * 0.125);
+        assertEquals(950, histogram.percentile(95), 950 * 0.125);
+        assertEquals(990, histogram.percentile(99), 990 * 0.125);
+        assertTrue(histogram.percentile(50) >= 500);
+    }
+    
+    @Test
+    void testAdd_MergesCounts() {
+        LatencyHistogram fast = new LatencyHistogram();
+        LatencyHistogram slow = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            fast.record(5);
+        }
+        slow.record(60_000);
+        
+        fast.add(slow);
+        
+        assertEquals(100, fast.getCount());
+        assertEquals(5, fast.percentile(50));
+        assertEquals(5, fast.percentile(99));
+        assertEquals(60_000, fast.percentile(100));
+    }
+    
+    @Test
+    void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        
+        assertEquals(0, histogram.percentile(99));
+        assertEquals(0.0, histogram.getMean());
+    }
+}
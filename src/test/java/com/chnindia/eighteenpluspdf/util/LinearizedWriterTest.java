@@ -0,0 +1,236 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.InflaterInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinearizedWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWrite_PutsFirstPageAndLinearizationDictionaryUpFront() throws IOException {
+        Path source = tempDir.resolve("source.pdf");
+        try (PDDocument document = new PDDocument()) {
+            // One font object shared by every page
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            for (int i = 1; i <= 3; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Page " + i);
+                    content.endText();
+                }
+            }
+            document.save(source.toFile());
+        }
+
+        Path output = tempDir.resolve("output.pdf");
+        try (PDDocument document = Loader.loadPDF(source.toFile())) {
+            assertTrue(new LinearizedWriter(document, null).write(output));
+        }
+
+        byte[] bytes = Files.readAllBytes(output);
+        String head = new String(bytes, 0, 1024, StandardCharsets.ISO_8859_1);
+        assertTrue(head.contains("/Linearized 1"), head);
+        assertEquals(bytes.length, entry(head, "L"));
+        assertEquals(3, entry(head, "N"));
+        // The first page ends well before the rest of the file
+        long firstPageEnd = entry(head, "E");
+        assertTrue(firstPageEnd < bytes.length);
+        String firstPart = new String(bytes, 0, (int) firstPageEnd, StandardCharsets.ISO_8859_1);
+        assertTrue(firstPart.contains("/Helvetica"));
+
+        try (PDDocument document = Loader.loadPDF(output.toFile())) {
+            assertEquals(3, document.getNumberOfPages());
+            assertEquals("Page 1\nPage 2\nPage 3\n", new PDFTextStripper().getText(document));
+        }
+    }
+
+    @Test
+    void testWrite_HintTablesDescribeTheLayout() throws IOException {
+        Path source = tempDir.resolve("hints.pdf");
+        try (PDDocument document = new PDDocument()) {
+            // Times on pages 1 and 4, Courier shared by pages 2 and 3
+            PDType1Font times = new PDType1Font(Standard14Fonts.FontName.TIMES_ROMAN);
+            PDType1Font courier = new PDType1Font(Standard14Fonts.FontName.COURIER);
+            PDType1Font[] fonts = {times, courier, courier, times};
+            for (int i = 0; i < fonts.length; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(fonts[i], 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Page " + (i + 1));
+                    content.endText();
+                }
+            }
+            document.save(source.toFile());
+        }
+        Path output = tempDir.resolve("hints-linearized.pdf");
+        try (PDDocument document = Loader.loadPDF(source.toFile())) {
+            assertTrue(new LinearizedWriter(document, null).write(output));
+        }
+
+        byte[] bytes = Files.readAllBytes(output);
+        String text = new String(bytes, StandardCharsets.ISO_8859_1);
+        Matcher hints = Pattern.compile("/H \\[ (\\d+) +(\\d+) +\\]").matcher(text);
+        assertTrue(hints.find());
+        int hintOffset = Integer.parseInt(hints.group(1));
+        int hintLength = Integer.parseInt(hints.group(2));
+        String hintHead = text.substring(hintOffset, text.indexOf("stream\n", hintOffset));
+        int dataStart = text.indexOf("stream\n", hintOffset) + "stream\n".length();
+        byte[] table;
+        try (InflaterInputStream in = new InflaterInputStream(
+                new ByteArrayInputStream(bytes, dataStart, (int) entry(hintHead, "Length")))) {
+            table = in.readAllBytes();
+        }
+
+        // Page offset hint table header, Table F.3
+        BitReader page = new BitReader(table, 0);
+        long minObjects = page.read(32);
+        long firstPageOffset = page.read(32);
+        int objectBits = (int) page.read(16);
+        long minLength = page.read(32);
+        int lengthBits = (int) page.read(16);
+        page.read(32);
+        int contentOffsetBits = (int) page.read(16);
+        long minContentLength = page.read(32);
+        int contentLengthBits = (int) page.read(16);
+        int refCountBits = (int) page.read(16);
+        int refIdBits = (int) page.read(16);
+        int numeratorBits = (int) page.read(16);
+        assertEquals(4, page.read(16), "shared object reference denominator");
+        assertEquals(hintOffset, firstPageOffset);
+        assertEquals(0, contentOffsetBits);
+
+        // Per-page entries, Table F.4, each item for all pages and byte aligned
+        long[] objects = page.readAll(4, objectBits, minObjects);
+        long[] lengths = page.readAll(4, lengthBits, minLength);
+        long[] refCounts = page.readAll(4, refCountBits, 0);
+        List<long[]> refs = new ArrayList<>();
+        for (long count : refCounts) {
+            refs.add(page.readN((int) count, refIdBits));
+        }
+        page.align();
+        page.readN((int) Arrays.stream(refCounts).sum(), numeratorBits);
+        page.align();
+        assertArrayEquals(lengths, page.readAll(4, contentLengthBits, minContentLength));
+
+        // Each page section starts with its page object, where the lengths before it add up to
+        long offset = firstPageOffset;
+        for (int i = 0; i < 4; i++) {
+            String object = objectAt(text, offset + hintLength);
+            assertTrue(object.contains("/Type /Page") && !object.contains("/Type /Pages"), "page " + (i + 1) + ": " + object);
+            offset += lengths[i];
+        }
+        assertEquals(0, refCounts[0]);
+
+        // Shared object hint table, Table F.5, at the offset given by /S
+        BitReader shared = new BitReader(table, (int) entry(hintHead, "S"));
+        long firstSharedNumber = shared.read(32);
+        long firstSharedOffset = shared.read(32);
+        long firstPageGroups = shared.read(32);
+        long groupCount = shared.read(32);
+        assertEquals(0, shared.read(16), "bits for objects per group");
+        long minGroup = shared.read(32);
+        int groupBits = (int) shared.read(16);
+        long[] groups = shared.readAll((int) groupCount, groupBits, minGroup);
+        assertArrayEquals(new long[(int) groupCount], shared.readAll((int) groupCount, 1, 0), "no MD5 signatures");
+
+        // The first page's groups cover its section; the shared section follows the last page
+        assertEquals(objects[0], firstPageGroups);
+        assertEquals(lengths[0], Arrays.stream(groups, 0, (int) firstPageGroups).sum());
+        assertEquals(offset, firstSharedOffset);
+        assertTrue(objectAt(text, firstSharedOffset + hintLength).startsWith(firstSharedNumber + " 0 obj"));
+        assertTrue(objectAt(text, firstSharedOffset + hintLength).contains("/Courier"));
+
+        // Pages 2 and 3 point at the shared Courier group, page 4 at Times in the first page groups
+        assertArrayEquals(refs.get(1), refs.get(2));
+        assertEquals(1, refs.get(1).length);
+        assertEquals(firstPageGroups, refs.get(1)[0]);
+        assertTrue(Arrays.stream(refs.get(3)).allMatch(id -> id < firstPageGroups));
+        long timesGroup = refs.get(3)[refs.get(3).length - 1];
+        long timesOffset = firstPageOffset + Arrays.stream(groups, 0, (int) timesGroup).sum();
+        assertTrue(objectAt(text, timesOffset + hintLength).contains("/Times-Roman"));
+    }
+
+    private static String objectAt(String text, long offset) {
+        String object = text.substring((int) offset, text.indexOf("endobj", (int) offset));
+        assertTrue(object.matches("(?s)\\d+ 0 obj\\n.*"), object);
+        return object;
+    }
+
+    private static long entry(String head, String key) {
+        Matcher matcher = Pattern.compile("/" + key + " +(\\d+)").matcher(head);
+        assertTrue(matcher.find(), "missing /" + key);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /**
+     * Reads the hint tables' values, most significant bit first
+     */
+    private static class BitReader {
+        private final byte[] data;
+        private long position;
+
+        BitReader(byte[] data, int offset) {
+            this.data = data;
+            this.position = offset * 8L;
+        }
+
+        long read(int bits) {
+            long value = 0;
+            for (int i = 0; i < bits; i++, position++) {
+                value = value << 1 | (data[(int) (position / 8)] >> (7 - position % 8) & 1);
+            }
+            return value;
+        }
+
+        long[] readN(int count, int bits) {
+            long[] values = new long[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = read(bits);
+            }
+            return values;
+        }
+
+        long[] readAll(int count, int bits, long least) {
+            long[] values = readN(count, bits);
+            align();
+            for (int i = 0; i < count; i++) {
+                values[i] += least;
+            }
+            return values;
+        }
+
+        void align() {
+            position = (position + 7) / 8 * 8;
+        }
+    }
+}
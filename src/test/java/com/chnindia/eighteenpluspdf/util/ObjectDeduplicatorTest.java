@@ -0,0 +1,61 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ObjectDeduplicatorTest {
+
+    @Test
+    void testDeduplicate_MergesIdenticalImagesAndWhatReferencesThem() throws IOException {
+        BufferedImage logo = new BufferedImage(120, 120, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(3);
+        for (int x = 0; x < 120; x++) {
+            for (int y = 0; y < 120; y++) {
+                logo.setRGB(x, y, random.nextInt());
+            }
+        }
+        ByteArrayOutputStream source = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            // Each page gets its own copy of the logo, as pages merged from separate files would
+            for (int i = 0; i < 2; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.drawImage(LosslessFactory.createFromImage(document, logo), 50, 50);
+                }
+            }
+            document.save(source);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (PDDocument document = Loader.loadPDF(source.toByteArray())) {
+            ObjectDeduplicator.Result result = new ObjectDeduplicator(document, null).deduplicate();
+            // The image, then the identical content streams and resource dictionaries
+            assertTrue(result.objectsRemoved() >= 3, "removed " + result.objectsRemoved());
+            assertTrue(result.bytesSaved() > 120 * 120 * 2);
+            document.save(output);
+        }
+
+        try (PDDocument document = Loader.loadPDF(output.toByteArray())) {
+            assertEquals(2, document.getNumberOfPages());
+            PDImageXObject first = (PDImageXObject) document.getPage(0).getResources().getXObject(COSName.getPDFName("Im1"));
+            PDImageXObject second = (PDImageXObject) document.getPage(1).getResources().getXObject(COSName.getPDFName("Im1"));
+            assertSame(first.getCOSObject(), second.getCOSObject());
+            assertNotSame(document.getPage(0).getCOSObject(), document.getPage(1).getCOSObject());
+        }
+        assertTrue(output.size() < source.size() * 2 / 3);
+    }
+}
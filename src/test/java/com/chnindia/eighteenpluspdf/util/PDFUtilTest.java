@@ -0,0 +1,90 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import com.chnindia.eighteenpluspdf.exception.PDFProcessingException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PDFUtilTest {
+
+    private static final long MB = 1024 * 1024;
+
+    private PDFUtil pdfUtil;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        pdfUtil = new PDFUtil();
+        ReflectionTestUtils.setField(pdfUtil, "scratchDir", tempDir.resolve("scratch").toString());
+        ReflectionTestUtils.setField(pdfUtil, "totalMemoryMB", 20L);
+        ReflectionTestUtils.setField(pdfUtil, "maxPages", 3);
+        ReflectionTestUtils.setField(pdfUtil, "maxFileSizeMB", 500);
+    }
+
+    @Test
+    void testStreamCache_DocumentsShareOneHeapPool() throws IOException {
+        Path file = writePdf("small.pdf", 2);
+
+        PDDocument first = pdfUtil.loadDocument(file);
+        PDDocument second = pdfUtil.loadDocument(file);
+        // Small documents reserve the minimum budget; only 4 MB of the pool is left after two
+        assertEquals(16 * MB, pdfUtil.getReservedHeapBytes());
+        try (PDDocument spilled = pdfUtil.loadDocument(file)) {
+            assertEquals(2, spilled.getNumberOfPages());
+            assertEquals(16 * MB, pdfUtil.getReservedHeapBytes());
+            assertEquals(1, pdfUtil.getSpilledDocuments());
+        }
+
+        first.close();
+        assertEquals(8 * MB, pdfUtil.getReservedHeapBytes());
+        try (PDDocument created = pdfUtil.createDocument(100 * MB)) {
+            // Capped by what is left of the pool, not the per-document ceiling
+            assertEquals(20 * MB, pdfUtil.getReservedHeapBytes());
+            created.addPage(new PDPage());
+        }
+        second.close();
+        second.close();
+        assertEquals(0, pdfUtil.getReservedHeapBytes());
+    }
+
+    @Test
+    void testLoadPDF_ParsesOnceAndLeavesSessionAlone() throws IOException {
+        Path file = writePdf("edit.pdf", 2);
+        Path tooLong = writePdf("long.pdf", 4);
+        pdfUtil.beginJobScope("job-1");
+        try {
+            try (PDDocument document = pdfUtil.loadPDF(file)) {
+                assertEquals(2, document.getNumberOfPages());
+                // Only the returned copy holds a reservation; validation did not parse into the session
+                assertEquals(8 * MB, pdfUtil.getReservedHeapBytes());
+            }
+            PDFProcessingException e = assertThrows(PDFProcessingException.class, () -> pdfUtil.loadPDF(tooLong));
+            assertEquals("TOO_MANY_PAGES", e.getErrorCode());
+            // The rejected copy was closed
+            assertEquals(0, pdfUtil.getReservedHeapBytes());
+        } finally {
+            pdfUtil.endJobScope();
+        }
+    }
+
+    private Path writePdf(String name, int pages) throws IOException {
+        Path file = tempDir.resolve(name);
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                document.addPage(new PDPage());
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+}
@@ -0,0 +1,58 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageRenderStreamTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private final ParallelWorkPool pool = new ParallelWorkPool(4);
+    
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+    
+    @Test
+    void testPages_HandedOutInOrder() throws IOException {
+        Path file = tempDir.resolve("pages.pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < 12; i++) {
+                document.addPage(new PDPage());
+            }
+            document.save(file.toFile());
+        }
+        
+        int[] pageIndices = {2, 3, 4, 5, 6, 7, 8, 9};
+        try (PageRenderStream pages = new PageRenderStream(file, IOUtils.createMemoryOnlyStreamCache(),
+                null, pageIndices, 9, pool, 4, 2, CancellationToken.NONE)) {
+            int expected = 2;
+            while (pages.hasNext()) {
+                PageRenderStream.Page page = pages.next();
+                assertEquals(expected++, page.pageIndex());
+                assertNotNull(page.image());
+            }
+            assertEquals(10, expected);
+        }
+    }
+    
+    @Test
+    void testRenderFailure_SurfacesToConsumer() {
+        Path missing = tempDir.resolve("missing.pdf");
+        try (PageRenderStream pages = new PageRenderStream(missing, IOUtils.createMemoryOnlyStreamCache(),
+                null, new int[] {0, 1}, 9, pool, 2, 2, CancellationToken.NONE)) {
+            assertThrows(IOException.class, pages::next);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageSizeEstimatorTest {
+
+    @Test
+    void testCost_SharedImageCountedOncePerPart() throws IOException {
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        try (PDDocument document = new PDDocument()) {
+            BufferedImage noise = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+            Random random = new Random(1);
+            for (int x = 0; x < 200; x++) {
+                for (int y = 0; y < 200; y++) {
+                    noise.setRGB(x, y, random.nextInt());
+                }
+            }
+            PDImageXObject image = LosslessFactory.createFromImage(document, noise);
+            for (int i = 0; i < 3; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.drawImage(image, 50, 50);
+                }
+            }
+            document.save(saved);
+        }
+
+        try (PDDocument document = Loader.loadPDF(saved.toByteArray())) {
+            PageSizeEstimator estimator = new PageSizeEstimator();
+            PageSizeEstimator.Part part = estimator.newPart();
+            PageSizeEstimator.Footprint first = estimator.measure(document.getPage(0));
+            long firstCost = part.cost(first);
+            part.add(first);
+            long secondCost = part.cost(estimator.measure(document.getPage(1)));
+
+            assertTrue(firstCost > 100_000, "first page carries the image");
+            assertTrue(secondCost < 2_000, "second page reuses it");
+            assertEquals(firstCost, estimator.newPart().cost(estimator.measure(document.getPage(2))));
+            assertTrue(Math.abs(part.getBytes() - saved.size()) < saved.size() / 4);
+        }
+    }
+}
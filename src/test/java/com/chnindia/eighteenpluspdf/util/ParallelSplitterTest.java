@@ -0,0 +1,103 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdfwriter.compress.CompressParameters;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelSplitterTest {
+    
+    @TempDir
+    Path tempDir;
+
+    private final ParallelWorkPool pool = new ParallelWorkPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+    
+    @Test
+    void testWrite_PartsKeepInheritedPageAttributes() throws IOException {
+        Path file = tempDir.resolve("source.pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < 7; i++) {
+                PDPage page = new PDPage();
+                page.getCOSObject().removeItem(COSName.MEDIA_BOX);
+                document.addPage(page);
+            }
+            // Media box inherited from the page tree root
+            document.getPages().getCOSObject().setItem(COSName.MEDIA_BOX, PDRectangle.A5.getCOSArray());
+            document.save(file.toFile());
+        }
+        
+        List<ParallelSplitter.Part> parts = List.of(
+            new ParallelSplitter.Part(1, 3, tempDir.resolve("a.pdf")),
+            new ParallelSplitter.Part(4, 6, tempDir.resolve("b.pdf")),
+            new ParallelSplitter.Part(7, 7, tempDir.resolve("c.pdf")));
+        new ParallelSplitter(file, IOUtils.createMemoryOnlyStreamCache(), pool, 3,
+            CompressParameters.DEFAULT_COMPRESSION, CancellationToken.NONE).write(parts);
+        
+        int[] expectedPages = {3, 3, 1};
+        for (int i = 0; i < parts.size(); i++) {
+            try (PDDocument part = Loader.loadPDF(parts.get(i).target().toFile())) {
+                assertEquals(expectedPages[i], part.getNumberOfPages());
+                assertEquals(PDRectangle.A5.getWidth(), part.getPage(0).getMediaBox().getWidth(), 0.01);
+            }
+        }
+    }
+    
+    @Test
+    void testWrite_PartsGoStraightIntoArchive() throws IOException {
+        Path file = tempDir.resolve("source.pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < 5; i++) {
+                document.addPage(new PDPage());
+            }
+            document.save(file.toFile());
+        }
+        Path spillDir = Files.createDirectory(tempDir.resolve("spill"));
+        Path zip = tempDir.resolve("parts.zip");
+        
+        List<ParallelSplitter.Part> parts = new ArrayList<>();
+        for (int p = 1; p <= 5; p++) {
+            parts.add(new ParallelSplitter.Part(p, p, Path.of("page" + p + ".pdf")));
+        }
+        try (ResultArchive archive = new ResultArchive(Files.newOutputStream(zip))) {
+            new ParallelSplitter(file, IOUtils.createMemoryOnlyStreamCache(), pool, 3,
+                CompressParameters.DEFAULT_COMPRESSION, CancellationToken.NONE).write(parts, archive, spillDir.toFile());
+        }
+        
+        // Nothing was written outside the archive
+        assertFalse(Files.exists(Path.of("page1.pdf")));
+        try (var spilled = Files.list(spillDir)) {
+            assertEquals(0, spilled.count());
+        }
+        try (ZipFile archive = new ZipFile(zip.toFile())) {
+            Set<String> names = new TreeSet<>();
+            for (ZipEntry entry : Collections.list(archive.entries())) {
+                names.add(entry.getName());
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                try (PDDocument part = Loader.loadPDF(archive.getInputStream(entry).readAllBytes())) {
+                    assertEquals(1, part.getNumberOfPages());
+                }
+            }
+            assertEquals(Set.of("page1.pdf", "page2.pdf", "page3.pdf", "page4.pdf", "page5.pdf"), names);
+        }
+    }
+}
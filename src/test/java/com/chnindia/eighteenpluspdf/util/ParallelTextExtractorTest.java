@@ -0,0 +1,74 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelTextExtractorTest {
+    
+    @TempDir
+    Path tempDir;
+
+    private final ParallelWorkPool pool = new ParallelWorkPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+    
+    @Test
+    void testShardedExtraction_MatchesSingleStripper() throws IOException {
+        Path file = tempDir.resolve("text.pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 1; i <= 10; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                // Page 5 has no content stream at all
+                if (i == 5) continue;
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 12);
+                    content.newLineAtOffset(72, 700);
+                    content.showText("Page " + i + " text");
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        
+        String expected;
+        try (PDDocument document = org.apache.pdfbox.Loader.loadPDF(file.toFile())) {
+            expected = new PDFTextStripper().getText(document);
+        }
+        
+        StringBuilder text = new StringBuilder();
+        List<Integer> pages = new ArrayList<>();
+        ParallelTextExtractor.Result result = new ParallelTextExtractor(file, IOUtils.createMemoryOnlyStreamCache(),
+                pool, 3, 3, CancellationToken.NONE)
+            .extract(null, 1, 10, (page, pageText) -> {
+                pages.add(page);
+                text.append(pageText);
+            });
+        
+        assertEquals(expected, text.toString());
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), pages);
+        assertEquals(10, result.pageCount());
+        assertEquals(expected.length(), result.length());
+        assertEquals(expected.indexOf("Page 7"), result.pageOffsets().get(7));
+        assertEquals(result.pageOffsets().get(5), result.pageOffsets().get(6));
+    }
+}
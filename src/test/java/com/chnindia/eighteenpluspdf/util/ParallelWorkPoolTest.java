@@ -0,0 +1,95 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelWorkPoolTest {
+
+    private final ParallelWorkPool pool = new ParallelWorkPool(2);
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void testInvoke_CallerDoesTheWorkWhenPoolIsBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch busy = new CountDownLatch(2);
+        ParallelWorkPool.Group blockers = pool.start(2, caller -> {
+            busy.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        assertTrue(busy.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger next = new AtomicInteger();
+        List<Integer> done = pool.invoke(3, caller -> {
+            int count = 0;
+            while (next.getAndIncrement() < 20) {
+                assertTrue(caller);
+                count++;
+            }
+            return count;
+        });
+
+        // Helpers queued behind the busy threads were dropped, not waited for
+        assertEquals(List.of(20), done);
+        release.countDown();
+        blockers.stop(false);
+        blockers.await();
+    }
+
+    @Test
+    void testInvoke_HelperFailureReachesCaller() throws Exception {
+        CountDownLatch helperFailed = new CountDownLatch(1);
+        IOException e = assertThrows(IOException.class, () -> pool.invoke(1, caller -> {
+            if (!caller) {
+                helperFailed.countDown();
+                throw new IOException("broken copy");
+            }
+            try {
+                assertTrue(helperFailed.await(5, TimeUnit.SECONDS));
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        assertEquals("broken copy", e.getMessage());
+    }
+
+    @Test
+    void testStop_InterruptsRunningHelpers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        ParallelWorkPool.Group group = pool.start(1, caller -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        group.stop(true);
+        group.await();
+
+        assertEquals(0, interrupted.getCount());
+        // The pool thread is clean for the next task
+        assertFalse(pool.invoke(1, caller -> Thread.currentThread().isInterrupted()).contains(true));
+    }
+}
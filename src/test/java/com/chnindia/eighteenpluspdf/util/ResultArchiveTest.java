@@ -0,0 +1,38 @@
+package com.chnindia.eighteenpluspdf.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultArchiveTest {
+
+    @Test
+    void testAdd_StoresCompressedFormatsAndDeflatesText() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ResultArchive archive = new ResultArchive(out)) {
+            archive.add("page.png", new byte[]{1, 2, 3});
+            archive.add("notes.txt", "text ".repeat(100).getBytes(StandardCharsets.UTF_8));
+            assertEquals("page_2.png", archive.add("page.png", new byte[]{4}));
+        }
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                int expected = entry.getName().endsWith(".png") ? ZipEntry.STORED : ZipEntry.DEFLATED;
+                assertEquals(expected, entry.getMethod(), entry.getName());
+            }
+        }
+        assertEquals(List.of("page.png", "notes.txt", "page_2.png"), names);
+    }
+}